@@ -0,0 +1,114 @@
+package org.kevoree.modeling.util.maths.structure.blas.impl;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import org.kevoree.modeling.util.maths.structure.blas.KBlasTransposeType;
+
+/**
+ * BlockedBlas whose unit stride ddot and daxpy, and so dgemv which is built on them, run on the SIMD lanes of the
+ * jdk.incubator.vector API, as does dgemm when neither A nor B is transposed: every column of C is accumulated as
+ * vectorized axpy of the columns of A, K blocks of A staying in cache while the column blocks of C are split over the
+ * fork-join pool. Other cases are left to BlockedBlas.
+ * Needs a JVM started with --add-modules jdk.incubator.vector, DataManagerBuilder using it by default when it loads.
+ */
+public class VectorBlas extends BlockedBlas {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    /* columns of A kept in cache while sweeping a block of columns of C */
+    private static final int KC = 256;
+
+    public VectorBlas() {
+        super();
+    }
+
+    public VectorBlas(int p_parallelism) {
+        super(p_parallelism);
+    }
+
+    @Override
+    public double ddot(int n, double[] x, int offsetX, int incX, double[] y, int offsetY, int incY) {
+        if (incX != 1 || incY != 1 || n < SPECIES.length()) {
+            return super.ddot(n, x, offsetX, incX, y, offsetY, incY);
+        }
+        DoubleVector sum = DoubleVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(n);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector vx = DoubleVector.fromArray(SPECIES, x, offsetX + i);
+            DoubleVector vy = DoubleVector.fromArray(SPECIES, y, offsetY + i);
+            sum = vx.fma(vy, sum);
+        }
+        double result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            result += x[offsetX + i] * y[offsetY + i];
+        }
+        return result;
+    }
+
+    @Override
+    public void daxpy(int n, double alpha, double[] x, int offsetX, int incX, double[] y, int offsetY, int incY) {
+        if (incX != 1 || incY != 1 || n < SPECIES.length()) {
+            super.daxpy(n, alpha, x, offsetX, incX, y, offsetY, incY);
+            return;
+        }
+        if (alpha == 0.0) {
+            return;
+        }
+        axpy(n, alpha, x, offsetX, y, offsetY);
+    }
+
+    private static void axpy(int n, double alpha, double[] x, int offsetX, double[] y, int offsetY) {
+        DoubleVector va = DoubleVector.broadcast(SPECIES, alpha);
+        int bound = SPECIES.loopBound(n);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector vx = DoubleVector.fromArray(SPECIES, x, offsetX + i);
+            DoubleVector vy = DoubleVector.fromArray(SPECIES, y, offsetY + i);
+            vx.fma(va, vy).intoArray(y, offsetY + i);
+        }
+        for (; i < n; i++) {
+            y[offsetY + i] += alpha * x[offsetX + i];
+        }
+    }
+
+    @Override
+    public void dgemm(KBlasTransposeType transA, KBlasTransposeType transB, final int m, int n, final int k, final double alpha, final double[] matA, final int offsetA, final int ldA, final double[] matB, final int offsetB, final int ldB, double beta, final double[] matC, final int offsetC, final int ldC) {
+        if (!transA.equals(KBlasTransposeType.NOTRANSPOSE) || !transB.equals(KBlasTransposeType.NOTRANSPOSE) || m < SPECIES.length() || alpha == 0.0 || k == 0) {
+            super.dgemm(transA, transB, m, n, k, alpha, matA, offsetA, ldA, matB, offsetB, ldB, beta, matC, offsetC, ldC);
+            return;
+        }
+        if (beta != 1.0) {
+            for (int j = 0; j < n; j++) {
+                int column = offsetC + j * ldC;
+                for (int i = 0; i < m; i++) {
+                    if (beta == 0.0) {
+                        matC[column + i] = 0.0;
+                    } else {
+                        matC[column + i] = beta * matC[column + i];
+                    }
+                }
+            }
+        }
+        forColumns(new ColumnRange() {
+            @Override
+            public void columns(int from, int to) {
+                for (int pc = 0; pc < k; pc += KC) {
+                    int kc = Math.min(KC, k - pc);
+                    for (int j = from; j < to; j++) {
+                        int columnB = offsetB + j * ldB;
+                        int columnC = offsetC + j * ldC;
+                        for (int p = pc; p < pc + kc; p++) {
+                            double b = alpha * matB[columnB + p];
+                            if (b != 0.0) {
+                                axpy(m, b, matA, offsetA + p * ldA, matC, columnC);
+                            }
+                        }
+                    }
+                }
+            }
+        }, n, 1, (long) m * n * k);
+    }
+
+}
@@ -0,0 +1,90 @@
+package org.kevoree.modeling.util.maths.structure.blas.impl;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kevoree.modeling.memory.manager.DataManagerBuilder;
+import org.kevoree.modeling.util.maths.structure.blas.KBlas;
+import org.kevoree.modeling.util.maths.structure.blas.KBlasTransposeType;
+
+import java.util.Random;
+
+public class VectorBlasTest {
+
+    private static final double EPS = 1e-7;
+
+    private static double[] random(int size, Random random) {
+        double[] result = new double[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = random.nextDouble() * 100 - 50;
+        }
+        return result;
+    }
+
+    private static void assertClose(double[] expected, double[] result) {
+        Assert.assertEquals(expected.length, result.length);
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertEquals(expected[i], result[i], EPS * Math.max(1, Math.abs(expected[i])));
+        }
+    }
+
+    @Test
+    public void defaultBlasTest() {
+        Assert.assertTrue(DataManagerBuilder.create().blas() instanceof VectorBlas);
+    }
+
+    @Test
+    public void level1And2Test() {
+        KBlas reference = new JavaBlas();
+        KBlas vector = new VectorBlas(1);
+        Random random = new Random(3);
+        //shorter than, a multiple of and not a multiple of the number of lanes
+        int[] sizes = {1, 3, 16, 101};
+        for (int s = 0; s < sizes.length; s++) {
+            int n = sizes[s];
+            double[] x = random(n + 1, random);
+            double[] y = random(n + 2, random);
+            Assert.assertEquals(reference.ddot(n, x, 1, 1, y, 2, 1), vector.ddot(n, x, 1, 1, y, 2, 1), EPS * n * 2500);
+            double[] expected = y.clone();
+            double[] result = y.clone();
+            reference.daxpy(n, -1.5, x, 1, 1, expected, 2, 1);
+            vector.daxpy(n, -1.5, x, 1, 1, result, 2, 1);
+            assertClose(expected, result);
+            KBlasTransposeType[] types = {KBlasTransposeType.NOTRANSPOSE, KBlasTransposeType.TRANSPOSE};
+            for (int t = 0; t < types.length; t++) {
+                int m = n + 5;
+                double[] matA = random(m * n, random);
+                double[] vx = random(m, random);
+                double[] expectedY = random(m, random);
+                double[] resultY = expectedY.clone();
+                reference.dgemv(types[t], m, n, 0.5, matA, 0, m, vx, 0, 1, 2.0, expectedY, 0, 1);
+                vector.dgemv(types[t], m, n, 0.5, matA, 0, m, vx, 0, 1, 2.0, resultY, 0, 1);
+                assertClose(expectedY, resultY);
+            }
+        }
+    }
+
+    @Test
+    public void dgemmTest() {
+        KBlas reference = new JavaBlas();
+        KBlas vector = new VectorBlas(2);
+        Random random = new Random(9);
+        int[][] sizes = {{2, 3, 4}, {37, 29, 301}, {150, 130, 270}};
+        for (int s = 0; s < sizes.length; s++) {
+            int m = sizes[s][0];
+            int n = sizes[s][1];
+            int k = sizes[s][2];
+            int ldA = m + 1;
+            int ldB = k + 2;
+            int ldC = m + 3;
+            double[] matA = random(ldA * k + 1, random);
+            double[] matB = random(ldB * n + 2, random);
+            double[] expected = random(ldC * n + 3, random);
+            double[] result = expected.clone();
+            reference.dgemm(KBlasTransposeType.NOTRANSPOSE, KBlasTransposeType.NOTRANSPOSE, m, n, k, 0.8, matA, 1, ldA, matB, 2, ldB, 0.2, expected, 3, ldC);
+            vector.dgemm(KBlasTransposeType.NOTRANSPOSE, KBlasTransposeType.NOTRANSPOSE, m, n, k, 0.8, matA, 1, ldA, matB, 2, ldB, 0.2, result, 3, ldC);
+            assertClose(expected, result);
+        }
+        vector.disconnect();
+    }
+
+}
@@ -2,7 +2,11 @@ package org.kevoree.modeling;
 
 import org.kevoree.modeling.defer.KCounterDefer;
 import org.kevoree.modeling.defer.KDefer;
+import org.kevoree.modeling.index.KIndexBuild;
+import org.kevoree.modeling.index.KOrderedIndex;
+import org.kevoree.modeling.index.KSpatialIndex;
 import org.kevoree.modeling.memory.manager.KDataManager;
+import org.kevoree.modeling.meta.KMetaAttribute;
 import org.kevoree.modeling.meta.KMetaClass;
 import org.kevoree.modeling.meta.KMetaModel;
 import org.kevoree.modeling.meta.KMetaOperation;
@@ -89,9 +93,47 @@ public interface KModel<A extends KUniverse> {
 
     void findByName(String indexName, long universe, long time, String attributes, KCallback<KObject> callback);
 
+    void findByKey(KMetaClass metaClass, long universe, long time, Object[] keyValues, KCallback<KObject> callback);
+
     void findAll(KMetaClass metaClass, long universe, long time, KCallback<KObject[]> callback);
 
     void findAllByName(String indexName, long universe, long time, KCallback<KObject[]> callback);
 
+    void orderedIndex(KMetaClass metaClass, KMetaAttribute attribute, long universe, long time, KCallback<KOrderedIndex> callback);
+
+    void findRange(KMetaClass metaClass, KMetaAttribute attribute, long universe, long time, Object min, Object max, KCallback<KObject[]> callback);
+
+    void postings(KMetaClass metaClass, KMetaAttribute attribute, long universe, long time, Object value, KCallback<long[]> callback);
+
+    void findAllMatching(KMetaClass metaClass, long universe, long time, KMetaAttribute[] attributes, Object[] values, boolean matchAll, KCallback<KObject[]> callback);
+
+    void search(KMetaClass metaClass, KMetaAttribute attribute, long universe, long time, String query, int k, KCallback<long[]> callback);
+
+    void spatialIndex(KMetaClass metaClass, KMetaAttribute latitude, long universe, long time, KCallback<KSpatialIndex> callback);
+
+    void findWithin(KMetaClass metaClass, KMetaAttribute latitude, long universe, long time, double lat, double lon, double meters, KCallback<KObject[]> callback);
+
+    void findInBox(KMetaClass metaClass, KMetaAttribute latitude, long universe, long time, double minLat, double minLon, double maxLat, double maxLon, KCallback<KObject[]> callback);
+
+    void findNearest(KMetaClass metaClass, KMetaAttribute latitude, long universe, long time, double lat, double lon, int k, KCallback<KObject[]> callback);
+
+    /**
+     * Inference of many infer objects of a same meta class, dependencies holding the samples of every infer object, or
+     * a single set of samples scored by all of them. The results of inferObjects[i] are at index i. An object which has
+     * not learned yet infers null, or NaN values through a KBatchInferAlg.
+     */
+    void inferAll(KObjectInfer[] inferObjects, KObject[][][] dependencies, KCallback<Object[][][]> callback);
+
+    /**
+     * Change log, enabled through DataManagerBuilder.withChangeLog
+     */
+    void changedBetween(long universe, long from, long to, KCallback<long[]> callback);
+
+    /**
+     * Bulk (re)build of every index of a meta class, from the given objects or from the change log when uuids is null.
+     * Without uuids nor change log, the build fails on start. A key shared by several objects goes to the highest uuid.
+     */
+    KIndexBuild buildIndexes(KMetaClass metaClass, long universe, long time, long[] uuids);
+
 
 }
\ No newline at end of file
@@ -68,6 +68,11 @@ public interface KObject {
 
     long[] getRelationValues(KMetaRelation metaRelation);
 
+    /**
+     * Objects referring to this one through metaRelation, read from its reverse index when the relation is reverse indexed.
+     */
+    void referrers(KMetaRelation metaRelation, KCallback<KObject[]> callback);
+
     /**
      * synchronous wrapper
      */
@@ -101,6 +106,12 @@ public interface KObject {
 
     void timesBetween(long beginningOfSearch, long endOfSearch, KCallback<long[]> cb);
 
+    /**
+     * Values of a numeric attribute at nbSamples evenly spaced times of [start, end], without creating objects for
+     * these times.
+     */
+    void sample(KMetaAttribute metaAttribute, long start, long end, int nbSamples, KCallback<double[]> cb);
+
     /**
      * Bulk KObject management
      */
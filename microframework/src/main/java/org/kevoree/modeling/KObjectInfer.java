@@ -1,5 +1,7 @@
 package org.kevoree.modeling;
 
+import org.kevoree.modeling.infer.KInferLearner;
+
 public interface KObjectInfer extends KObject {
 
     void genericTrain(KObject[] dependencies, Object[] expectedOutputs, KCallback callback);
@@ -12,4 +14,10 @@ public interface KObjectInfer extends KObject {
 
     void resetLearning();
 
+    /**
+     * Learns samples one at a time on an in-memory state written to this object every checkpointPeriod samples, the
+     * infer algorithm having to be a KOnlineInferAlg.
+     */
+    KInferLearner learner(int checkpointPeriod);
+
 }
@@ -4,6 +4,17 @@ import org.kevoree.modeling.*;
 import org.kevoree.modeling.defer.KCounterDefer;
 import org.kevoree.modeling.defer.KDefer;
 import org.kevoree.modeling.defer.impl.CounterDefer;
+import org.kevoree.modeling.index.KIndexBuild;
+import org.kevoree.modeling.index.KOrderedIndex;
+import org.kevoree.modeling.index.KSpatialIndex;
+import org.kevoree.modeling.index.KChangeLog;
+import org.kevoree.modeling.index.impl.IndexBuild;
+import org.kevoree.modeling.index.impl.IndexKeys;
+import org.kevoree.modeling.index.impl.OrderedIndex;
+import org.kevoree.modeling.index.impl.PostingIndex;
+import org.kevoree.modeling.index.impl.Postings;
+import org.kevoree.modeling.index.impl.SpatialIndex;
+import org.kevoree.modeling.index.impl.TextIndex;
 import org.kevoree.modeling.memory.chunk.KStringMap;
 import org.kevoree.modeling.memory.chunk.impl.ArrayStringMap;
 import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
@@ -189,72 +200,78 @@ public abstract class AbstractKModel<A extends KUniverse> implements KModel<A> {
                 callback.on(null);
             }
         } else {
-            _manager.index(universe, time, indexName, false, new KCallback<KObjectIndex>() {
-                @Override
-                public void on(KObjectIndex kObjectIndex) {
-                    String concat = "";
-                    KStringMap<String> params = buildParams(attributes);
-                    if (params.size() == 0) {
-                        concat = attributes;
-                    } else {
-                        KMetaClass currentClass = metaModel().metaClassByName(indexName);
-                        if (currentClass == null) {
-                            concat = attributes;
-                        } else {
-                            KMeta[] elems = currentClass.metaElements();
-                            for (int i = 0; i < elems.length; i++) {
-                                if (elems[i] != null && elems[i].metaType().equals(MetaType.ATTRIBUTE) && ((KMetaAttribute) elems[i]).key()) {
-                                    String lvalue = params.get(elems[i].metaName());
-                                    if (lvalue != null) {
-                                        concat += lvalue;
-                                    }
-                                }
-                            }
-                        }
-                    }
-                    if (kObjectIndex == null) {
-                        if (Checker.isDefined(callback)) {
-                            callback.on(null);
-                        }
-                    } else {
-                        long objectUUID = kObjectIndex.getIndex(concat);
-                        if (objectUUID == KConfig.NULL_LONG) {
-                            if (Checker.isDefined(callback)) {
-                                callback.on(null);
-                            }
-                        } else {
-                            _manager.lookup(universe, time, objectUUID, callback);
+            KMetaClass currentClass = metaModel().metaClassByName(indexName);
+            if (currentClass == null) {
+                internal_findByKey(indexName, universe, time, attributes, callback);
+            } else {
+                KStringMap<String> params = buildParams(attributes);
+                Object[] keyValues;
+                if (params.size() == 0) {
+                    keyValues = new Object[]{attributes};
+                } else {
+                    KMeta[] elems = currentClass.metaElements();
+                    keyValues = new Object[elems.length];
+                    int nbKeys = 0;
+                    for (int i = 0; i < elems.length; i++) {
+                        if (elems[i] != null && elems[i].metaType().equals(MetaType.ATTRIBUTE) && ((KMetaAttribute) elems[i]).key()) {
+                            keyValues[nbKeys] = params.get(elems[i].metaName());
+                            nbKeys++;
                         }
                     }
                 }
-            });
+                internal_findByKey(indexName, universe, time, IndexKeys.compositeKey(currentClass, keyValues, metaModel()), callback);
+            }
         }
     }
 
+    @Override
+    public void findByKey(KMetaClass metaClass, long universe, long time, Object[] keyValues, KCallback<KObject> callback) {
+        internal_findByKey(metaClass.metaName(), universe, time, IndexKeys.compositeKey(metaClass, keyValues, metaModel()), callback);
+    }
+
+    private void internal_findByKey(String indexName, long universe, long time, String key, KCallback<KObject> callback) {
+        if (key == null) {
+            if (Checker.isDefined(callback)) {
+                callback.on(null);
+            }
+            return;
+        }
+        _manager.index(universe, time, indexName, false, new KCallback<KObjectIndex>() {
+            @Override
+            public void on(KObjectIndex kObjectIndex) {
+                long objectUUID = KConfig.NULL_LONG;
+                if (kObjectIndex != null) {
+                    objectUUID = kObjectIndex.getIndex(key);
+                }
+                if (objectUUID == KConfig.NULL_LONG) {
+                    if (Checker.isDefined(callback)) {
+                        callback.on(null);
+                    }
+                } else {
+                    _manager.lookup(universe, time, objectUUID, callback);
+                }
+            }
+        });
+    }
+
     private KStringMap<String> buildParams(String p_paramString) {
         KStringMap<String> params = new ArrayStringMap<String>(KConfig.CACHE_INIT_SIZE, KConfig.CACHE_LOAD_FACTOR);
         int iParam = 0;
         int lastStart = iParam;
-        while (iParam < p_paramString.length()) {
-            if (p_paramString.charAt(iParam) == QueryEngine.VALS_SEP) {
-                String p = p_paramString.substring(lastStart, iParam).trim();
-                if (!PrimitiveHelper.equals(p, "")) {
-                    String[] pArray = p.split(QueryEngine.VAL_SEP);
-                    if (pArray.length > 1) {
-                        params.put(pArray[0].trim(), pArray[1].trim());
+        while (iParam <= p_paramString.length()) {
+            if (iParam == p_paramString.length() || p_paramString.charAt(iParam) == QueryEngine.VALS_SEP) {
+                int separator = p_paramString.indexOf(QueryEngine.VAL_SEP, lastStart);
+                if (separator != -1 && separator < iParam) {
+                    String name = p_paramString.substring(lastStart, separator).trim();
+                    String value = p_paramString.substring(separator + 1, iParam).trim();
+                    if (name.length() > 0 && value.length() > 0) {
+                        params.put(name, value);
                     }
                 }
                 lastStart = iParam + 1;
             }
             iParam = iParam + 1;
         }
-        String lastParam = p_paramString.substring(lastStart, iParam).trim();
-        if (!PrimitiveHelper.equals(lastParam, "")) {
-            String[] pArray = lastParam.split(QueryEngine.VAL_SEP);
-            if (pArray.length > 1) {
-                params.put(pArray[0].trim(), pArray[1].trim());
-            }
-        }
         return params;
     }
 
@@ -284,5 +301,141 @@ public abstract class AbstractKModel<A extends KUniverse> implements KModel<A> {
         });
     }
 
-}
+    @Override
+    public void orderedIndex(KMetaClass metaClass, KMetaAttribute attribute, long universe, long time, KCallback<KOrderedIndex> callback) {
+        _manager.index(universe, time, IndexKeys.orderedIndexName(metaClass, attribute), false, new KCallback<KObjectIndex>() {
+            @Override
+            public void on(KObjectIndex index) {
+                if (callback != null) {
+                    callback.on(new OrderedIndex((AbstractKObjectIndex) index, attribute, metaModel()));
+                }
+            }
+        });
+    }
+
+    @Override
+    public void findRange(KMetaClass metaClass, KMetaAttribute attribute, long universe, long time, Object min, Object max, KCallback<KObject[]> callback) {
+        orderedIndex(metaClass, attribute, universe, time, new KCallback<KOrderedIndex>() {
+            @Override
+            public void on(KOrderedIndex index) {
+                _manager.lookupAllObjects(universe, time, index.range(min, true, max, true), callback);
+            }
+        });
+    }
+
+    @Override
+    public void postings(KMetaClass metaClass, KMetaAttribute attribute, long universe, long time, Object value, KCallback<long[]> callback) {
+        PostingIndex.postings(_manager, universe, time, metaClass, attribute, value, callback);
+    }
 
+    /**
+     * Objects whose indexed attributes hold all (matchAll) or any of the given values, attributes[i] being compared to values[i].
+     */
+    @Override
+    public void findAllMatching(KMetaClass metaClass, long universe, long time, KMetaAttribute[] attributes, Object[] values, boolean matchAll, KCallback<KObject[]> callback) {
+        final long[][] lists = new long[attributes.length][];
+        final KCounterDefer defer = new CounterDefer(attributes.length);
+        for (int i = 0; i < attributes.length; i++) {
+            final int listIndex = i;
+            postings(metaClass, attributes[i], universe, time, values[i], new KCallback<long[]>() {
+                @Override
+                public void on(long[] uuids) {
+                    lists[listIndex] = uuids;
+                    defer.countDown();
+                }
+            });
+        }
+        defer.then(new KCallback() {
+            @Override
+            public void on(Object o) {
+                long[] selected;
+                if (matchAll) {
+                    selected = Postings.intersect(lists);
+                } else {
+                    selected = Postings.union(lists);
+                }
+                _manager.lookupAllObjects(universe, time, selected, callback);
+            }
+        });
+    }
+
+    /**
+     * Uuids of the k objects whose searchable attribute best matches the query, tolerating misspelled and partial names.
+     */
+    @Override
+    public void search(KMetaClass metaClass, KMetaAttribute attribute, long universe, long time, String query, int k, KCallback<long[]> callback) {
+        TextIndex.search(_manager, universe, time, metaClass, attribute, query, k, callback);
+    }
+
+    @Override
+    public void spatialIndex(KMetaClass metaClass, KMetaAttribute latitude, long universe, long time, KCallback<KSpatialIndex> callback) {
+        _manager.index(universe, time, IndexKeys.spatialIndexName(metaClass, latitude), false, new KCallback<KObjectIndex>() {
+            @Override
+            public void on(KObjectIndex index) {
+                if (callback != null) {
+                    callback.on(new SpatialIndex((AbstractKObjectIndex) index));
+                }
+            }
+        });
+    }
+
+    /**
+     * Objects at most meters away from (lat, lon), nearest first.
+     */
+    @Override
+    public void findWithin(KMetaClass metaClass, KMetaAttribute latitude, long universe, long time, double lat, double lon, double meters, KCallback<KObject[]> callback) {
+        spatialIndex(metaClass, latitude, universe, time, new KCallback<KSpatialIndex>() {
+            @Override
+            public void on(KSpatialIndex index) {
+                _manager.lookupAllObjects(universe, time, index.radius(lat, lon, meters), callback);
+            }
+        });
+    }
+
+    @Override
+    public void findInBox(KMetaClass metaClass, KMetaAttribute latitude, long universe, long time, double minLat, double minLon, double maxLat, double maxLon, KCallback<KObject[]> callback) {
+        spatialIndex(metaClass, latitude, universe, time, new KCallback<KSpatialIndex>() {
+            @Override
+            public void on(KSpatialIndex index) {
+                _manager.lookupAllObjects(universe, time, index.boundingBox(minLat, minLon, maxLat, maxLon), callback);
+            }
+        });
+    }
+
+    @Override
+    public void findNearest(KMetaClass metaClass, KMetaAttribute latitude, long universe, long time, double lat, double lon, int k, KCallback<KObject[]> callback) {
+        spatialIndex(metaClass, latitude, universe, time, new KCallback<KSpatialIndex>() {
+            @Override
+            public void on(KSpatialIndex index) {
+                _manager.lookupAllObjects(universe, time, index.nearest(lat, lon, k), callback);
+            }
+        });
+    }
+
+    @Override
+    public void inferAll(KObjectInfer[] inferObjects, KObject[][][] dependencies, KCallback<Object[][][]> callback) {
+        if (inferObjects.length == 0) {
+            callback.on(new Object[0][][]);
+            return;
+        }
+        ((AbstractKObjectInfer) inferObjects[0]).genericInferBatch(inferObjects, dependencies, callback);
+    }
+
+    /**
+     * Sorted uuids of the objects created or modified in the universe between from and to, both inclusive.
+     */
+    @Override
+    public void changedBetween(long universe, long from, long to, KCallback<long[]> callback) {
+        KChangeLog changeLog = _manager.changeLog();
+        if (changeLog == null) {
+            throw new RuntimeException("Change log is not enabled, see DataManagerBuilder.withChangeLog");
+        }
+        changeLog.changedBetween(_manager, universe, from, to, callback);
+    }
+
+    @Override
+    public KIndexBuild buildIndexes(KMetaClass metaClass, long universe, long time, long[] uuids) {
+        return new IndexBuild(_manager, metaClass, universe, time, uuids);
+    }
+
+}
@@ -1,6 +1,10 @@
 package org.kevoree.modeling.abs;
 
 import org.kevoree.modeling.*;
+import org.kevoree.modeling.extrapolation.SegmentedExtrapolation;
+import org.kevoree.modeling.extrapolation.impl.DiscreteExtrapolation;
+import org.kevoree.modeling.extrapolation.impl.PolynomialExtrapolation;
+import org.kevoree.modeling.index.impl.ReverseIndex;
 import org.kevoree.modeling.memory.chunk.KObjectChunk;
 import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
 import org.kevoree.modeling.memory.chunk.KLongLongMap;
@@ -86,13 +90,39 @@ public abstract class AbstractKObject implements KObject {
                 callback.on(new Exception(OUT_OF_CACHE_MSG));
             }
         } else {
+            final KMetaRelation[] incomingRelations = internal_reverseIndexedIncoming();
+            final int[] remaining = {incomingRelations.length + 1};
+            final KCallback end = new KCallback() {
+                @Override
+                public void on(Object o) {
+                    boolean last;
+                    synchronized (remaining) {
+                        remaining[0]--;
+                        last = remaining[0] == 0;
+                    }
+                    if (last && callback != null) {
+                        callback.on(null);
+                    }
+                }
+            };
+            KMetaModel metaModel = _manager.model().metaModel();
             ArrayLongLongMap collector = new ArrayLongLongMap(-1, -1, -1, null);
             KMeta[] metaElements = _metaClass.metaElements();
             for (int i = 0; i < metaElements.length; i++) {
                 if (metaElements[i] != null && metaElements[i].metaType() == MetaType.RELATION) {
                     long[] inboundsKeys = rawPayload.getLongArray(metaElements[i].index(), _metaClass);
-                    for (int j = 0; j < inboundsKeys.length; j++) {
-                        collector.put(inboundsKeys[j], inboundsKeys[j]);
+                    if (inboundsKeys == null) {
+                        inboundsKeys = new long[0];
+                    }
+                    if (ReverseIndex.isReverseIndexed((KMetaRelation) metaElements[i], metaModel)) {
+                        //referred objects do not know this one, only the reverse index does
+                        for (int j = 0; j < inboundsKeys.length; j++) {
+                            ReverseIndex.remove(_manager, selfPointer, (KMetaRelation) metaElements[i], inboundsKeys[j]);
+                        }
+                    } else {
+                        for (int j = 0; j < inboundsKeys.length; j++) {
+                            collector.put(inboundsKeys[j], inboundsKeys[j]);
+                        }
                     }
                     rawPayload.clearLongArray(metaElements[i].index(), _metaClass);
                 }
@@ -118,14 +148,53 @@ public abstract class AbstractKObject implements KObject {
                             }
                         }
                     }
-                    if (callback != null) {
-                        callback.on(null);
-                    }
+                    end.on(null);
                 }
             });
+            //objects referring to this one through reverse indexed relations are found in their reverse index
+            for (int i = 0; i < incomingRelations.length; i++) {
+                final KMetaRelation incoming = incomingRelations[i];
+                ReverseIndex.referrers(_manager, _universe, _time, incoming, _uuid, new KCallback<long[]>() {
+                    @Override
+                    public void on(long[] referrers) {
+                        _manager.lookupAllObjects(_universe, _time, referrers, new KCallback<KObject[]>() {
+                            @Override
+                            public void on(KObject[] sources) {
+                                for (int j = 0; j < sources.length; j++) {
+                                    if (sources[j] != null) {
+                                        ((AbstractKObject) sources[j]).internal_remove(incoming, selfPointer, false);
+                                    }
+                                }
+                                end.on(null);
+                            }
+                        });
+                    }
+                });
+            }
         }
     }
 
+    /**
+     * Reverse indexed relations which may refer to objects of this meta class.
+     */
+    private KMetaRelation[] internal_reverseIndexedIncoming() {
+        KMetaModel metaModel = _manager.model().metaModel();
+        KMetaClass[] metaClasses = metaModel.metaClasses();
+        List<KMetaRelation> selected = new ArrayList<KMetaRelation>();
+        for (int i = 0; i < metaClasses.length; i++) {
+            KMeta[] metaElements = metaClasses[i].metaElements();
+            for (int j = 0; j < metaElements.length; j++) {
+                if (metaElements[j] != null && metaElements[j].metaType() == MetaType.RELATION) {
+                    KMetaRelation relation = (KMetaRelation) metaElements[j];
+                    if (relation.referredMetaClassIndex() == _metaClass.index() && ReverseIndex.isReverseIndexed(relation, metaModel)) {
+                        selected.add(relation);
+                    }
+                }
+            }
+        }
+        return selected.toArray(new KMetaRelation[selected.size()]);
+    }
+
     @Override
     public void select(String query, KCallback<Object[]> cb) {
         if (!Checker.isDefined(query)) {
@@ -147,6 +216,26 @@ public abstract class AbstractKObject implements KObject {
         }
     }
 
+    /**
+     * Unboxed read of a numeric attribute, directly from the chunk for discrete attributes.
+     * Returns NaN for unset or non numeric values.
+     */
+    public double internal_get_double(KMetaAttribute p_transposed) {
+        if (p_transposed.strategy() instanceof DiscreteExtrapolation) {
+            KObjectChunk raw = _manager.closestChunk(_universe, _time, _uuid, _metaClass, _previousResolveds);
+            if (raw == null) {
+                return Double.NaN;
+            }
+            return raw.getPrimitiveAsDouble(p_transposed.index(), _metaClass);
+        } else {
+            Object extrapolated = p_transposed.strategy().extrapolate(this, p_transposed, _manager);
+            if (extrapolated == null) {
+                return Double.NaN;
+            }
+            return PrimitiveHelper.parseDouble(extrapolated.toString());
+        }
+    }
+
     @Override
     public Object getByName(String attributeName) {
         KMetaAttribute transposed = _metaClass.attribute(attributeName);
@@ -203,7 +292,10 @@ public abstract class AbstractKObject implements KObject {
         if (raw != null) {
             if (p_metaReference.maxBound() < 0 || (p_metaReference.maxBound() > raw.getLongArraySize(p_metaReference.index(), _metaClass))) {
                 if (raw.addLongToArray(p_metaReference.index(), p_param.uuid(), _metaClass)) {
-                    if (p_setOpposite) {
+                    //the reverse index follows the referring side, whichever side initiated the change
+                    if (ReverseIndex.isReverseIndexed(p_metaReference, _manager.model().metaModel())) {
+                        ReverseIndex.add(_manager, this, p_metaReference, p_param.uuid());
+                    } else if (p_setOpposite) {
                         ((AbstractKObject) p_param).internal_add(p_param.metaClass().reference(p_metaReference.oppositeName()), this, false);
                     }
                 }
@@ -242,7 +334,9 @@ public abstract class AbstractKObject implements KObject {
         KObjectChunk payload = _manager.preciseChunk(_universe, _time, _uuid, _metaClass, _previousResolveds);
         if (payload != null) {
             if (payload.removeLongToArray(p_metaReference.index(), objToRemove.uuid(), _metaClass)) {
-                if (p_setOpposite) {
+                if (ReverseIndex.isReverseIndexed(p_metaReference, _manager.model().metaModel())) {
+                    ReverseIndex.remove(_manager, this, p_metaReference, objToRemove.uuid());
+                } else if (p_setOpposite) {
                     ((AbstractKObject) objToRemove).internal_remove(objToRemove.metaClass().reference(p_metaReference.oppositeName()), this, false);
                 }
             }
@@ -292,6 +386,17 @@ public abstract class AbstractKObject implements KObject {
     private void internal_removeAll(final KMetaRelation p_metaRelation, final KCallback callback) {
         final KObject selfPointer = this;
         KObjectChunk currentChunk = _manager.preciseChunk(_universe, _time, _uuid, _metaClass, _previousResolveds);
+        if (ReverseIndex.isReverseIndexed(p_metaRelation, _manager.model().metaModel())) {
+            long[] previousUuids = currentChunk.getLongArray(p_metaRelation.index(), _metaClass);
+            for (int i = 0; previousUuids != null && i < previousUuids.length; i++) {
+                ReverseIndex.remove(_manager, selfPointer, p_metaRelation, previousUuids[i]);
+            }
+            currentChunk.clearLongArray(p_metaRelation.index(), _metaClass);
+            if (callback != null) {
+                callback.on(null);
+            }
+            return;
+        }
         this._manager.lookupAllObjects(_universe, _time, currentChunk.getLongArray(p_metaRelation.index(), _metaClass), new KCallback<KObject[]>() {
             @Override
             public void on(KObject[] previousObjs) {
@@ -368,6 +473,24 @@ public abstract class AbstractKObject implements KObject {
         }
     }
 
+    @Override
+    public void referrers(KMetaRelation p_metaRelation, KCallback<KObject[]> cb) {
+        if (ReverseIndex.isReverseIndexed(p_metaRelation, _manager.model().metaModel())) {
+            ReverseIndex.referrers(_manager, _universe, _time, p_metaRelation, _uuid, new KCallback<long[]>() {
+                @Override
+                public void on(long[] referrers) {
+                    _manager.lookupAllObjects(_universe, _time, referrers, cb);
+                }
+            });
+        } else {
+            KMetaRelation opposite = _metaClass.reference(p_metaRelation.oppositeName());
+            if (opposite == null) {
+                throw new RuntimeException("Bad KMF usage, the reference named " + p_metaRelation.metaName() + " does not refer to " + metaClass().metaName());
+            }
+            internal_getRelation(opposite, cb);
+        }
+    }
+
     @Override
     public long[] getRelationValuesByName(String p_refName) {
         KMetaRelation transposed = internal_transpose_ref(metaClass().reference(p_refName));
@@ -671,6 +794,66 @@ public abstract class AbstractKObject implements KObject {
         internal_times(beginningOfSearch, endOfSearch, cb);
     }
 
+    @Override
+    public void sample(KMetaAttribute p_attribute, final long start, final long end, final int nbSamples, final KCallback<double[]> cb) {
+        final KMetaAttribute transposed = internal_transpose_att(p_attribute);
+        if (transposed == null) {
+            throw new RuntimeException("Bad KMF usage, the attribute named " + p_attribute.metaName() + " is not part of " + metaClass().metaName());
+        }
+        if (nbSamples <= 0 || end < start) {
+            throw new RuntimeException("Bad KMF usage, cannot sample " + nbSamples + " values between " + start + " and " + end);
+        }
+        final AbstractKObject selfPointer = this;
+        if (transposed.strategy() instanceof SegmentedExtrapolation) {
+            internal_times(start, end, new KCallback<long[]>() {
+                @Override
+                public void on(long[] chunkTimes) {
+                    //the segment covering start, then every segment starting inside the window, loaded if not cached
+                    int nbSegments = 1;
+                    for (int i = 0; i < chunkTimes.length; i++) {
+                        if (chunkTimes[i] > start) {
+                            nbSegments++;
+                        }
+                    }
+                    long[] segmentTimes = new long[nbSegments];
+                    segmentTimes[0] = start;
+                    for (int i = 0; i < nbSegments - 1; i++) {
+                        segmentTimes[nbSegments - 1 - i] = chunkTimes[i];
+                    }
+                    selfPointer._manager.lookupAllTimes(selfPointer._universe, segmentTimes, selfPointer._uuid, new KCallback<KObject[]>() {
+                        @Override
+                        public void on(KObject[] segments) {
+                            KObject[] resolved = segments;
+                            if (resolved == null) {
+                                resolved = new KObject[1];
+                            }
+                            cb.on(((SegmentedExtrapolation) transposed.strategy()).sample(transposed, start, end, nbSamples, resolved, selfPointer._manager));
+                        }
+                    });
+                }
+            });
+        } else {
+            long[] times = new long[nbSamples];
+            for (int i = 0; i < nbSamples; i++) {
+                times[i] = PolynomialExtrapolation.sampleTime(start, end, nbSamples, i);
+            }
+            _manager.lookupAllTimes(_universe, times, _uuid, new KCallback<KObject[]>() {
+                @Override
+                public void on(KObject[] objects) {
+                    double[] result = new double[nbSamples];
+                    for (int i = 0; i < nbSamples; i++) {
+                        if (objects == null || objects[i] == null) {
+                            result[i] = Double.NaN;
+                        } else {
+                            result[i] = ((AbstractKObject) objects[i]).internal_get_double(transposed);
+                        }
+                    }
+                    cb.on(result);
+                }
+            });
+        }
+    }
+
     @Override
     public KMeta[] compare(KObject target) {
         if (target.metaClass().index() != metaClass().index()) {
@@ -5,28 +5,517 @@ import org.kevoree.modeling.KObjectIndex;
 import org.kevoree.modeling.memory.chunk.KObjectIndexChunk;
 import org.kevoree.modeling.memory.chunk.KStringLongMapCallBack;
 import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
+import org.kevoree.modeling.meta.impl.GenericObjectIndex;
 import org.kevoree.modeling.meta.impl.MetaClassIndex;
+import org.kevoree.modeling.util.PrimitiveHelper;
 
+/**
+ * An index object is either flat, all keys living in its own chunk, or paged once pages have been attached.
+ * A paged index only stores in its chunk the uuids of PAGES hash partitioned page indexes, so that updating a key
+ * at a new time copies and saves a single page instead of the whole index. Pages are created with the index and
+ * resolved with it, a proxy never looks up a page it has not resolved.
+ * The global index references paged named indexes by their negated uuid, named indexes referenced by their uuid
+ * were created before paging and stay flat, so that their keys are never read as page uuids.
+ * Indexes read in key order are partitioned by key range instead: their chunk maps the lower bound of every page to
+ * its uuid, the first bound being FIRST_BOUND, and a page holding more than PAGE_CAPACITY keys is split in two.
+ * Their pages are written under the lock of the chunk of the index, which retains them, so that pages split through
+ * another proxy stay cached for this one.
+ */
 public class AbstractKObjectIndex extends AbstractKObject implements KObjectIndex {
 
+    public static final int PAGES = 64;
+
+    /* lower bound of the first page of a range partitioned index, lower or equal to any key and no page number */
+    public static final String FIRST_BOUND = "\u0000";
+
+    public static final int PAGE_CAPACITY = 512;
+
+    private volatile KObjectIndex[] _pages = null;
+
+    private volatile boolean _ranged = false;
+
     public AbstractKObjectIndex(long p_universe, long p_time, long p_uuid, KInternalDataManager p_manager, long p_actualUniverse, long p_actualTime, long p_currentUniverseMagic, long p_currentTimeMagic) {
         super(p_universe, p_time, p_uuid, MetaClassIndex.INSTANCE, p_manager, p_actualUniverse, p_actualTime, p_currentUniverseMagic, p_currentTimeMagic);
     }
 
+    public static long pagedReference(long indexUuid) {
+        return -indexUuid;
+    }
+
+    public static boolean isPaged(long indexReference) {
+        return indexReference < 0;
+    }
+
+    public static long uuidOf(long indexReference) {
+        if (indexReference < 0) {
+            return -indexReference;
+        }
+        return indexReference;
+    }
+
+    public static int pageOf(String key) {
+        return (PrimitiveHelper.stringHash(key) & 0x7FFFFFFF) % PAGES;
+    }
+
+    /**
+     * Uuids of the pages referenced by this index, NULL_LONG for pages not created yet, in ascending bound order for
+     * a range partitioned index.
+     */
+    public long[] internal_pageKeys() {
+        KObjectIndexChunk chunk = (KObjectIndexChunk) _manager.closestChunk(_universe, _time, _uuid, _metaClass, _previousResolveds);
+        if (chunk != null && chunk.contains(FIRST_BOUND)) {
+            String[] bounds = chunk.sortedKeys();
+            long[] result = new long[bounds.length];
+            for (int i = 0; i < bounds.length; i++) {
+                result[i] = chunk.get(bounds[i]);
+            }
+            return result;
+        }
+        long[] result = new long[PAGES];
+        for (int i = 0; i < PAGES; i++) {
+            if (chunk != null) {
+                result[i] = chunk.get(String.valueOf(i));
+            } else {
+                result[i] = KConfig.NULL_LONG;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Switches this index to the paged mode, p_pages are the resolved pages in the order of internal_pageKeys.
+     */
+    public void internal_attachPages(KObjectIndex[] p_pages) {
+        KObjectIndexChunk chunk = (KObjectIndexChunk) _manager.closestChunk(_universe, _time, _uuid, _metaClass, _previousResolveds);
+        if (chunk != null && chunk.contains(FIRST_BOUND)) {
+            for (int i = 0; i < p_pages.length; i++) {
+                if (p_pages[i] != null) {
+                    chunk.retainPage(p_pages[i]);
+                }
+            }
+            this._ranged = true;
+        } else {
+            this._pages = p_pages;
+        }
+    }
+
+    /**
+     * Creates the hash partitioned pages this index does not reference yet, under the lock of its chunk. Returns the
+     * created pages by page number, to be attached or resolved with the existing ones.
+     */
+    public KObjectIndex[] internal_createMissingPages() {
+        KObjectIndex[] created = new KObjectIndex[PAGES];
+        long[] pageKeys = internal_pageKeys();
+        boolean complete = true;
+        for (int i = 0; i < pageKeys.length; i++) {
+            if (pageKeys[i] == KConfig.NULL_LONG) {
+                complete = false;
+            }
+        }
+        if (complete) {
+            //range partitioned or already paged, nothing copied at this time
+            return created;
+        }
+        KObjectIndexChunk chunk = (KObjectIndexChunk) _manager.preciseChunk(_universe, _time, _uuid, _metaClass, _previousResolveds);
+        synchronized (chunk) {
+            for (int i = 0; i < PAGES; i++) {
+                String pageName = String.valueOf(i);
+                if (chunk.get(pageName) == KConfig.NULL_LONG) {
+                    created[i] = internal_createPage();
+                    chunk.put(pageName, created[i].uuid());
+                }
+            }
+        }
+        return created;
+    }
+
+    /**
+     * Switches a new index to the range partitioned mode, creating its first page.
+     */
+    public void internal_partitionByRange() {
+        KObjectIndexChunk chunk = (KObjectIndexChunk) _manager.preciseChunk(_universe, _time, _uuid, _metaClass, _previousResolveds);
+        AbstractKObjectIndex page = internal_createPage();
+        chunk.put(FIRST_BOUND, page.uuid());
+        chunk.retainPage(page);
+        this._ranged = true;
+    }
+
+    /**
+     * True when the pages of this index hold disjoint key ranges, internal_sortedKeys then returns them in order.
+     */
+    public boolean internal_ranged() {
+        return _ranged;
+    }
+
     @Override
     public long getIndex(String key) {
+        if (_ranged) {
+            KObjectIndexChunk directory = (KObjectIndexChunk) _manager.closestChunk(_universe, _time, _uuid, _metaClass, _previousResolveds);
+            return internal_rangePage(directory, key, false).getIndex(key);
+        }
+        KObjectIndex[] pages = _pages;
+        if (pages != null) {
+            KObjectIndex page = internal_page(pageOf(key), false);
+            if (page == null) {
+                return KConfig.NULL_LONG;
+            }
+            return page.getIndex(key);
+        }
         KObjectIndexChunk chunk = (KObjectIndexChunk) _manager.closestChunk(_universe, _time, _uuid, _metaClass, _previousResolveds);
         return chunk.get(key);
     }
 
     @Override
     public void setIndex(String key, long value) {
+        if (_ranged) {
+            //bounds are read and split under the lock of the chunk written, so that no key lands in a page split meanwhile
+            KObjectIndexChunk directory = (KObjectIndexChunk) _manager.preciseChunk(_universe, _time, _uuid, _metaClass, _previousResolveds);
+            synchronized (directory) {
+                AbstractKObjectIndex page = internal_rangePage(directory, key, true);
+                page.setIndex(key, value);
+                if (value != KConfig.NULL_LONG && page.internal_size() > PAGE_CAPACITY) {
+                    internal_split(directory, page);
+                }
+            }
+            return;
+        }
+        if (_pages != null) {
+            KObjectIndex page = internal_page(pageOf(key), value != KConfig.NULL_LONG);
+            if (page != null) {
+                page.setIndex(key, value);
+            }
+            return;
+        }
+        KObjectIndexChunk chunk = (KObjectIndexChunk) _manager.preciseChunk(_universe, _time, _uuid, _metaClass, _previousResolveds);
+        if (value == KConfig.NULL_LONG) {
+            chunk.remove(key);
+        } else {
+            chunk.put(key, value);
+        }
+    }
+
+    /**
+     * Uuid of the flat index object referenced by key, created at the time of this index if absent. Proxies of the
+     * same index share its chunk, checking and creating the entry under its lock makes them agree on a single uuid.
+     */
+    public long internal_getOrCreate(String key) {
+        if (_ranged) {
+            KObjectIndexChunk directory = (KObjectIndexChunk) _manager.preciseChunk(_universe, _time, _uuid, _metaClass, _previousResolveds);
+            synchronized (directory) {
+                return internal_rangePage(directory, key, true).internal_getOrCreate(key);
+            }
+        }
+        if (_pages != null) {
+            return ((AbstractKObjectIndex) internal_page(pageOf(key), true)).internal_getOrCreate(key);
+        }
+        return internal_flatGetOrCreate(key);
+    }
+
+    private long internal_flatGetOrCreate(String key) {
         KObjectIndexChunk chunk = (KObjectIndexChunk) _manager.preciseChunk(_universe, _time, _uuid, _metaClass, _previousResolveds);
-        chunk.put(key, value);
+        synchronized (chunk) {
+            long value = chunk.get(key);
+            if (value == KConfig.NULL_LONG) {
+                value = _manager.nextIndexPageKey();
+                GenericObjectIndex created = new GenericObjectIndex(_universe, _time, value, _manager, _universe, _time, KConfig.NULL_LONG, KConfig.NULL_LONG);
+                _manager.initKObject(created);
+                chunk.put(key, value);
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Page of a hash partitioned index. Pages are created with the index, or by the first resolution for writing of an
+     * index paged before, so only a proxy resolved for reading misses pages, which are then read as empty.
+     */
+    private KObjectIndex internal_page(int pageIndex, boolean createIfAbsent) {
+        KObjectIndex page = _pages[pageIndex];
+        if (page == null && createIfAbsent) {
+            throw new RuntimeException("Bad KMF usage, index " + _uuid + " has been resolved for reading, resolve it with createIfAbsent to write it");
+        }
+        return page;
+    }
+
+    private AbstractKObjectIndex internal_createPage() {
+        GenericObjectIndex page = new GenericObjectIndex(_universe, _time, _manager.nextIndexPageKey(), _manager, _universe, _time, KConfig.NULL_LONG, KConfig.NULL_LONG);
+        _manager.initKObject(page);
+        return page;
+    }
+
+    /**
+     * Page of a range partitioned index holding key, the one with the greatest lower bound lower or equal to key.
+     */
+    private AbstractKObjectIndex internal_rangePage(KObjectIndexChunk directory, String key, boolean forWrite) {
+        String[] bounds = directory.sortedKeys();
+        int low = 0;
+        int high = bounds.length;
+        while (high - low > 1) {
+            int middle = (low + high) >>> 1;
+            if (PrimitiveHelper.compareStrings(bounds[middle], key) <= 0) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return internal_rangePage(directory, directory.get(bounds[low]), forWrite);
+    }
+
+    /**
+     * Page retained by directory, or a proxy of it at the time of this index for a write. The retained page keeps the
+     * chunk closest to this time cached, the page having been written last through directory or its ancestors.
+     */
+    private AbstractKObjectIndex internal_rangePage(KObjectIndexChunk directory, long pageKey, boolean forWrite) {
+        KObjectIndex page = directory.retainedPage(pageKey);
+        if (page == null || (forWrite && (page.universe() != _universe || page.now() != _time))) {
+            page = (KObjectIndex) _manager.lookupFromCache(_universe, _time, pageKey);
+            directory.retainPage(page);
+        }
+        return (AbstractKObjectIndex) page;
+    }
+
+    /**
+     * Moves the upper half of an overflowing page to a new page, called under the lock of directory.
+     */
+    private void internal_split(KObjectIndexChunk directory, AbstractKObjectIndex page) {
+        KObjectIndexChunk pageChunk = (KObjectIndexChunk) _manager.preciseChunk(page._universe, page._time, page._uuid, page._metaClass, page._previousResolveds);
+        String[] keys = pageChunk.sortedKeys();
+        int middle = keys.length >>> 1;
+        String[] lowerKeys = new String[middle];
+        long[] lowerValues = new long[middle];
+        String[] upperKeys = new String[keys.length - middle];
+        long[] upperValues = new long[keys.length - middle];
+        for (int i = 0; i < keys.length; i++) {
+            if (i < middle) {
+                lowerKeys[i] = keys[i];
+                lowerValues[i] = pageChunk.get(keys[i]);
+            } else {
+                upperKeys[i - middle] = keys[i];
+                upperValues[i - middle] = pageChunk.get(keys[i]);
+            }
+        }
+        AbstractKObjectIndex upperPage = internal_createPage();
+        upperPage.internal_load(upperKeys, upperValues);
+        directory.retainPage(upperPage);
+        //referenced before the lower page is trimmed, readers never miss the moved keys
+        directory.put(upperKeys[0], upperPage.uuid());
+        pageChunk.load(lowerKeys, lowerValues);
+    }
+
+    /**
+     * Replaces the whole content of the index by ascending keys, written page per page in a single chunk operation
+     * instead of one put per key, pages left without key are emptied.
+     */
+    public void internal_load(String[] p_sortedKeys, long[] p_values) {
+        if (_ranged) {
+            internal_rangeLoad(p_sortedKeys, p_values);
+            return;
+        }
+        if (_pages == null) {
+            KObjectIndexChunk chunk = (KObjectIndexChunk) _manager.preciseChunk(_universe, _time, _uuid, _metaClass, _previousResolveds);
+            chunk.load(p_sortedKeys, p_values);
+            return;
+        }
+        int[] pageSizes = new int[PAGES];
+        int[] pageOfKeys = new int[p_sortedKeys.length];
+        for (int i = 0; i < p_sortedKeys.length; i++) {
+            pageOfKeys[i] = pageOf(p_sortedKeys[i]);
+            pageSizes[pageOfKeys[i]]++;
+        }
+        String[][] pageKeys = new String[PAGES][];
+        long[][] pageValues = new long[PAGES][];
+        for (int i = 0; i < PAGES; i++) {
+            pageKeys[i] = new String[pageSizes[i]];
+            pageValues[i] = new long[pageSizes[i]];
+            pageSizes[i] = 0;
+        }
+        //a stable partition, every page receives its keys still sorted
+        for (int i = 0; i < p_sortedKeys.length; i++) {
+            int page = pageOfKeys[i];
+            pageKeys[page][pageSizes[page]] = p_sortedKeys[i];
+            pageValues[page][pageSizes[page]] = p_values[i];
+            pageSizes[page]++;
+        }
+        for (int i = 0; i < PAGES; i++) {
+            KObjectIndex page = internal_page(i, pageKeys[i].length > 0);
+            if (page != null) {
+                ((AbstractKObjectIndex) page).internal_load(pageKeys[i], pageValues[i]);
+            }
+        }
+    }
+
+    /**
+     * Cuts ascending keys into pages filled to half of their capacity, existing pages being reused in order.
+     */
+    private void internal_rangeLoad(String[] p_sortedKeys, long[] p_values) {
+        KObjectIndexChunk directory = (KObjectIndexChunk) _manager.preciseChunk(_universe, _time, _uuid, _metaClass, _previousResolveds);
+        synchronized (directory) {
+            String[] previousBounds = directory.sortedKeys();
+            int fill = PAGE_CAPACITY >>> 1;
+            int nbPages = 1;
+            while (nbPages * fill < p_sortedKeys.length) {
+                nbPages++;
+            }
+            String[] bounds = new String[nbPages];
+            long[] pageKeys = new long[nbPages];
+            for (int i = 0; i < nbPages; i++) {
+                int from = i * fill;
+                int to = from + fill;
+                if (to > p_sortedKeys.length) {
+                    to = p_sortedKeys.length;
+                }
+                String[] keys = new String[to - from];
+                long[] values = new long[to - from];
+                System.arraycopy(p_sortedKeys, from, keys, 0, to - from);
+                System.arraycopy(p_values, from, values, 0, to - from);
+                AbstractKObjectIndex page;
+                if (i < previousBounds.length) {
+                    page = internal_rangePage(directory, directory.get(previousBounds[i]), true);
+                } else {
+                    page = internal_createPage();
+                    directory.retainPage(page);
+                }
+                page.internal_load(keys, values);
+                if (i == 0) {
+                    bounds[i] = FIRST_BOUND;
+                } else {
+                    bounds[i] = keys[0];
+                }
+                pageKeys[i] = page.uuid();
+            }
+            directory.load(bounds, pageKeys);
+        }
+    }
+
+    /**
+     * Applies the first p_size updates in order, NULL_LONG values removing their key, resolving the chunk of every
+     * touched page once instead of once per key.
+     */
+    public void internal_setAll(String[] p_keys, long[] p_values, int p_size) {
+        if (_ranged) {
+            for (int i = 0; i < p_size; i++) {
+                setIndex(p_keys[i], p_values[i]);
+            }
+            return;
+        }
+        if (_pages == null) {
+            KObjectIndexChunk chunk = (KObjectIndexChunk) _manager.preciseChunk(_universe, _time, _uuid, _metaClass, _previousResolveds);
+            for (int i = 0; i < p_size; i++) {
+                if (p_values[i] == KConfig.NULL_LONG) {
+                    chunk.remove(p_keys[i]);
+                } else {
+                    chunk.put(p_keys[i], p_values[i]);
+                }
+            }
+            return;
+        }
+        int[] pageSizes = new int[PAGES];
+        boolean[] pageInserts = new boolean[PAGES];
+        int[] pageOfKeys = new int[p_size];
+        for (int i = 0; i < p_size; i++) {
+            pageOfKeys[i] = pageOf(p_keys[i]);
+            pageSizes[pageOfKeys[i]]++;
+            pageInserts[pageOfKeys[i]] = pageInserts[pageOfKeys[i]] || p_values[i] != KConfig.NULL_LONG;
+        }
+        String[][] pageKeys = new String[PAGES][];
+        long[][] pageValues = new long[PAGES][];
+        for (int i = 0; i < PAGES; i++) {
+            pageKeys[i] = new String[pageSizes[i]];
+            pageValues[i] = new long[pageSizes[i]];
+            pageSizes[i] = 0;
+        }
+        //a stable partition, every page receives its updates in their original order
+        for (int i = 0; i < p_size; i++) {
+            int page = pageOfKeys[i];
+            pageKeys[page][pageSizes[page]] = p_keys[i];
+            pageValues[page][pageSizes[page]] = p_values[i];
+            pageSizes[page]++;
+        }
+        for (int i = 0; i < PAGES; i++) {
+            if (pageSizes[i] > 0) {
+                KObjectIndex page = internal_page(i, pageInserts[i]);
+                if (page != null) {
+                    ((AbstractKObjectIndex) page).internal_setAll(pageKeys[i], pageValues[i], pageSizes[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Keys of the index in ascending order, one sorted run per page (a single run for a flat index). The runs of a
+     * range partitioned index are disjoint and follow each other in key order.
+     */
+    public String[][] internal_sortedKeys() {
+        if (_ranged) {
+            KObjectIndexChunk directory = (KObjectIndexChunk) _manager.closestChunk(_universe, _time, _uuid, _metaClass, _previousResolveds);
+            String[] bounds = directory.sortedKeys();
+            String[][] runs = new String[bounds.length][];
+            for (int i = 0; i < bounds.length; i++) {
+                runs[i] = internal_rangePage(directory, directory.get(bounds[i]), false).internal_sortedKeys()[0];
+            }
+            return runs;
+        }
+        KObjectIndex[] pages = _pages;
+        if (pages != null) {
+            String[][] runs = new String[PAGES][];
+            for (int i = 0; i < PAGES; i++) {
+                KObjectIndex page = internal_page(i, false);
+                if (page != null) {
+                    runs[i] = ((AbstractKObjectIndex) page).internal_sortedKeys()[0];
+                } else {
+                    runs[i] = new String[0];
+                }
+            }
+            return runs;
+        }
+        KObjectIndexChunk chunk = (KObjectIndexChunk) _manager.closestChunk(_universe, _time, _uuid, _metaClass, _previousResolveds);
+        String[][] runs = new String[1][];
+        runs[0] = chunk.sortedKeys();
+        return runs;
+    }
+
+    /**
+     * Number of keys of a flat index.
+     */
+    public int internal_size() {
+        KObjectIndexChunk chunk = (KObjectIndexChunk) _manager.closestChunk(_universe, _time, _uuid, _metaClass, _previousResolveds);
+        return chunk.size();
     }
 
     @Override
     public long[] values() {
+        KObjectIndex[] pages = _pages;
+        if (_ranged) {
+            KObjectIndexChunk directory = (KObjectIndexChunk) _manager.closestChunk(_universe, _time, _uuid, _metaClass, _previousResolveds);
+            String[] bounds = directory.sortedKeys();
+            pages = new KObjectIndex[bounds.length];
+            for (int i = 0; i < bounds.length; i++) {
+                pages[i] = internal_rangePage(directory, directory.get(bounds[i]), false);
+            }
+        }
+        if (pages != null) {
+            long[][] pageValues = new long[pages.length][];
+            int total = 0;
+            for (int i = 0; i < pages.length; i++) {
+                KObjectIndex page = pages[i];
+                if (!_ranged) {
+                    page = internal_page(i, false);
+                }
+                if (page != null) {
+                    pageValues[i] = page.values();
+                    total = total + pageValues[i].length;
+                }
+            }
+            long[] result = new long[total];
+            int offset = 0;
+            for (int i = 0; i < pages.length; i++) {
+                if (pageValues[i] != null) {
+                    System.arraycopy(pageValues[i], 0, result, offset, pageValues[i].length);
+                    offset = offset + pageValues[i].length;
+                }
+            }
+            return result;
+        }
         KObjectIndexChunk chunk = (KObjectIndexChunk) _manager.closestChunk(_universe, _time, _uuid, _metaClass, _previousResolveds);
         long[] result = new long[chunk.size()];
         final int[] i = {0};
@@ -5,10 +5,15 @@ import org.kevoree.modeling.KObject;
 import org.kevoree.modeling.KObjectInfer;
 import org.kevoree.modeling.KView;
 import org.kevoree.modeling.defer.KDefer;
+import org.kevoree.modeling.infer.KBatchInferAlg;
+import org.kevoree.modeling.infer.KInferAlg;
+import org.kevoree.modeling.infer.KInferLearner;
+import org.kevoree.modeling.infer.KOnlineInferAlg;
 import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
 import org.kevoree.modeling.meta.*;
 import org.kevoree.modeling.meta.impl.MetaLiteral;
 import org.kevoree.modeling.util.PrimitiveHelper;
+import org.kevoree.modeling.util.maths.expression.KMathCompiledExpression;
 import org.kevoree.modeling.util.maths.structure.KArray2D;
 import org.kevoree.modeling.util.maths.structure.impl.NativeArray2D;
 
@@ -39,54 +44,10 @@ public class AbstractKObjectInfer extends AbstractKObject implements KObjectInfe
             throw new RuntimeException("Dependencies are mandatory for KObjectInfer");
         }
         final KObjectInfer selfObject = this;
-        final KView selfView = selfObject.manager().model().universe(_universe).time(_time);
-        KDefer waiter = this.manager().model().defer();
-        for (int i = 0; i < p_dependencies.length; i++) {
-            if (p_dependencies[i].length != _metaClass.dependencies().allDependencies().length) {
-                throw new RuntimeException("Bad number of arguments for allDependencies");
-            }
-            KObject[] loopDependencies = p_dependencies[i];
-            for (int j = 0; j < _metaClass.inputs().length; j++) {
-                KMetaInferInput loopInput = _metaClass.inputs()[j];
-                if (PrimitiveHelper.equals(loopInput.metaName(), "this") || PrimitiveHelper.equals(loopInput.metaName(), "self")) {
-                    loopInput.extractor().exec(new KObject[]{selfObject}, selfView, waiter.waitResult());
-                } else {
-                    KMetaDependency dependency = _metaClass.dependencies().dependencyByName(loopInput.metaName());
-                    if (dependency != null) {
-                        loopInput.extractor().exec(new KObject[]{loopDependencies[dependency.index()]}, selfView, waiter.waitResult());
-                    } else {
-                        throw new RuntimeException("Bad API definition, " + loopInput.metaName() + " isn't defined as a dependency");
-                    }
-                }
-            }
-        }
-        waiter.then(new KCallback<Object[]>() {
+        extractFeatures(p_dependencies, new KCallback<NativeArray2D>() {
             @Override
-            public void on(Object[] results) {
-                //collect output
-                NativeArray2D extractedInputs = new NativeArray2D(p_dependencies.length, _metaClass.inputs().length);
-                int k = 0;
-                for (int i = 0; i < p_dependencies.length; i++) {
-                    for (int j = 0; j < _metaClass.inputs().length; j++) {
-                        Object[] extracted = (Object[]) results[k];
-                        if (extracted != null && extracted.length > 0) {
-                            extractedInputs.set(i, j, (double) extracted[0]);
-                        }
-                        k++;
-                    }
-                }
-                NativeArray2D extractedOutputs = new NativeArray2D(1, _metaClass.outputs().length);
-                for (int i = 0; i < p_dependencies.length; i++) {
-                    for (int j = 0; j < _metaClass.outputs().length; j++) {
-                        KMetaInferOutput metaInferOutput = _metaClass.outputs()[j];
-                        Object currentOutputObject = null;
-                        if (p_outputs != null) {
-                            currentOutputObject = p_outputs[i][j];
-                        }
-                        extractedOutputs.set(i, j, internalConvertOutput(currentOutputObject, metaInferOutput));
-                    }
-                }
-                _metaClass.inferAlg().train(extractedInputs, extractedOutputs, selfObject, _manager);
+            public void on(NativeArray2D extractedInputs) {
+                _metaClass.inferAlg().train(extractedInputs, extractOutputs(p_dependencies.length, p_outputs), selfObject, _manager);
                 if (callback != null) {
                     callback.on(null);
                 }
@@ -118,51 +79,210 @@ public class AbstractKObjectInfer extends AbstractKObject implements KObjectInfe
             throw new RuntimeException("Bad number of arguments for allDependencies");
         }
         final KObjectInfer selfObject = this;
-        final KView selfView = selfObject.manager().model().universe(_universe).time(_time);
-        KDefer waiter = this.manager().model().defer();
-        for (int i = 0; i < p_dependencies.length; i++) {
-            if (p_dependencies[i].length != _metaClass.dependencies().allDependencies().length) {
-                throw new RuntimeException("Bad number of arguments for allDependencies");
+        extractFeatures(p_dependencies, new KCallback<NativeArray2D>() {
+            @Override
+            public void on(NativeArray2D extractedInputs) {
+                KArray2D extractedOutputs = _metaClass.inferAlg().infer(extractedInputs, selfObject, _manager);
+                Object[][] result = new Object[extractedOutputs.rows()][extractedOutputs.columns()];
+                for (int i = 0; i < extractedOutputs.rows(); i++) {
+                    result[i] = new Object[extractedOutputs.columns()];
+                    for (int j = 0; j < extractedOutputs.columns(); j++) {
+                        result[i][j] = internalReverseOutput(extractedOutputs.get(i, j), _metaClass.outputs()[j]);
+                    }
+                }
+                callback.on(result);
             }
-            KObject[] loopDependencies = p_dependencies[i];
-            for (int j = 0; j < _metaClass.inputs().length; j++) {
-                KMetaInferInput loopInput = _metaClass.inputs()[j];
-                if (PrimitiveHelper.equals(loopInput.metaName(), "this") || PrimitiveHelper.equals(loopInput.metaName(), "self")) {
-                    loopInput.extractor().exec(new KObject[]{selfObject}, selfView, waiter.waitResult());
+        });
+    }
+
+    /**
+     * Batch inference of KModel.inferAll, this object being the first of inferObjects. The samples of all the objects
+     * are extracted in a single pass, at the time of this object, and scored in a single call of a KBatchInferAlg, or
+     * object per object otherwise.
+     */
+    void genericInferBatch(final KObjectInfer[] inferObjects, final KObject[][][] p_dependencies, final KCallback<Object[][][]> callback) {
+        if (p_dependencies == null) {
+            throw new RuntimeException("Dependencies are mandatory for KObjectInfer");
+        }
+        for (int k = 0; k < inferObjects.length; k++) {
+            if (inferObjects[k].metaClass() != _metaClass) {
+                throw new RuntimeException("Batch inference needs infer objects of a same meta class");
+            }
+        }
+        //a single set of samples is scored by every object
+        final boolean shared = p_dependencies.length == 1 && inferObjects.length != 1;
+        if (!shared && p_dependencies.length != inferObjects.length) {
+            throw new RuntimeException("Bad number of arguments for allDependencies");
+        }
+        final int[] starts = new int[p_dependencies.length + 1];
+        for (int k = 0; k < p_dependencies.length; k++) {
+            starts[k + 1] = starts[k] + p_dependencies[k].length;
+        }
+        final KObject[][] rows = new KObject[starts[p_dependencies.length]][];
+        for (int k = 0; k < p_dependencies.length; k++) {
+            System.arraycopy(p_dependencies[k], 0, rows, starts[k], p_dependencies[k].length);
+        }
+        extractFeatures(rows, new KCallback<NativeArray2D>() {
+            @Override
+            public void on(NativeArray2D extractedInputs) {
+                KMetaInferOutput[] outputs = _metaClass.outputs();
+                Object[][][] result = new Object[inferObjects.length][][];
+                KInferAlg alg = _metaClass.inferAlg();
+                if (alg instanceof KBatchInferAlg) {
+                    int[] owners = null;
+                    if (!shared) {
+                        owners = new int[rows.length];
+                        for (int k = 0; k < inferObjects.length; k++) {
+                            for (int i = starts[k]; i < starts[k + 1]; i++) {
+                                owners[i] = k;
+                            }
+                        }
+                    }
+                    KArray2D inferred = ((KBatchInferAlg) alg).inferAll(extractedInputs, owners, inferObjects, _manager);
+                    for (int k = 0; k < inferObjects.length; k++) {
+                        int from = shared ? 0 : starts[k];
+                        int to = shared ? rows.length : starts[k + 1];
+                        int column = shared ? k * outputs.length : 0;
+                        result[k] = new Object[to - from][];
+                        for (int i = from; i < to; i++) {
+                            result[k][i - from] = new Object[outputs.length];
+                            for (int j = 0; j < outputs.length; j++) {
+                                result[k][i - from][j] = internalReverseOutput(inferred.get(i, column + j), outputs[j]);
+                            }
+                        }
+                    }
                 } else {
-                    KMetaDependency dependency = _metaClass.dependencies().dependencyByName(loopInput.metaName());
-                    if (dependency != null) {
-                        loopInput.extractor().exec(new KObject[]{loopDependencies[dependency.index()]}, selfView, waiter.waitResult());
-                    } else {
-                        throw new RuntimeException("Bad API definition, " + loopInput.metaName() + " isn't defined as a dependency");
+                    for (int k = 0; k < inferObjects.length; k++) {
+                        KArray2D features = extractedInputs;
+                        if (!shared) {
+                            features = sliceRows(extractedInputs, starts[k], starts[k + 1] - starts[k]);
+                        }
+                        KArray2D inferred = alg.infer(features, inferObjects[k], _manager);
+                        if (inferred != null) {
+                            result[k] = new Object[inferred.rows()][];
+                            for (int i = 0; i < inferred.rows(); i++) {
+                                result[k][i] = new Object[inferred.columns()];
+                                for (int j = 0; j < inferred.columns(); j++) {
+                                    result[k][i][j] = internalReverseOutput(inferred.get(i, j), outputs[j]);
+                                }
+                            }
+                        }
                     }
                 }
+                callback.on(result);
             }
+        });
+    }
+
+    private static NativeArray2D sliceRows(NativeArray2D matrix, int from, int count) {
+        NativeArray2D slice = new NativeArray2D(count, matrix.columns());
+        for (int j = 0; j < matrix.columns(); j++) {
+            System.arraycopy(matrix.data(), from + matrix.rows() * j, slice.data(), count * j, count);
+        }
+        return slice;
+    }
+
+    @Override
+    public KInferLearner learner(int checkpointPeriod) {
+        if (!(_metaClass.inferAlg() instanceof KOnlineInferAlg)) {
+            throw new RuntimeException("Infer algorithm of " + _metaClass.metaName() + " can't learn online");
+        }
+        return new InferLearner(this, (KOnlineInferAlg) _metaClass.inferAlg(), _manager, checkpointPeriod);
+    }
+
+    NativeArray2D extractOutputs(int nbRows, Object[][] p_outputs) {
+        NativeArray2D extractedOutputs = new NativeArray2D(nbRows, _metaClass.outputs().length);
+        for (int i = 0; i < nbRows; i++) {
+            for (int j = 0; j < _metaClass.outputs().length; j++) {
+                KMetaInferOutput metaInferOutput = _metaClass.outputs()[j];
+                Object currentOutputObject = null;
+                if (p_outputs != null) {
+                    currentOutputObject = p_outputs[i][j];
+                }
+                extractedOutputs.set(i, j, internalConvertOutput(currentOutputObject, metaInferOutput));
+            }
+        }
+        return extractedOutputs;
+    }
+
+    /**
+     * Fills the column-major feature matrix, one row per sample and one column per input. Inputs extracted by a single
+     * math expression are evaluated for the whole column at once on the dependency objects, other extractors fall back
+     * to one traversal per sample, all of them awaited by a single defer.
+     */
+    void extractFeatures(final KObject[][] p_dependencies, final KCallback<NativeArray2D> callback) {
+        final KMetaInferInput[] inputs = _metaClass.inputs();
+        final int nbRows = p_dependencies.length;
+        final NativeArray2D extracted = new NativeArray2D(nbRows, inputs.length);
+        final double[] features = extracted.data();
+        //sources[j][i] is the object input j is extracted from for sample i
+        final KObject[][] sources = new KObject[inputs.length][];
+        int nbDependencies = _metaClass.dependencies().allDependencies().length;
+        for (int i = 0; i < nbRows; i++) {
+            if (p_dependencies[i].length != nbDependencies) {
+                throw new RuntimeException("Bad number of arguments for allDependencies");
+            }
+        }
+        for (int j = 0; j < inputs.length; j++) {
+            KMetaInferInput loopInput = inputs[j];
+            KObject[] column = new KObject[nbRows];
+            if (PrimitiveHelper.equals(loopInput.metaName(), "this") || PrimitiveHelper.equals(loopInput.metaName(), "self")) {
+                for (int i = 0; i < nbRows; i++) {
+                    column[i] = this;
+                }
+            } else {
+                KMetaDependency dependency = _metaClass.dependencies().dependencyByName(loopInput.metaName());
+                if (dependency == null) {
+                    throw new RuntimeException("Bad API definition, " + loopInput.metaName() + " isn't defined as a dependency");
+                }
+                for (int i = 0; i < nbRows; i++) {
+                    column[i] = p_dependencies[i][dependency.index()];
+                }
+            }
+            sources[j] = column;
+        }
+        KDefer waiter = null;
+        final KView selfView = _manager.model().universe(_universe).time(_time);
+        for (int j = 0; j < inputs.length; j++) {
+            KMathCompiledExpression expression = inputs[j].compiledExtractor();
+            if (expression != null) {
+                double[] column = new double[nbRows];
+                expression.evalAll(sources[j], column);
+                for (int i = 0; i < nbRows; i++) {
+                    //a missing dependency leaves its feature to 0 as an empty traversal result does
+                    if (sources[j][i] != null) {
+                        features[i + nbRows * j] = column[i];
+                    }
+                }
+            } else {
+                if (waiter == null) {
+                    waiter = _manager.model().defer();
+                }
+                for (int i = 0; i < nbRows; i++) {
+                    inputs[j].extractor().exec(new KObject[]{sources[j][i]}, selfView, waiter.waitResult());
+                }
+            }
+        }
+        if (waiter == null) {
+            callback.on(extracted);
+            return;
         }
         waiter.then(new KCallback<Object[]>() {
             @Override
             public void on(Object[] results) {
-                //collect output
-                NativeArray2D extractedInputs = new NativeArray2D(p_dependencies.length, _metaClass.inputs().length);
                 int k = 0;
-                for (int i = 0; i < p_dependencies.length; i++) {
-                    for (int j = 0; j < _metaClass.inputs().length; j++) {
-                        Object[] extracted = (Object[]) results[k];
-                        if (extracted != null && extracted.length > 0) {
-                            extractedInputs.set(i, j, (double) extracted[0]);
+                for (int j = 0; j < inputs.length; j++) {
+                    if (inputs[j].compiledExtractor() == null) {
+                        for (int i = 0; i < nbRows; i++) {
+                            Object[] extractedValues = (Object[]) results[k];
+                            if (extractedValues != null && extractedValues.length > 0 && extractedValues[0] != null) {
+                                features[i + nbRows * j] = (double) extractedValues[0];
+                            }
+                            k++;
                         }
-                        k++;
                     }
                 }
-                KArray2D extractedOutputs = _metaClass.inferAlg().infer(extractedInputs, selfObject, _manager);
-                Object[][] result = new Object[extractedOutputs.rows()][extractedOutputs.columns()];
-                for (int i = 0; i < extractedOutputs.rows(); i++) {
-                    result[i] = new Object[extractedOutputs.columns()];
-                    for (int j = 0; j < extractedOutputs.columns(); j++) {
-                        result[i][j] = internalReverseOutput(extractedOutputs.get(i, j), _metaClass.outputs()[j]);
-                    }
-                }
-                callback.on(result);
+                callback.on(extracted);
             }
         });
     }
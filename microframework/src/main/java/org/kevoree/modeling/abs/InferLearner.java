@@ -0,0 +1,122 @@
+package org.kevoree.modeling.abs;
+
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.infer.KInferLearner;
+import org.kevoree.modeling.infer.KOnlineInferAlg;
+import org.kevoree.modeling.memory.chunk.KObjectChunk;
+import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
+import org.kevoree.modeling.util.maths.structure.KArray2D;
+import org.kevoree.modeling.util.maths.structure.impl.NativeArray1D;
+import org.kevoree.modeling.util.maths.structure.impl.NativeArray2D;
+
+/**
+ * KInferLearner of an AbstractKObjectInfer. The state is read from the closest chunk of the infer object on the first
+ * sample, and then only written to its precise chunk, so a stream checkpointed many times at the same time point
+ * keeps updating a single chunk.
+ */
+public class InferLearner implements KInferLearner {
+
+    private AbstractKObjectInfer _origin;
+
+    private KOnlineInferAlg _alg;
+
+    private KInternalDataManager _manager;
+
+    private int _checkpointPeriod;
+
+    private NativeArray1D _state;
+
+    private int _pending;
+
+    /**
+     * A checkpoint period lower than one leaves checkpoints to explicit calls.
+     */
+    public InferLearner(AbstractKObjectInfer p_origin, KOnlineInferAlg p_alg, KInternalDataManager p_manager, int p_checkpointPeriod) {
+        this._origin = p_origin;
+        this._alg = p_alg;
+        this._manager = p_manager;
+        this._checkpointPeriod = p_checkpointPeriod;
+        this._state = null;
+        this._pending = 0;
+    }
+
+    @Override
+    public void update(KObject[] dependencies, Object[] expectedOutputs, KCallback callback) {
+        KObject[][] all_dependencies = new KObject[1][dependencies.length];
+        all_dependencies[0] = dependencies;
+        Object[][] all_expectedOutputs = null;
+        if (expectedOutputs != null) {
+            all_expectedOutputs = new Object[1][expectedOutputs.length];
+            all_expectedOutputs[0] = expectedOutputs;
+        }
+        updateAll(all_dependencies, all_expectedOutputs, callback);
+    }
+
+    @Override
+    public void updateAll(final KObject[][] p_dependencies, final Object[][] p_outputs, final KCallback callback) {
+        if (p_dependencies == null) {
+            throw new RuntimeException("Dependencies are mandatory for KObjectInfer");
+        }
+        final InferLearner selfLearner = this;
+        _origin.extractFeatures(p_dependencies, new KCallback<NativeArray2D>() {
+            @Override
+            public void on(NativeArray2D extractedInputs) {
+                selfLearner.learn(extractedInputs, _origin.extractOutputs(p_dependencies.length, p_outputs));
+                if (callback != null) {
+                    callback.on(null);
+                }
+            }
+        });
+    }
+
+    private void learn(KArray2D features, KArray2D expected) {
+        if (_state == null) {
+            load();
+        }
+        for (int i = 0; i < features.rows(); i++) {
+            _alg.update(_state, features, expected, i, _origin);
+            _pending++;
+            if (_checkpointPeriod > 0 && _pending >= _checkpointPeriod) {
+                checkpoint();
+            }
+        }
+    }
+
+    private void load() {
+        int size = _alg.stateSize(_origin);
+        int dependenciesIndex = _origin.metaClass().dependencies().index();
+        _state = new NativeArray1D(size);
+        KObjectChunk ks = _manager.closestChunk(_origin.universe(), _origin.now(), _origin.uuid(), _origin.metaClass(), _origin.previousResolved());
+        if (ks.getDoubleArraySize(dependenciesIndex, _origin.metaClass()) == 0) {
+            _alg.initState(_state, _origin);
+        } else {
+            System.arraycopy(ks.viewDoubleArray(dependenciesIndex, _origin.metaClass()), 0, _state.data(), 0, size);
+        }
+        _alg.openState(_state, _origin);
+    }
+
+    @Override
+    public void checkpoint() {
+        if (_pending == 0) {
+            return;
+        }
+        NativeArray1D persisted = (NativeArray1D) _state.clone();
+        _alg.closeState(persisted, _origin);
+        int dependenciesIndex = _origin.metaClass().dependencies().index();
+        KObjectChunk ks = _manager.preciseChunk(_origin.universe(), _origin.now(), _origin.uuid(), _origin.metaClass(), _origin.previousResolved());
+        if (ks.getDoubleArraySize(dependenciesIndex, _origin.metaClass()) < persisted.size()) {
+            ks.extendDoubleArray(dependenciesIndex, persisted.size(), _origin.metaClass());
+        }
+        double[] view = ks.viewDoubleArray(dependenciesIndex, _origin.metaClass());
+        System.arraycopy(persisted.data(), 0, view, 0, persisted.size());
+        ks.commitDoubleArray(dependenciesIndex, view, _origin.metaClass());
+        _pending = 0;
+    }
+
+    @Override
+    public int pending() {
+        return this._pending;
+    }
+
+}
@@ -10,4 +10,9 @@ public interface Extrapolation {
 
     void mutate(KObject current, KMetaAttribute attribute, Object payload, KInternalDataManager dataManager);
 
+    /**
+     * Type the chunks store the values of attribute as, which differs from its declared type when they are encoded.
+     */
+    int storageTypeId(KMetaAttribute attribute);
+
 }
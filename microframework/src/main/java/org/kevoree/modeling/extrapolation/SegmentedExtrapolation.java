@@ -0,0 +1,19 @@
+package org.kevoree.modeling.extrapolation;
+
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
+import org.kevoree.modeling.meta.KMetaAttribute;
+
+/**
+ * Extrapolation reading the values of a range of times from segments, each chunk of an object covering the times up
+ * to the next one, so that a range is sampled in a single walk over them.
+ */
+public interface SegmentedExtrapolation extends Extrapolation {
+
+    /**
+     * Samples nbSamples evenly spaced times of [start, end]. segments are the object resolved at start and then at the
+     * time of each of its chunks inside the window, in ascending order, null before its creation.
+     */
+    double[] sample(KMetaAttribute attribute, long start, long end, int nbSamples, KObject[] segments, KInternalDataManager dataManager);
+
+}
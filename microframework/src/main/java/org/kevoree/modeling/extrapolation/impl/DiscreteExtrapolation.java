@@ -6,6 +6,10 @@ import org.kevoree.modeling.KObject;
 import org.kevoree.modeling.KObjectIndex;
 import org.kevoree.modeling.abs.AbstractKObject;
 import org.kevoree.modeling.extrapolation.Extrapolation;
+import org.kevoree.modeling.index.impl.IndexKeys;
+import org.kevoree.modeling.index.impl.PostingIndex;
+import org.kevoree.modeling.index.impl.SpatialIndex;
+import org.kevoree.modeling.index.impl.TextIndex;
 import org.kevoree.modeling.memory.chunk.KObjectChunk;
 import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
 import org.kevoree.modeling.meta.*;
@@ -38,6 +42,11 @@ public class DiscreteExtrapolation implements Extrapolation {
         }
     }
 
+    @Override
+    public int storageTypeId(KMetaAttribute attribute) {
+        return attribute.attributeTypeId();
+    }
+
     @Override
     public void mutate(KObject current, KMetaAttribute attribute, Object payload, KInternalDataManager dataManager) {
         KObjectChunk internalPreviousPayload = dataManager.closestChunk(current.universe(), current.now(), current.uuid(), current.metaClass(), ((AbstractKObject) current).previousResolved());
@@ -127,59 +136,108 @@ public class DiscreteExtrapolation implements Extrapolation {
             String previousHash = null;
             if (attribute.key()) {
                 //the attribute if part of the key, let's compute the previous hash
-                KMeta[] metas = current.metaClass().metaElements();
-                for (int i = 0; i < metas.length; i++) {
-                    if (metas[i].metaType().equals(MetaType.ATTRIBUTE) && ((KMetaAttribute) metas[i]).key()) {
-                        Object loopElem = internalPreviousPayload.getPrimitiveType(metas[i].index(), current.metaClass());
-                        if (loopElem != null) {
-                            if (previousHash == null) {
-                                previousHash = loopElem.toString();
-                            } else {
-                                previousHash += loopElem.toString();
-                            }
-                        }
-                    }
-                }
+                previousHash = IndexKeys.compositeKey(current.metaClass(), internalPreviousPayload);
+            }
+            String previousPosition = null;
+            if (attribute.spatialIndex() != null) {
+                previousPosition = spatialKey(current, attribute.spatialIndex(), internalPreviousPayload);
             }
             //By requiring a raw on the current object, we automatically create and copy the previous object
             KObjectChunk internalPayload = dataManager.preciseChunk(current.universe(), current.now(), current.uuid(), current.metaClass(), ((AbstractKObject) current).previousResolved());
             //The object is also automatically cset to Dirty
             if (internalPayload != null) {
                 internalPayload.setPrimitiveType(attribute.index(), toSetValue, current.metaClass());
-                String newHash = null;
+                if (attribute.ordered()) {
+                    updateOrderedIndex(current, attribute, previousValue, toSetValue, dataManager);
+                }
+                if (attribute.indexed()) {
+                    PostingIndex.update(dataManager, current, attribute, previousValue, toSetValue);
+                }
+                if (attribute.searchable() && attribute.attributeTypeId() == KPrimitiveTypes.STRING_ID) {
+                    TextIndex.update(dataManager, current, attribute, previousValue, toSetValue);
+                }
+                if (attribute.spatialIndex() != null) {
+                    updateSpatialIndex(current, attribute.spatialIndex(), previousPosition, spatialKey(current, attribute.spatialIndex(), internalPayload), dataManager);
+                }
                 if (attribute.key()) {
-                    KMeta[] metas = current.metaClass().metaElements();
-                    for (int i = 0; i < metas.length; i++) {
-                        if (metas[i].metaType().equals(MetaType.ATTRIBUTE) && ((KMetaAttribute) metas[i]).key()) {
-                            Object loopElem = internalPayload.getPrimitiveType(metas[i].index(), current.metaClass());
-                            if (loopElem != null) {
-                                if (newHash == null) {
-                                    newHash = loopElem.toString();
-                                } else {
-                                    newHash += loopElem.toString();
-                                }
-                            }
-                        }
+                    //buffered, the key index is written at once on the next save or read of this index
+                    dataManager.updateKeyIndex(current.universe(), current.now(), current.metaClass().metaName(), previousHash, IndexKeys.compositeKey(current.metaClass(), internalPayload), current.uuid());
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the values of an object written straight into its chunk, as the JSON loader does, to the secondary indexes
+     * maintained on every set.
+     */
+    public void indexChunk(KObject current, KObjectChunk payload, KInternalDataManager dataManager) {
+        KMeta[] metaElements = current.metaClass().metaElements();
+        for (int i = 0; i < metaElements.length; i++) {
+            if (metaElements[i] != null && metaElements[i].metaType() == MetaType.ATTRIBUTE) {
+                KMetaAttribute attribute = (KMetaAttribute) metaElements[i];
+                Object value = payload.getPrimitiveType(attribute.index(), current.metaClass());
+                if (attribute.strategy() == this && value != null) {
+                    if (attribute.ordered()) {
+                        updateOrderedIndex(current, attribute, null, value, dataManager);
+                    }
+                    if (attribute.indexed()) {
+                        PostingIndex.update(dataManager, current, attribute, null, value);
+                    }
+                    if (attribute.searchable() && attribute.attributeTypeId() == KPrimitiveTypes.STRING_ID) {
+                        TextIndex.update(dataManager, current, attribute, null, value);
+                    }
+                    //the spatial key is written once, for the latitude
+                    if (attribute.spatialIndex() != null && attribute.spatialIndex()[0] == attribute) {
+                        updateSpatialIndex(current, attribute.spatialIndex(), null, spatialKey(current, attribute.spatialIndex(), payload), dataManager);
                     }
-                    //update index
-                    final String finalPreviousHash = previousHash;
-                    final String finalNewHash = newHash;
-                    dataManager.index(current.universe(), current.now(), current.metaClass().metaName(), true, new KCallback<KObjectIndex>() {
-                        @Override
-                        public void on(KObjectIndex classIndex) {
-                            if (finalPreviousHash != null) {
-                                classIndex.setIndex(finalPreviousHash, KConfig.NULL_LONG);
-                            }
-                            if (finalNewHash != null) {
-                                classIndex.setIndex(finalNewHash, current.uuid());
-                            }
-                        }
-                    });
                 }
             }
         }
     }
 
+    private void updateOrderedIndex(final KObject current, KMetaAttribute attribute, Object previousValue, Object newValue, KInternalDataManager dataManager) {
+        final String previousKey = previousValue == null ? null : IndexKeys.withUuid(IndexKeys.encode(attribute.attributeTypeId(), previousValue), current.uuid());
+        final String newKey = newValue == null ? null : IndexKeys.withUuid(IndexKeys.encode(attribute.attributeTypeId(), newValue), current.uuid());
+        dataManager.rangeIndex(current.universe(), current.now(), IndexKeys.orderedIndexName(current.metaClass(), attribute), true, new KCallback<KObjectIndex>() {
+            @Override
+            public void on(KObjectIndex orderedIndex) {
+                if (previousKey != null) {
+                    orderedIndex.setIndex(previousKey, KConfig.NULL_LONG);
+                }
+                if (newKey != null) {
+                    orderedIndex.setIndex(newKey, current.uuid());
+                }
+            }
+        });
+    }
+
+    private String spatialKey(KObject current, KMetaAttribute[] coordinates, KObjectChunk payload) {
+        Object latitude = payload.getPrimitiveType(coordinates[0].index(), current.metaClass());
+        Object longitude = payload.getPrimitiveType(coordinates[1].index(), current.metaClass());
+        if (latitude == null || longitude == null) {
+            return null;
+        }
+        return SpatialIndex.key((double) latitude, (double) longitude, current.uuid());
+    }
+
+    private void updateSpatialIndex(final KObject current, KMetaAttribute[] coordinates, final String previousKey, final String newKey, KInternalDataManager dataManager) {
+        if (previousKey == null ? newKey == null : (newKey != null && PrimitiveHelper.equals(previousKey, newKey))) {
+            return;
+        }
+        dataManager.rangeIndex(current.universe(), current.now(), IndexKeys.spatialIndexName(current.metaClass(), coordinates[0]), true, new KCallback<KObjectIndex>() {
+            @Override
+            public void on(KObjectIndex spatialIndex) {
+                if (previousKey != null) {
+                    spatialIndex.setIndex(previousKey, KConfig.NULL_LONG);
+                }
+                if (newKey != null) {
+                    spatialIndex.setIndex(newKey, current.uuid());
+                }
+            }
+        });
+    }
+
     /**
      * @native ts
      * return payload;
@@ -238,6 +238,11 @@ public class DoublePolynomialExtrapolation implements Extrapolation {
     }
 
 
+    @Override
+    public int storageTypeId(KMetaAttribute attribute) {
+        return attribute.attributeTypeId();
+    }
+
     @Override
     public void mutate(KObject current, KMetaAttribute attribute, Object payload, KInternalDataManager dataManager) {
         KObjectChunk raw = dataManager.closestChunk(current.universe(), current.now(), current.uuid(), current.metaClass(), ((AbstractKObject) current).previousResolved());
@@ -3,13 +3,14 @@ package org.kevoree.modeling.extrapolation.impl;
 import org.kevoree.modeling.KObject;
 import org.kevoree.modeling.abs.AbstractKObject;
 import org.kevoree.modeling.extrapolation.Extrapolation;
+import org.kevoree.modeling.extrapolation.SegmentedExtrapolation;
 import org.kevoree.modeling.memory.chunk.KObjectChunk;
 import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
 import org.kevoree.modeling.meta.*;
 import org.kevoree.modeling.util.PrimitiveHelper;
 import org.kevoree.modeling.util.maths.structure.matrix.PolynomialFitBlas;
 
-public class PolynomialExtrapolation implements Extrapolation {
+public class PolynomialExtrapolation implements SegmentedExtrapolation {
 
     private static int _maxDegree = 20;
 
@@ -178,6 +179,11 @@ public class PolynomialExtrapolation implements Extrapolation {
     }
 
 
+    @Override
+    public int storageTypeId(KMetaAttribute attribute) {
+        return attribute.attributeTypeId();
+    }
+
     @Override
     public void mutate(KObject current, KMetaAttribute attribute, Object payload, KInternalDataManager dataManager) {
         KObjectChunk raw = dataManager.closestChunk(current.universe(), current.now(), current.uuid(), current.metaClass(), ((AbstractKObject) current).previousResolved());
@@ -187,32 +193,185 @@ public class PolynomialExtrapolation implements Extrapolation {
         if (!insert(current.now(), castNumber(payload), raw.time(), raw, attribute.index(), attribute.precision(), current.metaClass(), dataManager)) {
             long prevTime = (long) raw.getDoubleArrayElem(attribute.index(), LASTTIME, current.metaClass()) + raw.time();
             KObjectChunk newSegment = dataManager.preciseChunk(current.universe(), prevTime, current.uuid(), current.metaClass(), ((AbstractKObject) current).previousResolved());
+            rebase(current, attribute, raw, newSegment, prevTime, current.now(), dataManager);
+            double val = extrapolateValue(raw, current.metaClass(), attribute.index(), prevTime, raw.time());
+            insert(prevTime, val, prevTime, newSegment, attribute.index(), attribute.precision(), current.metaClass(),dataManager);
+            insert(current.now(), castNumber(payload), prevTime, newSegment, attribute.index(), attribute.precision(), current.metaClass(),dataManager);
+        }
+    }
 
-            KMeta[] metaElements = current.metaClass().metaElements();
-            for (int i=0;i< metaElements.length;i++){
-                if(metaElements[i].metaType().equals(MetaType.ATTRIBUTE)){
-                    KMetaAttribute att= (KMetaAttribute) metaElements[i];
-                    if(att.strategy()==this){
-                        newSegment.clearDoubleArray(att.index(), current.metaClass());
-                        if(att.index() != attribute.index()) {
-                            double val = extrapolateValue(raw, current.metaClass(), att.index(), prevTime, raw.time());
-                            insert(prevTime, val, prevTime, newSegment, att.index(), att.precision(), current.metaClass(),dataManager);
-                            long newTime = (long) raw.getDoubleArrayElem(att.index(), LASTTIME, current.metaClass()) + raw.time();
-                            if(newTime>=current.now()){
-                                val = extrapolateValue(raw, current.metaClass(), att.index(), newTime, raw.time());
-                                insert(newTime, val, prevTime, newSegment, att.index(), att.precision(), current.metaClass(),dataManager);
-                            }
-
+    /**
+     * A new segment starting at origin is a clone of the previous one, whose polynomials are relative to its own time.
+     * Every other attribute of this extrapolation restarts in the new segment from its value at origin, and keeps its
+     * last point when the previous segment reaches until.
+     */
+    private void rebase(KObject current, KMetaAttribute attribute, KObjectChunk raw, KObjectChunk newSegment, long origin, long until, KInternalDataManager dataManager) {
+        KMeta[] metaElements = current.metaClass().metaElements();
+        for (int i = 0; i < metaElements.length; i++) {
+            if (metaElements[i].metaType().equals(MetaType.ATTRIBUTE)) {
+                KMetaAttribute att = (KMetaAttribute) metaElements[i];
+                if (att.strategy() == this) {
+                    newSegment.clearDoubleArray(att.index(), current.metaClass());
+                    if (att.index() != attribute.index()) {
+                        double val = extrapolateValue(raw, current.metaClass(), att.index(), origin, raw.time());
+                        insert(origin, val, origin, newSegment, att.index(), att.precision(), current.metaClass(), dataManager);
+                        long newTime = (long) raw.getDoubleArrayElem(att.index(), LASTTIME, current.metaClass()) + raw.time();
+                        if (newTime >= until) {
+                            val = extrapolateValue(raw, current.metaClass(), att.index(), newTime, raw.time());
+                            insert(newTime, val, origin, newSegment, att.index(), att.precision(), current.metaClass(), dataManager);
                         }
                     }
                 }
             }
-            double val = extrapolateValue(raw, current.metaClass(), attribute.index(), prevTime, raw.time());
-            insert(prevTime, val, prevTime, newSegment, attribute.index(), attribute.precision(), current.metaClass(),dataManager);
-            insert(current.now(), castNumber(payload), prevTime, newSegment, attribute.index(), attribute.precision(), current.metaClass(),dataManager);
         }
     }
 
+    /**
+     * Bulk insertion of a series sorted by strictly increasing times, starting a new segment at times[0]. The series is
+     * cut greedily in a single pass: a segment takes the next sample while its polynomial predicts it within the error
+     * insert tolerates, or while a refit of one more degree on the samples of the segment does, and the next segment
+     * starts at the last sample of the previous one. Only the resulting segments are written, once each, as chunks of
+     * their own time. Returns the number of segments.
+     */
+    public int insertAll(KObject current, KMetaAttribute attribute, long[] times, double[] values, KInternalDataManager dataManager) {
+        if (times.length != values.length) {
+            throw new RuntimeException("Times and values must have the same length, " + times.length + " != " + values.length);
+        }
+        for (int i = 1; i < times.length; i++) {
+            if (times[i] <= times[i - 1]) {
+                throw new RuntimeException("Times must be strictly increasing, " + times[i] + " follows " + times[i - 1]);
+            }
+        }
+        int nbSegments = 0;
+        int start = 0;
+        while (start < times.length) {
+            long origin = times[start];
+            double[] weights = new double[]{values[start]};
+            double step = 0;
+            int end = start;
+            while (end + 1 < times.length) {
+                int next = end + 1;
+                if (end == start) {
+                    step = (double) (times[next] - origin);
+                }
+                int deg = weights.length - 1;
+                double maxError = maxErr(attribute.precision(), deg);
+                if (Math.abs(PolynomialFitBlas.extrapolate((times[next] - origin) / step, weights) - values[next]) <= maxError) {
+                    end = next;
+                    continue;
+                }
+                //one more degree, fitted on the samples of the segment
+                if (deg >= Math.min(next - start, _maxDegree)) {
+                    break;
+                }
+                double[] segmentTimes = new double[next - start + 1];
+                double[] segmentValues = new double[next - start + 1];
+                for (int i = start; i <= next; i++) {
+                    segmentTimes[i - start] = (times[i] - origin) / step;
+                    segmentValues[i - start] = values[i];
+                }
+                PolynomialFitBlas pf = new PolynomialFitBlas(deg + 1, dataManager.blas());
+                pf.fit(segmentTimes, segmentValues);
+                if (tempError(pf.getCoef(), segmentTimes, segmentValues) > maxError) {
+                    break;
+                }
+                weights = pf.getCoef();
+                end = next;
+            }
+            writeSegment(current, attribute, origin, weights, end - start + 1, step, times[end] - origin, dataManager);
+            nbSegments++;
+            if (end == times.length - 1) {
+                break;
+            }
+            start = end;
+        }
+        return nbSegments;
+    }
+
+    private void writeSegment(KObject current, KMetaAttribute attribute, long origin, double[] weights, int numSamples, double step, long lastTime, KInternalDataManager dataManager) {
+        KMetaClass metaClass = current.metaClass();
+        KObjectChunk previous = dataManager.closestChunk(current.universe(), origin, current.uuid(), metaClass, ((AbstractKObject) current).previousResolved());
+        KObjectChunk segment = dataManager.preciseChunk(current.universe(), origin, current.uuid(), metaClass, ((AbstractKObject) current).previousResolved());
+        if (previous != null && previous.time() != origin) {
+            rebase(current, attribute, previous, segment, origin, origin, dataManager);
+        }
+        int index = attribute.index();
+        segment.clearDoubleArray(index, metaClass);
+        segment.extendDoubleArray(index, WEIGHTS + weights.length, metaClass);
+        double[] encoded = segment.viewDoubleArray(index, metaClass);
+        encoded[DEGREE] = weights.length - 1;
+        encoded[NUMSAMPLES] = numSamples;
+        encoded[STEP] = step;
+        encoded[LASTTIME] = lastTime;
+        System.arraycopy(weights, 0, encoded, WEIGHTS, weights.length);
+        segment.commitDoubleArray(index, encoded, metaClass);
+    }
+
+    /**
+     * Every segment is read once, its polynomial being evaluated with Horner's scheme on the sample times it covers.
+     * Times before the first segment sample as NaN.
+     */
+    @Override
+    public double[] sample(KMetaAttribute attribute, long start, long end, int nbSamples, KObject[] segments, KInternalDataManager dataManager) {
+        double[] result = new double[nbSamples];
+        int current = 0;
+        KObjectChunk segment = segmentChunk(segments[0], dataManager);
+        double[] encoded = encoded(segment, attribute.index(), segments[0]);
+        for (int i = 0; i < nbSamples; i++) {
+            long time = sampleTime(start, end, nbSamples, i);
+            if (current + 1 < segments.length && segments[current + 1].now() <= time) {
+                while (current + 1 < segments.length && segments[current + 1].now() <= time) {
+                    current++;
+                }
+                segment = segmentChunk(segments[current], dataManager);
+                encoded = encoded(segment, attribute.index(), segments[current]);
+            }
+            if (segment == null) {
+                result[i] = Double.NaN;
+            } else if (encoded == null || encoded.length == 0) {
+                result[i] = 0.0;
+            } else if (encoded[STEP] == 0) {
+                result[i] = encoded[WEIGHTS];
+            } else {
+                double t = (time - segment.time()) / encoded[STEP];
+                int degree = (int) encoded[DEGREE];
+                double value = encoded[WEIGHTS + degree];
+                for (int j = degree - 1; j >= 0; j--) {
+                    value = value * t + encoded[WEIGHTS + j];
+                }
+                result[i] = value;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Chunk of an object resolved by a lookup, null when it was looked up before its creation.
+     */
+    static KObjectChunk segmentChunk(KObject segment, KInternalDataManager dataManager) {
+        if (segment == null) {
+            return null;
+        }
+        return dataManager.closestChunk(segment.universe(), segment.now(), segment.uuid(), segment.metaClass(), ((AbstractKObject) segment).previousResolved());
+    }
+
+    private double[] encoded(KObjectChunk segment, int index, KObject owner) {
+        if (segment == null || segment.getDoubleArraySize(index, owner.metaClass()) == 0) {
+            return null;
+        }
+        return segment.viewDoubleArray(index, owner.metaClass());
+    }
+
+    /**
+     * The i-th of nbSamples evenly spaced times of [start, end], end included when there is more than one sample.
+     */
+    public static long sampleTime(long start, long end, int nbSamples, int i) {
+        if (nbSamples == 1) {
+            return start;
+        }
+        return start + (long) ((double) (end - start) * i / (nbSamples - 1));
+    }
+
     /**
      * @native ts
      * return +payload;
@@ -0,0 +1,336 @@
+package org.kevoree.modeling.extrapolation.impl;
+
+/**
+ * Block of samples of one attribute, encoded the Gorilla way in the double array of a chunk: times as delta of deltas
+ * and values as the XOR of their 64 bits with the previous ones, both in a bit stream. Layout: the number of samples,
+ * the time of the first one and the capacity of the skip index, then the decoding state after the last sample, the
+ * skip index made of the states after every SKIP_INTERVAL-th sample, and the stream itself as words of WORD_BITS bits.
+ * Every slot holds an integer below 2^53, so that blocks are saved and loaded like any other double array.
+ * The cursor reads the stream sequentially, the skip index bounding the decoding of a point lookup to SKIP_INTERVAL
+ * samples.
+ *
+ * @ignore ts
+ */
+class TimeSeriesBlock {
+
+    static final int BLOCK_SIZE = 1024;
+
+    static final int SKIP_INTERVAL = 64;
+
+    private static final int COUNT = 0;
+    private static final int FIRST_TIME = 1;
+    private static final int SKIP_CAPACITY = 2;
+    private static final int LAST_STATE = 3;
+
+    //decoding state after a sample
+    private static final int TIME = 0;
+    private static final int DELTA = 1;
+    private static final int VALUE_HIGH = 2;
+    private static final int VALUE_LOW = 3;
+    private static final int LEADING = 4;
+    private static final int TRAILING = 5;
+    private static final int BIT_OFFSET = 6;
+    private static final int STATE_SIZE = 7;
+
+    private static final int WORD_BITS = 48;
+
+    //control bits, largest delta of deltas and XOR of a sample
+    private static final int MAX_SAMPLE_BITS = 4 + 64 + 2 + 5 + 6 + 64;
+
+    static int count(double[] block) {
+        if (block == null || block.length == 0) {
+            return 0;
+        }
+        return (int) block[COUNT];
+    }
+
+    static long firstTime(double[] block) {
+        return (long) block[FIRST_TIME];
+    }
+
+    static long lastTime(double[] block) {
+        return (long) block[LAST_STATE + TIME];
+    }
+
+    static long lastBits(double[] block) {
+        return bits(block, LAST_STATE);
+    }
+
+    private static int wordsOffset(double[] block) {
+        return LAST_STATE + STATE_SIZE + (int) block[SKIP_CAPACITY] * STATE_SIZE;
+    }
+
+    /**
+     * Size of a block of a single sample.
+     */
+    static int initialSize() {
+        return LAST_STATE + STATE_SIZE + (BLOCK_SIZE / SKIP_INTERVAL) * STATE_SIZE;
+    }
+
+    /**
+     * Size the block needs to take one more sample, growing by a quarter to append without extending every time.
+     */
+    static int appendSize(double[] block) {
+        int required = wordsOffset(block) + (int) ((block[LAST_STATE + BIT_OFFSET] + MAX_SAMPLE_BITS + WORD_BITS - 1) / WORD_BITS);
+        if (required <= block.length) {
+            return block.length;
+        }
+        return required + required / 4;
+    }
+
+    static void init(double[] block, int skipCapacity, long time, long bits) {
+        for (int i = 0; i < block.length; i++) {
+            block[i] = 0;
+        }
+        block[COUNT] = 1;
+        block[FIRST_TIME] = time;
+        block[SKIP_CAPACITY] = skipCapacity;
+        Cursor cursor = new Cursor();
+        cursor.time = time;
+        cursor.delta = 0;
+        cursor.bits = bits;
+        cursor.leading = -1;
+        cursor.trailing = 0;
+        cursor.bitOffset = 0;
+        cursor.store(block, LAST_STATE);
+        cursor.store(block, LAST_STATE + STATE_SIZE);
+    }
+
+    /**
+     * Appends a sample after the last one, the block being at least of appendSize.
+     */
+    static void append(double[] block, long time, long bits) {
+        Cursor cursor = new Cursor();
+        cursor.load(block, LAST_STATE, count(block) - 1);
+        int offset = wordsOffset(block);
+        long delta = time - cursor.time;
+        long deltaOfDelta = delta - cursor.delta;
+        if (deltaOfDelta == 0) {
+            cursor.write(block, offset, 0, 1);
+        } else if (deltaOfDelta >= -63 && deltaOfDelta <= 64) {
+            cursor.write(block, offset, 2, 2);
+            cursor.write(block, offset, deltaOfDelta + 63, 7);
+        } else if (deltaOfDelta >= -255 && deltaOfDelta <= 256) {
+            cursor.write(block, offset, 6, 3);
+            cursor.write(block, offset, deltaOfDelta + 255, 9);
+        } else if (deltaOfDelta >= -2047 && deltaOfDelta <= 2048) {
+            cursor.write(block, offset, 14, 4);
+            cursor.write(block, offset, deltaOfDelta + 2047, 12);
+        } else {
+            cursor.write(block, offset, 15, 4);
+            cursor.write(block, offset, deltaOfDelta, 64);
+        }
+        long xor = bits ^ cursor.bits;
+        if (xor == 0) {
+            cursor.write(block, offset, 0, 1);
+        } else {
+            int leading = Long.numberOfLeadingZeros(xor);
+            if (leading > 31) {
+                leading = 31;
+            }
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (cursor.leading != -1 && leading >= cursor.leading && trailing >= cursor.trailing) {
+                cursor.write(block, offset, 2, 2);
+                cursor.write(block, offset, xor >>> cursor.trailing, 64 - cursor.leading - cursor.trailing);
+            } else {
+                int meaningful = 64 - leading - trailing;
+                cursor.write(block, offset, 3, 2);
+                cursor.write(block, offset, leading, 5);
+                cursor.write(block, offset, meaningful - 1, 6);
+                cursor.write(block, offset, xor >>> trailing, meaningful);
+                cursor.leading = leading;
+                cursor.trailing = trailing;
+            }
+        }
+        cursor.time = time;
+        cursor.delta = delta;
+        cursor.bits = bits;
+        cursor.index++;
+        cursor.store(block, LAST_STATE);
+        block[COUNT] = cursor.index + 1;
+        int skip = cursor.index / SKIP_INTERVAL;
+        if (cursor.index % SKIP_INTERVAL == 0 && skip < (int) block[SKIP_CAPACITY]) {
+            cursor.store(block, LAST_STATE + STATE_SIZE + skip * STATE_SIZE);
+        }
+    }
+
+    /**
+     * A new block holding samples sorted by strictly increasing times, trimmed to the words it uses.
+     */
+    static double[] encode(long[] times, long[] bits, int size) {
+        int skipCapacity = Math.max(BLOCK_SIZE / SKIP_INTERVAL, (size + SKIP_INTERVAL - 1) / SKIP_INTERVAL);
+        int headerSize = LAST_STATE + STATE_SIZE + skipCapacity * STATE_SIZE;
+        double[] block = new double[headerSize + (int) (((long) size * MAX_SAMPLE_BITS + WORD_BITS - 1) / WORD_BITS)];
+        init(block, skipCapacity, times[0], bits[0]);
+        for (int i = 1; i < size; i++) {
+            append(block, times[i], bits[i]);
+        }
+        double[] trimmed = new double[headerSize + (int) ((block[LAST_STATE + BIT_OFFSET] + WORD_BITS - 1) / WORD_BITS)];
+        System.arraycopy(block, 0, trimmed, 0, trimmed.length);
+        return trimmed;
+    }
+
+    /**
+     * Positions the cursor on the last sample at or before time, false if the block starts after it. Decodes from the
+     * closest skip entry.
+     */
+    static boolean seek(double[] block, long time, Cursor cursor) {
+        int count = count(block);
+        if (count == 0 || time < firstTime(block)) {
+            return false;
+        }
+        if (time >= lastTime(block)) {
+            cursor.load(block, LAST_STATE, count - 1);
+            return true;
+        }
+        int nbSkips = Math.min((int) block[SKIP_CAPACITY], (count - 1) / SKIP_INTERVAL + 1);
+        int low = 0;
+        int high = nbSkips - 1;
+        while (low < high) {
+            int middle = (low + high + 1) / 2;
+            if ((long) block[LAST_STATE + STATE_SIZE + middle * STATE_SIZE + TIME] <= time) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        cursor.load(block, LAST_STATE + STATE_SIZE + low * STATE_SIZE, low * SKIP_INTERVAL);
+        cursor.advanceTo(block, time);
+        return true;
+    }
+
+    private static long bits(double[] block, int stateOffset) {
+        return ((long) block[stateOffset + VALUE_HIGH] << 32) | (long) block[stateOffset + VALUE_LOW];
+    }
+
+    /**
+     * Decoding state after a sample of a block, its time and the 64 bits of its value.
+     */
+    static class Cursor {
+
+        int index;
+
+        long time;
+
+        long delta;
+
+        long bits;
+
+        int leading;
+
+        int trailing;
+
+        long bitOffset;
+
+        private void load(double[] block, int stateOffset, int p_index) {
+            index = p_index;
+            time = (long) block[stateOffset + TIME];
+            delta = (long) block[stateOffset + DELTA];
+            bits = TimeSeriesBlock.bits(block, stateOffset);
+            leading = (int) block[stateOffset + LEADING];
+            trailing = (int) block[stateOffset + TRAILING];
+            bitOffset = (long) block[stateOffset + BIT_OFFSET];
+        }
+
+        private void store(double[] block, int stateOffset) {
+            block[stateOffset + TIME] = time;
+            block[stateOffset + DELTA] = delta;
+            block[stateOffset + VALUE_HIGH] = bits >>> 32;
+            block[stateOffset + VALUE_LOW] = bits & 0xFFFFFFFFL;
+            block[stateOffset + LEADING] = leading;
+            block[stateOffset + TRAILING] = trailing;
+            block[stateOffset + BIT_OFFSET] = bitOffset;
+        }
+
+        /**
+         * Decodes the next sample, false after the last one.
+         */
+        boolean next(double[] block) {
+            if (index + 1 >= count(block)) {
+                return false;
+            }
+            int offset = wordsOffset(block);
+            long deltaOfDelta;
+            if (read(block, offset, 1) == 0) {
+                deltaOfDelta = 0;
+            } else if (read(block, offset, 1) == 0) {
+                deltaOfDelta = read(block, offset, 7) - 63;
+            } else if (read(block, offset, 1) == 0) {
+                deltaOfDelta = read(block, offset, 9) - 255;
+            } else if (read(block, offset, 1) == 0) {
+                deltaOfDelta = read(block, offset, 12) - 2047;
+            } else {
+                deltaOfDelta = read(block, offset, 64);
+            }
+            delta = delta + deltaOfDelta;
+            time = time + delta;
+            if (read(block, offset, 1) == 1) {
+                if (read(block, offset, 1) == 1) {
+                    leading = (int) read(block, offset, 5);
+                    int meaningful = (int) read(block, offset, 6) + 1;
+                    trailing = 64 - leading - meaningful;
+                }
+                bits = bits ^ (read(block, offset, 64 - leading - trailing) << trailing);
+            }
+            index++;
+            return true;
+        }
+
+        /**
+         * Moves forward while the next sample is at or before time.
+         */
+        void advanceTo(double[] block, long p_time) {
+            int count = count(block);
+            while (index + 1 < count) {
+                int previousIndex = index;
+                long previousTime = time;
+                long previousDelta = delta;
+                long previousBits = bits;
+                int previousLeading = leading;
+                int previousTrailing = trailing;
+                long previousBitOffset = bitOffset;
+                next(block);
+                if (time > p_time) {
+                    index = previousIndex;
+                    time = previousTime;
+                    delta = previousDelta;
+                    bits = previousBits;
+                    leading = previousLeading;
+                    trailing = previousTrailing;
+                    bitOffset = previousBitOffset;
+                    return;
+                }
+            }
+        }
+
+        private void write(double[] block, int offset, long value, int nbBits) {
+            int remaining = nbBits;
+            while (remaining > 0) {
+                int word = offset + (int) (bitOffset / WORD_BITS);
+                int free = WORD_BITS - (int) (bitOffset % WORD_BITS);
+                int taken = Math.min(free, remaining);
+                long piece = (value >>> (remaining - taken)) & ((1L << taken) - 1);
+                block[word] = (long) block[word] | (piece << (free - taken));
+                bitOffset += taken;
+                remaining -= taken;
+            }
+        }
+
+        private long read(double[] block, int offset, int nbBits) {
+            long result = 0;
+            int remaining = nbBits;
+            while (remaining > 0) {
+                int word = offset + (int) (bitOffset / WORD_BITS);
+                int available = WORD_BITS - (int) (bitOffset % WORD_BITS);
+                int taken = Math.min(available, remaining);
+                long piece = ((long) block[word] >>> (available - taken)) & ((1L << taken) - 1);
+                result = (result << taken) | piece;
+                bitOffset += taken;
+                remaining -= taken;
+            }
+            return result;
+        }
+
+    }
+
+}
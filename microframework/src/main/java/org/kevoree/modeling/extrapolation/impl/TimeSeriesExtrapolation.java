@@ -0,0 +1,197 @@
+package org.kevoree.modeling.extrapolation.impl;
+
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.abs.AbstractKObject;
+import org.kevoree.modeling.extrapolation.Extrapolation;
+import org.kevoree.modeling.extrapolation.SegmentedExtrapolation;
+import org.kevoree.modeling.memory.chunk.KObjectChunk;
+import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
+import org.kevoree.modeling.meta.KMetaAttribute;
+import org.kevoree.modeling.meta.KMetaClass;
+import org.kevoree.modeling.meta.KPrimitiveTypes;
+import org.kevoree.modeling.util.PrimitiveHelper;
+
+/**
+ * Raw samples of a DOUBLE, LONG, INT or CONTINUOUS attribute, without one chunk per sample: they are appended to a
+ * compressed TimeSeriesBlock of the closest chunk, a new chunk starting a new block every BLOCK_SIZE samples. A value
+ * holds from its time until the next sample. Samples written before the last one of their block rewrite it.
+ * The blocks are made of the 64 bits of the values and of their XOR, which JavaScript numbers cannot hold, so this
+ * strategy is not part of the TypeScript build.
+ *
+ * @ignore ts
+ */
+public class TimeSeriesExtrapolation implements SegmentedExtrapolation {
+
+    private static TimeSeriesExtrapolation INSTANCE;
+
+    public static Extrapolation instance() {
+        if (INSTANCE == null) {
+            INSTANCE = new TimeSeriesExtrapolation();
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Blocks are stored by the chunks as double arrays, the way CONTINUOUS attributes are.
+     */
+    @Override
+    public int storageTypeId(KMetaAttribute attribute) {
+        return KPrimitiveTypes.CONTINUOUS_ID;
+    }
+
+    @Override
+    public Object extrapolate(KObject current, KMetaAttribute attribute, KInternalDataManager dataManager) {
+        KObjectChunk raw = dataManager.closestChunk(current.universe(), current.now(), current.uuid(), current.metaClass(), ((AbstractKObject) current).previousResolved());
+        if (raw == null) {
+            return null;
+        }
+        double[] block = raw.viewDoubleArray(attribute.index(), current.metaClass());
+        TimeSeriesBlock.Cursor cursor = new TimeSeriesBlock.Cursor();
+        if (!TimeSeriesBlock.seek(block, current.now(), cursor)) {
+            return null;
+        }
+        switch (attribute.attributeTypeId()) {
+            case KPrimitiveTypes.LONG_ID:
+                return cursor.bits;
+            case KPrimitiveTypes.INT_ID:
+                return (int) cursor.bits;
+            default:
+                return Double.longBitsToDouble(cursor.bits);
+        }
+    }
+
+    @Override
+    public void mutate(KObject current, KMetaAttribute attribute, Object payload, KInternalDataManager dataManager) {
+        long bits = toBits(attribute, payload);
+        KMetaClass metaClass = current.metaClass();
+        int index = attribute.index();
+        long now = current.now();
+        KObjectChunk raw = dataManager.closestChunk(current.universe(), now, current.uuid(), metaClass, ((AbstractKObject) current).previousResolved());
+        if (raw.universe() != current.universe()) {
+            raw = dataManager.preciseChunk(current.universe(), now, current.uuid(), metaClass, ((AbstractKObject) current).previousResolved());
+        }
+        double[] block = raw.viewDoubleArray(index, metaClass);
+        int count = TimeSeriesBlock.count(block);
+        if (count != 0 && now > TimeSeriesBlock.lastTime(block) && count >= TimeSeriesBlock.BLOCK_SIZE) {
+            //full block, the next one starts in a chunk of its own
+            raw = dataManager.preciseChunk(current.universe(), now, current.uuid(), metaClass, ((AbstractKObject) current).previousResolved());
+            count = 0;
+        }
+        if (count == 0) {
+            raw.clearDoubleArray(index, metaClass);
+            raw.extendDoubleArray(index, TimeSeriesBlock.initialSize(), metaClass);
+            block = raw.viewDoubleArray(index, metaClass);
+            TimeSeriesBlock.init(block, TimeSeriesBlock.BLOCK_SIZE / TimeSeriesBlock.SKIP_INTERVAL, now, bits);
+        } else if (now > TimeSeriesBlock.lastTime(block)) {
+            int size = TimeSeriesBlock.appendSize(block);
+            if (size > block.length) {
+                raw.extendDoubleArray(index, size, metaClass);
+                block = raw.viewDoubleArray(index, metaClass);
+            }
+            TimeSeriesBlock.append(block, now, bits);
+        } else {
+            double[] rewritten = rewrite(block, count, now, bits);
+            raw.clearDoubleArray(index, metaClass);
+            raw.extendDoubleArray(index, rewritten.length, metaClass);
+            block = raw.viewDoubleArray(index, metaClass);
+            System.arraycopy(rewritten, 0, block, 0, rewritten.length);
+        }
+        raw.commitDoubleArray(index, block, metaClass);
+    }
+
+    /**
+     * Decodes the block, replaces or inserts the sample at time and encodes it again.
+     */
+    private double[] rewrite(double[] block, int count, long time, long bits) {
+        long[] times = new long[count + 1];
+        long[] values = new long[count + 1];
+        int size = 0;
+        boolean written = false;
+        TimeSeriesBlock.Cursor cursor = new TimeSeriesBlock.Cursor();
+        TimeSeriesBlock.seek(block, TimeSeriesBlock.firstTime(block), cursor);
+        do {
+            if (!written && time <= cursor.time) {
+                times[size] = time;
+                values[size] = bits;
+                size++;
+                written = true;
+            }
+            if (cursor.time != time) {
+                times[size] = cursor.time;
+                values[size] = cursor.bits;
+                size++;
+            }
+        } while (cursor.next(block));
+        return TimeSeriesBlock.encode(times, values, size);
+    }
+
+    /**
+     * Every block is decoded sequentially from the skip entry before the first of its sample times. NaN before the
+     * first sample.
+     */
+    @Override
+    public double[] sample(KMetaAttribute attribute, long start, long end, int nbSamples, KObject[] segments, KInternalDataManager dataManager) {
+        double[] result = new double[nbSamples];
+        int current = 0;
+        double[] block = block(PolynomialExtrapolation.segmentChunk(segments[0], dataManager), attribute.index(), segments[0]);
+        TimeSeriesBlock.Cursor cursor = new TimeSeriesBlock.Cursor();
+        boolean positioned = false;
+        for (int i = 0; i < nbSamples; i++) {
+            long time = PolynomialExtrapolation.sampleTime(start, end, nbSamples, i);
+            if (current + 1 < segments.length && segments[current + 1].now() <= time) {
+                while (current + 1 < segments.length && segments[current + 1].now() <= time) {
+                    current++;
+                }
+                block = block(PolynomialExtrapolation.segmentChunk(segments[current], dataManager), attribute.index(), segments[current]);
+                positioned = false;
+            }
+            if (positioned) {
+                cursor.advanceTo(block, time);
+            } else {
+                positioned = TimeSeriesBlock.seek(block, time, cursor);
+            }
+            if (!positioned) {
+                result[i] = Double.NaN;
+            } else if (attribute.attributeTypeId() == KPrimitiveTypes.LONG_ID || attribute.attributeTypeId() == KPrimitiveTypes.INT_ID) {
+                result[i] = cursor.bits;
+            } else {
+                result[i] = Double.longBitsToDouble(cursor.bits);
+            }
+        }
+        return result;
+    }
+
+    private double[] block(KObjectChunk segment, int index, KObject owner) {
+        if (segment == null || segment.getDoubleArraySize(index, owner.metaClass()) == 0) {
+            return null;
+        }
+        return segment.viewDoubleArray(index, owner.metaClass());
+    }
+
+    private long toBits(KMetaAttribute attribute, Object payload) {
+        if (payload == null) {
+            throw new RuntimeException("Bad KMF usage, the time series of " + attribute.metaName() + " cannot take null values");
+        }
+        switch (attribute.attributeTypeId()) {
+            case KPrimitiveTypes.LONG_ID:
+                if (payload instanceof Long) {
+                    return (Long) payload;
+                }
+                return PrimitiveHelper.parseLong(payload.toString());
+            case KPrimitiveTypes.INT_ID:
+                if (payload instanceof Integer) {
+                    return (Integer) payload;
+                }
+                return PrimitiveHelper.parseInt(payload.toString());
+            case KPrimitiveTypes.DOUBLE_ID:
+            case KPrimitiveTypes.CONTINUOUS_ID:
+                if (payload instanceof Double) {
+                    return Double.doubleToLongBits((Double) payload);
+                }
+                return Double.doubleToLongBits(PrimitiveHelper.parseDouble(payload.toString()));
+            default:
+                throw new RuntimeException("Bad KMF usage, only DOUBLE, LONG, INT and CONTINUOUS attributes are encoded as time series, not " + attribute.metaName());
+        }
+    }
+
+}
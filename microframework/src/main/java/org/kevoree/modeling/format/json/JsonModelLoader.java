@@ -5,6 +5,7 @@ import org.kevoree.modeling.KConfig;
 import org.kevoree.modeling.KObject;
 import org.kevoree.modeling.abs.AbstractKModel;
 import org.kevoree.modeling.abs.AbstractKObject;
+import org.kevoree.modeling.extrapolation.impl.DiscreteExtrapolation;
 import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
 import org.kevoree.modeling.memory.chunk.KLongLongMap;
 import org.kevoree.modeling.meta.*;
@@ -123,14 +124,15 @@ public class JsonModelLoader {
                 if (payload_content != null) {
                     if (metaElement != null && metaElement.metaType().equals(MetaType.ATTRIBUTE)) {
                         KMetaAttribute metaAttribute = (KMetaAttribute) metaElement;
-                        int metaAttId = metaAttribute.attributeTypeId();
+                        int metaAttId = metaAttribute.storageTypeId();
                         switch (metaAttId) {
                             case KPrimitiveTypes.CONTINUOUS_ID:
-                                String[] plainRawSet = (String[]) p_param.get(metaAttribute.metaName());
-                                double[] convertedRaw = new double[plainRawSet.length];
-                                for (int l = 0; l < plainRawSet.length; l++) {
+                                ArrayList<String> plainRawSet = (ArrayList<String>) p_param.get(metaAttribute.metaName());
+                                int sizeOfL = sizeOfList(plainRawSet);
+                                double[] convertedRaw = new double[sizeOfL];
+                                for (int l = 0; l < sizeOfL; l++) {
                                     try {
-                                        convertedRaw[l] = PrimitiveHelper.parseDouble(plainRawSet[l]);
+                                        convertedRaw[l] = PrimitiveHelper.parseDouble(getString(plainRawSet, l));
                                     } catch (Exception e) {
                                         e.printStackTrace();
                                     }
@@ -171,6 +173,7 @@ public class JsonModelLoader {
 
             }
         });
+        ((DiscreteExtrapolation) DiscreteExtrapolation.instance()).indexChunk(current, raw, manager);
     }
 
     private static long[] transposeArr(ArrayList<String> plainRawSet, KLongLongMap p_mappedKeys) {
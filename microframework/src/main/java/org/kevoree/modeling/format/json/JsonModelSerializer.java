@@ -5,6 +5,7 @@ import org.kevoree.modeling.traversal.visitor.KModelVisitor;
 import org.kevoree.modeling.KObject;
 import org.kevoree.modeling.KCallback;
 import org.kevoree.modeling.traversal.visitor.KVisitResult;
+import org.kevoree.modeling.traversal.visitor.impl.BatchedModelVisitor;
 import org.kevoree.modeling.abs.AbstractKObject;
 
 public class JsonModelSerializer {
@@ -13,7 +14,7 @@ public class JsonModelSerializer {
         final StringBuilder builder = new StringBuilder();
         builder.append("[\n");
         printJSON(model, builder);
-        model.visit(new KModelVisitor() {
+        new BatchedModelVisitor(new KModelVisitor() {
             @Override
             public KVisitResult visit(KObject elem) {
                 boolean isRoot2 = false;
@@ -26,7 +27,7 @@ public class JsonModelSerializer {
                 }
                 return KVisitResult.CONTINUE;
             }
-        }, new KCallback<Throwable>() {
+        }, false).visit(model, new KCallback<Throwable>() {
             @Override
             public void on(Throwable throwable) {
                 builder.append("\n]\n");
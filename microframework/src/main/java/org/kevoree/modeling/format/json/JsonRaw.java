@@ -20,7 +20,7 @@ public class JsonRaw {
             KMeta loopMeta = metaElements[i];
             if (loopMeta != null && loopMeta.metaType().equals(MetaType.ATTRIBUTE)) {
                 KMetaAttribute metaAttribute = (KMetaAttribute) loopMeta;
-                int metaAttId = metaAttribute.attributeTypeId();
+                int metaAttId = metaAttribute.storageTypeId();
                 if (metaAttId == KPrimitiveTypes.CONTINUOUS_ID) {
                     double[] inferAtt = raw.getDoubleArray(loopMeta.index(), p_metaClass);
                     if (inferAtt != null) {
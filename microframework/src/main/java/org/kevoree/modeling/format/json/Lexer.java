@@ -37,7 +37,7 @@ public class Lexer {
     }
 
     private boolean isValueLetter(Character c) {
-        return c == '-' || c == '+' || c == '.' || isDigit(c) || isBooleanLetter(c);
+        return c == '-' || c == '+' || c == '.' || c == 'E' || isDigit(c) || isBooleanLetter(c);
     }
 
     private String _lastValue = null;
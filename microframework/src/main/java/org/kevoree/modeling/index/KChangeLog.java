@@ -0,0 +1,16 @@
+package org.kevoree.modeling.index;
+
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
+
+/**
+ * Time ordered log of the objects changed in a universe.
+ */
+public interface KChangeLog {
+
+    /**
+     * Sorted uuids of the objects changed in the universe between from and to, both inclusive.
+     */
+    void changedBetween(KInternalDataManager manager, long universe, long from, long to, KCallback<long[]> callback);
+
+}
@@ -0,0 +1,36 @@
+package org.kevoree.modeling.index;
+
+import org.kevoree.modeling.KCallback;
+
+/**
+ * Bulk build of all indexes of a meta class at a given universe and time: objects are scanned by concurrent batches,
+ * their keys sorted and every index written at once when the scan completes, replacing its previous content.
+ * A paused build keeps the batches already scanned and resumes from the next one when started again.
+ */
+public interface KIndexBuild {
+
+    /**
+     * Starts or resumes the build, the callback receives null once every index is written or the error which stopped it.
+     */
+    void start(KCallback<Throwable> callback);
+
+    /**
+     * Stops dispatching batches, the ones in flight complete.
+     */
+    void pause();
+
+    /**
+     * Listener called after every scanned batch and once the indexes are written.
+     */
+    void onProgress(KCallback<KIndexBuild> listener);
+
+    /**
+     * Number of objects to scan, -1 until the objects to scan are resolved.
+     */
+    int total();
+
+    int scanned();
+
+    boolean isDone();
+
+}
@@ -0,0 +1,20 @@
+package org.kevoree.modeling.index;
+
+/**
+ * Ordered view of the values of one attribute for all objects of a meta class at a given universe and time.
+ * Results are uuids in ascending value order, objects sharing a value are ordered by uuid.
+ */
+public interface KOrderedIndex {
+
+    /**
+     * A null bound is unbounded, bounds are given as typed values or as their textual form.
+     */
+    long[] range(Object min, boolean minInclusive, Object max, boolean maxInclusive);
+
+    long[] top(int k, boolean descending);
+
+    long[] prefix(String prefix);
+
+    int size();
+
+}
@@ -0,0 +1,26 @@
+package org.kevoree.modeling.index;
+
+/**
+ * Spatial view of the positions (latitude, longitude in degrees) of all objects of a meta class at a given universe and time.
+ * Distances are great circle distances in meters.
+ */
+public interface KSpatialIndex {
+
+    /**
+     * Objects inside the box, a minimal longitude greater than the maximal one designates a box crossing the antimeridian.
+     */
+    long[] boundingBox(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude);
+
+    /**
+     * Objects at most meters away from the point, nearest first.
+     */
+    long[] radius(double latitude, double longitude, double meters);
+
+    /**
+     * The k objects nearest to the point, nearest first.
+     */
+    long[] nearest(double latitude, double longitude, int k);
+
+    int size();
+
+}
@@ -0,0 +1,173 @@
+package org.kevoree.modeling.index.impl;
+
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KConfig;
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.KObjectIndex;
+import org.kevoree.modeling.abs.AbstractKObjectIndex;
+import org.kevoree.modeling.index.KChangeLog;
+import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
+import org.kevoree.modeling.util.PrimitiveHelper;
+
+/**
+ * Time ordered log of the objects changed in a universe, enabled through DataManagerBuilder.withChangeLog.
+ * Changes are grouped in buckets of a fixed time width: a paged directory maps every encoded bucket to the uuid of a
+ * flat bucket object, whose keys are the encoded time of a change followed by the uuid of the changed object.
+ * The log lives at the beginning of time so that recording a change never copies it, and a time range is answered
+ * by reading the sorted keys of the buckets it overlaps instead of scanning every object.
+ */
+public class ChangeLog implements KChangeLog {
+
+    public static final String INDEX_NAME = "#changes";
+
+    private final long _bucketWidth;
+
+    public ChangeLog(long p_bucketWidth) {
+        if (p_bucketWidth <= 0) {
+            throw new RuntimeException("Change log bucket width must be positive, " + p_bucketWidth);
+        }
+        this._bucketWidth = p_bucketWidth;
+    }
+
+    public long bucketWidth() {
+        return this._bucketWidth;
+    }
+
+    /**
+     * Bucket holding a time, rounded toward the beginning of time for negative times as well.
+     */
+    public long bucket(long time) {
+        long bucket = time / _bucketWidth;
+        if (time < 0 && time % _bucketWidth != 0) {
+            bucket--;
+        }
+        return bucket;
+    }
+
+    public void record(final KInternalDataManager manager, final long universe, final long time, final long uuid) {
+        final String bucketKey = encodedLong(bucket(time));
+        final String changeKey = IndexKeys.withUuid(encodedLong(time), uuid);
+        manager.index(universe, KConfig.BEGINNING_OF_TIME, INDEX_NAME, true, new KCallback<KObjectIndex>() {
+            @Override
+            public void on(KObjectIndex directory) {
+                //concurrent changes opening a bucket share the bucket created by the first one
+                long bucketUuid = ((AbstractKObjectIndex) directory).internal_getOrCreate(bucketKey);
+                manager.lookup(directory.universe(), directory.now(), bucketUuid, new KCallback<KObject>() {
+                    @Override
+                    public void on(KObject bucket) {
+                        ((KObjectIndex) bucket).setIndex(changeKey, uuid);
+                    }
+                });
+            }
+        });
+    }
+
+    @Override
+    public void changedBetween(final KInternalDataManager manager, final long universe, final long from, final long to, final KCallback<long[]> callback) {
+        if (from > to) {
+            callback.on(new long[0]);
+            return;
+        }
+        manager.index(universe, KConfig.BEGINNING_OF_TIME, INDEX_NAME, false, new KCallback<KObjectIndex>() {
+            @Override
+            public void on(KObjectIndex directory) {
+                if (directory == null) {
+                    callback.on(new long[0]);
+                    return;
+                }
+                long[] bucketUuids = bucketsBetween(((AbstractKObjectIndex) directory).internal_sortedKeys(), encodedLong(bucket(from)), encodedLong(bucket(to)), directory);
+                manager.lookupAllObjects(directory.universe(), directory.now(), bucketUuids, new KCallback<KObject[]>() {
+                    @Override
+                    public void on(KObject[] buckets) {
+                        String lower = encodedLong(from);
+                        String upper = encodedLong(to);
+                        long[][] changed = new long[buckets.length][];
+                        for (int i = 0; i < buckets.length; i++) {
+                            if (buckets[i] == null) {
+                                changed[i] = new long[0];
+                            } else {
+                                changed[i] = distinct(Postings.sort(changesBetween(((AbstractKObjectIndex) buckets[i]).internal_sortedKeys()[0], lower, upper)));
+                            }
+                        }
+                        callback.on(Postings.union(changed));
+                    }
+                });
+            }
+        });
+    }
+
+    private static long[] bucketsBetween(String[][] runs, String lower, String upper, KObjectIndex directory) {
+        long[] result = new long[0];
+        int size = 0;
+        for (int r = 0; r < runs.length; r++) {
+            String[] run = runs[r];
+            int position = lowerBound(run, lower);
+            while (position < run.length && PrimitiveHelper.compareStrings(run[position], upper) <= 0) {
+                if (size == result.length) {
+                    long[] extended = new long[size * 2 + 4];
+                    System.arraycopy(result, 0, extended, 0, size);
+                    result = extended;
+                }
+                result[size] = directory.getIndex(run[position]);
+                size++;
+                position++;
+            }
+        }
+        long[] trimmed = new long[size];
+        System.arraycopy(result, 0, trimmed, 0, size);
+        return trimmed;
+    }
+
+    /**
+     * Uuids of the changes whose encoded time lies between lower and upper, keys being sorted by time then uuid.
+     */
+    private static long[] changesBetween(String[] keys, String lower, String upper) {
+        int start = lowerBound(keys, lower);
+        int end = start;
+        while (end < keys.length && IndexKeys.compareValue(keys[end], upper) <= 0) {
+            end++;
+        }
+        long[] uuids = new long[end - start];
+        for (int i = start; i < end; i++) {
+            uuids[i - start] = IndexKeys.uuidOf(keys[i]);
+        }
+        return uuids;
+    }
+
+    /**
+     * Drops the repeated uuids of a sorted list, an object changed at several times of a bucket being logged once per time.
+     */
+    private static long[] distinct(long[] sorted) {
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (size == 0 || sorted[size - 1] != sorted[i]) {
+                sorted[size] = sorted[i];
+                size++;
+            }
+        }
+        long[] trimmed = new long[size];
+        System.arraycopy(sorted, 0, trimmed, 0, size);
+        return trimmed;
+    }
+
+    private static String encodedLong(long value) {
+        StringBuilder buffer = new StringBuilder(IndexKeys.UUID_WIDTH);
+        IndexKeys.encodeLong(value, buffer);
+        return buffer.toString();
+    }
+
+    private static int lowerBound(String[] run, String prefix) {
+        int low = 0;
+        int high = run.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (PrimitiveHelper.compareStrings(run[middle], prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+}
@@ -0,0 +1,566 @@
+package org.kevoree.modeling.index.impl;
+
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KConfig;
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.KObjectIndex;
+import org.kevoree.modeling.abs.AbstractKObject;
+import org.kevoree.modeling.abs.AbstractKObjectIndex;
+import org.kevoree.modeling.index.KIndexBuild;
+import org.kevoree.modeling.memory.chunk.KObjectChunk;
+import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
+import org.kevoree.modeling.meta.KMeta;
+import org.kevoree.modeling.meta.KMetaAttribute;
+import org.kevoree.modeling.meta.KMetaClass;
+import org.kevoree.modeling.meta.KPrimitiveTypes;
+import org.kevoree.modeling.meta.MetaType;
+import org.kevoree.modeling.meta.impl.GenericObjectIndex;
+import org.kevoree.modeling.util.PrimitiveHelper;
+
+/**
+ * Bulk index build, bypassing the per object mutation path: the objects are looked up by batches, at most PARALLELISM
+ * of them in flight, and every batch extracts and sorts the keys of all indexes of the meta class from the raw chunks.
+ * Once all batches are scanned the sorted runs are merged and every index is loaded page per page in one operation.
+ * Every key is collected with the uuid of its object appended, as in the non unique indexes, so that the key index,
+ * whose keys are unique, and the posting index, grouped by value, are derived from the same sorted runs. A key
+ * shared by several objects is given to the one with the highest uuid.
+ */
+public class IndexBuild implements KIndexBuild {
+
+    public static final int BATCH_SIZE = 256;
+
+    public static final int PARALLELISM = 8;
+
+    private static final int KEY_INDEX = 0;
+
+    private static final int ORDERED_INDEX = 1;
+
+    private static final int POSTING_INDEX = 2;
+
+    private static final int TEXT_INDEX = 3;
+
+    private static final int SPATIAL_INDEX = 4;
+
+    private final KInternalDataManager _manager;
+
+    private final KMetaClass _metaClass;
+
+    private final long _universe;
+
+    private final long _time;
+
+    private final int[] _kinds;
+
+    private final String[] _names;
+
+    private final KMetaAttribute[] _attributes;
+
+    private long[] _uuids;
+
+    /* sorted keys of every batch per index, null until the batch is scanned */
+    private String[][][] _collected;
+
+    private int _nextBatch = 0;
+
+    private int _inFlight = 0;
+
+    private int _scannedBatches = 0;
+
+    private int _scanned = 0;
+
+    private boolean _paused = false;
+
+    private boolean _writing = false;
+
+    private boolean _done = false;
+
+    private boolean _pumping = false;
+
+    private boolean _pumpAgain = false;
+
+    private Throwable _error = null;
+
+    private KCallback<Throwable> _callback = null;
+
+    private KCallback<KIndexBuild> _listener = null;
+
+    /**
+     * Build of the indexes of p_metaClass from the objects p_uuids, objects of other classes being ignored.
+     * When p_uuids is null, objects are taken from the change log, without a change log the build fails on start.
+     */
+    public IndexBuild(KInternalDataManager p_manager, KMetaClass p_metaClass, long p_universe, long p_time, long[] p_uuids) {
+        this._manager = p_manager;
+        this._metaClass = p_metaClass;
+        this._universe = p_universe;
+        this._time = p_time;
+        this._uuids = p_uuids;
+        int[] kinds = new int[0];
+        String[] names = new String[0];
+        KMetaAttribute[] attributes = new KMetaAttribute[0];
+        boolean keyed = false;
+        KMeta[] metas = p_metaClass.metaElements();
+        for (int i = 0; i < metas.length; i++) {
+            if (metas[i] != null && metas[i].metaType().equals(MetaType.ATTRIBUTE)) {
+                KMetaAttribute attribute = (KMetaAttribute) metas[i];
+                keyed = keyed || attribute.key();
+                if (attribute.ordered()) {
+                    kinds = appendKind(kinds, ORDERED_INDEX);
+                    names = appendName(names, IndexKeys.orderedIndexName(p_metaClass, attribute));
+                    attributes = appendAttribute(attributes, attribute);
+                }
+                if (attribute.indexed()) {
+                    kinds = appendKind(kinds, POSTING_INDEX);
+                    names = appendName(names, PostingIndex.postingIndexName(p_metaClass, attribute));
+                    attributes = appendAttribute(attributes, attribute);
+                }
+                if (attribute.searchable() && attribute.attributeTypeId() == KPrimitiveTypes.STRING_ID) {
+                    kinds = appendKind(kinds, TEXT_INDEX);
+                    names = appendName(names, TextIndex.textIndexName(p_metaClass, attribute));
+                    attributes = appendAttribute(attributes, attribute);
+                }
+                if (attribute.spatialIndex() != null && attribute.spatialIndex()[0] == attribute) {
+                    kinds = appendKind(kinds, SPATIAL_INDEX);
+                    names = appendName(names, IndexKeys.spatialIndexName(p_metaClass, attribute));
+                    attributes = appendAttribute(attributes, attribute);
+                }
+            }
+        }
+        if (keyed) {
+            kinds = appendKind(kinds, KEY_INDEX);
+            names = appendName(names, p_metaClass.metaName());
+            attributes = appendAttribute(attributes, null);
+        }
+        this._kinds = kinds;
+        this._names = names;
+        this._attributes = attributes;
+    }
+
+    @Override
+    public void start(final KCallback<Throwable> callback) {
+        synchronized (this) {
+            if (_done || _error != null) {
+                Throwable error = _error;
+                if (callback != null) {
+                    callback.on(error);
+                }
+                return;
+            }
+            _callback = callback;
+            _paused = false;
+        }
+        if (_uuids != null) {
+            pump();
+            return;
+        }
+        final KCallback<long[]> resolved = new KCallback<long[]>() {
+            @Override
+            public void on(long[] uuids) {
+                synchronized (IndexBuild.this) {
+                    if (_uuids == null) {
+                        _uuids = uuids;
+                    }
+                }
+                pump();
+            }
+        };
+        if (_manager.changeLog() != null) {
+            _manager.changeLog().changedBetween(_manager, _universe, KConfig.BEGINNING_OF_TIME, _time, resolved);
+        } else {
+            //the indexes of the class may not hold its objects yet, typically when a key attribute was just declared
+            finish(new RuntimeException("Bad KMF usage, no objects to build the indexes of " + _metaClass.metaName() + " from, give their uuids or enable the change log"));
+        }
+    }
+
+    @Override
+    public synchronized void pause() {
+        _paused = true;
+    }
+
+    @Override
+    public synchronized void onProgress(KCallback<KIndexBuild> listener) {
+        _listener = listener;
+    }
+
+    @Override
+    public synchronized int total() {
+        return _uuids == null ? -1 : _uuids.length;
+    }
+
+    @Override
+    public synchronized int scanned() {
+        return _scanned;
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        return _done;
+    }
+
+    /**
+     * Dispatches batches up to the parallelism, a call made while dispatching, by a batch completed synchronously,
+     * only asks the running loop for another round so that the stack does not grow with the number of batches.
+     */
+    private void pump() {
+        synchronized (this) {
+            if (_pumping) {
+                _pumpAgain = true;
+                return;
+            }
+            _pumping = true;
+            if (_collected == null) {
+                _collected = new String[(_uuids.length + BATCH_SIZE - 1) / BATCH_SIZE][][];
+            }
+        }
+        while (true) {
+            int batch = -1;
+            boolean write = false;
+            synchronized (this) {
+                if (_done || _error != null) {
+                    _pumping = false;
+                    return;
+                } else if (!_paused && _inFlight < PARALLELISM && _nextBatch < _collected.length) {
+                    batch = _nextBatch;
+                    _nextBatch++;
+                    _inFlight++;
+                } else if (!_writing && _scannedBatches == _collected.length) {
+                    _writing = true;
+                    write = true;
+                } else if (_pumpAgain) {
+                    _pumpAgain = false;
+                } else {
+                    _pumping = false;
+                    return;
+                }
+            }
+            if (batch != -1) {
+                scan(batch);
+            } else if (write) {
+                write();
+            }
+        }
+    }
+
+    private void scan(final int batch) {
+        int from = batch * BATCH_SIZE;
+        int to = from + BATCH_SIZE < _uuids.length ? from + BATCH_SIZE : _uuids.length;
+        long[] uuids = new long[to - from];
+        System.arraycopy(_uuids, from, uuids, 0, uuids.length);
+        _manager.lookupAllObjects(_universe, _time, uuids, new KCallback<KObject[]>() {
+            @Override
+            public void on(KObject[] objects) {
+                String[][] keys = null;
+                Throwable error = null;
+                try {
+                    keys = extract(objects);
+                } catch (Throwable e) {
+                    error = e;
+                }
+                KCallback<KIndexBuild> listener;
+                synchronized (IndexBuild.this) {
+                    _inFlight--;
+                    if (error != null) {
+                        if (_error == null) {
+                            _error = error;
+                        }
+                    } else {
+                        _collected[batch] = keys;
+                        _scannedBatches++;
+                        _scanned = _scanned + objects.length;
+                    }
+                    listener = _listener;
+                }
+                if (error != null) {
+                    finish(error);
+                    return;
+                }
+                if (listener != null) {
+                    listener.on(IndexBuild.this);
+                }
+                pump();
+            }
+        });
+    }
+
+    /**
+     * Sorted keys of every index for the objects of a batch, read from their raw chunks.
+     */
+    private String[][] extract(KObject[] objects) {
+        String[][] keys = new String[_kinds.length][];
+        int[] sizes = new int[_kinds.length];
+        for (int i = 0; i < _kinds.length; i++) {
+            keys[i] = new String[objects.length];
+        }
+        for (int o = 0; o < objects.length; o++) {
+            KObject current = objects[o];
+            if (current == null || current.metaClass() != _metaClass) {
+                continue;
+            }
+            KObjectChunk payload = _manager.closestChunk(_universe, _time, current.uuid(), _metaClass, ((AbstractKObject) current).previousResolved());
+            for (int i = 0; i < _kinds.length; i++) {
+                switch (_kinds[i]) {
+                    case KEY_INDEX:
+                        String composite = IndexKeys.compositeKey(_metaClass, payload);
+                        if (composite != null) {
+                            keys[i] = add(keys[i], sizes, i, IndexKeys.withUuid(composite, current.uuid()));
+                        }
+                        break;
+                    case ORDERED_INDEX:
+                    case POSTING_INDEX:
+                        String encoded = IndexKeys.encode(_attributes[i].attributeTypeId(), payload.getPrimitiveType(_attributes[i].index(), _metaClass));
+                        if (encoded != null) {
+                            keys[i] = add(keys[i], sizes, i, IndexKeys.withUuid(encoded, current.uuid()));
+                        }
+                        break;
+                    case TEXT_INDEX:
+                        String[] grams = TextIndex.grams((String) payload.getPrimitiveType(_attributes[i].index(), _metaClass));
+                        for (int g = 0; g < grams.length; g++) {
+                            keys[i] = add(keys[i], sizes, i, TextIndex.key(grams[g], current.uuid()));
+                        }
+                        break;
+                    case SPATIAL_INDEX:
+                        KMetaAttribute[] coordinates = _attributes[i].spatialIndex();
+                        Object latitude = payload.getPrimitiveType(coordinates[0].index(), _metaClass);
+                        Object longitude = payload.getPrimitiveType(coordinates[1].index(), _metaClass);
+                        if (latitude != null && longitude != null) {
+                            keys[i] = add(keys[i], sizes, i, SpatialIndex.key((double) latitude, (double) longitude, current.uuid()));
+                        }
+                        break;
+                }
+            }
+        }
+        for (int i = 0; i < _kinds.length; i++) {
+            String[] trimmed = new String[sizes[i]];
+            System.arraycopy(keys[i], 0, trimmed, 0, sizes[i]);
+            PrimitiveHelper.sortStrings(trimmed);
+            keys[i] = trimmed;
+        }
+        return keys;
+    }
+
+    private void write() {
+        final int[] remaining = {_kinds.length};
+        if (_kinds.length == 0) {
+            finish(null);
+            return;
+        }
+        for (int i = 0; i < _kinds.length; i++) {
+            String[][] runs = new String[_collected.length][];
+            for (int b = 0; b < _collected.length; b++) {
+                runs[b] = _collected[b][i];
+            }
+            final String[] sorted = merge(runs);
+            final int kind = _kinds[i];
+            KCallback<KObjectIndex> loader = new KCallback<KObjectIndex>() {
+                @Override
+                public void on(KObjectIndex index) {
+                    Throwable error = null;
+                    try {
+                        load((AbstractKObjectIndex) index, kind, sorted);
+                    } catch (Throwable e) {
+                        error = e;
+                    }
+                    boolean last;
+                    synchronized (IndexBuild.this) {
+                        remaining[0]--;
+                        last = remaining[0] == 0;
+                        if (error != null && _error == null) {
+                            _error = error;
+                        }
+                    }
+                    if (error != null) {
+                        finish(error);
+                    } else if (last) {
+                        finish(null);
+                    }
+                }
+            };
+            if (kind == ORDERED_INDEX || kind == SPATIAL_INDEX) {
+                _manager.rangeIndex(_universe, _time, _names[i], true, loader);
+            } else {
+                _manager.index(_universe, _time, _names[i], true, loader);
+            }
+        }
+    }
+
+    private void load(AbstractKObjectIndex index, int kind, String[] sorted) {
+        if (kind == KEY_INDEX) {
+            //key tuples are prefix free so the uuids of one tuple are adjacent in ascending order, keeping the last one
+            //hands a key shared by several objects to the highest uuid, whatever the order the objects were written in
+            String[] keys = new String[sorted.length];
+            long[] values = new long[sorted.length];
+            int size = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                String key = sorted[i].substring(0, sorted[i].length() - IndexKeys.UUID_WIDTH);
+                if (size > 0 && keys[size - 1].equals(key)) {
+                    size--;
+                }
+                keys[size] = key;
+                values[size] = IndexKeys.uuidOf(sorted[i]);
+                size++;
+            }
+            index.internal_load(trim(keys, size), trim(values, size));
+        } else if (kind == POSTING_INDEX) {
+            String[] values = new String[sorted.length];
+            long[] postings = new long[sorted.length];
+            int size = 0;
+            int start = 0;
+            while (start < sorted.length) {
+                String value = sorted[start].substring(0, sorted[start].length() - IndexKeys.UUID_WIDTH);
+                int end = start;
+                while (end < sorted.length && IndexKeys.compareValue(sorted[end], value) == 0) {
+                    end++;
+                }
+                String[] postingKeys = new String[end - start];
+                long[] postingValues = new long[end - start];
+                for (int i = start; i < end; i++) {
+                    long uuid = IndexKeys.uuidOf(sorted[i]);
+                    postingKeys[i - start] = IndexKeys.withUuid("", uuid);
+                    postingValues[i - start] = uuid;
+                }
+                long postingUuid = _manager.nextIndexPageKey();
+                GenericObjectIndex posting = new GenericObjectIndex(index.universe(), index.now(), postingUuid, _manager, index.universe(), index.now(), KConfig.NULL_LONG, KConfig.NULL_LONG);
+                _manager.initKObject(posting);
+                posting.internal_load(postingKeys, postingValues);
+                values[size] = value;
+                postings[size] = postingUuid;
+                size++;
+                start = end;
+            }
+            index.internal_load(trim(values, size), trim(postings, size));
+        } else {
+            long[] values = new long[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                values[i] = IndexKeys.uuidOf(sorted[i]);
+            }
+            index.internal_load(sorted, values);
+        }
+    }
+
+    private void finish(Throwable error) {
+        KCallback<Throwable> callback;
+        KCallback<KIndexBuild> listener;
+        synchronized (this) {
+            if (_done) {
+                return;
+            }
+            if (error == null) {
+                _done = true;
+                _collected = null;
+            }
+            callback = _callback;
+            _callback = null;
+            listener = _listener;
+        }
+        if (error == null && listener != null) {
+            listener.on(this);
+        }
+        if (callback != null) {
+            callback.on(error);
+        }
+    }
+
+    /**
+     * Merges sorted runs pairwise, keys collected twice are kept once.
+     */
+    private static String[] merge(String[][] runs) {
+        if (runs.length == 0) {
+            return new String[0];
+        }
+        String[][] current = runs;
+        while (current.length > 1) {
+            String[][] next = new String[(current.length + 1) / 2][];
+            for (int i = 0; i < next.length; i++) {
+                if (2 * i + 1 < current.length) {
+                    next[i] = mergeTwo(current[2 * i], current[2 * i + 1]);
+                } else {
+                    next[i] = current[2 * i];
+                }
+            }
+            current = next;
+        }
+        return current[0];
+    }
+
+    private static String[] mergeTwo(String[] left, String[] right) {
+        String[] result = new String[left.length + right.length];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < left.length || j < right.length) {
+            String next;
+            if (j == right.length) {
+                next = left[i];
+                i++;
+            } else if (i == left.length) {
+                next = right[j];
+                j++;
+            } else {
+                int comparison = PrimitiveHelper.compareStrings(left[i], right[j]);
+                if (comparison <= 0) {
+                    next = left[i];
+                    i++;
+                    if (comparison == 0) {
+                        j++;
+                    }
+                } else {
+                    next = right[j];
+                    j++;
+                }
+            }
+            result[size] = next;
+            size++;
+        }
+        return trim(result, size);
+    }
+
+    private static String[] add(String[] keys, int[] sizes, int target, String key) {
+        String[] result = keys;
+        if (sizes[target] == result.length) {
+            result = new String[sizes[target] * 2 + 4];
+            System.arraycopy(keys, 0, result, 0, sizes[target]);
+        }
+        result[sizes[target]] = key;
+        sizes[target]++;
+        return result;
+    }
+
+    private static String[] trim(String[] values, int size) {
+        if (size == values.length) {
+            return values;
+        }
+        String[] trimmed = new String[size];
+        System.arraycopy(values, 0, trimmed, 0, size);
+        return trimmed;
+    }
+
+    private static long[] trim(long[] values, int size) {
+        if (size == values.length) {
+            return values;
+        }
+        long[] trimmed = new long[size];
+        System.arraycopy(values, 0, trimmed, 0, size);
+        return trimmed;
+    }
+
+    private static int[] appendKind(int[] kinds, int kind) {
+        int[] result = new int[kinds.length + 1];
+        System.arraycopy(kinds, 0, result, 0, kinds.length);
+        result[kinds.length] = kind;
+        return result;
+    }
+
+    private static String[] appendName(String[] names, String name) {
+        String[] result = new String[names.length + 1];
+        System.arraycopy(names, 0, result, 0, names.length);
+        result[names.length] = name;
+        return result;
+    }
+
+    private static KMetaAttribute[] appendAttribute(KMetaAttribute[] attributes, KMetaAttribute attribute) {
+        KMetaAttribute[] result = new KMetaAttribute[attributes.length + 1];
+        System.arraycopy(attributes, 0, result, 0, attributes.length);
+        result[attributes.length] = attribute;
+        return result;
+    }
+
+}
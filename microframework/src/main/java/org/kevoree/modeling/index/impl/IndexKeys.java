@@ -0,0 +1,336 @@
+package org.kevoree.modeling.index.impl;
+
+import org.kevoree.modeling.memory.chunk.KObjectChunk;
+import org.kevoree.modeling.meta.KLiteral;
+import org.kevoree.modeling.meta.KMeta;
+import org.kevoree.modeling.meta.KMetaAttribute;
+import org.kevoree.modeling.meta.KMetaClass;
+import org.kevoree.modeling.meta.KMetaEnum;
+import org.kevoree.modeling.meta.KMetaModel;
+import org.kevoree.modeling.meta.KPrimitiveTypes;
+import org.kevoree.modeling.meta.MetaType;
+import org.kevoree.modeling.util.PrimitiveHelper;
+
+/**
+ * Binary encoding of attribute values into index keys, order preserving for single values.
+ * Every char of an encoded key holds one byte (0 to 255), so keys survive the Base64 serialization of index chunks
+ * and the natural String order of two keys is the order of the encoded values.
+ * Numbers use a fixed width big endian encoding with the sign bit flipped, strings are UTF-8 bytes where 0 is
+ * escaped as 0,255 followed by a 0,0 terminator, so that no encoded string is a prefix of another one.
+ */
+public class IndexKeys {
+
+    public static final char SEP = '#';
+
+    /* width of the uuid suffix appended to keys of non unique indexes */
+    public static final int UUID_WIDTH = 8;
+
+    public static String orderedIndexName(KMetaClass metaClass, KMetaAttribute attribute) {
+        return metaClass.metaName() + SEP + attribute.metaName();
+    }
+
+    public static String spatialIndexName(KMetaClass metaClass, KMetaAttribute latitude) {
+        return metaClass.metaName() + '~' + latitude.metaName();
+    }
+
+    /**
+     * Converts a raw or textual value to the primitive stored for the attribute, enums are resolved to their ordinal.
+     * Returns null when the value cannot be converted.
+     */
+    public static Object toPrimitive(KMetaAttribute attribute, Object value, KMetaModel metaModel) {
+        if (value == null) {
+            return null;
+        }
+        int typeId = attribute.attributeTypeId();
+        try {
+            if (KPrimitiveTypes.isEnum(typeId)) {
+                if (value instanceof KLiteral) {
+                    return ((KLiteral) value).index();
+                }
+                if (value instanceof Integer) {
+                    return value;
+                }
+                KMetaEnum metaEnum = metaModel.metaTypes()[typeId];
+                KLiteral literal = metaEnum.literalByName(value.toString());
+                if (literal == null) {
+                    return null;
+                }
+                return literal.index();
+            }
+            switch (typeId) {
+                case KPrimitiveTypes.STRING_ID:
+                    return value.toString();
+                case KPrimitiveTypes.BOOL_ID:
+                    if (value instanceof Boolean) {
+                        return value;
+                    }
+                    return PrimitiveHelper.parseBoolean(value.toString());
+                case KPrimitiveTypes.INT_ID:
+                    if (value instanceof Integer) {
+                        return value;
+                    }
+                    return PrimitiveHelper.parseInt(value.toString());
+                case KPrimitiveTypes.LONG_ID:
+                    if (value instanceof Long) {
+                        return value;
+                    }
+                    return PrimitiveHelper.parseLong(value.toString());
+                default:
+                    if (value instanceof Double) {
+                        return value;
+                    }
+                    return PrimitiveHelper.parseDouble(value.toString());
+            }
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Encodes a primitive as stored in the object chunk (ordinal for enums), null gives null.
+     */
+    public static String encode(int typeId, Object primitive) {
+        if (primitive == null) {
+            return null;
+        }
+        StringBuilder buffer = new StringBuilder();
+        encodeToBuffer(typeId, primitive, buffer, true);
+        return buffer.toString();
+    }
+
+    /**
+     * Encodes a string without its terminator, every key of a value starting with p_prefix starts with the result.
+     */
+    public static String encodePrefix(String p_prefix) {
+        StringBuilder buffer = new StringBuilder();
+        encodeString(p_prefix, buffer, false);
+        return buffer.toString();
+    }
+
+    public static void encodeToBuffer(int typeId, Object primitive, StringBuilder buffer, boolean terminated) {
+        if (KPrimitiveTypes.isEnum(typeId)) {
+            encodeInt((Integer) primitive, buffer);
+            return;
+        }
+        switch (typeId) {
+            case KPrimitiveTypes.STRING_ID:
+                encodeString((String) primitive, buffer, terminated);
+                break;
+            case KPrimitiveTypes.BOOL_ID:
+                buffer.append((char) (((Boolean) primitive) ? 1 : 0));
+                break;
+            case KPrimitiveTypes.INT_ID:
+                encodeInt((Integer) primitive, buffer);
+                break;
+            case KPrimitiveTypes.LONG_ID:
+                encodeLong((Long) primitive, buffer);
+                break;
+            default:
+                encodeDouble(((Number) primitive).doubleValue(), buffer);
+                break;
+        }
+    }
+
+    public static void encodeInt(int value, StringBuilder buffer) {
+        int flipped = value ^ 0x80000000;
+        for (int shift = 24; shift >= 0; shift = shift - 8) {
+            buffer.append((char) ((flipped >>> shift) & 0xFF));
+        }
+    }
+
+    /**
+     * JavaScript bitwise operators work on 32 bits, the number is split into its two words first.
+     *
+     * @native ts
+     * var high = Math.floor(value / 4294967296);
+     * var low = value - high * 4294967296;
+     * high = (high ^ 0x80000000) >>> 0;
+     * for (var shift = 24; shift >= 0; shift = shift - 8) { buffer.append(String.fromCharCode((high >>> shift) & 0xFF)); }
+     * for (var shift = 24; shift >= 0; shift = shift - 8) { buffer.append(String.fromCharCode((low >>> shift) & 0xFF)); }
+     */
+    public static void encodeLong(long value, StringBuilder buffer) {
+        long flipped = value ^ Long.MIN_VALUE;
+        for (int shift = 56; shift >= 0; shift = shift - 8) {
+            buffer.append((char) ((flipped >>> shift) & 0xFF));
+        }
+    }
+
+    /**
+     * @native ts
+     * var view = new DataView(new ArrayBuffer(8));
+     * view.setFloat64(0, value == 0 ? 0 : value);
+     * var negative = (view.getUint8(0) & 0x80) != 0;
+     * for (var i = 0; i < 8; i++) {
+     * var b = view.getUint8(i);
+     * if (negative) { b = ~b & 0xFF; } else if (i == 0) { b = b ^ 0x80; }
+     * buffer.append(String.fromCharCode(b));
+     * }
+     */
+    public static void encodeDouble(double value, StringBuilder buffer) {
+        if (value == 0) {
+            //-0.0 and 0.0 are the same key
+            value = 0;
+        }
+        long bits = Double.doubleToLongBits(value);
+        if (bits < 0) {
+            bits = ~bits;
+        } else {
+            bits = bits ^ Long.MIN_VALUE;
+        }
+        for (int shift = 56; shift >= 0; shift = shift - 8) {
+            buffer.append((char) ((bits >>> shift) & 0xFF));
+        }
+    }
+
+    /**
+     * @native ts
+     * var view = new DataView(new ArrayBuffer(8));
+     * for (var i = 0; i < 8; i++) { view.setUint8(i, key.charCodeAt(offset + i) & 0xFF); }
+     * if ((view.getUint8(0) & 0x80) != 0) {
+     * view.setUint8(0, view.getUint8(0) ^ 0x80);
+     * } else {
+     * for (var i = 0; i < 8; i++) { view.setUint8(i, ~view.getUint8(i) & 0xFF); }
+     * }
+     * return view.getFloat64(0);
+     */
+    public static double decodeDouble(String key, int offset) {
+        long bits = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            bits = (bits << 8) | (key.charAt(i) & 0xFF);
+        }
+        if (bits < 0) {
+            bits = bits ^ Long.MIN_VALUE;
+        } else {
+            bits = ~bits;
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    public static void encodeString(String value, StringBuilder buffer, boolean terminated) {
+        for (int i = 0; i < value.length(); i++) {
+            int c = value.charAt(i);
+            if (c == 0) {
+                buffer.append((char) 0);
+                buffer.append((char) 0xFF);
+            } else if (c < 0x80) {
+                buffer.append((char) c);
+            } else if (c < 0x800) {
+                buffer.append((char) (0xC0 | (c >> 6)));
+                buffer.append((char) (0x80 | (c & 0x3F)));
+            } else {
+                buffer.append((char) (0xE0 | (c >> 12)));
+                buffer.append((char) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.append((char) (0x80 | (c & 0x3F)));
+            }
+        }
+        if (terminated) {
+            buffer.append((char) 0);
+            buffer.append((char) 0);
+        }
+    }
+
+    /**
+     * Composite key of the key attributes of a meta class read from an object chunk, null when none of them is set.
+     * Attributes are taken in meta element order, each one prefixed by a presence byte, strings being length prefixed,
+     * so that distinct tuples never produce the same key.
+     */
+    public static String compositeKey(KMetaClass metaClass, KObjectChunk payload) {
+        KMeta[] metas = metaClass.metaElements();
+        StringBuilder buffer = null;
+        boolean found = false;
+        for (int i = 0; i < metas.length; i++) {
+            if (metas[i] != null && metas[i].metaType().equals(MetaType.ATTRIBUTE) && ((KMetaAttribute) metas[i]).key()) {
+                if (buffer == null) {
+                    buffer = new StringBuilder();
+                }
+                Object primitive = payload.getPrimitiveType(metas[i].index(), metaClass);
+                found = found || primitive != null;
+                encodeComponent(((KMetaAttribute) metas[i]).attributeTypeId(), primitive, buffer);
+            }
+        }
+        if (!found) {
+            return null;
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Composite key from typed values given in the order of the key attributes, values are converted as for a set.
+     */
+    public static String compositeKey(KMetaClass metaClass, Object[] keyValues, KMetaModel metaModel) {
+        KMeta[] metas = metaClass.metaElements();
+        StringBuilder buffer = new StringBuilder();
+        boolean found = false;
+        int keyIndex = 0;
+        for (int i = 0; i < metas.length; i++) {
+            if (metas[i] != null && metas[i].metaType().equals(MetaType.ATTRIBUTE) && ((KMetaAttribute) metas[i]).key()) {
+                KMetaAttribute attribute = (KMetaAttribute) metas[i];
+                Object primitive = null;
+                if (keyValues != null && keyIndex < keyValues.length) {
+                    primitive = toPrimitive(attribute, keyValues[keyIndex], metaModel);
+                }
+                keyIndex++;
+                found = found || primitive != null;
+                encodeComponent(attribute.attributeTypeId(), primitive, buffer);
+            }
+        }
+        if (!found) {
+            return null;
+        }
+        return buffer.toString();
+    }
+
+    private static void encodeComponent(int typeId, Object primitive, StringBuilder buffer) {
+        if (primitive == null) {
+            buffer.append((char) 0);
+            return;
+        }
+        buffer.append((char) 1);
+        if (typeId == KPrimitiveTypes.STRING_ID) {
+            String value = (String) primitive;
+            StringBuilder encoded = new StringBuilder();
+            encodeString(value, encoded, false);
+            encodeInt(encoded.length(), buffer);
+            buffer.append(encoded);
+        } else {
+            encodeToBuffer(typeId, primitive, buffer, true);
+        }
+    }
+
+    /**
+     * Key of one object in a non unique index: the encoded value followed by the uuid.
+     */
+    public static String withUuid(String encodedValue, long uuid) {
+        StringBuilder buffer = new StringBuilder(encodedValue.length() + UUID_WIDTH);
+        buffer.append(encodedValue);
+        encodeLong(uuid, buffer);
+        return buffer.toString();
+    }
+
+    /**
+     * @native ts
+     * var start = key.length - org.kevoree.modeling.index.impl.IndexKeys.UUID_WIDTH;
+     * var high = 0;
+     * var low = 0;
+     * for (var i = 0; i < 4; i++) {
+     * high = high * 256 + (key.charCodeAt(start + i) & 0xFF);
+     * low = low * 256 + (key.charCodeAt(start + 4 + i) & 0xFF);
+     * }
+     * return (high ^ 0x80000000) * 4294967296 + low;
+     */
+    public static long uuidOf(String key) {
+        long flipped = 0;
+        for (int i = key.length() - UUID_WIDTH; i < key.length(); i++) {
+            flipped = (flipped << 8) | (key.charAt(i) & 0xFF);
+        }
+        return flipped ^ Long.MIN_VALUE;
+    }
+
+    /**
+     * Compares the value part of a key built by withUuid to an encoded value.
+     */
+    public static int compareValue(String key, String encodedValue) {
+        return PrimitiveHelper.compareStrings(key.substring(0, key.length() - UUID_WIDTH), encodedValue);
+    }
+
+}
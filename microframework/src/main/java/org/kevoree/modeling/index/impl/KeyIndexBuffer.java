@@ -0,0 +1,244 @@
+package org.kevoree.modeling.index.impl;
+
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KConfig;
+import org.kevoree.modeling.memory.chunk.impl.ArrayStringMap;
+
+/**
+ * Pending updates of the key indexes, grouped by universe, time and index name. Setting a key attribute appends the
+ * removal of the previous composite key and the insertion of the new one to the batch of its group instead of
+ * resolving the index for every set. A batch is closed once it holds MAX_BATCH_SIZE updates, when its index is read,
+ * or before a save. Closed batches are queued in flight and the data manager applies them one at a time in the order
+ * they were closed, batches closed together in the order they were created, a reader or a save waiting for the last
+ * batch queued before it.
+ */
+public class KeyIndexBuffer {
+
+    public static final int MAX_BATCH_SIZE = 1024;
+
+    private final ArrayStringMap<Batch> _batches;
+
+    private int _pending = 0;
+
+    /* open batches in creation order, a batch at a later time has to be applied after the batches it inherits from */
+    private Batch _first = null;
+
+    private Batch _last = null;
+
+    /* closed batches, the first one being applied when _applying */
+    private Batch[] _inFlight = new Batch[16];
+
+    private int _inFlightSize = 0;
+
+    private boolean _applying = false;
+
+    private boolean _pumping = false;
+
+    private boolean _pumpAgain = false;
+
+    public KeyIndexBuffer() {
+        this._batches = new ArrayStringMap<Batch>(KConfig.CACHE_INIT_SIZE, KConfig.CACHE_LOAD_FACTOR);
+    }
+
+    /**
+     * Updates of one key index at one universe and time, applied in insertion order so that the last update of a key wins.
+     */
+    public static final class Batch {
+
+        public final long universe;
+
+        public final long time;
+
+        public final String indexName;
+
+        public String[] keys;
+
+        public long[] values;
+
+        public int size;
+
+        private Batch _previousOpen = null;
+
+        private Batch _nextOpen = null;
+
+        /* called once this batch and every batch queued before it are applied */
+        private KCallback[] _waiters = null;
+
+        Batch(long p_universe, long p_time, String p_indexName) {
+            this.universe = p_universe;
+            this.time = p_time;
+            this.indexName = p_indexName;
+            this.keys = new String[16];
+            this.values = new long[16];
+            this.size = 0;
+        }
+
+        void append(String key, long value) {
+            if (size == keys.length) {
+                String[] newKeys = new String[size * 2];
+                System.arraycopy(keys, 0, newKeys, 0, size);
+                keys = newKeys;
+                long[] newValues = new long[size * 2];
+                System.arraycopy(values, 0, newValues, 0, size);
+                values = newValues;
+            }
+            keys[size] = key;
+            values[size] = value;
+            size++;
+        }
+
+    }
+
+    private static String batchKey(long universe, long time, String indexName) {
+        return universe + "/" + time + "/" + indexName;
+    }
+
+    /**
+     * Buffers the move of an object from p_previousKey to p_newKey, either of them being null when absent.
+     * A batch that becomes full is queued in flight, true is then returned and the caller has to apply the queue.
+     */
+    public synchronized boolean append(long universe, long time, String indexName, String previousKey, String newKey, long uuid) {
+        String batchKey = batchKey(universe, time, indexName);
+        Batch batch = _batches.get(batchKey);
+        if (batch == null) {
+            batch = new Batch(universe, time, indexName);
+            _batches.put(batchKey, batch);
+            if (_last == null) {
+                _first = batch;
+            } else {
+                _last._nextOpen = batch;
+                batch._previousOpen = _last;
+            }
+            _last = batch;
+        }
+        if (previousKey != null) {
+            batch.append(previousKey, KConfig.NULL_LONG);
+            _pending++;
+        }
+        if (newKey != null) {
+            batch.append(newKey, uuid);
+            _pending++;
+        }
+        if (batch.size >= MAX_BATCH_SIZE) {
+            closeBatch(batch);
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized boolean hasBatch(long universe, long time, String indexName) {
+        return _batches.contains(batchKey(universe, time, indexName));
+    }
+
+    /**
+     * Closes the batches of an index at every universe and time, or every batch when p_indexName is null, and queues
+     * them in flight in the order they were created.
+     */
+    public synchronized void close(String indexName) {
+        Batch batch = _first;
+        while (batch != null && _pending != 0) {
+            Batch next = batch._nextOpen;
+            if (indexName == null || indexName.equals(batch.indexName)) {
+                closeBatch(batch);
+            }
+            batch = next;
+        }
+    }
+
+    /**
+     * Registers p_waiter to be called once every batch queued so far is applied. Returns false, without registering it,
+     * when no batch is in flight.
+     */
+    public synchronized boolean await(KCallback p_waiter) {
+        if (_inFlightSize == 0) {
+            return false;
+        }
+        Batch last = _inFlight[_inFlightSize - 1];
+        if (last._waiters == null) {
+            last._waiters = new KCallback[]{p_waiter};
+        } else {
+            KCallback[] waiters = new KCallback[last._waiters.length + 1];
+            System.arraycopy(last._waiters, 0, waiters, 0, last._waiters.length);
+            waiters[last._waiters.length] = p_waiter;
+            last._waiters = waiters;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the next batch to apply, or null when the queue is empty or a batch is already being applied.
+     */
+    public synchronized Batch next() {
+        if (_applying || _inFlightSize == 0) {
+            return null;
+        }
+        _applying = true;
+        return _inFlight[0];
+    }
+
+    /**
+     * Removes the batch returned by next() once applied and returns the waiters to call.
+     */
+    public synchronized KCallback[] applied() {
+        Batch batch = _inFlight[0];
+        System.arraycopy(_inFlight, 1, _inFlight, 0, _inFlightSize - 1);
+        _inFlightSize--;
+        _inFlight[_inFlightSize] = null;
+        _applying = false;
+        return batch._waiters == null ? new KCallback[0] : batch._waiters;
+    }
+
+    /**
+     * Guards the loop applying the queue: returns false when a loop is already running, asking it for another round,
+     * so that batches applied synchronously do not grow the stack.
+     */
+    public synchronized boolean enterPump() {
+        if (_pumping) {
+            _pumpAgain = true;
+            return false;
+        }
+        _pumping = true;
+        return true;
+    }
+
+    /**
+     * Returns true when the loop applying the queue can stop, false when another round was asked meanwhile.
+     */
+    public synchronized boolean leavePump() {
+        if (_pumpAgain) {
+            _pumpAgain = false;
+            return false;
+        }
+        _pumping = false;
+        return true;
+    }
+
+    private void closeBatch(Batch batch) {
+        _batches.remove(batchKey(batch.universe, batch.time, batch.indexName));
+        _pending = _pending - batch.size;
+        if (batch._previousOpen == null) {
+            _first = batch._nextOpen;
+        } else {
+            batch._previousOpen._nextOpen = batch._nextOpen;
+        }
+        if (batch._nextOpen == null) {
+            _last = batch._previousOpen;
+        } else {
+            batch._nextOpen._previousOpen = batch._previousOpen;
+        }
+        batch._previousOpen = null;
+        batch._nextOpen = null;
+        enqueue(batch);
+    }
+
+    private void enqueue(Batch batch) {
+        if (_inFlightSize == _inFlight.length) {
+            Batch[] enlarged = new Batch[_inFlightSize * 2];
+            System.arraycopy(_inFlight, 0, enlarged, 0, _inFlightSize);
+            _inFlight = enlarged;
+        }
+        _inFlight[_inFlightSize] = batch;
+        _inFlightSize++;
+    }
+
+}
@@ -0,0 +1,253 @@
+package org.kevoree.modeling.index.impl;
+
+import org.kevoree.modeling.abs.AbstractKObjectIndex;
+import org.kevoree.modeling.index.KOrderedIndex;
+import org.kevoree.modeling.meta.KMetaAttribute;
+import org.kevoree.modeling.meta.KMetaModel;
+import org.kevoree.modeling.meta.KPrimitiveTypes;
+import org.kevoree.modeling.util.PrimitiveHelper;
+
+/**
+ * Ordered index backed by a named index object whose keys are IndexKeys.withUuid of the indexed values.
+ * Each page keeps its keys sorted. Pages of a range partitioned index follow each other in key order, scans only
+ * search the pages at both ends of the range and concatenate the slices, hash partitioned pages of indexes created
+ * before range partitioning are merged.
+ */
+public class OrderedIndex implements KOrderedIndex {
+
+    private final String[][] _runs;
+
+    private final boolean _disjoint;
+
+    private final KMetaAttribute _attribute;
+
+    private final KMetaModel _metaModel;
+
+    public OrderedIndex(AbstractKObjectIndex p_index, KMetaAttribute p_attribute, KMetaModel p_metaModel) {
+        if (p_index == null) {
+            this._runs = new String[0][];
+            this._disjoint = true;
+        } else {
+            this._runs = p_index.internal_sortedKeys();
+            this._disjoint = p_index.internal_ranged();
+        }
+        this._attribute = p_attribute;
+        this._metaModel = p_metaModel;
+    }
+
+    @Override
+    public long[] range(Object min, boolean minInclusive, Object max, boolean maxInclusive) {
+        String encodedMin = null;
+        String encodedMax = null;
+        if (min != null) {
+            encodedMin = IndexKeys.encode(_attribute.attributeTypeId(), IndexKeys.toPrimitive(_attribute, min, _metaModel));
+            if (encodedMin == null) {
+                return new long[0];
+            }
+        }
+        if (max != null) {
+            encodedMax = IndexKeys.encode(_attribute.attributeTypeId(), IndexKeys.toPrimitive(_attribute, max, _metaModel));
+            if (encodedMax == null) {
+                return new long[0];
+            }
+        }
+        String[][] slices = new String[_runs.length][];
+        for (int i = 0; i < _runs.length; i++) {
+            String[] run = _runs[i];
+            int from = 0;
+            int to = run.length;
+            if (encodedMin != null) {
+                from = position(run, encodedMin, !minInclusive);
+            }
+            if (encodedMax != null) {
+                to = position(run, encodedMax, maxInclusive);
+            }
+            slices[i] = slice(run, from, to);
+        }
+        return uuids(combine(slices), false, -1);
+    }
+
+    @Override
+    public long[] top(int k, boolean descending) {
+        String[][] slices = new String[_runs.length][];
+        //disjoint runs are taken from the end of the scan until k keys are collected
+        int remaining = k;
+        for (int n = 0; n < _runs.length; n++) {
+            int i = descending ? _runs.length - 1 - n : n;
+            String[] run = _runs[i];
+            int taken = run.length > remaining ? remaining : run.length;
+            if (descending) {
+                slices[i] = slice(run, run.length - taken, run.length);
+            } else {
+                slices[i] = slice(run, 0, taken);
+            }
+            if (_disjoint) {
+                remaining = remaining - taken;
+            }
+        }
+        return uuids(combine(slices), descending, k);
+    }
+
+    @Override
+    public long[] prefix(String prefix) {
+        if (_attribute.attributeTypeId() != KPrimitiveTypes.STRING_ID || prefix == null) {
+            return new long[0];
+        }
+        String encodedPrefix = IndexKeys.encodePrefix(prefix);
+        String[][] slices = new String[_runs.length][];
+        for (int i = 0; i < _runs.length; i++) {
+            String[] run = _runs[i];
+            int from = position(run, encodedPrefix, false);
+            int to = from;
+            while (to < run.length && PrimitiveHelper.startsWith(run[to], encodedPrefix)) {
+                to++;
+            }
+            slices[i] = slice(run, from, to);
+        }
+        return uuids(combine(slices), false, -1);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < _runs.length; i++) {
+            size = size + _runs[i].length;
+        }
+        return size;
+    }
+
+    /**
+     * First position whose value is greater or equal to p_encoded, or strictly greater when p_after is set, without
+     * searching runs lying entirely on one side of p_encoded.
+     */
+    private static int position(String[] run, String p_encoded, boolean p_after) {
+        if (run.length == 0 || !precedes(run[0], p_encoded, p_after)) {
+            return 0;
+        }
+        if (precedes(run[run.length - 1], p_encoded, p_after)) {
+            return run.length;
+        }
+        int low = 0;
+        int high = run.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (precedes(run[middle], p_encoded, p_after)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static boolean precedes(String key, String p_encoded, boolean p_after) {
+        int compared = IndexKeys.compareValue(key, p_encoded);
+        return compared < 0 || (p_after && compared == 0);
+    }
+
+    private static String[] slice(String[] run, int from, int to) {
+        if (to <= from) {
+            return new String[0];
+        }
+        String[] result = new String[to - from];
+        System.arraycopy(run, from, result, 0, to - from);
+        return result;
+    }
+
+    private String[] combine(String[][] slices) {
+        if (_disjoint) {
+            return concat(slices);
+        }
+        return merge(slices);
+    }
+
+    private static String[] concat(String[][] slices) {
+        int size = 0;
+        for (int i = 0; i < slices.length; i++) {
+            size = size + slices[i].length;
+        }
+        String[] result = new String[size];
+        int offset = 0;
+        for (int i = 0; i < slices.length; i++) {
+            System.arraycopy(slices[i], 0, result, offset, slices[i].length);
+            offset = offset + slices[i].length;
+        }
+        return result;
+    }
+
+    /**
+     * Pairwise merge of sorted slices, log2(number of slices) passes.
+     */
+    private static String[] merge(String[][] slices) {
+        if (slices.length == 0) {
+            return new String[0];
+        }
+        String[][] current = slices;
+        while (current.length > 1) {
+            String[][] next = new String[(current.length + 1) / 2][];
+            for (int i = 0; i < next.length; i++) {
+                if (2 * i + 1 < current.length) {
+                    next[i] = mergeTwo(current[2 * i], current[2 * i + 1]);
+                } else {
+                    next[i] = current[2 * i];
+                }
+            }
+            current = next;
+        }
+        return current[0];
+    }
+
+    private static String[] mergeTwo(String[] left, String[] right) {
+        if (left.length == 0) {
+            return right;
+        }
+        if (right.length == 0) {
+            return left;
+        }
+        String[] result = new String[left.length + right.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < left.length && j < right.length) {
+            if (PrimitiveHelper.compareStrings(left[i], right[j]) <= 0) {
+                result[k] = left[i];
+                i++;
+            } else {
+                result[k] = right[j];
+                j++;
+            }
+            k++;
+        }
+        while (i < left.length) {
+            result[k] = left[i];
+            i++;
+            k++;
+        }
+        while (j < right.length) {
+            result[k] = right[j];
+            j++;
+            k++;
+        }
+        return result;
+    }
+
+    /**
+     * Decodes the uuids of sorted keys, optionally in reverse order and limited to p_limit results (negative for all).
+     */
+    private static long[] uuids(String[] keys, boolean reverse, int p_limit) {
+        int size = keys.length;
+        if (p_limit >= 0 && p_limit < size) {
+            size = p_limit;
+        }
+        long[] result = new long[size];
+        for (int i = 0; i < size; i++) {
+            if (reverse) {
+                result[i] = IndexKeys.uuidOf(keys[keys.length - 1 - i]);
+            } else {
+                result[i] = IndexKeys.uuidOf(keys[i]);
+            }
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,110 @@
+package org.kevoree.modeling.index.impl;
+
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KConfig;
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.KObjectIndex;
+import org.kevoree.modeling.abs.AbstractKObjectIndex;
+import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
+import org.kevoree.modeling.meta.KMetaAttribute;
+import org.kevoree.modeling.meta.KMetaClass;
+
+/**
+ * Non unique equality index of an attribute, in two levels: a paged directory maps every encoded value to the uuid
+ * of a posting object, a flat index whose keys are the encoded uuids of the objects holding this value.
+ * A write therefore copies at most the two postings it touches, and a posting is read back as a sorted uuid list
+ * straight from the sorted keys of its chunk. A posting emptied by a removal stays referenced by the directory, an
+ * add may already hold its uuid and write to it after the removal.
+ */
+public class PostingIndex {
+
+    public static String postingIndexName(KMetaClass metaClass, KMetaAttribute attribute) {
+        return metaClass.metaName() + '@' + attribute.metaName();
+    }
+
+    public static void update(final KInternalDataManager manager, final KObject current, KMetaAttribute attribute, Object previousValue, Object newValue) {
+        final String previousKey = IndexKeys.encode(attribute.attributeTypeId(), previousValue);
+        final String newKey = IndexKeys.encode(attribute.attributeTypeId(), newValue);
+        manager.index(current.universe(), current.now(), postingIndexName(current.metaClass(), attribute), true, new KCallback<KObjectIndex>() {
+            @Override
+            public void on(final KObjectIndex directory) {
+                if (previousKey != null) {
+                    remove(manager, directory, previousKey, current);
+                }
+                if (newKey != null) {
+                    add(manager, directory, newKey, current);
+                }
+            }
+        });
+    }
+
+    static void add(KInternalDataManager manager, final KObjectIndex directory, String encodedValue, final KObject current) {
+        //concurrent writes of a new value share the posting created by the first one
+        long postingUuid = ((AbstractKObjectIndex) directory).internal_getOrCreate(encodedValue);
+        manager.lookup(directory.universe(), directory.now(), postingUuid, new KCallback<KObject>() {
+            @Override
+            public void on(KObject posting) {
+                ((KObjectIndex) posting).setIndex(IndexKeys.withUuid("", current.uuid()), current.uuid());
+            }
+        });
+    }
+
+    static void remove(KInternalDataManager manager, final KObjectIndex directory, final String encodedValue, final KObject current) {
+        long postingUuid = directory.getIndex(encodedValue);
+        if (postingUuid != KConfig.NULL_LONG) {
+            manager.lookup(directory.universe(), directory.now(), postingUuid, new KCallback<KObject>() {
+                @Override
+                public void on(KObject posting) {
+                    ((KObjectIndex) posting).setIndex(IndexKeys.withUuid("", current.uuid()), KConfig.NULL_LONG);
+                }
+            });
+        }
+    }
+
+    /**
+     * Sorted uuids of the objects of p_metaClass whose attribute equals p_value at the given universe and time.
+     */
+    public static void postings(final KInternalDataManager manager, final long universe, final long time, KMetaClass metaClass, KMetaAttribute attribute, Object value, final KCallback<long[]> callback) {
+        final String encodedValue = IndexKeys.encode(attribute.attributeTypeId(), IndexKeys.toPrimitive(attribute, value, manager.model().metaModel()));
+        if (encodedValue == null) {
+            callback.on(new long[0]);
+            return;
+        }
+        postings(manager, universe, time, postingIndexName(metaClass, attribute), encodedValue, callback);
+    }
+
+    /**
+     * Sorted uuids of the posting of an encoded value in the named posting directory.
+     */
+    static void postings(final KInternalDataManager manager, final long universe, final long time, String indexName, final String encodedValue, final KCallback<long[]> callback) {
+        manager.index(universe, time, indexName, false, new KCallback<KObjectIndex>() {
+            @Override
+            public void on(KObjectIndex directory) {
+                long postingUuid = KConfig.NULL_LONG;
+                if (directory != null) {
+                    postingUuid = directory.getIndex(encodedValue);
+                }
+                if (postingUuid == KConfig.NULL_LONG) {
+                    callback.on(new long[0]);
+                    return;
+                }
+                manager.lookup(universe, time, postingUuid, new KCallback<KObject>() {
+                    @Override
+                    public void on(KObject posting) {
+                        if (posting == null) {
+                            callback.on(new long[0]);
+                            return;
+                        }
+                        String[] keys = ((AbstractKObjectIndex) posting).internal_sortedKeys()[0];
+                        long[] uuids = new long[keys.length];
+                        for (int i = 0; i < keys.length; i++) {
+                            uuids[i] = IndexKeys.uuidOf(keys[i]);
+                        }
+                        callback.on(uuids);
+                    }
+                });
+            }
+        });
+    }
+
+}
@@ -0,0 +1,122 @@
+package org.kevoree.modeling.index.impl;
+
+import org.kevoree.modeling.util.PrimitiveHelper;
+
+/**
+ * Set operations over posting lists, ascending arrays of distinct uuids.
+ */
+public class Postings {
+
+    /**
+     * Intersection of all lists, the shortest one drives the scan and the others are galloped through.
+     */
+    public static long[] intersect(long[][] lists) {
+        if (lists.length == 0) {
+            return new long[0];
+        }
+        int shortest = 0;
+        for (int i = 1; i < lists.length; i++) {
+            if (lists[i].length < lists[shortest].length) {
+                shortest = i;
+            }
+        }
+        long[] driver = lists[shortest];
+        long[] result = new long[driver.length];
+        int size = 0;
+        int[] cursors = new int[lists.length];
+        for (int i = 0; i < driver.length; i++) {
+            boolean inAll = true;
+            for (int j = 0; j < lists.length && inAll; j++) {
+                if (j != shortest) {
+                    cursors[j] = gallop(lists[j], cursors[j], driver[i]);
+                    if (cursors[j] >= lists[j].length || lists[j][cursors[j]] != driver[i]) {
+                        inAll = false;
+                    }
+                }
+            }
+            if (inAll) {
+                result[size] = driver[i];
+                size++;
+            }
+        }
+        return trim(result, size);
+    }
+
+    public static long[] union(long[][] lists) {
+        if (lists.length == 0) {
+            return new long[0];
+        }
+        long[] current = lists[0];
+        for (int i = 1; i < lists.length; i++) {
+            current = unionTwo(current, lists[i]);
+        }
+        return current;
+    }
+
+    private static long[] unionTwo(long[] left, long[] right) {
+        long[] result = new long[left.length + right.length];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < left.length || j < right.length) {
+            long next;
+            if (j >= right.length || (i < left.length && left[i] < right[j])) {
+                next = left[i];
+                i++;
+            } else if (i >= left.length || right[j] < left[i]) {
+                next = right[j];
+                j++;
+            } else {
+                next = left[i];
+                i++;
+                j++;
+            }
+            result[size] = next;
+            size++;
+        }
+        return trim(result, size);
+    }
+
+    /**
+     * First position at or after p_from holding a value greater or equal to p_target, exponential then binary search.
+     */
+    private static int gallop(long[] list, int p_from, long p_target) {
+        int step = 1;
+        int low = p_from;
+        int high = p_from;
+        while (high < list.length && list[high] < p_target) {
+            low = high + 1;
+            high = high + step;
+            step = step * 2;
+        }
+        if (high > list.length) {
+            high = list.length;
+        }
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (list[middle] < p_target) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    public static long[] sort(long[] uuids) {
+        long[] sorted = new long[uuids.length];
+        System.arraycopy(uuids, 0, sorted, 0, uuids.length);
+        PrimitiveHelper.sortLongs(sorted);
+        return sorted;
+    }
+
+    private static long[] trim(long[] values, int size) {
+        if (size == values.length) {
+            return values;
+        }
+        long[] trimmed = new long[size];
+        System.arraycopy(values, 0, trimmed, 0, size);
+        return trimmed;
+    }
+
+}
@@ -0,0 +1,73 @@
+package org.kevoree.modeling.index.impl;
+
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.KObjectIndex;
+import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
+import org.kevoree.modeling.meta.KMetaClass;
+import org.kevoree.modeling.meta.KMetaModel;
+import org.kevoree.modeling.meta.KMetaRelation;
+
+/**
+ * Reverse index of a relation, from every referred object to the objects referring to it, built as a posting index
+ * whose values are the encoded uuids of the referred objects. It is written at the universe and time of the referring
+ * object, so incoming references are versioned with the object holding the relation, and the referred object keeps
+ * its chunk and time points untouched.
+ */
+public class ReverseIndex {
+
+    public static String reverseIndexName(KMetaClass metaClass, KMetaRelation relation) {
+        return metaClass.metaName() + '<' + relation.metaName();
+    }
+
+    /**
+     * True when the incoming references of p_relation are kept by a reverse index rather than by the hidden opposite.
+     */
+    public static boolean isReverseIndexed(KMetaRelation relation, KMetaModel metaModel) {
+        if (!relation.reverseIndexed()) {
+            return false;
+        }
+        KMetaRelation opposite = metaModel.metaClass(relation.referredMetaClassIndex()).reference(relation.oppositeName());
+        return opposite != null && !opposite.visible();
+    }
+
+    public static void add(final KInternalDataManager manager, final KObject source, KMetaRelation relation, long target) {
+        final String encodedTarget = encodedUuid(target);
+        manager.index(source.universe(), source.now(), reverseIndexName(manager, relation), true, new KCallback<KObjectIndex>() {
+            @Override
+            public void on(KObjectIndex directory) {
+                PostingIndex.add(manager, directory, encodedTarget, source);
+            }
+        });
+    }
+
+    public static void remove(final KInternalDataManager manager, final KObject source, KMetaRelation relation, long target) {
+        final String encodedTarget = encodedUuid(target);
+        manager.index(source.universe(), source.now(), reverseIndexName(manager, relation), false, new KCallback<KObjectIndex>() {
+            @Override
+            public void on(KObjectIndex directory) {
+                if (directory != null) {
+                    PostingIndex.remove(manager, directory, encodedTarget, source);
+                }
+            }
+        });
+    }
+
+    /**
+     * Sorted uuids of the objects of the origin class of p_relation referring to p_target at the given universe and time.
+     */
+    public static void referrers(KInternalDataManager manager, long universe, long time, KMetaRelation relation, long target, KCallback<long[]> callback) {
+        PostingIndex.postings(manager, universe, time, reverseIndexName(manager, relation), encodedUuid(target), callback);
+    }
+
+    private static String reverseIndexName(KInternalDataManager manager, KMetaRelation relation) {
+        return reverseIndexName(manager.model().metaModel().metaClass(relation.originMetaClassIndex()), relation);
+    }
+
+    private static String encodedUuid(long uuid) {
+        StringBuilder buffer = new StringBuilder(IndexKeys.UUID_WIDTH);
+        IndexKeys.encodeLong(uuid, buffer);
+        return buffer.toString();
+    }
+
+}
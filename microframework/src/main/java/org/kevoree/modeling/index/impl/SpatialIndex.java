@@ -0,0 +1,336 @@
+package org.kevoree.modeling.index.impl;
+
+import org.kevoree.modeling.abs.AbstractKObjectIndex;
+import org.kevoree.modeling.index.KSpatialIndex;
+import org.kevoree.modeling.util.PrimitiveHelper;
+
+/**
+ * Spatial index backed by a named index object whose keys are ordered along a Z-order (Morton) curve.
+ * A key is the interleaved 32 bits quantization of latitude and longitude, followed by the exact coordinates and the uuid,
+ * so that a box query is a union of key intervals and exact filtering never loads the objects.
+ * Each page keeps its keys sorted, every interval is binary searched in every page.
+ * Curve cells are built byte by byte from 32 bits coordinates, no operation needing 64 bits integers, which JavaScript
+ * numbers do not have.
+ */
+public class SpatialIndex implements KSpatialIndex {
+
+    public static final double EARTH_RADIUS = 6371008.8;
+
+    /* maximal number of curve cells used to cover a box, more cells give tighter intervals but more searches */
+    public static final int MAX_CELLS = 64;
+
+    private static final int CELL_WIDTH = 8;
+
+    private static final int LATITUDE_OFFSET = 8;
+
+    private static final int LONGITUDE_OFFSET = 16;
+
+    private final String[][] _runs;
+
+    public SpatialIndex(AbstractKObjectIndex p_index) {
+        if (p_index == null) {
+            this._runs = new String[0][];
+        } else {
+            this._runs = p_index.internal_sortedKeys();
+        }
+    }
+
+    /**
+     * Key of an object located at (latitude, longitude).
+     */
+    public static String key(double latitude, double longitude, long uuid) {
+        StringBuilder buffer = new StringBuilder(CELL_WIDTH + 16 + IndexKeys.UUID_WIDTH);
+        buffer.append(cell(quantize(latitude, 90), quantize(longitude, 180)));
+        IndexKeys.encodeDouble(latitude, buffer);
+        IndexKeys.encodeDouble(longitude, buffer);
+        IndexKeys.encodeLong(uuid, buffer);
+        return buffer.toString();
+    }
+
+    @Override
+    public long[] boundingBox(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+        Matches matches = new Matches();
+        if (minLongitude > maxLongitude) {
+            scan(minLatitude, minLongitude, maxLatitude, 180, matches, Double.NaN, Double.NaN, -1);
+            scan(minLatitude, -180, maxLatitude, maxLongitude, matches, Double.NaN, Double.NaN, -1);
+        } else {
+            scan(minLatitude, minLongitude, maxLatitude, maxLongitude, matches, Double.NaN, Double.NaN, -1);
+        }
+        return matches.uuids(-1);
+    }
+
+    @Override
+    public long[] radius(double latitude, double longitude, double meters) {
+        Matches matches = new Matches();
+        double deltaLatitude = Math.toDegrees(meters / EARTH_RADIUS);
+        double minLatitude = latitude - deltaLatitude;
+        double maxLatitude = latitude + deltaLatitude;
+        if (minLatitude <= -90 || maxLatitude >= 90) {
+            //a pole is inside the circle, every longitude may match
+            scan(minLatitude, -180, maxLatitude, 180, matches, latitude, longitude, meters);
+        } else {
+            double ratio = Math.sin(meters / EARTH_RADIUS) / Math.cos(Math.toRadians(latitude));
+            if (meters / EARTH_RADIUS >= Math.PI / 2 || ratio >= 1) {
+                scan(minLatitude, -180, maxLatitude, 180, matches, latitude, longitude, meters);
+            } else {
+                double deltaLongitude = Math.toDegrees(Math.asin(ratio));
+                double minLongitude = longitude - deltaLongitude;
+                double maxLongitude = longitude + deltaLongitude;
+                if (minLongitude < -180) {
+                    scan(minLatitude, minLongitude + 360, maxLatitude, 180, matches, latitude, longitude, meters);
+                    scan(minLatitude, -180, maxLatitude, maxLongitude, matches, latitude, longitude, meters);
+                } else if (maxLongitude > 180) {
+                    scan(minLatitude, minLongitude, maxLatitude, 180, matches, latitude, longitude, meters);
+                    scan(minLatitude, -180, maxLatitude, maxLongitude - 360, matches, latitude, longitude, meters);
+                } else {
+                    scan(minLatitude, minLongitude, maxLatitude, maxLongitude, matches, latitude, longitude, meters);
+                }
+            }
+        }
+        matches.sortByDistance();
+        return matches.uuids(-1);
+    }
+
+    /**
+     * Radius searches of growing size, starting from the radius expected to hold k objects for a uniform distribution.
+     */
+    @Override
+    public long[] nearest(double latitude, double longitude, int k) {
+        int size = size();
+        if (k <= 0 || size == 0) {
+            return new long[0];
+        }
+        double meters = 2 * EARTH_RADIUS * Math.sqrt(((double) k) / size);
+        while (true) {
+            long[] found = radius(latitude, longitude, meters);
+            if (found.length >= k || meters >= Math.PI * EARTH_RADIUS) {
+                if (found.length <= k) {
+                    return found;
+                }
+                long[] result = new long[k];
+                System.arraycopy(found, 0, result, 0, k);
+                return result;
+            }
+            meters = meters * 2;
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < _runs.length; i++) {
+            size = size + _runs[i].length;
+        }
+        return size;
+    }
+
+    public static double distance(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double sinLatitude = Math.sin(Math.toRadians(latitude2 - latitude1) / 2);
+        double sinLongitude = Math.sin(Math.toRadians(longitude2 - longitude1) / 2);
+        double a = sinLatitude * sinLatitude + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2)) * sinLongitude * sinLongitude;
+        if (a > 1) {
+            a = 1;
+        }
+        return 2 * EARTH_RADIUS * Math.asin(Math.sqrt(a));
+    }
+
+    /**
+     * Collects the keys of a box, keeping only the ones within p_meters of the center when p_meters is not negative.
+     */
+    private void scan(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude, Matches matches, double centerLatitude, double centerLongitude, double p_meters) {
+        String[] intervals = cover(quantize(minLatitude, 90), quantize(minLongitude, 180), quantize(maxLatitude, 90), quantize(maxLongitude, 180));
+        for (int r = 0; r < _runs.length; r++) {
+            String[] run = _runs[r];
+            for (int i = 0; i < intervals.length; i = i + 2) {
+                int position = lowerBound(run, intervals[i]);
+                while (position < run.length && PrimitiveHelper.compareStrings(run[position].substring(0, CELL_WIDTH), intervals[i + 1]) <= 0) {
+                    String key = run[position];
+                    double latitude = IndexKeys.decodeDouble(key, LATITUDE_OFFSET);
+                    double longitude = IndexKeys.decodeDouble(key, LONGITUDE_OFFSET);
+                    if (latitude >= minLatitude && latitude <= maxLatitude && longitude >= minLongitude && longitude <= maxLongitude) {
+                        if (p_meters < 0) {
+                            matches.add(IndexKeys.uuidOf(key), 0);
+                        } else {
+                            double distance = distance(centerLatitude, centerLongitude, latitude, longitude);
+                            if (distance <= p_meters) {
+                                matches.add(IndexKeys.uuidOf(key), distance);
+                            }
+                        }
+                    }
+                    position++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Intervals of the curve covering a quantized box, as [first, last] pairs of cells sorted along the curve.
+     * The finest level covering the box with at most MAX_CELLS cells is used.
+     */
+    private static String[] cover(long minLatitude, long minLongitude, long maxLatitude, long maxLongitude) {
+        int level = 32;
+        while (level > 0) {
+            long latitudeCells = (maxLatitude >>> (32 - level)) - (minLatitude >>> (32 - level)) + 1;
+            long longitudeCells = (maxLongitude >>> (32 - level)) - (minLongitude >>> (32 - level)) + 1;
+            if (latitudeCells <= MAX_CELLS && longitudeCells <= MAX_CELLS && latitudeCells * longitudeCells <= MAX_CELLS) {
+                break;
+            }
+            level--;
+        }
+        if (level == 0) {
+            return new String[]{cell(0, 0), cell(0xFFFFFFFFL, 0xFFFFFFFFL)};
+        }
+        int shift = 32 - level;
+        //size of a cell along each coordinate, multiplied rather than shifted to stay exact beyond 31 bits in JavaScript
+        long size = 1;
+        for (int i = 0; i < shift; i++) {
+            size = size * 2;
+        }
+        int nbCells = (int) (((maxLatitude >>> shift) - (minLatitude >>> shift) + 1) * ((maxLongitude >>> shift) - (minLongitude >>> shift) + 1));
+        String[] intervals = new String[nbCells * 2];
+        int nbIntervals = 0;
+        for (long a = minLatitude >>> shift; a <= maxLatitude >>> shift; a++) {
+            for (long b = minLongitude >>> shift; b <= maxLongitude >>> shift; b++) {
+                String first = cell(a * size, b * size);
+                String last = cell(a * size + size - 1, b * size + size - 1);
+                //insertion along the curve
+                int j = nbIntervals - 1;
+                while (j >= 0 && PrimitiveHelper.compareStrings(intervals[j * 2], first) > 0) {
+                    intervals[j * 2 + 2] = intervals[j * 2];
+                    intervals[j * 2 + 3] = intervals[j * 2 + 1];
+                    j--;
+                }
+                intervals[j * 2 + 2] = first;
+                intervals[j * 2 + 3] = last;
+                nbIntervals++;
+            }
+        }
+        return intervals;
+    }
+
+    private static int lowerBound(String[] run, String start) {
+        int low = 0;
+        int high = run.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (PrimitiveHelper.compareStrings(run[middle], start) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Maps a coordinate of [-p_bound, p_bound] to an unsigned 32 bits integer, out of range values are clamped.
+     */
+    private static long quantize(double value, double p_bound) {
+        double normalized = (value + p_bound) / (2 * p_bound);
+        if (normalized <= 0) {
+            return 0;
+        }
+        if (normalized >= 1) {
+            return 0xFFFFFFFFL;
+        }
+        return (long) (normalized * 4294967296.0);
+    }
+
+    /**
+     * Cell of the curve holding two quantized coordinates: the 8 bytes of their Morton code, latitude bits first, every
+     * byte interleaving 4 bits of each coordinate.
+     */
+    private static String cell(long latitude, long longitude) {
+        StringBuilder buffer = new StringBuilder(CELL_WIDTH);
+        for (int shift = 28; shift >= 0; shift = shift - 4) {
+            int latitudeBits = (int) ((latitude >>> shift) & 0xF);
+            int longitudeBits = (int) ((longitude >>> shift) & 0xF);
+            int interleaved = 0;
+            for (int bit = 3; bit >= 0; bit--) {
+                interleaved = (interleaved << 2) | (((latitudeBits >>> bit) & 1) << 1) | ((longitudeBits >>> bit) & 1);
+            }
+            buffer.append((char) interleaved);
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Growable uuid and distance pairs.
+     */
+    private static class Matches {
+
+        private long[] _uuids = new long[16];
+
+        private double[] _distances = new double[16];
+
+        private int _size = 0;
+
+        void add(long uuid, double distance) {
+            if (_size == _uuids.length) {
+                long[] uuids = new long[_size * 2];
+                System.arraycopy(_uuids, 0, uuids, 0, _size);
+                _uuids = uuids;
+                double[] distances = new double[_size * 2];
+                System.arraycopy(_distances, 0, distances, 0, _size);
+                _distances = distances;
+            }
+            _uuids[_size] = uuid;
+            _distances[_size] = distance;
+            _size++;
+        }
+
+        void sortByDistance() {
+            sort(0, _size - 1);
+        }
+
+        private void sort(int low, int high) {
+            while (low < high) {
+                double pivotDistance = _distances[(low + high) >>> 1];
+                long pivotUuid = _uuids[(low + high) >>> 1];
+                int i = low;
+                int j = high;
+                while (i <= j) {
+                    while (before(_distances[i], _uuids[i], pivotDistance, pivotUuid)) {
+                        i++;
+                    }
+                    while (before(pivotDistance, pivotUuid, _distances[j], _uuids[j])) {
+                        j--;
+                    }
+                    if (i <= j) {
+                        double distance = _distances[i];
+                        _distances[i] = _distances[j];
+                        _distances[j] = distance;
+                        long uuid = _uuids[i];
+                        _uuids[i] = _uuids[j];
+                        _uuids[j] = uuid;
+                        i++;
+                        j--;
+                    }
+                }
+                if (j - low < high - i) {
+                    sort(low, j);
+                    low = i;
+                } else {
+                    sort(i, high);
+                    high = j;
+                }
+            }
+        }
+
+        private static boolean before(double distance1, long uuid1, double distance2, long uuid2) {
+            return distance1 < distance2 || (distance1 == distance2 && uuid1 < uuid2);
+        }
+
+        long[] uuids(int p_limit) {
+            int size = _size;
+            if (p_limit >= 0 && p_limit < size) {
+                size = p_limit;
+            }
+            long[] result = new long[size];
+            System.arraycopy(_uuids, 0, result, 0, size);
+            return result;
+        }
+
+    }
+
+}
@@ -0,0 +1,296 @@
+package org.kevoree.modeling.index.impl;
+
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KConfig;
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.KObjectIndex;
+import org.kevoree.modeling.abs.AbstractKObjectIndex;
+import org.kevoree.modeling.memory.chunk.KLongMap;
+import org.kevoree.modeling.memory.chunk.KLongMapCallBack;
+import org.kevoree.modeling.memory.chunk.impl.ArrayLongMap;
+import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
+import org.kevoree.modeling.meta.KMetaAttribute;
+import org.kevoree.modeling.meta.KMetaClass;
+import org.kevoree.modeling.util.PrimitiveHelper;
+import org.kevoree.modeling.util.maths.StringDistance;
+
+/**
+ * Fuzzy text index of a string attribute: an inverted index from the trigrams of the lower cased tokens of a value
+ * to the objects holding it, keyed by the encoded trigram followed by the uuid in a named index object.
+ * A search retrieves the objects sharing the most trigrams with the query, then re-ranks them by Levenshtein distance
+ * between the query and the value, its closest token or token prefix, so that misspelled and partial names are found.
+ */
+public class TextIndex {
+
+    public static final int GRAM = 3;
+
+    public static final int DEFAULT_LIMIT = 10;
+
+    /* number of candidates re-ranked per requested result */
+    public static final int CANDIDATES_FACTOR = 8;
+
+    private static final char PAD = '$';
+
+    public static String textIndexName(KMetaClass metaClass, KMetaAttribute attribute) {
+        return metaClass.metaName() + '%' + attribute.metaName();
+    }
+
+    /**
+     * Distinct trigrams of a value, each token being padded so that its first and last chars weigh as much as the others.
+     */
+    public static String[] grams(String value) {
+        if (value == null) {
+            return new String[0];
+        }
+        String[] tokens = tokens(value);
+        String[] result = new String[0];
+        int size = 0;
+        for (int i = 0; i < tokens.length; i++) {
+            String padded = PAD + tokens[i] + PAD;
+            for (int j = 0; j + GRAM <= padded.length(); j++) {
+                String gram = padded.substring(j, j + GRAM);
+                boolean found = false;
+                for (int k = 0; k < size && !found; k++) {
+                    found = result[k].equals(gram);
+                }
+                if (!found) {
+                    if (size == result.length) {
+                        String[] extended = new String[size * 2 + 4];
+                        System.arraycopy(result, 0, extended, 0, size);
+                        result = extended;
+                    }
+                    result[size] = gram;
+                    size++;
+                }
+            }
+        }
+        String[] trimmed = new String[size];
+        System.arraycopy(result, 0, trimmed, 0, size);
+        return trimmed;
+    }
+
+    /**
+     * Lower cased tokens of a value, split on every char which is neither a letter nor a digit.
+     */
+    public static String[] tokens(String value) {
+        String lowered = value.toLowerCase();
+        String[] result = new String[0];
+        int start = -1;
+        for (int i = 0; i <= lowered.length(); i++) {
+            boolean separator = i == lowered.length() || !Character.isLetterOrDigit(lowered.charAt(i));
+            if (separator) {
+                if (start != -1) {
+                    String[] extended = new String[result.length + 1];
+                    System.arraycopy(result, 0, extended, 0, result.length);
+                    extended[result.length] = lowered.substring(start, i);
+                    result = extended;
+                    start = -1;
+                }
+            } else if (start == -1) {
+                start = i;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Rank of a value for a query, lower is better: twice the smallest edit distance between the query and the whole
+     * value or one of its tokens, or twice the distance to a token prefix plus one, so that partial names match
+     * but rank after complete ones.
+     */
+    public static int score(String query, String value) {
+        String loweredQuery = query.toLowerCase().trim();
+        int best = 2 * StringDistance.levenshtein(loweredQuery, value.toLowerCase());
+        String[] tokens = tokens(value);
+        for (int i = 0; i < tokens.length && best > 0; i++) {
+            int score = 2 * StringDistance.levenshtein(loweredQuery, tokens[i]);
+            if (tokens[i].length() > loweredQuery.length()) {
+                int prefixScore = 2 * StringDistance.levenshtein(loweredQuery, tokens[i].substring(0, loweredQuery.length())) + 1;
+                if (prefixScore < score) {
+                    score = prefixScore;
+                }
+            }
+            if (score < best) {
+                best = score;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Highest score tolerated for a query, one edit per four chars and at least one.
+     */
+    public static int tolerance(String query) {
+        int edits = query.trim().length() / 4;
+        if (edits < 1) {
+            edits = 1;
+        }
+        return 2 * edits + 1;
+    }
+
+    public static boolean matches(String query, String value) {
+        return value != null && score(query, value) <= tolerance(query);
+    }
+
+    public static void update(KInternalDataManager manager, final KObject current, KMetaAttribute attribute, Object previousValue, Object newValue) {
+        final String[] previousGrams = grams((String) previousValue);
+        final String[] newGrams = grams((String) newValue);
+        manager.index(current.universe(), current.now(), textIndexName(current.metaClass(), attribute), true, new KCallback<KObjectIndex>() {
+            @Override
+            public void on(KObjectIndex index) {
+                for (int i = 0; i < previousGrams.length; i++) {
+                    if (!contains(newGrams, previousGrams[i])) {
+                        index.setIndex(key(previousGrams[i], current.uuid()), KConfig.NULL_LONG);
+                    }
+                }
+                for (int i = 0; i < newGrams.length; i++) {
+                    if (!contains(previousGrams, newGrams[i])) {
+                        index.setIndex(key(newGrams[i], current.uuid()), current.uuid());
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Uuids of at most limit objects whose attribute is within tolerance of the query, closest first.
+     */
+    public static void search(final KInternalDataManager manager, final long universe, final long time, KMetaClass metaClass, final KMetaAttribute attribute, final String query, final int limit, final KCallback<long[]> callback) {
+        if (query == null || limit <= 0) {
+            callback.on(new long[0]);
+            return;
+        }
+        manager.index(universe, time, textIndexName(metaClass, attribute), false, new KCallback<KObjectIndex>() {
+            @Override
+            public void on(KObjectIndex index) {
+                if (index == null) {
+                    callback.on(new long[0]);
+                    return;
+                }
+                final long[] candidates = candidates(((AbstractKObjectIndex) index).internal_sortedKeys(), grams(query), limit * CANDIDATES_FACTOR);
+                manager.lookupAllObjects(universe, time, candidates, new KCallback<KObject[]>() {
+                    @Override
+                    public void on(KObject[] objects) {
+                        callback.on(rank(objects, attribute, query, limit));
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * The max objects sharing the most grams with the query, counting hits through the sorted keys of each gram.
+     */
+    private static long[] candidates(String[][] runs, String[] queryGrams, int max) {
+        final KLongMap<Integer> hits = new ArrayLongMap<Integer>(KConfig.CACHE_INIT_SIZE, KConfig.CACHE_LOAD_FACTOR);
+        for (int g = 0; g < queryGrams.length; g++) {
+            String prefix = encodedGram(queryGrams[g]);
+            for (int r = 0; r < runs.length; r++) {
+                String[] run = runs[r];
+                int position = lowerBound(run, prefix);
+                while (position < run.length && PrimitiveHelper.startsWith(run[position], prefix)) {
+                    long uuid = IndexKeys.uuidOf(run[position]);
+                    Integer previous = hits.get(uuid);
+                    hits.put(uuid, previous == null ? 1 : previous + 1);
+                    position++;
+                }
+            }
+        }
+        //bucket the uuids by number of hits, which is bounded by the number of grams
+        final int[] bucketSizes = new int[queryGrams.length + 1];
+        hits.each(new KLongMapCallBack<Integer>() {
+            @Override
+            public void on(long key, Integer value) {
+                bucketSizes[value]++;
+            }
+        });
+        final int[] bucketStarts = new int[queryGrams.length + 1];
+        int offset = 0;
+        for (int i = queryGrams.length; i >= 0; i--) {
+            bucketStarts[i] = offset;
+            offset = offset + bucketSizes[i];
+        }
+        final long[] ordered = new long[hits.size()];
+        final int[] filled = new int[queryGrams.length + 1];
+        hits.each(new KLongMapCallBack<Integer>() {
+            @Override
+            public void on(long key, Integer value) {
+                ordered[bucketStarts[value] + filled[value]] = key;
+                filled[value]++;
+            }
+        });
+        int size = ordered.length < max ? ordered.length : max;
+        long[] result = new long[size];
+        System.arraycopy(ordered, 0, result, 0, size);
+        return result;
+    }
+
+    /**
+     * Keeps the objects within tolerance, sorted by score then uuid.
+     */
+    private static long[] rank(KObject[] objects, KMetaAttribute attribute, String query, int limit) {
+        int tolerance = tolerance(query);
+        long[] uuids = new long[objects.length];
+        int[] scores = new int[objects.length];
+        int size = 0;
+        for (int i = 0; i < objects.length; i++) {
+            if (objects[i] != null) {
+                Object value = objects[i].get(attribute);
+                if (value != null) {
+                    int score = score(query, value.toString());
+                    if (score <= tolerance) {
+                        int j = size - 1;
+                        while (j >= 0 && (scores[j] > score || (scores[j] == score && uuids[j] > objects[i].uuid()))) {
+                            uuids[j + 1] = uuids[j];
+                            scores[j + 1] = scores[j];
+                            j--;
+                        }
+                        uuids[j + 1] = objects[i].uuid();
+                        scores[j + 1] = score;
+                        size++;
+                    }
+                }
+            }
+        }
+        if (size > limit) {
+            size = limit;
+        }
+        long[] result = new long[size];
+        System.arraycopy(uuids, 0, result, 0, size);
+        return result;
+    }
+
+    private static boolean contains(String[] grams, String gram) {
+        for (int i = 0; i < grams.length; i++) {
+            if (grams[i].equals(gram)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String encodedGram(String gram) {
+        StringBuilder buffer = new StringBuilder();
+        IndexKeys.encodeString(gram, buffer, true);
+        return buffer.toString();
+    }
+
+    static String key(String gram, long uuid) {
+        return IndexKeys.withUuid(encodedGram(gram), uuid);
+    }
+
+    private static int lowerBound(String[] run, String prefix) {
+        int low = 0;
+        int high = run.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (PrimitiveHelper.compareStrings(run[middle], prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+}
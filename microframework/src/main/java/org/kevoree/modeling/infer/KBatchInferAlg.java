@@ -0,0 +1,20 @@
+package org.kevoree.modeling.infer;
+
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
+import org.kevoree.modeling.util.maths.structure.KArray2D;
+
+/**
+ * Infer algorithm scoring many infer objects of a same meta class at once, their learned states being gathered in a
+ * single matrix instead of being resolved and applied object per object.
+ */
+public interface KBatchInferAlg extends KInferAlg {
+
+    /**
+     * With owners, infers for every row of features the outputs of inferObjects[owners[row]], one row of results per
+     * row of features. Without owners, every infer object infers all the rows, the results of inferObjects[k] being
+     * the k-th block of outputs columns. Rows scored by an infer object which has not learned yet are NaN.
+     */
+    KArray2D inferAll(KArray2D features, int[] owners, KObject[] inferObjects, KInternalDataManager manager);
+
+}
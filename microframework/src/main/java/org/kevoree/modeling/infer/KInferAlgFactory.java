@@ -15,6 +15,9 @@ public class KInferAlgFactory {
         else if (PrimitiveHelper.equals(name, "KMeanCluster")) {
             return new KMeanClusterAlg();
         }
+        else if (PrimitiveHelper.equals(name, "MiniBatchKMeans")) {
+            return new MiniBatchKMeansAlg();
+        }
         else if (PrimitiveHelper.equals(name, "GaussianProfiler")) {
             return new GaussianProfiler();
         }
@@ -0,0 +1,26 @@
+package org.kevoree.modeling.infer;
+
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KObject;
+
+/**
+ * Streaming training of a KObjectInfer: samples are learned as they come on a state kept in memory, written to the
+ * infer object every checkpoint period samples and on checkpoint only, instead of once per trained batch.
+ */
+public interface KInferLearner {
+
+    void update(KObject[] dependencies, Object[] expectedOutputs, KCallback callback);
+
+    void updateAll(KObject[][] dependencies, Object[][] expectedOutputs, KCallback callback);
+
+    /**
+     * Writes the samples learned since the last checkpoint to the infer object, at its time.
+     */
+    void checkpoint();
+
+    /**
+     * Number of samples learned and not yet written to the infer object.
+     */
+    int pending();
+
+}
@@ -0,0 +1,39 @@
+package org.kevoree.modeling.infer;
+
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.util.maths.structure.KArray1D;
+import org.kevoree.modeling.util.maths.structure.KArray2D;
+
+/**
+ * Infer algorithm able to learn one sample at a time, on a copy of the learned state kept in memory by a KInferLearner
+ * and written back to the infer object at checkpoints only. While learning, the state holds running values, such as
+ * Welford means and sums of squared deviations, converted from and to the persisted state train and infer work on.
+ */
+public interface KOnlineInferAlg extends KInferAlg {
+
+    /**
+     * Size of the double array holding the learned state of currentInferObject.
+     */
+    int stateSize(KObject currentInferObject);
+
+    /**
+     * Fills the persisted state of an infer object which has not learned yet, as train does.
+     */
+    void initState(KArray1D state, KObject currentInferObject);
+
+    /**
+     * Converts in place a persisted state to the running values update works on.
+     */
+    void openState(KArray1D state, KObject currentInferObject);
+
+    /**
+     * Converts in place running values back to a persisted state.
+     */
+    void closeState(KArray1D state, KObject currentInferObject);
+
+    /**
+     * Learns the sample at row of features, with its expected results for supervised algorithms.
+     */
+    void update(KArray1D state, KArray2D features, KArray2D expectedResultSet, int row, KObject currentInferObject);
+
+}
@@ -2,7 +2,7 @@ package org.kevoree.modeling.infer.impl;
 
 import org.kevoree.modeling.KObject;
 import org.kevoree.modeling.abs.AbstractKObject;
-import org.kevoree.modeling.infer.KInferAlg;
+import org.kevoree.modeling.infer.KOnlineInferAlg;
 import org.kevoree.modeling.memory.chunk.KObjectChunk;
 import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
 import org.kevoree.modeling.meta.KMetaDependencies;
@@ -12,7 +12,7 @@ import org.kevoree.modeling.util.maths.structure.KArray2D;
 import org.kevoree.modeling.util.maths.structure.impl.Array1D;
 import org.kevoree.modeling.util.maths.structure.impl.NativeArray2D;
 
-public class GaussianAnomalyDetectionAlg implements KInferAlg {
+public class GaussianAnomalyDetectionAlg implements KOnlineInferAlg {
 
     private double _alpha = 0.5; //default learning rate
 
@@ -59,10 +59,7 @@ public class GaussianAnomalyDetectionAlg implements KInferAlg {
         KObjectChunk ks = manager.preciseChunk(origin.universe(), origin.now(), origin.uuid(), origin.metaClass(), ((AbstractKObject) origin).previousResolved());
         int dependenciesIndex = origin.metaClass().dependencies().index();
 
-        Double alpha=(Double)origin.getByName("alpha");
-        if(alpha==null){
-            alpha=_alpha;
-        }
+        double alpha = getAlpha(origin);
 
         int length=origin.metaClass().inputs().length;
         //Create initial chunk if empty
@@ -115,6 +112,79 @@ public class GaussianAnomalyDetectionAlg implements KInferAlg {
         }
     }
 
+    private double getAlpha(KObject origin) {
+        Double alpha = (Double) origin.getByName("alpha");
+        if (alpha == null) {
+            return _alpha;
+        }
+        return alpha;
+    }
+
+    @Override
+    public int stateSize(KObject origin) {
+        return origin.metaClass().inputs().length * NUMOFFIELDS + 2;
+    }
+
+    @Override
+    public void initState(KArray1D state, KObject origin) {
+        state.setAll(0);
+    }
+
+    @Override
+    public void openState(KArray1D state, KObject origin) {
+        int length = origin.metaClass().inputs().length;
+        for (int j = 0; j < length; j++) {
+            RunningStats.open(state, j * NUMOFFIELDS, state.get(length * NUMOFFIELDS));
+        }
+    }
+
+    @Override
+    public void closeState(KArray1D state, KObject origin) {
+        int length = origin.metaClass().inputs().length;
+        for (int j = 0; j < length; j++) {
+            RunningStats.close(state, j * NUMOFFIELDS, state.get(length * NUMOFFIELDS));
+        }
+    }
+
+    @Override
+    public void update(KArray1D state, KArray2D features, KArray2D expectedResultSet, int row, KObject origin) {
+        int length = origin.metaClass().inputs().length;
+        double alpha = getAlpha(origin);
+        double epsilon = state.get(length * NUMOFFIELDS + 1);
+        int output = (int) expectedResultSet.get(row, 0); //0: normal, 1:anomaly
+        if (output == 0) {
+            double count = state.add(length * NUMOFFIELDS, 1);
+            for (int j = 0; j < length; j++) {
+                RunningStats.update(state, j * NUMOFFIELDS, count, features.get(row, j));
+            }
+            double newEpsilon = getRunningProba(features, row, state, length);
+            if (newEpsilon < epsilon) {
+                state.set(length * NUMOFFIELDS + 1, epsilon + alpha * (newEpsilon - epsilon));
+            }
+        } else {
+            double newEpsilon = getRunningProba(features, row, state, length);
+            if (newEpsilon > epsilon) {
+                state.set(length * NUMOFFIELDS + 1, epsilon + alpha * (newEpsilon - epsilon));
+            }
+        }
+    }
+
+    /**
+     * getProba on the running values of an opened state.
+     */
+    private double getRunningProba(KArray2D features, int row, KArray1D state, int length) {
+        double[] avg = new double[length];
+        double[] variance = new double[length];
+        double total = state.get(length * NUMOFFIELDS);
+        if (total != 0) {
+            for (int i = 0; i < length; i++) {
+                avg[i] = RunningStats.mean(state, i * NUMOFFIELDS);
+                variance[i] = RunningStats.variance(state, i * NUMOFFIELDS, total);
+            }
+        }
+        return Distribution.gaussianArray(features, row, avg, variance);
+    }
+
     @Override
     public KArray2D infer(KArray2D features, KObject origin, KInternalDataManager manager) {
         KObjectChunk ks = manager.closestChunk(origin.universe(), origin.now(), origin.uuid(), origin.metaClass(), ((AbstractKObject) origin).previousResolved());
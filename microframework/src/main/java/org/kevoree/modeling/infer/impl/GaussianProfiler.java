@@ -2,16 +2,20 @@ package org.kevoree.modeling.infer.impl;
 
 import org.kevoree.modeling.KObject;
 import org.kevoree.modeling.abs.AbstractKObject;
-import org.kevoree.modeling.infer.KInferAlg;
+import org.kevoree.modeling.infer.KOnlineInferAlg;
 import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
 import org.kevoree.modeling.memory.chunk.KObjectChunk;
 import org.kevoree.modeling.meta.KMetaDependencies;
 import org.kevoree.modeling.util.maths.Distribution;
+import org.kevoree.modeling.util.maths.structure.KArray1D;
 import org.kevoree.modeling.util.maths.structure.KArray2D;
-import org.kevoree.modeling.util.maths.structure.impl.Array1D;
+import org.kevoree.modeling.util.maths.structure.blas.KBlas;
+import org.kevoree.modeling.util.maths.structure.blas.KBlasTransposeType;
+import org.kevoree.modeling.util.maths.structure.impl.ViewArray1D;
 import org.kevoree.modeling.util.maths.structure.impl.NativeArray2D;
+import org.kevoree.modeling.util.maths.structure.matrix.MatrixOperations;
 
-public class GaussianProfiler implements KInferAlg {
+public class GaussianProfiler implements KOnlineInferAlg {
 
     private static int MIN = 0;
     private static int MAX = 1;
@@ -32,7 +36,7 @@ public class GaussianProfiler implements KInferAlg {
     }
 
 
-    public double[] getAvg(int output, Array1D state, KMetaDependencies meta) {
+    public double[] getAvg(int output, KArray1D state, KMetaDependencies meta) {
         double[] avg = new double[meta.origin().inputs().length];
         double total = state.get(getCounter(output, meta));
         if (total != 0) {
@@ -43,7 +47,7 @@ public class GaussianProfiler implements KInferAlg {
         return avg;
     }
 
-    public double[] getVariance(int output, Array1D state, double[] avg, KMetaDependencies meta) {
+    public double[] getVariance(int output, KArray1D state, double[] avg, KMetaDependencies meta) {
         double[] variances = new double[meta.origin().inputs().length];
         double total = state.get(getCounter(output, meta));
         if (total != 0) {
@@ -68,51 +72,120 @@ public class GaussianProfiler implements KInferAlg {
                 ks.setDoubleArrayElem(dependenciesIndex, i, 0, origin.metaClass());
             }
         }
-        Array1D state = new Array1D(size, 0, dep.index(), ks, origin.metaClass());
-        //update the state
-        for (int i = 0; i < trainingSet.rows(); i++) {
-            int output = (int) trainingSet.get(i, 0);
-            for (int j = 1; j < origin.metaClass().inputs().length; j++) {
-                //If this is the first datapoint
-                if (state.get(getCounter(output, dep)) == 0) {
-                    state.set(getIndex(j - 1, output, MIN, dep), trainingSet.get(i, j));
-                    state.set(getIndex(j - 1, output, MAX, dep), trainingSet.get(i, j));
-                    state.set(getIndex(j - 1, output, SUM, dep), trainingSet.get(i, j));
-                    state.set(getIndex(j - 1, output, SUMSQUARE, dep), trainingSet.get(i, j) * trainingSet.get(i, j));
-
-                } else {
-                    if (trainingSet.get(i, j) < state.get(getIndex(j - 1, output, MIN, dep))) {
-                        state.set(getIndex(j - 1, output, MIN, dep), trainingSet.get(i, j));
-                    }
-                    if (trainingSet.get(i, j) > state.get(getIndex(j - 1, output, MAX, dep))) {
-                        state.set(getIndex(j - 1, output, MAX, dep), trainingSet.get(i, j));
-                    }
-                    state.add(getIndex(j - 1, output, SUM, dep), trainingSet.get(i, j));
-                    state.add(getIndex(j - 1, output, SUMSQUARE, dep), trainingSet.get(i, j) * trainingSet.get(i, j));
+        ViewArray1D state = new ViewArray1D(size, 0, dep.index(), ks, origin.metaClass());
+        double[] stats = state.data();
+        int nbRows = trainingSet.rows();
+        int nbValues = origin.metaClass().inputs().length - 1;
+        double[] features = MatrixOperations.columnMajor(trainingSet);
+        //counting sort of the rows by time slot, the values of a slot being then contiguous in every column of grouped
+        int[] slotStarts = new int[maxTimeSlots + 2];
+        for (int i = 0; i < nbRows; i++) {
+            slotStarts[(int) features[i] + 1]++;
+        }
+        for (int slot = 0; slot <= maxTimeSlots; slot++) {
+            slotStarts[slot + 1] += slotStarts[slot];
+        }
+        int[] positions = new int[maxTimeSlots + 1];
+        System.arraycopy(slotStarts, 0, positions, 0, maxTimeSlots + 1);
+        double[] grouped = new double[nbRows * nbValues];
+        for (int i = 0; i < nbRows; i++) {
+            int position = positions[(int) features[i]]++;
+            for (int j = 0; j < nbValues; j++) {
+                grouped[position + nbRows * j] = features[i + nbRows * (j + 1)];
+            }
+        }
+        double[] ones = new double[nbRows];
+        for (int i = 0; i < nbRows; i++) {
+            ones[i] = 1;
+        }
+        KBlas blas = manager.blas();
+        for (int slot = 0; slot < maxTimeSlots; slot++) {
+            updateStats(stats, slot, grouped, nbRows, slotStarts[slot], slotStarts[slot + 1] - slotStarts[slot], nbValues, ones, blas, dep);
+        }
+        //update global stat
+        updateStats(stats, maxTimeSlots, grouped, nbRows, 0, nbRows, nbValues, ones, blas, dep);
+        state.commit();
+    }
+
+    /**
+     * Adds the count rows of grouped starting at from to the statistics of output: sums of all the values at once as a
+     * transposed dgemv against a vector of ones, written with a stride of NUMOFFIELDS, and sums of squares as ddot.
+     */
+    private void updateStats(double[] stats, int output, double[] grouped, int nbRows, int from, int count, int nbValues, double[] ones, KBlas blas, KMetaDependencies dep) {
+        if (count == 0) {
+            return;
+        }
+        boolean first = stats[getCounter(output, dep)] == 0;
+        blas.dgemv(KBlasTransposeType.TRANSPOSE, count, nbValues, 1.0, grouped, from, nbRows, ones, 0, 1, 1.0, stats, getIndex(0, output, SUM, dep), NUMOFFIELDS);
+        for (int j = 0; j < nbValues; j++) {
+            int column = from + nbRows * j;
+            stats[getIndex(j, output, SUMSQUARE, dep)] += blas.ddot(count, grouped, column, 1, grouped, column, 1);
+            double min = grouped[column];
+            double max = grouped[column];
+            for (int i = 1; i < count; i++) {
+                if (grouped[column + i] < min) {
+                    min = grouped[column + i];
                 }
-                //update global stat
-                if (state.get(getCounter(maxTimeSlots, dep)) == 0) {
-                    state.set(getIndex(j - 1, maxTimeSlots, MIN, dep), trainingSet.get(i, j));
-                    state.set(getIndex(j - 1, maxTimeSlots, MAX, dep), trainingSet.get(i, j));
-                    state.set(getIndex(j - 1, maxTimeSlots, SUM, dep), trainingSet.get(i, j));
-                    state.set(getIndex(j - 1, maxTimeSlots, SUMSQUARE, dep), trainingSet.get(i, j) * trainingSet.get(i, j));
-                } else {
-                    if (trainingSet.get(i, j) < state.get(getIndex(j - 1, maxTimeSlots, MIN, dep))) {
-                        state.set(getIndex(j - 1, maxTimeSlots, MIN, dep), trainingSet.get(i, j));
-                    }
-                    if (trainingSet.get(i, j) > state.get(getIndex(j - 1, maxTimeSlots, MAX, dep))) {
-                        state.set(getIndex(j - 1, maxTimeSlots, MAX, dep), trainingSet.get(i, j));
-                    }
-                    state.add(getIndex(j - 1, maxTimeSlots, SUM, dep), trainingSet.get(i, j));
-                    state.add(getIndex(j - 1, maxTimeSlots, SUMSQUARE, dep), trainingSet.get(i, j) * trainingSet.get(i, j));
+                if (grouped[column + i] > max) {
+                    max = grouped[column + i];
                 }
             }
-            //Update Global counters
-            state.add(getCounter(output, dep), 1);
-            state.add(getCounter(maxTimeSlots, dep), 1);
+            //If this is the first datapoint
+            if (first || min < stats[getIndex(j, output, MIN, dep)]) {
+                stats[getIndex(j, output, MIN, dep)] = min;
+            }
+            if (first || max > stats[getIndex(j, output, MAX, dep)]) {
+                stats[getIndex(j, output, MAX, dep)] = max;
+            }
         }
+        stats[getCounter(output, dep)] += count;
     }
 
+    @Override
+    public int stateSize(KObject origin) {
+        return (maxTimeSlots + 1) * ((origin.metaClass().inputs().length - 1) * NUMOFFIELDS + 1);
+    }
+
+    @Override
+    public void initState(KArray1D state, KObject origin) {
+        state.setAll(0);
+    }
+
+    @Override
+    public void openState(KArray1D state, KObject origin) {
+        KMetaDependencies dep = origin.metaClass().dependencies();
+        int nbValues = origin.metaClass().inputs().length - 1;
+        for (int output = 0; output <= maxTimeSlots; output++) {
+            for (int j = 0; j < nbValues; j++) {
+                RunningStats.open(state, getIndex(j, output, MIN, dep), state.get(getCounter(output, dep)));
+            }
+        }
+    }
+
+    @Override
+    public void closeState(KArray1D state, KObject origin) {
+        KMetaDependencies dep = origin.metaClass().dependencies();
+        int nbValues = origin.metaClass().inputs().length - 1;
+        for (int output = 0; output <= maxTimeSlots; output++) {
+            for (int j = 0; j < nbValues; j++) {
+                RunningStats.close(state, getIndex(j, output, MIN, dep), state.get(getCounter(output, dep)));
+            }
+        }
+    }
+
+    //the sample updates the profile of its time slot and the global one
+    @Override
+    public void update(KArray1D state, KArray2D features, KArray2D expectedResultSet, int row, KObject origin) {
+        KMetaDependencies dep = origin.metaClass().dependencies();
+        int nbValues = origin.metaClass().inputs().length - 1;
+        int[] outputs = {(int) features.get(row, 0), maxTimeSlots};
+        for (int k = 0; k < outputs.length; k++) {
+            double count = state.add(getCounter(outputs[k], dep), 1);
+            for (int j = 0; j < nbValues; j++) {
+                RunningStats.update(state, getIndex(j, outputs[k], MIN, dep), count, features.get(row, j + 1));
+            }
+        }
+    }
 
     // features: first element is time, other elements are electrical features
     //result is the probability of every point of the profiler needs to be averaged afterward - threshold here is not defined.
@@ -127,8 +200,11 @@ public class GaussianProfiler implements KInferAlg {
         if (ks.getDoubleArraySize(dependenciesIndex, origin.metaClass()) == 0) {
             return null;
         }
-        Array1D state = new Array1D(size, 0, dep.index(), ks, origin.metaClass());
+        ViewArray1D state = new ViewArray1D(size, 0, dep.index(), ks, origin.metaClass());
         KArray2D result = new NativeArray2D(features.rows(), 1);
+        //gaussian parameters of a slot, computed once for all its rows
+        double[][] avgs = new double[maxTimeSlots + 1][];
+        double[][] variances = new double[maxTimeSlots + 1][];
 
         for (int j = 0; j < features.rows(); j++) {
             int output = (int) features.get(j, 0);
@@ -138,7 +214,11 @@ public class GaussianProfiler implements KInferAlg {
                 values[i] = features.get(j, i + 1);
             }
             if (values[0] >= 0) {
-                result.set(j, 0, getProba(values, output, state, dep));
+                if (avgs[output] == null) {
+                    avgs[output] = getAvg(output, state, dep);
+                    variances[output] = getVariance(output, state, avgs[output], dep);
+                }
+                result.set(j, 0, Distribution.gaussian(values, avgs[output], variances[output]));
             } else {
                 //TODO: wtf is this API!!!!
                 if (values[0] == -1) {
@@ -153,7 +233,7 @@ public class GaussianProfiler implements KInferAlg {
         return result;
     }
 
-    public double getProba(double[] features, int output, Array1D state, KMetaDependencies meta) {
+    public double getProba(double[] features, int output, KArray1D state, KMetaDependencies meta) {
         double prob = 0;
         double[] avg = getAvg(output, state, meta);
         double[] variance = getVariance(output, state, avg, meta);
@@ -6,8 +6,11 @@ import org.kevoree.modeling.infer.KInferAlg;
 import org.kevoree.modeling.memory.chunk.KObjectChunk;
 import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
 import org.kevoree.modeling.util.maths.structure.KArray2D;
-import org.kevoree.modeling.util.maths.structure.impl.Array1D;
+import org.kevoree.modeling.util.maths.structure.blas.KBlas;
+import org.kevoree.modeling.util.maths.structure.blas.KBlasTransposeType;
+import org.kevoree.modeling.util.maths.structure.impl.ViewArray1D;
 import org.kevoree.modeling.util.maths.structure.impl.NativeArray2D;
+import org.kevoree.modeling.util.maths.structure.matrix.MatrixOperations;
 
 import java.util.Random;
 
@@ -36,61 +39,70 @@ public class KMeanClusterAlg implements KInferAlg {
                 }
             }
         }
-        Array1D state = new Array1D(size, 0, origin.metaClass().dependencies().index(), ks, origin.metaClass());
-
+        ViewArray1D state = new ViewArray1D(size, 0, origin.metaClass().dependencies().index(), ks, origin.metaClass());
+        int nbFeatures = origin.metaClass().inputs().length;
+        int nbRows = trainingSet.rows();
+        //centroid i is state[i * nbFeatures, (i + 1) * nbFeatures), that is a column-major nbFeatures x k matrix
+        double[] centroids = state.data();
+        double[] features = MatrixOperations.columnMajor(trainingSet);
+        KBlas blas = manager.blas();
+        int[] classes = new int[nbRows];
+        double[] distances = new double[nbRows * k];
+        double[] sums = new double[size];
         for (int iter = 0; iter < iterations; iter++) {
-            int temporalClassification;
-            KArray2D centroids = new NativeArray2D(k, origin.metaClass().inputs().length);
             int[] counters = new int[k];
+            //Step 1, classify according to current centroids
+            classifyAll(features, nbRows, nbFeatures, centroids, distances, classes, blas);
 
-
-            for (int i = 0; i < trainingSet.rows(); i++) {
-                //Step 1, classify according to current centroids
-                temporalClassification = classify(trainingSet, i, state);
-
-                //Step 2 update the centroids in live
-                for (int j = 0; j < origin.metaClass().inputs().length; j++) {
-                    centroids.add(temporalClassification, j, trainingSet.get(i, j));
-                }
-                counters[temporalClassification]++;
+            //Step 2 sum the points of every cluster
+            for (int i = 0; i < size; i++) {
+                sums[i] = 0;
+            }
+            for (int i = 0; i < nbRows; i++) {
+                blas.daxpy(nbFeatures, 1.0, features, i, nbRows, sums, classes[i] * nbFeatures, 1);
+                counters[classes[i]]++;
             }
 
-            //Step 3 replace the current state by the new centroids
+            //Step 3 replace the current centroids by the new ones
             for (int i = 0; i < k; i++) {
                 if (counters[i] != 0) {
-                    for (int j = 0; j < origin.metaClass().inputs().length; j++) {
-                        state.set(j + i * origin.metaClass().inputs().length, centroids.get(i, j) / counters[i]);
+                    for (int j = 0; j < nbFeatures; j++) {
+                        centroids[j + i * nbFeatures] = sums[j + i * nbFeatures] / counters[i];
                     }
                 } else {
                     Random rand = new Random();
-                    int pos = rand.nextInt(trainingSet.rows());
-                    for (int j = 0; j < origin.metaClass().inputs().length; j++) {
-                        state.set(j + i * origin.metaClass().inputs().length, trainingSet.get(pos, j));
+                    int pos = rand.nextInt(nbRows);
+                    for (int j = 0; j < nbFeatures; j++) {
+                        centroids[j + i * nbFeatures] = features[pos + j * nbRows];
                     }
                 }
             }
         }
+        state.commit();
     }
 
-    private int classify(KArray2D features, int row, Array1D state) {
-        double maxdistance = -1;
-        int classNum = -1;
+    /**
+     * Classifies every row of the column-major features by the closest centroid. As ||x||^2 is the same for all the
+     * centroids, distances are compared through ||c||^2 - 2 x.c, the x.c for all rows and centroids being a single dgemm.
+     */
+    private void classifyAll(double[] features, int nbRows, int nbFeatures, double[] centroids, double[] distances, int[] classes, KBlas blas) {
+        blas.dgemm(KBlasTransposeType.NOTRANSPOSE, KBlasTransposeType.NOTRANSPOSE, nbRows, k, nbFeatures, -2.0, features, 0, nbRows, centroids, 0, nbFeatures, 0.0, distances, 0, nbRows);
+        double[] norms = new double[k];
         for (int i = 0; i < k; i++) {
-            double currentdist = 0;
-            for (int j = 0; j < features.columns(); j++) {
-                currentdist += (features.get(row, j) - state.get(i * features.columns() + j)) * (features.get(row, j) - state.get(i * features.columns() + j));
-            }
-            if (maxdistance < 0) {
-                maxdistance = currentdist;
-                classNum = i;
-            } else {
-                if (currentdist < maxdistance) {
-                    maxdistance = currentdist;
+            norms[i] = blas.ddot(nbFeatures, centroids, i * nbFeatures, 1, centroids, i * nbFeatures, 1);
+        }
+        for (int row = 0; row < nbRows; row++) {
+            int classNum = 0;
+            double minDistance = distances[row] + norms[0];
+            for (int i = 1; i < k; i++) {
+                double currentDistance = distances[row + i * nbRows] + norms[i];
+                if (currentDistance < minDistance) {
+                    minDistance = currentDistance;
                     classNum = i;
                 }
             }
+            classes[row] = classNum;
         }
-        return classNum;
     }
 
     @Override
@@ -101,12 +113,14 @@ public class KMeanClusterAlg implements KInferAlg {
         if (ks.getDoubleArraySize(dependenciesIndex, origin.metaClass()) == 0) {
             return null;
         }
-        Array1D state = new Array1D(size, 0, origin.metaClass().dependencies().index(), ks, origin.metaClass());
-
+        ViewArray1D state = new ViewArray1D(size, 0, origin.metaClass().dependencies().index(), ks, origin.metaClass());
+        int nbFeatures = origin.metaClass().inputs().length;
+        double[] centroids = state.data();
+        int[] classes = new int[features.rows()];
+        classifyAll(MatrixOperations.columnMajor(features), features.rows(), nbFeatures, centroids, new double[features.rows() * k], classes, manager.blas());
         KArray2D result = new NativeArray2D(features.rows(), 1);
-
         for (int inst = 0; inst < features.rows(); inst++) {
-            result.set(inst, 0, classify(features, inst, state));
+            result.set(inst, 0, classes[inst]);
         }
         return result;
     }
@@ -2,17 +2,22 @@ package org.kevoree.modeling.infer.impl;
 
 import org.kevoree.modeling.KObject;
 import org.kevoree.modeling.abs.AbstractKObject;
-import org.kevoree.modeling.infer.KInferAlg;
+import org.kevoree.modeling.infer.KBatchInferAlg;
+import org.kevoree.modeling.infer.KOnlineInferAlg;
 import org.kevoree.modeling.memory.chunk.KObjectChunk;
 import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
+import org.kevoree.modeling.util.maths.structure.KArray1D;
 import org.kevoree.modeling.util.maths.structure.KArray2D;
-import org.kevoree.modeling.util.maths.structure.impl.Array1D;
+import org.kevoree.modeling.util.maths.structure.blas.KBlas;
+import org.kevoree.modeling.util.maths.structure.blas.KBlasTransposeType;
+import org.kevoree.modeling.util.maths.structure.impl.ViewArray1D;
 import org.kevoree.modeling.util.maths.structure.impl.NativeArray2D;
+import org.kevoree.modeling.util.maths.structure.matrix.MatrixOperations;
 
 import java.util.Random;
 
 
-public class LinearRegressionAlg implements KInferAlg {
+public class LinearRegressionAlg implements KOnlineInferAlg, KBatchInferAlg {
 
     //TODO to replace by meta-learning parameters
     private double alpha = 0.005; //learning rate
@@ -33,28 +38,64 @@ public class LinearRegressionAlg implements KInferAlg {
                 ks.setDoubleArrayElem(dependenciesIndex, i, rand.nextDouble(), origin.metaClass());
             }
         }
-        Array1D state = new Array1D(size, 0, origin.metaClass().dependencies().index(), ks, origin.metaClass());
-
+        //weights then bias, worked on through the view of the state and committed once
+        ViewArray1D state = new ViewArray1D(size, 0, origin.metaClass().dependencies().index(), ks, origin.metaClass());
+        int nbFeatures = origin.metaClass().inputs().length;
+        double[] weights = state.data();
+        double[] features = MatrixOperations.columnMajor(trainingSet);
+        int nbRows = trainingSet.rows();
+        KBlas blas = manager.blas();
         for (int i = 0; i < iterations; i++) {
-            for (int row = 0; row < trainingSet.rows(); row++) {
-                double h = estimate(trainingSet,row, state);
-                double error = -alpha * (h - expectedResultSet.get(row,0));
-
-                for (int feature = 0; feature < origin.metaClass().inputs().length; feature++) {
-                    state.set(feature, state.get(feature) * (1 - alpha * gamma) + error * trainingSet.get(row,feature));
+            for (int row = 0; row < nbRows; row++) {
+                //a row of the column-major training set is strided by the number of rows
+                double h = blas.ddot(nbFeatures, features, row, nbRows, weights, 0, 1) + weights[nbFeatures];
+                double error = -alpha * (h - expectedResultSet.get(row, 0));
+                if (gamma != 0) {
+                    for (int feature = 0; feature < nbFeatures; feature++) {
+                        weights[feature] = weights[feature] * (1 - alpha * gamma);
+                    }
                 }
-                state.add(origin.metaClass().inputs().length, error);
+                blas.daxpy(nbFeatures, error, features, row, nbRows, weights, 0, 1);
+                weights[nbFeatures] = weights[nbFeatures] + error;
             }
         }
+        state.commit();
+    }
+
+    @Override
+    public int stateSize(KObject origin) {
+        return origin.metaClass().inputs().length + 1;
+    }
+
+    @Override
+    public void initState(KArray1D state, KObject origin) {
+        for (int i = 0; i < state.size(); i++) {
+            state.set(i, rand.nextDouble());
+        }
+    }
+
+    @Override
+    public void openState(KArray1D state, KObject origin) {
+        //weights are learned as they are persisted
     }
 
-    private double estimate(KArray2D training, int row, Array1D state) {
-        double result = 0;
-        for (int i = 0; i < training.columns(); i++) {
-            result = result + training.get(row,i) * state.get(i);
+    @Override
+    public void closeState(KArray1D state, KObject origin) {
+    }
+
+    //a single stochastic gradient step on the sample
+    @Override
+    public void update(KArray1D state, KArray2D features, KArray2D expectedResultSet, int row, KObject origin) {
+        int nbFeatures = origin.metaClass().inputs().length;
+        double h = state.get(nbFeatures);
+        for (int feature = 0; feature < nbFeatures; feature++) {
+            h += features.get(row, feature) * state.get(feature);
         }
-        result = result + state.get(training.columns());
-        return result;
+        double error = -alpha * (h - expectedResultSet.get(row, 0));
+        for (int feature = 0; feature < nbFeatures; feature++) {
+            state.set(feature, state.get(feature) * (1 - alpha * gamma) + error * features.get(row, feature));
+        }
+        state.add(nbFeatures, error);
     }
 
     @Override
@@ -65,12 +106,66 @@ public class LinearRegressionAlg implements KInferAlg {
         if (ks.getDoubleArraySize(dependenciesIndex, origin.metaClass()) == 0) {
             return null;
         }
-        Array1D state = new Array1D(size, 0, origin.metaClass().dependencies().index(), ks, origin.metaClass());
-
-        KArray2D results = new NativeArray2D(features.rows(),1);
+        ViewArray1D state = new ViewArray1D(size, 0, origin.metaClass().dependencies().index(), ks, origin.metaClass());
+        int nbFeatures = origin.metaClass().inputs().length;
+        double[] weights = state.data();
+        //all estimates at once, the bias being the initial value of the result
+        NativeArray2D results = new NativeArray2D(features.rows(), 1);
+        double[] estimates = results.data();
         for (int i = 0; i < features.rows(); i++) {
-            results.set(i,0, estimate(features,i, state));
+            estimates[i] = weights[nbFeatures];
+        }
+        manager.blas().dgemv(KBlasTransposeType.NOTRANSPOSE, features.rows(), nbFeatures, 1.0, MatrixOperations.columnMajor(features), 0, features.rows(), weights, 0, 1, 1.0, estimates, 0, 1);
+        return results;
+    }
+
+    /**
+     * Weights and bias of every infer object are gathered as the columns of a single matrix. Rows scored by all the
+     * objects are then a single dgemm, split over the threads of the blas when it is parallel, while rows owned by an
+     * object are a single pass over the feature columns.
+     */
+    @Override
+    public KArray2D inferAll(KArray2D features, int[] owners, KObject[] origins, KInternalDataManager manager) {
+        int nbFeatures = origins[0].metaClass().inputs().length;
+        int size = nbFeatures + 1;
+        int dependenciesIndex = origins[0].metaClass().dependencies().index();
+        double[] weights = new double[size * origins.length];
+        for (int k = 0; k < origins.length; k++) {
+            KObject origin = origins[k];
+            KObjectChunk ks = manager.closestChunk(origin.universe(), origin.now(), origin.uuid(), origin.metaClass(), ((AbstractKObject) origin).previousResolved());
+            if (ks.getDoubleArraySize(dependenciesIndex, origin.metaClass()) == 0) {
+                for (int i = 0; i < size; i++) {
+                    weights[k * size + i] = Double.NaN;
+                }
+            } else {
+                System.arraycopy(ks.viewDoubleArray(dependenciesIndex, origin.metaClass()), 0, weights, k * size, size);
+            }
+        }
+        int nbRows = features.rows();
+        double[] values = MatrixOperations.columnMajor(features);
+        if (owners == null) {
+            NativeArray2D results = new NativeArray2D(nbRows, origins.length);
+            double[] estimates = results.data();
+            for (int k = 0; k < origins.length; k++) {
+                for (int i = 0; i < nbRows; i++) {
+                    estimates[i + nbRows * k] = weights[k * size + nbFeatures];
+                }
+            }
+            manager.blas().dgemm(KBlasTransposeType.NOTRANSPOSE, KBlasTransposeType.NOTRANSPOSE, nbRows, origins.length, nbFeatures, 1.0, values, 0, nbRows, weights, 0, size, 1.0, estimates, 0, nbRows);
+            return results;
+        }
+        NativeArray2D results = new NativeArray2D(nbRows, 1);
+        double[] estimates = results.data();
+        for (int i = 0; i < nbRows; i++) {
+            estimates[i] = weights[owners[i] * size + nbFeatures];
+        }
+        for (int j = 0; j < nbFeatures; j++) {
+            int column = nbRows * j;
+            for (int i = 0; i < nbRows; i++) {
+                estimates[i] += values[column + i] * weights[owners[i] * size + j];
+            }
         }
         return results;
     }
+
 }
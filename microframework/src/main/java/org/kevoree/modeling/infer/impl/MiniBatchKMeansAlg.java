@@ -0,0 +1,334 @@
+package org.kevoree.modeling.infer.impl;
+
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.abs.AbstractKObject;
+import org.kevoree.modeling.infer.KOnlineInferAlg;
+import org.kevoree.modeling.memory.chunk.KObjectChunk;
+import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
+import org.kevoree.modeling.util.PrimitiveHelper;
+import org.kevoree.modeling.util.maths.structure.KArray1D;
+import org.kevoree.modeling.util.maths.structure.KArray2D;
+import org.kevoree.modeling.util.maths.structure.blas.KBlas;
+import org.kevoree.modeling.util.maths.structure.blas.KBlasTransposeType;
+import org.kevoree.modeling.util.maths.structure.impl.NativeArray2D;
+import org.kevoree.modeling.util.maths.structure.impl.ViewArray1D;
+import org.kevoree.modeling.util.maths.structure.matrix.MatrixOperations;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * K-means whose parameters are read from the attributes of the infer object: k clusters (3 by default), iterations
+ * (100), batchSize (0, every iteration then going over the whole training set), parallelism (the number of
+ * processors) and seed (none, draws being then unrepeatable). Centroids are seeded by k-means++, and every iteration assigns the rows of a random mini-batch to their
+ * closest centroid, over row partitions running in parallel with their own partial sums. A centroid then moves to the
+ * mean of the rows it learned so far, weighted by the number of them kept in the state, so training can go on over
+ * several calls, or stream rows through a KInferLearner for training sets larger than memory.
+ */
+public class MiniBatchKMeansAlg implements KOnlineInferAlg {
+
+    /* under this number of multiply-adds, an assignment stays on the calling thread */
+    private static final long PARALLEL_THRESHOLD = 32L * 1024;
+
+    private static Random rand = new Random();
+
+    private int parameter(KObject origin, String name, int defaultValue) {
+        Object value = origin.getByName(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        return (int) PrimitiveHelper.parseDouble(value.toString());
+    }
+
+    /**
+     * @native ts
+     * return 1;
+     */
+    private int defaultParallelism() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    //k centroids of nbFeatures values, column-major nbFeatures x k, followed by the number of rows each one learned
+    @Override
+    public int stateSize(KObject origin) {
+        return parameter(origin, "k", 3) * (origin.metaClass().inputs().length + 1);
+    }
+
+    @Override
+    public void initState(KArray1D state, KObject origin) {
+        state.setAll(0);
+    }
+
+    @Override
+    public void openState(KArray1D state, KObject origin) {
+    }
+
+    @Override
+    public void closeState(KArray1D state, KObject origin) {
+    }
+
+    //sequential k-means: a centroid which learned nothing yet takes the sample, else the closest one moves towards it
+    @Override
+    public void update(KArray1D state, KArray2D features, KArray2D expectedResultSet, int row, KObject origin) {
+        int nbFeatures = origin.metaClass().inputs().length;
+        int k = state.size() / (nbFeatures + 1);
+        int counts = k * nbFeatures;
+        int closest = -1;
+        double minDistance = 0;
+        for (int i = 0; i < k; i++) {
+            if (state.get(counts + i) == 0) {
+                closest = i;
+                break;
+            }
+            double distance = 0;
+            for (int j = 0; j < nbFeatures; j++) {
+                double diff = features.get(row, j) - state.get(i * nbFeatures + j);
+                distance += diff * diff;
+            }
+            if (closest == -1 || distance < minDistance) {
+                minDistance = distance;
+                closest = i;
+            }
+        }
+        double count = state.add(counts + closest, 1);
+        for (int j = 0; j < nbFeatures; j++) {
+            double centroid = state.get(closest * nbFeatures + j);
+            state.set(closest * nbFeatures + j, centroid + (features.get(row, j) - centroid) / count);
+        }
+    }
+
+    @Override
+    public void train(KArray2D trainingSet, KArray2D expectedResultSet, KObject origin, KInternalDataManager manager) {
+        int k = parameter(origin, "k", 3);
+        int iterations = parameter(origin, "iterations", 100);
+        int batchSize = parameter(origin, "batchSize", 0);
+        int parallelism = parameter(origin, "parallelism", defaultParallelism());
+        Random random = rand;
+        if (origin.getByName("seed") != null) {
+            random = new Random(parameter(origin, "seed", 0));
+        }
+        int nbFeatures = origin.metaClass().inputs().length;
+        int nbRows = trainingSet.rows();
+        KObjectChunk ks = manager.preciseChunk(origin.universe(), origin.now(), origin.uuid(), origin.metaClass(), ((AbstractKObject) origin).previousResolved());
+        int dependenciesIndex = origin.metaClass().dependencies().index();
+        int size = k * (nbFeatures + 1);
+        double[] features = MatrixOperations.columnMajor(trainingSet);
+        boolean seed = ks.getDoubleArraySize(dependenciesIndex, origin.metaClass()) == 0;
+        if (seed) {
+            if (nbRows < k) {
+                throw new RuntimeException("Training set of " + nbRows + " rows is smaller than k = " + k);
+            }
+            ks.extendDoubleArray(dependenciesIndex, size, origin.metaClass());
+        } else if (ks.getDoubleArraySize(dependenciesIndex, origin.metaClass()) != size) {
+            throw new RuntimeException("Learned state is not made of k = " + k + " clusters");
+        }
+        ViewArray1D state = new ViewArray1D(size, 0, dependenciesIndex, ks, origin.metaClass());
+        double[] centroids = state.data();
+        int counts = k * nbFeatures;
+        if (seed) {
+            seedCentroids(features, nbRows, nbFeatures, k, centroids, random);
+        }
+        boolean fullBatch = batchSize <= 0 || batchSize >= nbRows;
+        int nbPoints = fullBatch ? nbRows : batchSize;
+        double[] points = fullBatch ? features : new double[nbPoints * nbFeatures];
+        //a full batch iterates from the counts kept in the state, a mini-batch keeps adding its rows to them
+        double[] learned = new double[k];
+        double[] learnedCentroids = new double[counts];
+        System.arraycopy(centroids, counts, learned, 0, k);
+        System.arraycopy(centroids, 0, learnedCentroids, 0, counts);
+        int nbPartitions = 1;
+        if ((long) nbPoints * k * nbFeatures >= PARALLEL_THRESHOLD) {
+            nbPartitions = Math.max(1, Math.min(parallelism, nbPoints / 64));
+        }
+        double[][] partialSums = new double[nbPartitions][counts];
+        double[][] partialCounts = new double[nbPartitions][k];
+        double[] distances = new double[nbPoints * k];
+        double[] norms = new double[k];
+        double[] sums = new double[counts];
+        double[] batchCounts = new double[k];
+        KBlas blas = manager.blas();
+        for (int iter = 0; iter < iterations; iter++) {
+            if (!fullBatch) {
+                for (int i = 0; i < nbPoints; i++) {
+                    int row = random.nextInt(nbRows);
+                    for (int j = 0; j < nbFeatures; j++) {
+                        points[i + nbPoints * j] = features[row + nbRows * j];
+                    }
+                }
+            }
+            for (int i = 0; i < k; i++) {
+                norms[i] = blas.ddot(nbFeatures, centroids, i * nbFeatures, 1, centroids, i * nbFeatures, 1);
+            }
+            assignPartitions(points, nbPoints, nbFeatures, k, centroids, norms, distances, partialSums, partialCounts, blas);
+            for (int i = 0; i < counts; i++) {
+                sums[i] = 0;
+            }
+            for (int i = 0; i < k; i++) {
+                batchCounts[i] = 0;
+            }
+            for (int p = 0; p < nbPartitions; p++) {
+                blas.daxpy(counts, 1.0, partialSums[p], 0, 1, sums, 0, 1);
+                blas.daxpy(k, 1.0, partialCounts[p], 0, 1, batchCounts, 0, 1);
+            }
+            for (int i = 0; i < k; i++) {
+                double previous = fullBatch ? learned[i] : centroids[counts + i];
+                double total = previous + batchCounts[i];
+                if (total == 0) {
+                    //an empty cluster restarts from a random row
+                    int row = random.nextInt(nbRows);
+                    for (int j = 0; j < nbFeatures; j++) {
+                        centroids[i * nbFeatures + j] = features[row + nbRows * j];
+                    }
+                    continue;
+                }
+                for (int j = 0; j < nbFeatures; j++) {
+                    double base = fullBatch ? learnedCentroids[i * nbFeatures + j] : centroids[i * nbFeatures + j];
+                    centroids[i * nbFeatures + j] = (base * previous + sums[i * nbFeatures + j]) / total;
+                }
+                centroids[counts + i] = total;
+            }
+        }
+        state.commit();
+    }
+
+    /**
+     * k-means++: the first centroid is a random row, every next one a row drawn with a probability proportional to its
+     * squared distance to the closest centroid already chosen.
+     */
+    private void seedCentroids(double[] features, int nbRows, int nbFeatures, int k, double[] centroids, Random random) {
+        double[] closest = new double[nbRows];
+        int chosen = random.nextInt(nbRows);
+        for (int i = 0; i < k; i++) {
+            for (int j = 0; j < nbFeatures; j++) {
+                centroids[i * nbFeatures + j] = features[chosen + nbRows * j];
+            }
+            double total = 0;
+            for (int row = 0; row < nbRows; row++) {
+                double distance = 0;
+                for (int j = 0; j < nbFeatures; j++) {
+                    double diff = features[row + nbRows * j] - centroids[i * nbFeatures + j];
+                    distance += diff * diff;
+                }
+                if (i == 0 || distance < closest[row]) {
+                    closest[row] = distance;
+                }
+                total += closest[row];
+            }
+            if (total == 0) {
+                chosen = random.nextInt(nbRows);
+                continue;
+            }
+            double target = random.nextDouble() * total;
+            chosen = nbRows - 1;
+            for (int row = 0; row < nbRows; row++) {
+                target -= closest[row];
+                if (target < 0) {
+                    chosen = row;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Assigns the nbPoints rows of points split in one contiguous partition per partial sums, partitions running on the
+     * common fork-join pool when there are several of them.
+     *
+     * @native ts
+     * var nbPartitions = partialSums.length;
+     * for (var p = 0; p < nbPartitions; p++) {
+     * var from = Math.floor(nbPoints * p / nbPartitions);
+     * var to = Math.floor(nbPoints * (p + 1) / nbPartitions);
+     * this.assignPartition(points, nbPoints, nbFeatures, k, centroids, norms, distances, from, to, partialSums[p], partialCounts[p], blas);
+     * }
+     */
+    private void assignPartitions(final double[] points, final int nbPoints, final int nbFeatures, final int k, final double[] centroids, final double[] norms, final double[] distances, final double[][] partialSums, final double[][] partialCounts, final KBlas blas) {
+        final int nbPartitions = partialSums.length;
+        if (nbPartitions == 1) {
+            assignPartition(points, nbPoints, nbFeatures, k, centroids, norms, distances, 0, nbPoints, partialSums[0], partialCounts[0], blas);
+            return;
+        }
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[nbPartitions];
+        for (int p = 0; p < nbPartitions; p++) {
+            final int partition = p;
+            tasks[p] = ForkJoinPool.commonPool().submit(new Runnable() {
+                @Override
+                public void run() {
+                    int from = (int) ((long) nbPoints * partition / nbPartitions);
+                    int to = (int) ((long) nbPoints * (partition + 1) / nbPartitions);
+                    assignPartition(points, nbPoints, nbFeatures, k, centroids, norms, distances, from, to, partialSums[partition], partialCounts[partition], blas);
+                }
+            });
+        }
+        for (int p = 0; p < nbPartitions; p++) {
+            tasks[p].join();
+        }
+    }
+
+    /**
+     * Sums the rows [from, to) of points into the partial sums of their closest centroid, compared through
+     * ||c||^2 - 2 x.c with the x.c of the partition being a single dgemm.
+     */
+    private void assignPartition(double[] points, int nbPoints, int nbFeatures, int k, double[] centroids, double[] norms, double[] distances, int from, int to, double[] sums, double[] counts, KBlas blas) {
+        for (int i = 0; i < sums.length; i++) {
+            sums[i] = 0;
+        }
+        for (int i = 0; i < k; i++) {
+            counts[i] = 0;
+        }
+        if (to == from) {
+            return;
+        }
+        blas.dgemm(KBlasTransposeType.NOTRANSPOSE, KBlasTransposeType.NOTRANSPOSE, to - from, k, nbFeatures, -2.0, points, from, nbPoints, centroids, 0, nbFeatures, 0.0, distances, from, nbPoints);
+        for (int row = from; row < to; row++) {
+            int closest = 0;
+            double minDistance = distances[row] + norms[0];
+            for (int i = 1; i < k; i++) {
+                double distance = distances[row + i * nbPoints] + norms[i];
+                if (distance < minDistance) {
+                    minDistance = distance;
+                    closest = i;
+                }
+            }
+            blas.daxpy(nbFeatures, 1.0, points, row, nbPoints, sums, closest * nbFeatures, 1);
+            counts[closest]++;
+        }
+    }
+
+    @Override
+    public KArray2D infer(KArray2D features, KObject origin, KInternalDataManager manager) {
+        KObjectChunk ks = manager.closestChunk(origin.universe(), origin.now(), origin.uuid(), origin.metaClass(), ((AbstractKObject) origin).previousResolved());
+        int dependenciesIndex = origin.metaClass().dependencies().index();
+        int size = ks.getDoubleArraySize(dependenciesIndex, origin.metaClass());
+        if (size == 0) {
+            return null;
+        }
+        int nbFeatures = origin.metaClass().inputs().length;
+        int k = size / (nbFeatures + 1);
+        ViewArray1D state = new ViewArray1D(size, 0, dependenciesIndex, ks, origin.metaClass());
+        double[] centroids = state.data();
+        int nbRows = features.rows();
+        double[] norms = new double[k];
+        for (int i = 0; i < k; i++) {
+            norms[i] = manager.blas().ddot(nbFeatures, centroids, i * nbFeatures, 1, centroids, i * nbFeatures, 1);
+        }
+        double[] distances = new double[nbRows * k];
+        manager.blas().dgemm(KBlasTransposeType.NOTRANSPOSE, KBlasTransposeType.NOTRANSPOSE, nbRows, k, nbFeatures, -2.0, MatrixOperations.columnMajor(features), 0, nbRows, centroids, 0, nbFeatures, 0.0, distances, 0, nbRows);
+        KArray2D result = new NativeArray2D(nbRows, 1);
+        for (int row = 0; row < nbRows; row++) {
+            int closest = 0;
+            double minDistance = distances[row] + norms[0];
+            for (int i = 1; i < k; i++) {
+                double distance = distances[row + i * nbRows] + norms[i];
+                if (distance < minDistance) {
+                    minDistance = distance;
+                    closest = i;
+                }
+            }
+            result.set(row, 0, closest);
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,73 @@
+package org.kevoree.modeling.infer.impl;
+
+import org.kevoree.modeling.util.maths.structure.KArray1D;
+
+/**
+ * Online update of the min, max, sum and sum of squares fields the statistic algorithms persist for every input. While
+ * learning online, the sum and sum of squares fields hold instead the Welford running mean and sum of squared
+ * deviations, which do not lose the variance to cancellation as the number of samples grows.
+ */
+public class RunningStats {
+
+    static final int MIN = 0;
+    static final int MAX = 1;
+    static final int SUM = 2;
+    static final int SUMSQUARE = 3;
+    static final int NUMOFFIELDS = 4;
+
+    /**
+     * Converts the fields of the input starting at offset, learned on count samples, to running values.
+     */
+    static void open(KArray1D state, int offset, double count) {
+        if (count == 0) {
+            return;
+        }
+        double mean = state.get(offset + SUM) / count;
+        double deviations = state.get(offset + SUMSQUARE) - state.get(offset + SUM) * mean;
+        state.set(offset + SUM, mean);
+        state.set(offset + SUMSQUARE, deviations < 0 ? 0 : deviations);
+    }
+
+    static void close(KArray1D state, int offset, double count) {
+        double mean = state.get(offset + SUM);
+        state.set(offset + SUM, mean * count);
+        state.set(offset + SUMSQUARE, state.get(offset + SUMSQUARE) + mean * mean * count);
+    }
+
+    /**
+     * Learns value as the count-th sample of the input starting at offset.
+     */
+    static void update(KArray1D state, int offset, double count, double value) {
+        if (count == 1) {
+            state.set(offset + MIN, value);
+            state.set(offset + MAX, value);
+            state.set(offset + SUM, value);
+            state.set(offset + SUMSQUARE, 0);
+            return;
+        }
+        if (value < state.get(offset + MIN)) {
+            state.set(offset + MIN, value);
+        }
+        if (value > state.get(offset + MAX)) {
+            state.set(offset + MAX, value);
+        }
+        double delta = value - state.get(offset + SUM);
+        double mean = state.add(offset + SUM, delta / count);
+        state.add(offset + SUMSQUARE, delta * (value - mean));
+    }
+
+    static double mean(KArray1D state, int offset) {
+        return state.get(offset + SUM);
+    }
+
+    /**
+     * Population variance, as computed from the persisted fields.
+     */
+    static double variance(KArray1D state, int offset, double count) {
+        if (count == 0) {
+            return 0;
+        }
+        return state.get(offset + SUMSQUARE) / count;
+    }
+
+}
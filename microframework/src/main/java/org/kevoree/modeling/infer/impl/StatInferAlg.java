@@ -2,15 +2,16 @@ package org.kevoree.modeling.infer.impl;
 
 import org.kevoree.modeling.KObject;
 import org.kevoree.modeling.abs.AbstractKObject;
-import org.kevoree.modeling.infer.KInferAlg;
+import org.kevoree.modeling.infer.KOnlineInferAlg;
 import org.kevoree.modeling.memory.chunk.KObjectChunk;
 import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
 import org.kevoree.modeling.meta.KMetaDependencies;
+import org.kevoree.modeling.util.maths.structure.KArray1D;
 import org.kevoree.modeling.util.maths.structure.KArray2D;
 import org.kevoree.modeling.util.maths.structure.impl.Array1D;
 import org.kevoree.modeling.util.maths.structure.impl.NativeArray2D;
 
-public class StatInferAlg implements KInferAlg {
+public class StatInferAlg implements KOnlineInferAlg {
     private static int MIN = 0;
     private static int MAX = 1;
     private static int SUM = 2;
@@ -56,6 +57,40 @@ public class StatInferAlg implements KInferAlg {
         }
     }
 
+    @Override
+    public int stateSize(KObject origin) {
+        return NUMOFFIELDS * origin.metaClass().inputs().length + 1;
+    }
+
+    @Override
+    public void initState(KArray1D state, KObject origin) {
+        state.setAll(0);
+    }
+
+    @Override
+    public void openState(KArray1D state, KObject origin) {
+        int length = origin.metaClass().inputs().length;
+        for (int j = 0; j < length; j++) {
+            RunningStats.open(state, j * NUMOFFIELDS, state.get(NUMOFFIELDS * length));
+        }
+    }
+
+    @Override
+    public void closeState(KArray1D state, KObject origin) {
+        int length = origin.metaClass().inputs().length;
+        for (int j = 0; j < length; j++) {
+            RunningStats.close(state, j * NUMOFFIELDS, state.get(NUMOFFIELDS * length));
+        }
+    }
+
+    @Override
+    public void update(KArray1D state, KArray2D features, KArray2D expectedResultSet, int row, KObject origin) {
+        int length = origin.metaClass().inputs().length;
+        double count = state.add(NUMOFFIELDS * length, 1);
+        for (int j = 0; j < length; j++) {
+            RunningStats.update(state, j * NUMOFFIELDS, count, features.get(row, j));
+        }
+    }
 
     @Override
     public KArray2D infer(KArray2D features, KObject origin, KInternalDataManager manager) {
@@ -0,0 +1,18 @@
+package org.kevoree.modeling.memory.chunk;
+
+public interface KLongSet {
+
+    boolean contains(long key);
+
+    /**
+     * @return true if the key was not already present
+     */
+    boolean add(long key);
+
+    long[] toArray();
+
+    int size();
+
+    void clear();
+
+}
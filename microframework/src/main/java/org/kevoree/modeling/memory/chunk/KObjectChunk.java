@@ -18,6 +18,9 @@ public interface KObjectChunk extends KChunk {
 
     Object getPrimitiveType(int index, KMetaClass metaClass);
 
+    /* Unboxed numeric view of a primitive attribute (boolean as 0/1, enum as ordinal), NaN if unset or not numeric */
+    double getPrimitiveAsDouble(int index, KMetaClass metaClass);
+
     /* LongArray Management */
     long[] getLongArray(int index, KMetaClass metaClass);
 
@@ -44,4 +47,10 @@ public interface KObjectChunk extends KChunk {
 
     void clearDoubleArray(int index, KMetaClass metaClass);
 
+    /* Whole DoubleArray for bulk work, the chunk storage itself when it lives on the heap and a copy otherwise. Changes
+     * made to it are only guaranteed to reach the chunk, which is then marked dirty, once given to commitDoubleArray */
+    double[] viewDoubleArray(int index, KMetaClass metaClass);
+
+    void commitDoubleArray(int index, double[] view, KMetaClass metaClass);
+
 }
@@ -1,5 +1,29 @@
 package org.kevoree.modeling.memory.chunk;
 
+import org.kevoree.modeling.KObjectIndex;
+
 public interface KObjectIndexChunk extends KObjectChunk, KStringLongMap {
 
+    /**
+     * Live keys in ascending order, sorted once then kept up to date by every insertion and removal.
+     */
+    String[] sortedKeys();
+
+    /**
+     * Replaces the whole content by p_keys, given in ascending order without duplicates, mapped to p_values.
+     */
+    void load(String[] p_keys, long[] p_values);
+
+    /**
+     * Keeps p_page, a page referenced by this chunk, reachable as long as this chunk is, so that the chunks marked by
+     * the page stay cached for every proxy reading this chunk. Copies of this chunk keep the pages, nothing is
+     * serialized.
+     */
+    void retainPage(KObjectIndex p_page);
+
+    /**
+     * Page of uuid p_uuid retained by this chunk or one of the chunks it was copied from, null if none.
+     */
+    KObjectIndex retainedPage(long p_uuid);
+
 }
@@ -0,0 +1,157 @@
+package org.kevoree.modeling.memory.chunk.impl;
+
+import org.kevoree.modeling.KConfig;
+import org.kevoree.modeling.memory.chunk.KLongSet;
+
+/**
+ * Open addressing (linear probing) set of primitive longs, without any entry object nor chunk bookkeeping.
+ * KConfig.NULL_LONG is used as empty slot marker and is tracked aside when inserted as a key.
+ *
+ * @native ts
+ * constructor(initalCapacity: number, loadFactor : number) { }
+ * public clear():void { for(var p in this){if(this.hasOwnProperty(p)){delete this[p];} } }
+ * public contains(key:number):boolean { return this.hasOwnProperty(<any>key);}
+ * public add(key:number):boolean { if(this.hasOwnProperty(<any>key)){ return false; } this[key] = true; return true; }
+ * public size():number { return Object.keys(this).length; }
+ * public toArray():Float64Array { var keys = Object.keys(this); var result = new Float64Array(keys.length); for(var i=0;i<keys.length;i++){ result[i] = +keys[i]; } return result; }
+ */
+public class ArrayLongSet implements KLongSet {
+
+    private static final long EMPTY = KConfig.NULL_LONG;
+
+    private long[] _keys;
+
+    private int _mask;
+
+    private int _elementCount;
+
+    private int _threshold;
+
+    private boolean _containsEmptyKey;
+
+    private final int _initialCapacity;
+
+    private final float _loadFactor;
+
+    public ArrayLongSet(int p_initialCapacity, float p_loadFactor) {
+        this._initialCapacity = p_initialCapacity;
+        this._loadFactor = p_loadFactor;
+        allocate(powerOfTwo(p_initialCapacity));
+    }
+
+    private static int powerOfTwo(int capacity) {
+        int result = 2;
+        while (result < capacity) {
+            result = result << 1;
+        }
+        return result;
+    }
+
+    private void allocate(int capacity) {
+        _keys = new long[capacity];
+        for (int i = 0; i < capacity; i++) {
+            _keys[i] = EMPTY;
+        }
+        _mask = capacity - 1;
+        _threshold = (int) (capacity * _loadFactor);
+        if (_threshold >= capacity) {
+            _threshold = capacity - 1;
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @Override
+    public final boolean contains(long key) {
+        if (key == EMPTY) {
+            return _containsEmptyKey;
+        }
+        int index = hash(key) & _mask;
+        long current = _keys[index];
+        while (current != EMPTY) {
+            if (current == key) {
+                return true;
+            }
+            index = (index + 1) & _mask;
+            current = _keys[index];
+        }
+        return false;
+    }
+
+    @Override
+    public final boolean add(long key) {
+        if (key == EMPTY) {
+            if (_containsEmptyKey) {
+                return false;
+            }
+            _containsEmptyKey = true;
+            _elementCount++;
+            return true;
+        }
+        int index = hash(key) & _mask;
+        long current = _keys[index];
+        while (current != EMPTY) {
+            if (current == key) {
+                return false;
+            }
+            index = (index + 1) & _mask;
+            current = _keys[index];
+        }
+        _keys[index] = key;
+        _elementCount++;
+        if (_elementCount > _threshold) {
+            rehash(_keys.length << 1);
+        }
+        return true;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] previous = _keys;
+        allocate(newCapacity);
+        for (int i = 0; i < previous.length; i++) {
+            long key = previous[i];
+            if (key != EMPTY) {
+                int index = hash(key) & _mask;
+                while (_keys[index] != EMPTY) {
+                    index = (index + 1) & _mask;
+                }
+                _keys[index] = key;
+            }
+        }
+    }
+
+    @Override
+    public final long[] toArray() {
+        long[] result = new long[_elementCount];
+        int inserted = 0;
+        if (_containsEmptyKey) {
+            result[inserted] = EMPTY;
+            inserted++;
+        }
+        for (int i = 0; i < _keys.length; i++) {
+            if (_keys[i] != EMPTY) {
+                result[inserted] = _keys[i];
+                inserted++;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public final int size() {
+        return _elementCount;
+    }
+
+    @Override
+    public final void clear() {
+        if (_elementCount > 0) {
+            _elementCount = 0;
+            _containsEmptyKey = false;
+            allocate(powerOfTwo(_initialCapacity));
+        }
+    }
+
+}
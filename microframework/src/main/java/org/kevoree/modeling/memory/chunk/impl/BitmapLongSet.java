@@ -0,0 +1,185 @@
+package org.kevoree.modeling.memory.chunk.impl;
+
+import org.kevoree.modeling.KConfig;
+import org.kevoree.modeling.memory.chunk.KLongMapCallBack;
+import org.kevoree.modeling.memory.chunk.KLongSet;
+
+/**
+ * @ignore ts
+ * Compressed bitmap set of primitive longs, tailored for dense uuid ranges (such as objects created by the same prefix).
+ * Keys are partitioned by their high bits into containers of 65536 values.
+ * A container starts as a sorted array of low bits and is promoted to a plain bitmap once it becomes dense.
+ */
+public class BitmapLongSet implements KLongSet {
+
+    private static final int CONTAINER_BITS = 16;
+
+    private static final int CONTAINER_MASK = 0xFFFF;
+
+    private static final int BITMAP_WORDS = 1024;
+
+    private static final int ARRAY_MAX_SIZE = 4096;
+
+    private ArrayLongMap<Container> _containers;
+
+    private long _lastHigh = KConfig.NULL_LONG;
+
+    private Container _lastContainer = null;
+
+    private int _elementCount = 0;
+
+    public BitmapLongSet() {
+        this._containers = new ArrayLongMap<Container>(KConfig.CACHE_INIT_SIZE, KConfig.CACHE_LOAD_FACTOR);
+    }
+
+    private static final class Container {
+
+        int[] lows = new int[8];
+
+        int count = 0;
+
+        long[] bitmap = null;
+
+        boolean contains(int low) {
+            if (bitmap != null) {
+                return (bitmap[low >>> 6] & (1L << (low & 63))) != 0;
+            }
+            return binarySearch(low) >= 0;
+        }
+
+        boolean add(int low) {
+            if (bitmap != null) {
+                int word = low >>> 6;
+                long bit = 1L << (low & 63);
+                if ((bitmap[word] & bit) != 0) {
+                    return false;
+                }
+                bitmap[word] = bitmap[word] | bit;
+                count++;
+                return true;
+            }
+            int position = binarySearch(low);
+            if (position >= 0) {
+                return false;
+            }
+            if (count == ARRAY_MAX_SIZE) {
+                toBitmap();
+                return add(low);
+            }
+            position = -(position + 1);
+            if (count == lows.length) {
+                int[] extended = new int[lows.length << 1];
+                System.arraycopy(lows, 0, extended, 0, count);
+                lows = extended;
+            }
+            System.arraycopy(lows, position, lows, position + 1, count - position);
+            lows[position] = low;
+            count++;
+            return true;
+        }
+
+        private int binarySearch(int low) {
+            int from = 0;
+            int to = count - 1;
+            while (from <= to) {
+                int middle = (from + to) >>> 1;
+                int value = lows[middle];
+                if (value < low) {
+                    from = middle + 1;
+                } else if (value > low) {
+                    to = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(from + 1);
+        }
+
+        private void toBitmap() {
+            bitmap = new long[BITMAP_WORDS];
+            for (int i = 0; i < count; i++) {
+                bitmap[lows[i] >>> 6] = bitmap[lows[i] >>> 6] | (1L << (lows[i] & 63));
+            }
+            lows = null;
+        }
+
+        int fill(long high, long[] target, int offset) {
+            long base = high << CONTAINER_BITS;
+            if (bitmap != null) {
+                for (int i = 0; i < BITMAP_WORDS; i++) {
+                    long word = bitmap[i];
+                    while (word != 0) {
+                        int bit = Long.numberOfTrailingZeros(word);
+                        target[offset] = base | ((i << 6) + bit);
+                        offset++;
+                        word = word & (word - 1);
+                    }
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    target[offset] = base | lows[i];
+                    offset++;
+                }
+            }
+            return offset;
+        }
+    }
+
+    private Container container(long high, boolean createIfAbsent) {
+        if (_lastContainer != null && _lastHigh == high) {
+            return _lastContainer;
+        }
+        Container found = _containers.get(high);
+        if (found == null && createIfAbsent) {
+            found = new Container();
+            _containers.put(high, found);
+        }
+        if (found != null) {
+            _lastHigh = high;
+            _lastContainer = found;
+        }
+        return found;
+    }
+
+    @Override
+    public final boolean contains(long key) {
+        Container found = container(key >> CONTAINER_BITS, false);
+        return found != null && found.contains((int) (key & CONTAINER_MASK));
+    }
+
+    @Override
+    public final boolean add(long key) {
+        if (container(key >> CONTAINER_BITS, true).add((int) (key & CONTAINER_MASK))) {
+            _elementCount++;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public final long[] toArray() {
+        final long[] result = new long[_elementCount];
+        final int[] inserted = {0};
+        _containers.each(new KLongMapCallBack<Container>() {
+            @Override
+            public void on(long high, Container value) {
+                inserted[0] = value.fill(high, result, inserted[0]);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public final int size() {
+        return _elementCount;
+    }
+
+    @Override
+    public final void clear() {
+        _containers.clear();
+        _lastContainer = null;
+        _lastHigh = KConfig.NULL_LONG;
+        _elementCount = 0;
+    }
+
+}
@@ -71,7 +71,7 @@ public class HeapObjectChunk implements KObjectChunk {
                     builder.append(KConfig.CHUNK_VAL_SEP);
                     if (metaElements[i].metaType() == MetaType.ATTRIBUTE) {
                         KMetaAttribute metaAttribute = (KMetaAttribute) metaElements[i];
-                        int metaAttId = metaAttribute.attributeTypeId();
+                        int metaAttId = metaAttribute.storageTypeId();
                         switch (metaAttId) {
                             case KPrimitiveTypes.STRING_ID:
                                 Base64.encodeStringToBuffer((String) raw[i], builder);
@@ -170,7 +170,7 @@ public class HeapObjectChunk implements KObjectChunk {
             while (i < payloadSize) {
                 if (payload.charAt(i) == KConfig.CHUNK_ELEM_SEP) {
                     if (previousMeta != null) {
-                        if (previousMeta.metaType().equals(MetaType.ATTRIBUTE) && ((KMetaAttribute) previousMeta).attributeTypeId() != KPrimitiveTypes.CONTINUOUS_ID) {
+                        if (previousMeta.metaType().equals(MetaType.ATTRIBUTE) && ((KMetaAttribute) previousMeta).storageTypeId() != KPrimitiveTypes.CONTINUOUS_ID) {
                             raw[previousMeta.index()] = loadObject((KMetaAttribute) previousMeta, payload, previousValStart, i);
                         } else if (previousMeta.metaType().equals(MetaType.RELATION) && longArray != null) {
                             longArray[currentArrayIndex] = Base64.decodeToLongWithBounds(payload, previousValStart, i);
@@ -212,7 +212,7 @@ public class HeapObjectChunk implements KObjectChunk {
                 i++;
             }
             if (previousMeta != null) {
-                if (previousMeta.metaType().equals(MetaType.ATTRIBUTE) && ((KMetaAttribute) previousMeta).attributeTypeId() != KPrimitiveTypes.CONTINUOUS_ID) {
+                if (previousMeta.metaType().equals(MetaType.ATTRIBUTE) && ((KMetaAttribute) previousMeta).storageTypeId() != KPrimitiveTypes.CONTINUOUS_ID) {
                     raw[previousMeta.index()] = loadObject((KMetaAttribute) previousMeta, payload, previousValStart, i);
                 } else if (previousMeta.metaType().equals(MetaType.RELATION) && longArray != null) {
                     longArray[currentArrayIndex] = Base64.decodeToLongWithBounds(payload, previousValStart, i);
@@ -259,6 +259,36 @@ public class HeapObjectChunk implements KObjectChunk {
         }
     }
 
+    @Override
+    public double getPrimitiveAsDouble(int index, KMetaClass p_metaClass) {
+        if (raw == null || raw[index] == null) {
+            return Double.NaN;
+        }
+        KMeta meta = p_metaClass.meta(index);
+        if (meta == null || meta.metaType() != MetaType.ATTRIBUTE) {
+            return Double.NaN;
+        }
+        switch (((KMetaAttribute) meta).storageTypeId()) {
+            case KPrimitiveTypes.DOUBLE_ID:
+                return (double) raw[index];
+            case KPrimitiveTypes.INT_ID:
+                return (int) raw[index];
+            case KPrimitiveTypes.LONG_ID:
+                return (long) raw[index];
+            case KPrimitiveTypes.BOOL_ID:
+                if ((boolean) raw[index]) {
+                    return 1;
+                } else {
+                    return 0;
+                }
+            case KPrimitiveTypes.STRING_ID:
+            case KPrimitiveTypes.CONTINUOUS_ID:
+                return Double.NaN;
+            default:
+                return (int) raw[index];
+        }
+    }
+
     @Override
     public int getLongArraySize(int index, KMetaClass metaClass) {
         long[] existing = (long[]) raw[index];
@@ -403,6 +433,23 @@ public class HeapObjectChunk implements KObjectChunk {
         raw[index] = null;
     }
 
+    @Override
+    public double[] viewDoubleArray(int index, KMetaClass metaClass) {
+        return getDoubleArray(index, metaClass);
+    }
+
+    @Override
+    public void commitDoubleArray(int index, double[] view, KMetaClass metaClass) {
+        double[] res = getDoubleArray(index, metaClass);
+        if (!Checker.isDefined(res) || res.length != view.length) {
+            throw new RuntimeException("Committed view does not match the double array " + index);
+        }
+        if (res != view) {
+            System.arraycopy(view, 0, res, 0, view.length);
+        }
+        internal_set_dirty();
+    }
+
     @Override
     public void setPrimitiveType(int index, Object content, KMetaClass p_metaClass) {
         raw[index] = content;
@@ -416,6 +463,17 @@ public class HeapObjectChunk implements KObjectChunk {
         } else {
             Object[] cloned = new Object[raw.length];
             System.arraycopy(raw, 0, cloned, 0, raw.length);
+            //learned states and double arrays, such as time series blocks, are updated in place, each version gets its own
+            KMeta[] metaElements = p_metaClass.metaClass(_metaClassIndex).metaElements();
+            for (int i = 0; i < metaElements.length && i < raw.length; i++) {
+                boolean inPlace = metaElements[i].metaType() == MetaType.DEPENDENCIES || (metaElements[i].metaType() == MetaType.ATTRIBUTE && ((KMetaAttribute) metaElements[i]).storageTypeId() == KPrimitiveTypes.CONTINUOUS_ID);
+                if (inPlace && raw[i] != null) {
+                    double[] state = (double[]) raw[i];
+                    double[] clonedState = new double[state.length];
+                    System.arraycopy(state, 0, clonedState, 0, state.length);
+                    cloned[i] = clonedState;
+                }
+            }
             HeapObjectChunk clonedEntry = new HeapObjectChunk(p_universe, p_time, p_obj, _space);
             clonedEntry.raw = cloned;
             clonedEntry._metaClassIndex = _metaClassIndex;
@@ -444,7 +502,7 @@ public class HeapObjectChunk implements KObjectChunk {
                     builder.append("\":");
                     if (metaElements[i].metaType() == MetaType.ATTRIBUTE) {
                         KMetaAttribute metaAttribute = (KMetaAttribute) metaElements[i];
-                        int metaAttId = metaAttribute.attributeTypeId();
+                        int metaAttId = metaAttribute.storageTypeId();
                         switch (metaAttId) {
                             case KPrimitiveTypes.STRING_ID:
                                 builder.append("\"");
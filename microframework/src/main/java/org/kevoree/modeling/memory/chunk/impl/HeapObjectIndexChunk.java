@@ -2,7 +2,10 @@
 package org.kevoree.modeling.memory.chunk.impl;
 
 import org.kevoree.modeling.KConfig;
+import org.kevoree.modeling.KObjectIndex;
 import org.kevoree.modeling.memory.KChunkFlags;
+import org.kevoree.modeling.memory.chunk.KLongMap;
+import org.kevoree.modeling.memory.chunk.KLongMapCallBack;
 import org.kevoree.modeling.memory.chunk.KObjectChunk;
 import org.kevoree.modeling.memory.chunk.KObjectIndexChunk;
 import org.kevoree.modeling.memory.chunk.KStringLongMapCallBack;
@@ -25,6 +28,12 @@ public class HeapObjectIndexChunk implements KObjectIndexChunk {
 
     protected volatile InternalState state = null;
 
+    /* ascending live keys, built on the first read then updated by every insertion or removal, never mutated in place */
+    private volatile String[] _sortedKeys = null;
+
+    /* pages kept reachable with this chunk, by uuid, see retainPage */
+    private KLongMap<KObjectIndex> _retainedPages = null;
+
     protected int threshold;
 
     private final int initialCapacity = 16;
@@ -104,6 +113,23 @@ public class HeapObjectIndexChunk implements KObjectIndexChunk {
         cloned.elementCount = this.elementCount;
         cloned.droppedCount = this.droppedCount;
         cloned.threshold = this.threshold;
+        cloned._sortedKeys = this._sortedKeys;
+        synchronized (this) {
+            if (this._retainedPages != null) {
+                final KLongMap<KObjectIndex> retained = new ArrayLongMap<KObjectIndex>(this._retainedPages.size() + 1, KConfig.CACHE_LOAD_FACTOR);
+                this._retainedPages.each(new KLongMapCallBack<KObjectIndex>() {
+                    @Override
+                    public void on(long key, KObjectIndex value) {
+                        retained.put(key, value);
+                    }
+                });
+                cloned._retainedPages = retained;
+            }
+        }
+        if (cloned.droppedCount > 0) {
+            //the copy is the right moment to compact removed entries away
+            cloned.rebuild(cloned.state.elementDataSize);
+        }
         return cloned;
     }
 
@@ -127,6 +153,11 @@ public class HeapObjectIndexChunk implements KObjectIndexChunk {
         return null;
     }
 
+    @Override
+    public double getPrimitiveAsDouble(int index, KMetaClass metaClass) {
+        return Double.NaN;
+    }
+
     @Override
     public long[] getLongArray(int index, KMetaClass metaClass) {
         return new long[0];
@@ -187,6 +218,16 @@ public class HeapObjectIndexChunk implements KObjectIndexChunk {
 
     }
 
+    @Override
+    public double[] viewDoubleArray(int index, KMetaClass metaClass) {
+        return new double[0];
+    }
+
+    @Override
+    public void commitDoubleArray(int index, double[] view, KMetaClass metaClass) {
+
+    }
+
     @Override
     public final int counter() {
         return this._counter.get();
@@ -213,35 +254,47 @@ public class HeapObjectIndexChunk implements KObjectIndexChunk {
             }
             this.state = newstate;
             this.threshold = (int) (newstate.elementDataSize * loadFactor);
+            this._sortedKeys = null;
         }
+        this._retainedPages = null;
     }
 
     protected final void rehashCapacity(int capacity) {
-        int length = (capacity == 0 ? 1 : capacity << 1);
-        String[] newElementK = new String[length * 2];
-        long[] newElementV = new long[length * 2];
-        System.arraycopy(state.elementK, 0, newElementK, 0, state.elementK.length);
-        System.arraycopy(state.elementV, 0, newElementV, 0, state.elementV.length);
+        rebuild(capacity == 0 ? 1 : capacity << 1);
+    }
+
+    /**
+     * Rebuilds the internal state with the given capacity, live entries are packed at the beginning
+     * so removed slots are reclaimed.
+     */
+    protected final void rebuild(int length) {
+        InternalState previous = state;
+        String[] newElementK = new String[length];
+        long[] newElementV = new long[length];
         int[] newElementNext = new int[length];
         int[] newElementHash = new int[length];
         for (int i = 0; i < length; i++) {
             newElementNext[i] = -1;
             newElementHash[i] = -1;
         }
-        //rehashEveryThing
-        for (int i = 0; i < state.elementNext.length; i++) {
-            if (state.elementNext[i] != -1) { //there is a real value
-                int index = (PrimitiveHelper.stringHash(state.elementK[i]) & 0x7FFFFFFF) % length;
+        int inserted = 0;
+        for (int i = 0; i < previous.elementNext.length; i++) {
+            if (previous.elementNext[i] != -1) { //there is a real value
+                newElementK[inserted] = previous.elementK[i];
+                newElementV[inserted] = previous.elementV[i];
+                int index = (PrimitiveHelper.stringHash(previous.elementK[i]) & 0x7FFFFFFF) % length;
                 int currentHashedIndex = newElementHash[index];
                 if (currentHashedIndex != -1) {
-                    newElementNext[i] = currentHashedIndex;
+                    newElementNext[inserted] = currentHashedIndex;
                 } else {
-                    newElementNext[i] = -2; //special char to tag used values
+                    newElementNext[inserted] = -2; //special char to tag used values
                 }
-                newElementHash[index] = i;
+                newElementHash[index] = inserted;
+                inserted++;
             }
         }
-        //setPrimitiveType value for all
+        this.elementCount = inserted;
+        this.droppedCount = 0;
         state = new InternalState(length, newElementK, newElementV, newElementNext, newElementHash);
         this.threshold = (int) (length * loadFactor);
     }
@@ -266,7 +319,7 @@ public class HeapObjectIndexChunk implements KObjectIndexChunk {
         int index = (hash & 0x7FFFFFFF) % internalState.elementDataSize;
         int m = internalState.elementHash[index];
         while (m >= 0) {
-            if (key == internalState.elementK[m * 2] /* getKey */) {
+            if (PrimitiveHelper.equals(key, internalState.elementK[m] /* getKey */)) {
                 return true;
             }
             m = internalState.elementNext[m];
@@ -302,11 +355,16 @@ public class HeapObjectIndexChunk implements KObjectIndexChunk {
             entry = findNonNullKeyEntry(key, index);
         }
         if (entry == -1) {
-            if (++elementCount > threshold) {
+            if (elementCount + 1 > threshold) {
                 rehashCapacity(state.elementDataSize);
                 index = (hash & 0x7FFFFFFF) % state.elementDataSize;
+            } else if (elementCount + droppedCount >= state.elementDataSize) {
+                //no free slot left because of removed entries, compact in place
+                rebuild(state.elementDataSize);
+                index = (hash & 0x7FFFFFFF) % state.elementDataSize;
             }
-            int newIndex = (this.elementCount + this.droppedCount - 1);
+            int newIndex = this.elementCount + this.droppedCount;
+            this.elementCount++;
             state.elementK[newIndex] = key;
             state.elementV[newIndex] = value;
             int currentHashedIndex = state.elementHash[index];
@@ -317,6 +375,15 @@ public class HeapObjectIndexChunk implements KObjectIndexChunk {
             }
             //now the object is reachable to other thread everything should be ready
             state.elementHash[index] = newIndex;
+            String[] sorted = this._sortedKeys;
+            if (sorted != null) {
+                int position = position(sorted, key);
+                String[] inserted = new String[sorted.length + 1];
+                System.arraycopy(sorted, 0, inserted, 0, position);
+                inserted[position] = key;
+                System.arraycopy(sorted, position, inserted, position + 1, sorted.length - position);
+                this._sortedKeys = inserted;
+            }
         } else {
             state.elementV[entry] = value;/*setValue*/
         }
@@ -351,12 +418,12 @@ public class HeapObjectIndexChunk implements KObjectIndexChunk {
             last = m;
             m = state.elementNext[m];
         }
-        if (m == -1) {
+        if (m < 0) {
             return;
         }
         if (last == -1) {
-            if (state.elementNext[m] > 0) {
-                state.elementHash[index] = m;
+            if (state.elementNext[m] >= 0) {
+                state.elementHash[index] = state.elementNext[m];
             } else {
                 state.elementHash[index] = -1;
             }
@@ -364,14 +431,121 @@ public class HeapObjectIndexChunk implements KObjectIndexChunk {
             state.elementNext[last] = state.elementNext[m];
         }
         state.elementNext[m] = -1;//flag to dropped value
+        state.elementK[m] = null;
         this.elementCount--;
         this.droppedCount++;
+        String[] sorted = this._sortedKeys;
+        if (sorted != null) {
+            int position = position(sorted, key);
+            String[] removed = new String[sorted.length - 1];
+            System.arraycopy(sorted, 0, removed, 0, position);
+            System.arraycopy(sorted, position + 1, removed, position, sorted.length - position - 1);
+            this._sortedKeys = removed;
+        }
+        internal_set_dirty();
     }
 
     public final int size() {
         return this.elementCount;
     }
 
+    @Override
+    public final String[] sortedKeys() {
+        String[] sorted = _sortedKeys;
+        if (sorted == null) {
+            //built under the lock of put and remove, so that no concurrent change is missed by the cached keys
+            synchronized (this) {
+                sorted = _sortedKeys;
+                if (sorted == null) {
+                    InternalState internalState = state;
+                    String[] keys = new String[internalState.elementNext.length];
+                    int size = 0;
+                    for (int i = 0; i < internalState.elementNext.length; i++) {
+                        if (internalState.elementNext[i] != -1) {
+                            keys[size] = internalState.elementK[i];
+                            size++;
+                        }
+                    }
+                    sorted = new String[size];
+                    System.arraycopy(keys, 0, sorted, 0, size);
+                    PrimitiveHelper.sortStrings(sorted);
+                    _sortedKeys = sorted;
+                }
+            }
+        }
+        return sorted;
+    }
+
+    /**
+     * First position of sorted whose key is greater or equal to key.
+     */
+    private static int position(String[] sorted, String key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (PrimitiveHelper.compareStrings(sorted[middle], key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public final synchronized void load(String[] p_keys, long[] p_values) {
+        //sized once for all keys, so that the bulk insertion never rehashes
+        int length = (int) (p_keys.length / loadFactor) + 1;
+        if (length < initialCapacity) {
+            length = initialCapacity;
+        }
+        String[] newElementK = new String[length];
+        long[] newElementV = new long[length];
+        int[] newElementNext = new int[length];
+        int[] newElementHash = new int[length];
+        for (int i = 0; i < length; i++) {
+            newElementNext[i] = -1;
+            newElementHash[i] = -1;
+        }
+        for (int i = 0; i < p_keys.length; i++) {
+            newElementK[i] = p_keys[i];
+            newElementV[i] = p_values[i];
+            int index = (PrimitiveHelper.stringHash(p_keys[i]) & 0x7FFFFFFF) % length;
+            int currentHashedIndex = newElementHash[index];
+            if (currentHashedIndex != -1) {
+                newElementNext[i] = currentHashedIndex;
+            } else {
+                newElementNext[i] = -2; //special char to tag used values
+            }
+            newElementHash[index] = i;
+        }
+        this.elementCount = p_keys.length;
+        this.droppedCount = 0;
+        this.state = new InternalState(length, newElementK, newElementV, newElementNext, newElementHash);
+        this.threshold = (int) (length * loadFactor);
+        String[] sorted = new String[p_keys.length];
+        System.arraycopy(p_keys, 0, sorted, 0, p_keys.length);
+        this._sortedKeys = sorted;
+        internal_set_dirty();
+    }
+
+    @Override
+    public final synchronized void retainPage(KObjectIndex p_page) {
+        if (_retainedPages == null) {
+            _retainedPages = new ArrayLongMap<KObjectIndex>(KConfig.CACHE_INIT_SIZE, KConfig.CACHE_LOAD_FACTOR);
+        }
+        _retainedPages.put(p_page.uuid(), p_page);
+    }
+
+    @Override
+    public final synchronized KObjectIndex retainedPage(long p_uuid) {
+        if (_retainedPages == null) {
+            return null;
+        }
+        return _retainedPages.get(p_uuid);
+    }
+
     /* warning: this method is not thread safe */
     @Override
     public void init(String payload, KMetaModel metaModel, int metaClassIndex) {
@@ -399,7 +573,9 @@ public class HeapObjectIndexChunk implements KObjectIndexChunk {
         }
         //setPrimitiveType value for all
         InternalState temp_state = new InternalState(length, newElementK, newElementV, newElementNext, newElementHash);
-        while (cursor < payload.length()) {
+        this.elementCount = 0;
+        //an empty index, such as a page not written yet, ends with its separator
+        while (cursor + 1 < payload.length()) {
             cursor++;
             int beginChunk = cursor;
             while (cursor < payload.length() && payload.charAt(cursor) != ':') {
@@ -428,6 +604,7 @@ public class HeapObjectIndexChunk implements KObjectIndexChunk {
         this.elementCount = nbElement;
         this.droppedCount = 0;
         this.state = temp_state;//TODO check with CnS
+        this._sortedKeys = null;
         this.threshold = (int) (length * loadFactor);
 
     }
@@ -173,7 +173,7 @@ public class OffHeapObjectChunk implements KObjectChunk, KOffHeapChunk {
                         }
                     }
                 }
-                if (metaAttribute.attributeTypeId() == KPrimitiveTypes.CONTINUOUS_ID) {
+                if (metaAttribute.storageTypeId() == KPrimitiveTypes.CONTINUOUS_ID) {
                     long clone_ptr = clonedEntry.rawPointerForIndex(metaAttribute.index(), metaClass);
                     if (UNSAFE.getLong(clone_ptr) != 0) {
                         long clone_ptr_str_segment = UNSAFE.getLong(clone_ptr);
@@ -189,6 +189,16 @@ public class OffHeapObjectChunk implements KObjectChunk, KOffHeapChunk {
                     }
                 }
 
+            } else if (meta.metaType().equals(MetaType.DEPENDENCIES)) {
+                // learned states are updated in place, each version gets its own
+                long clone_ptr = clonedEntry.rawPointerForIndex(meta.index(), metaClass);
+                long clone_ptr_state_segment = UNSAFE.getLong(clone_ptr);
+                if (clone_ptr_state_segment != 0) {
+                    long bytes = 4 + UNSAFE.getInt(clone_ptr_state_segment) * BYTE;
+                    long new_state_segment = UNSAFE.allocateMemory(bytes);
+                    UNSAFE.copyMemory(clone_ptr_state_segment, new_state_segment, bytes);
+                    UNSAFE.putLong(clone_ptr, new_state_segment); // update ptr
+                }
             } else if (meta.metaType().equals(MetaType.RELATION)) {
                 KMetaRelation metaReference = (KMetaRelation) meta;
                 long clone_ptr = clonedEntry.rawPointerForIndex(metaReference.index(), metaClass);
@@ -411,17 +421,20 @@ public class OffHeapObjectChunk implements KObjectChunk, KOffHeapChunk {
 
     @Override
     public final int getDoubleArraySize(int p_index, KMetaClass p_metaClass) {
-        int size = 0;
-        double[] infer = getDoubleArray(p_index, p_metaClass);
-        if (infer != null) {
-            size = infer.length;
+        long ptr_segment = UNSAFE.getLong(rawPointerForIndex(p_index, p_metaClass));
+        if (ptr_segment == 0) {
+            return 0;
         }
-        return size;
+        return UNSAFE.getInt(ptr_segment);
     }
 
     @Override
     public final double getDoubleArrayElem(int p_index, int p_arrayIndex, KMetaClass p_metaClass) {
-        return getDoubleArray(p_index, p_metaClass)[p_arrayIndex];
+        long ptr_segment = UNSAFE.getLong(rawPointerForIndex(p_index, p_metaClass));
+        if (ptr_segment == 0 || p_arrayIndex < 0 || p_arrayIndex >= UNSAFE.getInt(ptr_segment)) {
+            throw new IndexOutOfBoundsException();
+        }
+        return UNSAFE.getDouble(ptr_segment + 4 + p_arrayIndex * BYTE);
     }
 
     @Override
@@ -437,7 +450,7 @@ public class OffHeapObjectChunk implements KObjectChunk, KOffHeapChunk {
             throw new IndexOutOfBoundsException();
         }
         int size = UNSAFE.getInt(ptr_segment);
-        if (p_index > size) {
+        if (p_arrayIndex < 0 || p_arrayIndex >= size) {
             throw new IndexOutOfBoundsException();
         }
 
@@ -464,6 +477,31 @@ public class OffHeapObjectChunk implements KObjectChunk, KOffHeapChunk {
         }
     }
 
+    /**
+     * Off-heap values can not be seen as a double[], the view is a copy made by a single memory copy.
+     */
+    @Override
+    public final double[] viewDoubleArray(int p_index, KMetaClass p_metaClass) {
+        long ptr_segment = UNSAFE.getLong(rawPointerForIndex(p_index, p_metaClass));
+        if (ptr_segment == 0) {
+            return null;
+        }
+        int size = UNSAFE.getInt(ptr_segment);
+        double[] view = new double[size];
+        UNSAFE.copyMemory(null, ptr_segment + 4, view, Unsafe.ARRAY_DOUBLE_BASE_OFFSET, size * BYTE);
+        return view;
+    }
+
+    @Override
+    public final void commitDoubleArray(int p_index, double[] p_view, KMetaClass p_metaClass) {
+        long ptr_segment = UNSAFE.getLong(rawPointerForIndex(p_index, p_metaClass));
+        if (ptr_segment == 0 || UNSAFE.getInt(ptr_segment) != p_view.length) {
+            throw new RuntimeException("Committed view does not match the double array " + p_index);
+        }
+        UNSAFE.copyMemory(p_view, Unsafe.ARRAY_DOUBLE_BASE_OFFSET, null, ptr_segment + 4, p_view.length * BYTE);
+        setDirty();
+    }
+
     private void internal_extendDoubleArray(int p_index, int p_newSize, KMetaClass p_metaClass, boolean p_setDirty) {
         long ptr = rawPointerForIndex(p_index, p_metaClass);
         long ptr_segment = UNSAFE.getLong(ptr);
@@ -493,7 +531,8 @@ public class OffHeapObjectChunk implements KObjectChunk, KOffHeapChunk {
 
             if (meta.metaType().equals(MetaType.ATTRIBUTE)) {
                 KMetaAttribute metaAttribute = (KMetaAttribute) meta;
-                if (metaAttribute.attributeTypeId() == KPrimitiveTypes.STRING_ID) {
+                int storageTypeId = metaAttribute.storageTypeId();
+                if (storageTypeId == KPrimitiveTypes.STRING_ID) {
                     long ptr_str_segment = UNSAFE.getLong(ptr);
                     if (ptr_str_segment != 0) {
                         int size = UNSAFE.getInt(ptr_str_segment);
@@ -504,15 +543,15 @@ public class OffHeapObjectChunk implements KObjectChunk, KOffHeapChunk {
                         result = new String(bytes, "UTF-8");
                     }
 
-                } else if (metaAttribute.attributeTypeId() == KPrimitiveTypes.LONG_ID) {
+                } else if (storageTypeId == KPrimitiveTypes.LONG_ID) {
                     result = UNSAFE.getLong(ptr);
-                } else if (metaAttribute.attributeTypeId() == KPrimitiveTypes.INT_ID) {
+                } else if (storageTypeId == KPrimitiveTypes.INT_ID) {
                     result = UNSAFE.getInt(ptr);
-                } else if (metaAttribute.attributeTypeId() == KPrimitiveTypes.BOOL_ID) {
+                } else if (storageTypeId == KPrimitiveTypes.BOOL_ID) {
                     result = UNSAFE.getByte(ptr) != 0;
-                } else if (metaAttribute.attributeTypeId() == KPrimitiveTypes.DOUBLE_ID) {
+                } else if (storageTypeId == KPrimitiveTypes.DOUBLE_ID) {
                     result = UNSAFE.getDouble(ptr);
-                } else if (metaAttribute.attributeTypeId() == KPrimitiveTypes.CONTINUOUS_ID) {
+                } else if (storageTypeId == KPrimitiveTypes.CONTINUOUS_ID) {
                     result = getDoubleArray(p_index, p_metaClass);
                 }
             }
@@ -524,6 +563,26 @@ public class OffHeapObjectChunk implements KObjectChunk, KOffHeapChunk {
         return result;
     }
 
+    @Override
+    public final double getPrimitiveAsDouble(int p_index, KMetaClass p_metaClass) {
+        KMeta meta = p_metaClass.meta(p_index);
+        if (meta == null || !meta.metaType().equals(MetaType.ATTRIBUTE)) {
+            return Double.NaN;
+        }
+        long ptr = rawPointerForIndex(p_index, p_metaClass);
+        int attributeTypeId = ((KMetaAttribute) meta).storageTypeId();
+        if (attributeTypeId == KPrimitiveTypes.DOUBLE_ID) {
+            return UNSAFE.getDouble(ptr);
+        } else if (attributeTypeId == KPrimitiveTypes.LONG_ID) {
+            return UNSAFE.getLong(ptr);
+        } else if (attributeTypeId == KPrimitiveTypes.INT_ID || KPrimitiveTypes.isEnum(attributeTypeId)) {
+            return UNSAFE.getInt(ptr);
+        } else if (attributeTypeId == KPrimitiveTypes.BOOL_ID) {
+            return UNSAFE.getByte(ptr);
+        }
+        return Double.NaN;
+    }
+
     private final void initMetaClass(KMetaClass p_metaClass) {
         long baseSegment = BASE_SEGMENT_SIZE;
         long modifiedIndexSegment = p_metaClass.metaElements().length;
@@ -560,7 +619,7 @@ public class OffHeapObjectChunk implements KObjectChunk, KOffHeapChunk {
                 KMeta meta = metaElements[i];
                 if (meta.metaType().equals(MetaType.ATTRIBUTE)) {
                     MetaAttribute metaAttribute = (MetaAttribute) meta;
-                    if (metaAttribute.attributeTypeId() != KPrimitiveTypes.CONTINUOUS_ID) {
+                    if (metaAttribute.storageTypeId() != KPrimitiveTypes.CONTINUOUS_ID) {
                         Object o = getPrimitiveType(meta.index(), metaClass);
                         if (o != null) {
                             if (isFirst) {
@@ -645,26 +704,27 @@ public class OffHeapObjectChunk implements KObjectChunk, KOffHeapChunk {
                         }
                         Base64.encodeStringToBuffer(metaElements[i].metaName(), builder);
                         builder.append(KConfig.CHUNK_VAL_SEP);
-                        if (metaAttribute.attributeTypeId() == KPrimitiveTypes.STRING_ID) {
+                        int storageTypeId = metaAttribute.storageTypeId();
+                        if (storageTypeId == KPrimitiveTypes.STRING_ID) {
                             Base64.encodeStringToBuffer((String) o, builder);
-                        } else if (metaAttribute.attributeTypeId() == KPrimitiveTypes.LONG_ID) {
+                        } else if (storageTypeId == KPrimitiveTypes.LONG_ID) {
                             Base64.encodeLongToBuffer((long) o, builder);
-                        } else if (metaAttribute.attributeTypeId() == KPrimitiveTypes.CONTINUOUS_ID) {
+                        } else if (storageTypeId == KPrimitiveTypes.CONTINUOUS_ID) {
                             double[] castedArr = (double[]) o;
                             Base64.encodeIntToBuffer(castedArr.length, builder);
                             for (int j = 0; j < castedArr.length; j++) {
                                 builder.append(KConfig.CHUNK_VAL_SEP);
                                 Base64.encodeDoubleToBuffer(castedArr[j], builder);
                             }
-                        } else if (metaAttribute.attributeTypeId() == KPrimitiveTypes.BOOL_ID) {
+                        } else if (storageTypeId == KPrimitiveTypes.BOOL_ID) {
                             if ((boolean) o) {
                                 builder.append("1");
                             } else {
                                 builder.append("0");
                             }
-                        } else if (metaAttribute.attributeTypeId() == KPrimitiveTypes.DOUBLE_ID) {
+                        } else if (storageTypeId == KPrimitiveTypes.DOUBLE_ID) {
                             Base64.encodeDoubleToBuffer((double) o, builder);
-                        } else if (metaAttribute.attributeTypeId() == KPrimitiveTypes.INT_ID) {
+                        } else if (storageTypeId == KPrimitiveTypes.INT_ID) {
                             Base64.encodeIntToBuffer((int) o, builder);
                         } else if (KPrimitiveTypes.isEnum(metaAttribute.attributeTypeId())) {
                             Base64.encodeIntToBuffer((int) o, builder);
@@ -763,7 +823,7 @@ public class OffHeapObjectChunk implements KObjectChunk, KOffHeapChunk {
             while (i < payloadSize) {
                 if (p_payload.charAt(i) == KConfig.CHUNK_ELEM_SEP) {
                     if (previousMeta != null) {
-                        if (previousMeta.metaType().equals(MetaType.ATTRIBUTE) && ((KMetaAttribute) previousMeta).attributeTypeId() != KPrimitiveTypes.CONTINUOUS_ID) {
+                        if (previousMeta.metaType().equals(MetaType.ATTRIBUTE) && ((KMetaAttribute) previousMeta).storageTypeId() != KPrimitiveTypes.CONTINUOUS_ID) {
                             internal_setPrimitiveType(previousMeta.index(), loadObject((KMetaAttribute) previousMeta, p_payload, previousValStart, i), metaClass, false);
                         } else if (previousMeta.metaType().equals(MetaType.RELATION) && longArray != null) {
                             longArray[currentArrayIndex] = Base64.decodeToLongWithBounds(p_payload, previousValStart, i);
@@ -810,7 +870,7 @@ public class OffHeapObjectChunk implements KObjectChunk, KOffHeapChunk {
                 i++;
             }
             if (previousMeta != null) {
-                if (previousMeta.metaType().equals(MetaType.ATTRIBUTE) && ((KMetaAttribute) previousMeta).attributeTypeId() != KPrimitiveTypes.CONTINUOUS_ID) {
+                if (previousMeta.metaType().equals(MetaType.ATTRIBUTE) && ((KMetaAttribute) previousMeta).storageTypeId() != KPrimitiveTypes.CONTINUOUS_ID) {
                     internal_setPrimitiveType(previousMeta.index(), loadObject((KMetaAttribute) previousMeta, p_payload, previousValStart, i), metaClass, false);
                 } else if (previousMeta.metaType().equals(MetaType.RELATION) && longArray != null) {
                     longArray[currentArrayIndex] = Base64.decodeToLongWithBounds(p_payload, previousValStart, i);
@@ -867,7 +927,7 @@ public class OffHeapObjectChunk implements KObjectChunk, KOffHeapChunk {
 //                        _allocated_segments--;
                         }
                     }
-                    if (metaAttribute.attributeTypeId() == KPrimitiveTypes.CONTINUOUS_ID) {
+                    if (metaAttribute.storageTypeId() == KPrimitiveTypes.CONTINUOUS_ID) {
                         long ptr = rawPointerForIndex(metaAttribute.index(), metaClass);
                         long ptr_segment = UNSAFE.getLong(ptr);
                         if (ptr_segment != 0) {
@@ -883,6 +943,11 @@ public class OffHeapObjectChunk implements KObjectChunk, KOffHeapChunk {
                         UNSAFE.freeMemory(ptr_str_segment);
 //                    _allocated_segments--;
                     }
+                } else if (meta.metaType().equals(MetaType.DEPENDENCIES)) {
+                    long ptr_state_segment = UNSAFE.getLong(rawPointerForIndex(meta.index(), metaClass));
+                    if (ptr_state_segment != 0) {
+                        UNSAFE.freeMemory(ptr_state_segment);
+                    }
                 }
             }
         }
@@ -15,6 +15,13 @@ import org.kevoree.modeling.util.maths.structure.blas.impl.JavaBlas;
 
 public class DataManagerBuilder {
 
+    private static final String VECTOR_BLAS = "org.kevoree.modeling.util.maths.structure.blas.impl.VectorBlas";
+
+    /* looked up once per class loader, null when VectorBlas can not be loaded */
+    private static Class<?> _vectorBlasClass = null;
+
+    private static boolean _vectorBlasResolved = false;
+
     private KContentDeliveryDriver _driver;
 
     private KScheduler _scheduler;
@@ -25,6 +32,10 @@ public class DataManagerBuilder {
 
     private KChunkSpaceManager _spaceManager;
 
+    private int _selectorCacheSize = 0;
+
+    private long _changeLogBucketWidth = 0;
+
     public KContentDeliveryDriver driver() {
         if (this._driver == null) {
             this._driver = new MemoryContentDeliveryDriver();
@@ -32,13 +43,50 @@ public class DataManagerBuilder {
         return _driver;
     }
 
+    /**
+     * Defaults to the VectorBlas of the microframework.vector module when it is on the classpath and the
+     * jdk.incubator.vector module is available to the running JVM, to JavaBlas otherwise.
+     *
+     * @native ts
+     * if (this._blas == null) { this._blas = new org.kevoree.modeling.util.maths.structure.blas.impl.JavaBlas(); }
+     * return this._blas;
+     */
     public KBlas blas() {
         if (this._blas == null) {
-            this._blas = new JavaBlas();
+            Class<?> vectorBlasClass = vectorBlasClass();
+            if (vectorBlasClass != null) {
+                try {
+                    this._blas = (KBlas) vectorBlasClass.getDeclaredConstructor().newInstance();
+                } catch (Throwable e) {
+                    this._blas = null;
+                }
+            }
+            if (this._blas == null) {
+                this._blas = new JavaBlas();
+            }
         }
         return _blas;
     }
 
+    /**
+     * @native ts
+     * return null;
+     */
+    private static synchronized Class<?> vectorBlasClass() {
+        if (!_vectorBlasResolved) {
+            _vectorBlasResolved = true;
+            try {
+                Class<?> loaded = Class.forName(VECTOR_BLAS);
+                //fails when the jdk.incubator.vector module has not been added to the running JVM
+                loaded.getDeclaredConstructor().newInstance();
+                _vectorBlasClass = loaded;
+            } catch (Throwable e) {
+                _vectorBlasClass = null;
+            }
+        }
+        return _vectorBlasClass;
+    }
+
     /**
      * @native ts
      * if (this._scheduler == null) { this._scheduler = new org.kevoree.modeling.scheduler.impl.DirectScheduler(); }
@@ -104,8 +152,24 @@ public class DataManagerBuilder {
         return this;
     }
 
+    /**
+     * Enables the cache of select results, bounded to p_maxEntries queries.
+     */
+    public DataManagerBuilder withSelectorCache(int p_maxEntries) {
+        this._selectorCacheSize = p_maxEntries;
+        return this;
+    }
+
+    /**
+     * Enables the log of changed objects per universe, grouped in buckets spanning p_bucketWidth time units.
+     */
+    public DataManagerBuilder withChangeLog(long p_bucketWidth) {
+        this._changeLogBucketWidth = p_bucketWidth;
+        return this;
+    }
+
     public KInternalDataManager build() {
-        return new DataManager(driver(), scheduler(), space(), spaceManager(), blas());
+        return new DataManager(driver(), scheduler(), space(), spaceManager(), blas(), _selectorCacheSize, _changeLogBucketWidth);
     }
 
     public static KInternalDataManager buildDefault() {
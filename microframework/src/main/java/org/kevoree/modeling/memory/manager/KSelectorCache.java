@@ -0,0 +1,26 @@
+package org.kevoree.modeling.memory.manager;
+
+import org.kevoree.modeling.KObject;
+
+/**
+ * Cache of selector results, as uuids, invalidated by the writes of the objects their traversal visited.
+ */
+public interface KSelectorCache {
+
+    String key(String query, long universe, long time, KObject[] origins);
+
+    long[] get(String key);
+
+    /**
+     * Current invalidation version, to be read before running the traversal that will feed put.
+     */
+    long version();
+
+    /**
+     * Stores a result unless an invalidation happened since p_version.
+     */
+    void put(String key, long p_version, long[] results, long[] touched, boolean readsIndex);
+
+    int size();
+
+}
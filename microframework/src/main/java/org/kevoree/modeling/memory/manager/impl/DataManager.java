@@ -2,6 +2,7 @@ package org.kevoree.modeling.memory.manager.impl;
 
 import org.kevoree.modeling.*;
 import org.kevoree.modeling.abs.AbstractKObject;
+import org.kevoree.modeling.abs.AbstractKObjectIndex;
 import org.kevoree.modeling.cdn.KContentDeliveryDriver;
 import org.kevoree.modeling.cdn.KContentUpdateListener;
 import org.kevoree.modeling.cdn.impl.MemoryContentDeliveryDriver;
@@ -10,13 +11,18 @@ import org.kevoree.modeling.memory.KChunkFlags;
 import org.kevoree.modeling.memory.space.KChunkIterator;
 import org.kevoree.modeling.memory.space.KChunkSpaceManager;
 import org.kevoree.modeling.memory.chunk.KObjectChunk;
+import org.kevoree.modeling.memory.chunk.KObjectIndexChunk;
 import org.kevoree.modeling.memory.chunk.KLongLongMap;
 import org.kevoree.modeling.memory.resolver.KResolver;
 import org.kevoree.modeling.memory.resolver.impl.*;
 import org.kevoree.modeling.memory.space.KChunkTypes;
+import org.kevoree.modeling.index.KChangeLog;
+import org.kevoree.modeling.index.impl.ChangeLog;
+import org.kevoree.modeling.index.impl.KeyIndexBuffer;
 import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
 import org.kevoree.modeling.memory.space.KChunkSpace;
 import org.kevoree.modeling.memory.manager.KDataManager;
+import org.kevoree.modeling.memory.manager.KSelectorCache;
 import org.kevoree.modeling.message.KMessage;
 import org.kevoree.modeling.message.impl.Message;
 import org.kevoree.modeling.meta.KMetaClass;
@@ -45,9 +51,15 @@ public class DataManager implements KDataManager, KInternalDataManager {
     private final KChunkSpace _space;
     private final KChunkSpaceManager _spaceManager;
     private final KBlas _blas;
+    private final SelectorCache _selectorCache;
+
+    private final ChangeLog _changeLog;
+
+    private final KeyIndexBuffer _keyIndexBuffer = new KeyIndexBuffer();
 
     private KeyCalculator _objectKeyCalculator = null;
     private KeyCalculator _universeKeyCalculator = null;
+    private KeyCalculator _indexPageKeyCalculator = null;
     private volatile boolean isConnected = false;
 
     private Short _prefix;
@@ -56,6 +68,7 @@ public class DataManager implements KDataManager, KInternalDataManager {
     private static final int UNIVERSE_INDEX = 0;
     private static final int OBJ_INDEX = 1;
     private static final int GLO_TREE_INDEX = 2;
+    private static final int PAGE_INDEX = 3;
     private static final short zeroPrefix = 0;
 
     private int currentCdnListener = -1;
@@ -65,7 +78,7 @@ public class DataManager implements KDataManager, KInternalDataManager {
         this._model = p_model;
     }
 
-    public DataManager(KContentDeliveryDriver p_cdn, KScheduler p_scheduler, KChunkSpace p_space, KChunkSpaceManager p_spaceManager, KBlas p_blas) {
+    public DataManager(KContentDeliveryDriver p_cdn, KScheduler p_scheduler, KChunkSpace p_space, KChunkSpaceManager p_spaceManager, KBlas p_blas, int p_selectorCacheSize, long p_changeLogBucketWidth) {
         this._space = p_space;
         this._space.setManager(this);
         this._spaceManager = p_spaceManager;
@@ -79,6 +92,16 @@ public class DataManager implements KDataManager, KInternalDataManager {
         attachContentDeliveryDriver(new MemoryContentDeliveryDriver());
         this._operationManager = new HashOperationManager(this);
         this._blas = p_blas;
+        if (p_selectorCacheSize > 0) {
+            this._selectorCache = new SelectorCache(p_selectorCacheSize);
+        } else {
+            this._selectorCache = null;
+        }
+        if (p_changeLogBucketWidth > 0) {
+            this._changeLog = new ChangeLog(p_changeLogBucketWidth);
+        } else {
+            this._changeLog = null;
+        }
     }
 
     @Override
@@ -91,6 +114,72 @@ public class DataManager implements KDataManager, KInternalDataManager {
         return this._blas;
     }
 
+    @Override
+    public KSelectorCache selectorCache() {
+        return this._selectorCache;
+    }
+
+    @Override
+    public KChangeLog changeLog() {
+        return this._changeLog;
+    }
+
+    @Override
+    public void updateKeyIndex(long universe, long time, String indexName, String previousKey, String newKey, long uuid) {
+        if (!_keyIndexBuffer.hasBatch(universe, time, indexName)) {
+            //the index itself is created right away, object keys are then allocated in the same order as without buffer
+            resolveIndex(universe, time, indexName, true, false, null);
+        }
+        if (_keyIndexBuffer.append(universe, time, indexName, previousKey, newKey, uuid)) {
+            applyKeyIndexBatches();
+        }
+    }
+
+    /**
+     * Writes the key index batches in flight one at a time, in the order they were closed, each through a single
+     * resolution of its index. The waiters of a batch are called once it is written.
+     */
+    private void applyKeyIndexBatches() {
+        if (!_keyIndexBuffer.enterPump()) {
+            return;
+        }
+        do {
+            KeyIndexBuffer.Batch batch = _keyIndexBuffer.next();
+            while (batch != null) {
+                applyKeyIndexBatch(batch);
+                batch = _keyIndexBuffer.next();
+            }
+        } while (!_keyIndexBuffer.leavePump());
+    }
+
+    private void applyKeyIndexBatch(final KeyIndexBuffer.Batch batch) {
+        final DataManager selfPointer = this;
+        resolveIndex(batch.universe, batch.time, batch.indexName, true, false, new KCallback<KObjectIndex>() {
+            @Override
+            public void on(KObjectIndex keyIndex) {
+                ((AbstractKObjectIndex) keyIndex).internal_setAll(batch.keys, batch.values, batch.size);
+                KCallback[] waiters = selfPointer._keyIndexBuffer.applied();
+                for (int i = 0; i < waiters.length; i++) {
+                    waiters[i].on(null);
+                }
+                selfPointer.applyKeyIndexBatches();
+            }
+        });
+    }
+
+    /**
+     * Closes the pending key index batches of p_indexName, or all of them when null, and calls p_callback once every
+     * batch in flight is written.
+     */
+    private void flushKeyIndexBatches(String p_indexName, KCallback p_callback) {
+        _keyIndexBuffer.close(p_indexName);
+        if (_keyIndexBuffer.await(p_callback)) {
+            applyKeyIndexBatches();
+        } else {
+            p_callback.on(null);
+        }
+    }
+
     /* Key Management Section */
     @Override
     public final long nextUniverseKey() {
@@ -108,6 +197,17 @@ public class DataManager implements KDataManager, KInternalDataManager {
         return _objectKeyCalculator.nextKey();
     }
 
+    /**
+     * Index pages live in the negative key space, they never shift the uuids of model objects.
+     */
+    @Override
+    public final long nextIndexPageKey() {
+        if (_indexPageKeyCalculator == null) {
+            throw new RuntimeException(UNIVERSE_NOT_CONNECTED_ERROR);
+        }
+        return -_indexPageKeyCalculator.nextKey();
+    }
+
     @Override
     public final long nextModelKey() {
         return _modelKeyCalculator.nextKey();
@@ -121,7 +221,7 @@ public class DataManager implements KDataManager, KInternalDataManager {
         }
     }
 
-    private static final int PREFIX_TO_SAVE_SIZE = 2;
+    private static final int PREFIX_TO_SAVE_SIZE = 3;
     private static final int KEY_SIZE = 3;
 
     @Override
@@ -169,6 +269,11 @@ public class DataManager implements KDataManager, KInternalDataManager {
         toSaveKeys[i * KEY_SIZE + 1] = KConfig.NULL_LONG;
         toSaveKeys[i * KEY_SIZE + 2] = this._universeKeyCalculator.prefix();
         toSaveValues[i] = "" + this._universeKeyCalculator.lastComputedIndex();
+        i++;
+        toSaveKeys[i * KEY_SIZE] = KConfig.NULL_LONG;
+        toSaveKeys[i * KEY_SIZE + 1] = KConfig.BEGINNING_OF_TIME;
+        toSaveKeys[i * KEY_SIZE + 2] = this._indexPageKeyCalculator.prefix();
+        toSaveValues[i] = "" + this._indexPageKeyCalculator.lastComputedIndex();
 
         //shrink in case of i != full size
         if (i != sizeToSaveValues - 1) {
@@ -189,19 +294,47 @@ public class DataManager implements KDataManager, KInternalDataManager {
 
     @Override
     public void save(final KCallback<Throwable> callback) {
-        KChunkIterator dirtyIterator = this._space.detachDirties();
-        saveDirtyList(dirtyIterator, callback);
+        final DataManager selfPointer = this;
+        flushKeyIndexBatches(null, new KCallback() {
+            @Override
+            public void on(Object o) {
+                KChunkIterator dirtyIterator = selfPointer._space.detachDirties();
+                selfPointer.saveDirtyList(dirtyIterator, callback);
+            }
+        });
     }
 
     @Override
     public void initKObject(KObject obj) {
         _resolver.indexObject(obj);
+        if (_changeLog != null && !(obj instanceof KObjectIndex)) {
+            _changeLog.record(this, obj.universe(), obj.now(), obj.uuid());
+        }
     }
 
     @Override
     public KObjectChunk preciseChunk(long universe, long time, long uuid, KMetaClass metaClass, AtomicReference<long[]> previousResolution) {
+        long[] previous = previousResolution.get();
         KObjectChunk resolvedChunk = _resolver.preciseChunk(universe, time, uuid, metaClass, previousResolution);
         if (resolvedChunk != null) {
+            if (_changeLog != null && !(resolvedChunk instanceof KObjectIndexChunk)) {
+                //only the first write of a version is logged, the next ones resolve to the same universe and time
+                long alignedTime = time;
+                if (metaClass.temporalResolution() != 1) {
+                    alignedTime = time - (time % metaClass.temporalResolution());
+                }
+                if (previous[AbstractKObject.UNIVERSE_PREVIOUS_INDEX] != universe || previous[AbstractKObject.TIME_PREVIOUS_INDEX] != alignedTime) {
+                    _changeLog.record(this, universe, alignedTime, uuid);
+                }
+            }
+            if (_selectorCache != null) {
+                //precise resolution is the write path, cached selections that visited this object are outdated
+                if (resolvedChunk instanceof KObjectIndexChunk) {
+                    _selectorCache.invalidateIndexReaders();
+                } else {
+                    _selectorCache.invalidate(uuid);
+                }
+            }
             return resolvedChunk;
         } else {
             //TODO
@@ -264,12 +397,13 @@ public class DataManager implements KDataManager, KInternalDataManager {
                                                 long[] connectionKeys = new long[]{
                                                         KConfig.BEGINNING_OF_TIME, KConfig.NULL_LONG, newPrefix, //LastUniverseIndexFromPrefix
                                                         KConfig.END_OF_TIME, KConfig.NULL_LONG, newPrefix, //LastObjectIndexFromPrefix
-                                                        KConfig.NULL_LONG, KConfig.NULL_LONG, KConfig.NULL_LONG //GlobalUniverseTree
+                                                        KConfig.NULL_LONG, KConfig.NULL_LONG, KConfig.NULL_LONG, //GlobalUniverseTree
+                                                        KConfig.NULL_LONG, KConfig.BEGINNING_OF_TIME, newPrefix //LastIndexPageFromPrefix
                                                 };
                                                 selfPointer._db.get(connectionKeys, new KCallback<String[]>() {
                                                     @Override
                                                     public void on(String[] strings) {
-                                                        if (strings.length == 3) {
+                                                        if (strings.length == 4) {
                                                             Exception detected = null;
                                                             try {
                                                                 String uniIndexPayload = strings[UNIVERSE_INDEX];
@@ -280,6 +414,10 @@ public class DataManager implements KDataManager, KInternalDataManager {
                                                                 if (objIndexPayload == null || PrimitiveHelper.equals(objIndexPayload, "")) {
                                                                     objIndexPayload = "0";
                                                                 }
+                                                                String pageIndexPayload = strings[PAGE_INDEX];
+                                                                if (pageIndexPayload == null || PrimitiveHelper.equals(pageIndexPayload, "")) {
+                                                                    pageIndexPayload = "0";
+                                                                }
                                                                 String globalUniverseTreePayload = strings[GLO_TREE_INDEX];
                                                                 KLongLongMap globalUniverseTree = (KLongLongMap) selfPointer._spaceManager.createAndMark(KConfig.NULL_LONG, KConfig.NULL_LONG, KConfig.NULL_LONG, KChunkTypes.LONG_LONG_MAP);
                                                                 if (globalUniverseTreePayload != null) {
@@ -293,6 +431,7 @@ public class DataManager implements KDataManager, KInternalDataManager {
                                                                 long newObjIndex = PrimitiveHelper.parseLong(objIndexPayload);
                                                                 selfPointer._universeKeyCalculator = new KeyCalculator(selfPointer._prefix, newUniIndex);
                                                                 selfPointer._objectKeyCalculator = new KeyCalculator(selfPointer._prefix, newObjIndex);
+                                                                selfPointer._indexPageKeyCalculator = new KeyCalculator(selfPointer._prefix, PrimitiveHelper.parseLong(pageIndexPayload));
                                                                 selfPointer.isConnected = true;
                                                             } catch (Exception e) {
                                                                 //e.printStackTrace();
@@ -333,6 +472,9 @@ public class DataManager implements KDataManager, KInternalDataManager {
                 public void on(Throwable throwable) {
                     _scheduler.stop();
                     _blas.disconnect();
+                    if (_selectorCache != null) {
+                        _selectorCache.clear();
+                    }
                     isConnected = false;
                     if (_db != null) {
                         _db.close(callback);
@@ -360,6 +502,19 @@ public class DataManager implements KDataManager, KInternalDataManager {
         this._scheduler.dispatch(this._resolver.lookup(universe, time, uuid, callback));
     }
 
+    @Override
+    public KObject lookupFromCache(long universe, long time, long uuid) {
+        final KObject[] result = new KObject[1];
+        //the resolution is synchronous as long as every chunk it needs is cached
+        this._resolver.lookup(universe, time, uuid, new KCallback<KObject>() {
+            @Override
+            public void on(KObject resolved) {
+                result[0] = resolved;
+            }
+        }).run();
+        return result[0];
+    }
+
     @Override
     public void lookupAllObjects(long universe, long time, long[] uuids, KCallback<KObject[]> callback) {
         this._scheduler.dispatch(this._resolver.lookupAllObjects(universe, time, uuids, callback));
@@ -438,6 +593,9 @@ public class DataManager implements KDataManager, KInternalDataManager {
                         }
                         selfPointer._spaceManager.unmarkMemoryElement(currentChunk);
                     }
+                    if (selfPointer._selectorCache != null && updatedKeys[i * KEY_SIZE + 2] != KConfig.NULL_LONG) {
+                        selfPointer._selectorCache.invalidate(updatedKeys[i * KEY_SIZE + 2]);
+                    }
                     //check if this is an object chunk
                     if (selfPointer._listenerManager.isListened(updatedKeys[i * KEY_SIZE + 2]) && updatedKeys[i * KEY_SIZE] != KConfig.NULL_LONG && updatedKeys[i * KEY_SIZE + 1] != KConfig.NULL_LONG && updatedKeys[i * KEY_SIZE + 2] != KConfig.NULL_LONG) {
                         //check if the object is listened anyway
@@ -532,7 +690,29 @@ public class DataManager implements KDataManager, KInternalDataManager {
     }
 
     @Override
-    public void index(long universe, long time, String indexName, boolean createIfAbsent, KCallback<KObjectIndex> callback) {
+    public void index(final long universe, final long time, final String indexName, final boolean createIfAbsent, final KCallback<KObjectIndex> callback) {
+        //read barrier, pending key updates of this index at any time and batches in flight are written before it is handed out
+        final DataManager selfPointer = this;
+        flushKeyIndexBatches(indexName, new KCallback() {
+            @Override
+            public void on(Object o) {
+                selfPointer.resolveIndex(universe, time, indexName, createIfAbsent, false, callback);
+            }
+        });
+    }
+
+    @Override
+    public void rangeIndex(final long universe, final long time, final String indexName, final boolean createIfAbsent, final KCallback<KObjectIndex> callback) {
+        final DataManager selfPointer = this;
+        flushKeyIndexBatches(indexName, new KCallback() {
+            @Override
+            public void on(Object o) {
+                selfPointer.resolveIndex(universe, time, indexName, createIfAbsent, true, callback);
+            }
+        });
+    }
+
+    private void resolveIndex(long universe, long time, String indexName, boolean createIfAbsent, boolean ranged, KCallback<KObjectIndex> callback) {
         DataManager selfPointer = this;
         selfPointer._scheduler.dispatch(selfPointer._resolver.lookup(universe, time, KConfig.END_OF_TIME, new KCallback<KObject>() {
             @Override
@@ -550,9 +730,14 @@ public class DataManager implements KDataManager, KInternalDataManager {
                     long indexUUID = globalIndex.getIndex(indexName);
                     if (indexUUID == KConfig.NULL_LONG && createIfAbsent) {
                         long nextKey = nextObjectKey();
-                        KObjectIndex namedIndex = new GenericObjectIndex(universe, time, nextKey, selfPointer, universe, time, KConfig.NULL_LONG, KConfig.NULL_LONG);
+                        GenericObjectIndex namedIndex = new GenericObjectIndex(universe, time, nextKey, selfPointer, universe, time, KConfig.NULL_LONG, KConfig.NULL_LONG);
                         initKObject(namedIndex);
-                        globalIndex.setIndex(indexName, nextKey);
+                        globalIndex.setIndex(indexName, AbstractKObjectIndex.pagedReference(nextKey));
+                        if (ranged) {
+                            namedIndex.internal_partitionByRange();
+                        } else {
+                            namedIndex.internal_attachPages(namedIndex.internal_createMissingPages());
+                        }
                         if (Checker.isDefined(callback)) {
                             callback.on(namedIndex);
                         }
@@ -562,10 +747,13 @@ public class DataManager implements KDataManager, KInternalDataManager {
                                 callback.on(null);
                             }
                         } else {
-                            selfPointer._scheduler.dispatch(selfPointer._resolver.lookup(universe, time, indexUUID, new KCallback<KObject>() {
+                            selfPointer._scheduler.dispatch(selfPointer._resolver.lookup(universe, time, AbstractKObjectIndex.uuidOf(indexUUID), new KCallback<KObject>() {
                                 @Override
                                 public void on(KObject namedIndex) {
-                                    if (Checker.isDefined(callback)) {
+                                    if (AbstractKObjectIndex.isPaged(indexUUID)) {
+                                        selfPointer.attachPages((AbstractKObjectIndex) namedIndex, universe, time, createIfAbsent, callback);
+                                    } else if (Checker.isDefined(callback)) {
+                                        //named index created before paging, kept flat
                                         callback.on((KObjectIndex) namedIndex);
                                     }
                                 }
@@ -577,4 +765,63 @@ public class DataManager implements KDataManager, KInternalDataManager {
         }));
     }
 
+    /**
+     * Resolves the pages of a named index in a single batch before handing it to the callback. Resolved to be written,
+     * a hash partitioned index first gets the pages it misses, so that its proxy never looks a page up afterwards.
+     */
+    private void attachPages(final AbstractKObjectIndex namedIndex, long universe, long time, boolean createIfAbsent, final KCallback<KObjectIndex> callback) {
+        if (namedIndex == null) {
+            if (Checker.isDefined(callback)) {
+                callback.on(null);
+            }
+            return;
+        }
+        KObjectIndex[] created = null;
+        if (createIfAbsent) {
+            created = namedIndex.internal_createMissingPages();
+        }
+        final long[] pageKeys = namedIndex.internal_pageKeys();
+        final KObjectIndex[] pages = new KObjectIndex[pageKeys.length];
+        int nbPages = 0;
+        for (int i = 0; i < pageKeys.length; i++) {
+            if (created != null && i < created.length && created[i] != null) {
+                pages[i] = created[i];
+                pageKeys[i] = KConfig.NULL_LONG;
+            } else if (pageKeys[i] != KConfig.NULL_LONG) {
+                nbPages++;
+            }
+        }
+        if (nbPages == 0) {
+            namedIndex.internal_attachPages(pages);
+            if (Checker.isDefined(callback)) {
+                callback.on(namedIndex);
+            }
+            return;
+        }
+        final long[] toResolve = new long[nbPages];
+        int inserted = 0;
+        for (int i = 0; i < pageKeys.length; i++) {
+            if (pageKeys[i] != KConfig.NULL_LONG) {
+                toResolve[inserted] = pageKeys[i];
+                inserted++;
+            }
+        }
+        this._scheduler.dispatch(this._resolver.lookupAllObjects(universe, time, toResolve, new KCallback<KObject[]>() {
+            @Override
+            public void on(KObject[] resolvedPages) {
+                int cursor = 0;
+                for (int i = 0; i < pageKeys.length; i++) {
+                    if (pageKeys[i] != KConfig.NULL_LONG) {
+                        pages[i] = (KObjectIndex) resolvedPages[cursor];
+                        cursor++;
+                    }
+                }
+                namedIndex.internal_attachPages(pages);
+                if (Checker.isDefined(callback)) {
+                    callback.on(namedIndex);
+                }
+            }
+        }));
+    }
+
 }
@@ -0,0 +1,219 @@
+package org.kevoree.modeling.memory.manager.impl;
+
+import org.kevoree.modeling.KConfig;
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.memory.chunk.impl.ArrayLongMap;
+import org.kevoree.modeling.memory.chunk.impl.ArrayStringMap;
+import org.kevoree.modeling.memory.manager.KSelectorCache;
+
+/**
+ * Bounded cache of selector results, stored as uuids and keyed by (query, universe, time, origins).
+ * Every entry registers the uuids of the objects its traversal visited, in the same object to
+ * registration layout as the ListenerManager, so that a local write or a remote onKeysUpdate on
+ * one of them drops exactly the entries that depend on it. Eviction follows a clock policy.
+ */
+public class SelectorCache implements KSelectorCache {
+
+    private final int _maxEntries;
+
+    private final ArrayStringMap<SelectorCacheEntry> _byKey;
+
+    private final ArrayLongMap<SelectorCacheEntry> _byId;
+
+    private final ArrayLongMap<long[]> _obj2Entries;
+
+    /* clock ring of entry ids, NULL_LONG for free slots */
+    private final long[] _ring;
+
+    private int _hand = 0;
+
+    private long _nextId = 0;
+
+    private long _version = 0;
+
+    public SelectorCache(int p_maxEntries) {
+        this._maxEntries = p_maxEntries;
+        this._byKey = new ArrayStringMap<SelectorCacheEntry>(KConfig.CACHE_INIT_SIZE, KConfig.CACHE_LOAD_FACTOR);
+        this._byId = new ArrayLongMap<SelectorCacheEntry>(KConfig.CACHE_INIT_SIZE, KConfig.CACHE_LOAD_FACTOR);
+        this._obj2Entries = new ArrayLongMap<long[]>(KConfig.CACHE_INIT_SIZE, KConfig.CACHE_LOAD_FACTOR);
+        this._ring = new long[p_maxEntries];
+        for (int i = 0; i < p_maxEntries; i++) {
+            this._ring[i] = KConfig.NULL_LONG;
+        }
+    }
+
+    @Override
+    public String key(String query, long universe, long time, KObject[] origins) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(universe);
+        builder.append('/');
+        builder.append(time);
+        if (origins != null) {
+            for (int i = 0; i < origins.length; i++) {
+                builder.append('/');
+                if (origins[i] != null) {
+                    builder.append(origins[i].uuid());
+                }
+            }
+        }
+        builder.append('|');
+        builder.append(query);
+        return builder.toString();
+    }
+
+    @Override
+    public synchronized long[] get(String key) {
+        SelectorCacheEntry entry = _byKey.get(key);
+        if (entry == null) {
+            return null;
+        }
+        entry.referenced = true;
+        return entry.results;
+    }
+
+    @Override
+    public synchronized long version() {
+        return _version;
+    }
+
+    /**
+     * Stores a result unless an invalidation happened since p_version, in which case the traversal
+     * may have observed a state that is already outdated.
+     */
+    @Override
+    public synchronized void put(String key, long p_version, long[] results, long[] touched, boolean readsIndex) {
+        if (_maxEntries <= 0 || p_version != _version) {
+            return;
+        }
+        SelectorCacheEntry previous = _byKey.get(key);
+        if (previous != null) {
+            internal_remove(previous);
+        }
+        int slot = internal_freeSlot();
+        SelectorCacheEntry entry = new SelectorCacheEntry(_nextId, key, results, touched, readsIndex);
+        _nextId++;
+        _ring[slot] = entry.id;
+        _byKey.put(key, entry);
+        _byId.put(entry.id, entry);
+        for (int i = 0; i < touched.length; i++) {
+            long[] previousEntries = _obj2Entries.get(touched[i]);
+            if (previousEntries == null) {
+                long[] newRec = new long[1];
+                newRec[0] = entry.id;
+                _obj2Entries.put(touched[i], newRec);
+            } else {
+                long[] newArrayRec = new long[previousEntries.length + 1];
+                System.arraycopy(previousEntries, 0, newArrayRec, 0, previousEntries.length);
+                newArrayRec[previousEntries.length] = entry.id;
+                _obj2Entries.put(touched[i], newArrayRec);
+            }
+        }
+    }
+
+    /**
+     * Drops every entry whose traversal visited the object p_uuid.
+     */
+    public synchronized void invalidate(long p_uuid) {
+        _version++;
+        long[] entries = _obj2Entries.get(p_uuid);
+        if (entries != null) {
+            for (int i = 0; i < entries.length; i++) {
+                SelectorCacheEntry entry = _byId.get(entries[i]);
+                if (entry != null) {
+                    internal_remove(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops every entry that resolved an index, their result depends on the whole index content.
+     */
+    public synchronized void invalidateIndexReaders() {
+        _version++;
+        for (int i = 0; i < _ring.length; i++) {
+            if (_ring[i] != KConfig.NULL_LONG) {
+                SelectorCacheEntry entry = _byId.get(_ring[i]);
+                if (entry != null && entry.readsIndex) {
+                    internal_remove(entry);
+                }
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        _version++;
+        _byKey.clear();
+        _byId.clear();
+        _obj2Entries.clear();
+        for (int i = 0; i < _ring.length; i++) {
+            _ring[i] = KConfig.NULL_LONG;
+        }
+    }
+
+    @Override
+    public synchronized int size() {
+        return _byId.size();
+    }
+
+    private int internal_freeSlot() {
+        while (true) {
+            long current = _ring[_hand];
+            if (current == KConfig.NULL_LONG) {
+                return internal_advance();
+            }
+            SelectorCacheEntry entry = _byId.get(current);
+            if (entry == null) {
+                _ring[_hand] = KConfig.NULL_LONG;
+                return internal_advance();
+            }
+            if (entry.referenced) {
+                entry.referenced = false;
+                internal_advance();
+            } else {
+                internal_remove(entry);
+                return internal_advance();
+            }
+        }
+    }
+
+    private int internal_advance() {
+        int current = _hand;
+        _hand = (_hand + 1) % _ring.length;
+        return current;
+    }
+
+    private void internal_remove(SelectorCacheEntry entry) {
+        _byKey.remove(entry.key);
+        _byId.remove(entry.id);
+        for (int i = 0; i < _ring.length; i++) {
+            if (_ring[i] == entry.id) {
+                _ring[i] = KConfig.NULL_LONG;
+                break;
+            }
+        }
+        for (int i = 0; i < entry.touched.length; i++) {
+            long[] registered = _obj2Entries.get(entry.touched[i]);
+            if (registered != null) {
+                int foundIndex = -1;
+                for (int j = 0; j < registered.length; j++) {
+                    if (registered[j] == entry.id) {
+                        foundIndex = j;
+                        break;
+                    }
+                }
+                if (foundIndex != -1) {
+                    if (registered.length == 1) {
+                        _obj2Entries.remove(entry.touched[i]);
+                    } else {
+                        long[] shrinked = new long[registered.length - 1];
+                        System.arraycopy(registered, 0, shrinked, 0, foundIndex);
+                        System.arraycopy(registered, foundIndex + 1, shrinked, foundIndex, registered.length - foundIndex - 1);
+                        _obj2Entries.put(entry.touched[i], shrinked);
+                    }
+                }
+            }
+        }
+    }
+
+}
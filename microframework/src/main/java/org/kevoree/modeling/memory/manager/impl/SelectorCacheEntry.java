@@ -0,0 +1,27 @@
+package org.kevoree.modeling.memory.manager.impl;
+
+public class SelectorCacheEntry {
+
+    public final long id;
+
+    public final String key;
+
+    public final long[] results;
+
+    public final long[] touched;
+
+    public final boolean readsIndex;
+
+    /* second chance bit of the clock eviction */
+    public boolean referenced;
+
+    public SelectorCacheEntry(long p_id, String p_key, long[] p_results, long[] p_touched, boolean p_readsIndex) {
+        this.id = p_id;
+        this.key = p_key;
+        this.results = p_results;
+        this.touched = p_touched;
+        this.readsIndex = p_readsIndex;
+        this.referenced = false;
+    }
+
+}
@@ -2,9 +2,11 @@ package org.kevoree.modeling.memory.manager.internal;
 
 import org.kevoree.modeling.*;
 import org.kevoree.modeling.cdn.KContentDeliveryDriver;
+import org.kevoree.modeling.index.KChangeLog;
 import org.kevoree.modeling.memory.KChunk;
 import org.kevoree.modeling.memory.chunk.KObjectChunk;
 import org.kevoree.modeling.memory.manager.KDataManager;
+import org.kevoree.modeling.memory.manager.KSelectorCache;
 import org.kevoree.modeling.memory.space.KChunkIterator;
 import org.kevoree.modeling.memory.space.KChunkSpace;
 import org.kevoree.modeling.meta.KMetaClass;
@@ -25,6 +27,11 @@ public interface KInternalDataManager extends KDataManager {
 
     KObjectChunk closestChunk(long universe, long time, long uuid, KMetaClass metaClass, AtomicReference<long[]> previousResolution);
 
+    /**
+     * lookup answered synchronously from the cache, null when a chunk of the object is not cached.
+     */
+    KObject lookupFromCache(long universe, long time, long uuid);
+
     void initKObject(KObject obj);
 
     void initUniverse(long universe, long parent);
@@ -33,6 +40,8 @@ public interface KInternalDataManager extends KDataManager {
 
     long nextObjectKey();
 
+    long nextIndexPageKey();
+
     long nextModelKey();
 
     void deleteUniverse(KUniverse universe, KCallback<Throwable> callback);
@@ -53,4 +62,26 @@ public interface KInternalDataManager extends KDataManager {
 
     void saveDirtyList(final KChunkIterator dirtyIterator, final KCallback<Throwable> callback);
 
+    /**
+     * Selector result cache, null unless enabled through DataManagerBuilder.withSelectorCache.
+     */
+    KSelectorCache selectorCache();
+
+    /**
+     * Time ordered log of changed objects, null unless enabled through DataManagerBuilder.withChangeLog.
+     */
+    KChangeLog changeLog();
+
+    /**
+     * Same as index, except that a named index created by this call is partitioned by key range instead of by key
+     * hash, for indexes read in key order.
+     */
+    void rangeIndex(long universe, long time, String indexName, boolean createIfAbsent, KCallback<KObjectIndex> callback);
+
+    /**
+     * Buffers the move of an object between two composite keys of a key index, written at the next save or at the
+     * next resolution of this index.
+     */
+    void updateKeyIndex(long universe, long time, String indexName, String previousKey, String newKey, long uuid);
+
 }
@@ -397,7 +397,7 @@ public class DistortedTimeResolver implements KResolver {
                                                 @Override
                                                 public void on(long key, long value) {
                                                     int currentIndex = (int) (value * 3);
-                                                    toLoadUniverseKeys[currentIndex] = value;
+                                                    toLoadUniverseKeys[currentIndex] = key;
                                                     toLoadUniverseKeys[currentIndex + 1] = KConfig.NULL_LONG;
                                                     toLoadUniverseKeys[currentIndex + 2] = uuid;
                                                 }
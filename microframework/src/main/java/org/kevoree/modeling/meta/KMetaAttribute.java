@@ -10,6 +10,11 @@ public interface KMetaAttribute extends KMeta {
 
     Extrapolation strategy();
 
+    /**
+     * Type the chunks store the values of this attribute as, given by its extrapolation.
+     */
+    int storageTypeId();
+
     double precision();
 
     void setExtrapolation(Extrapolation extrapolation);
@@ -18,4 +23,23 @@ public interface KMetaAttribute extends KMeta {
 
     void setKey(boolean key);
 
+    boolean ordered();
+
+    void setOrdered(boolean ordered);
+
+    boolean indexed();
+
+    void setIndexed(boolean indexed);
+
+    boolean searchable();
+
+    void setSearchable(boolean searchable);
+
+    /**
+     * Latitude and longitude attributes of the spatial index this attribute is a coordinate of, null if none.
+     */
+    KMetaAttribute[] spatialIndex();
+
+    void setSpatialIndex(KMetaAttribute[] coordinates);
+
 }
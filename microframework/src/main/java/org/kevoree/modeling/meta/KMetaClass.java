@@ -31,6 +31,11 @@ public interface KMetaClass extends KMeta {
 
     KMetaOperation addOperation(String operationName);
 
+    /**
+     * Declares a spatial index over two DOUBLE attributes holding degrees, maintained on every set of one of them.
+     */
+    void addSpatialIndex(KMetaAttribute latitude, KMetaAttribute longitude);
+
     KInferAlg inferAlg();
 
     KMetaDependencies dependencies();
@@ -1,6 +1,7 @@
 package org.kevoree.modeling.meta;
 
 import org.kevoree.modeling.traversal.KTraversal;
+import org.kevoree.modeling.util.maths.expression.KMathCompiledExpression;
 
 public interface KMetaInferInput extends KMeta {
 
@@ -8,4 +9,10 @@ public interface KMetaInferInput extends KMeta {
 
     KTraversal extractor();
 
+    /**
+     * Compiled expression of an extractor made of a single math expression on the dependency ("=expression"),
+     * evaluated for all samples at once without traversal, null for any other extractor.
+     */
+    KMathCompiledExpression compiledExtractor();
+
 }
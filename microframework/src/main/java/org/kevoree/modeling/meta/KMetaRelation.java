@@ -14,4 +14,12 @@ public interface KMetaRelation extends KMeta {
 
     void setMaxBound(int bound);
 
+    /**
+     * When set on a relation without declared opposite, the referring objects are kept in a reverse index
+     * instead of the hidden opposite of the referred objects, which are therefore not copied by incoming references.
+     */
+    boolean reverseIndexed();
+
+    void setReverseIndexed(boolean reverseIndexed);
+
 }
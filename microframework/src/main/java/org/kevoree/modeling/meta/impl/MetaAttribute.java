@@ -15,6 +15,14 @@ public class MetaAttribute implements KMetaAttribute {
 
     private boolean _key;
 
+    private boolean _ordered = false;
+
+    private boolean _indexed = false;
+
+    private boolean _searchable = false;
+
+    private KMetaAttribute[] _spatialIndex = null;
+
     private int _attributeTypeId;
 
     private Extrapolation _extrapolation;
@@ -54,6 +62,11 @@ public class MetaAttribute implements KMetaAttribute {
         return _extrapolation;
     }
 
+    @Override
+    public int storageTypeId() {
+        return _extrapolation.storageTypeId(this);
+    }
+
     @Override
     public void setExtrapolation(Extrapolation extrapolation) {
         this._extrapolation = extrapolation;
@@ -69,6 +82,46 @@ public class MetaAttribute implements KMetaAttribute {
         this._key = p_key;
     }
 
+    @Override
+    public boolean ordered() {
+        return _ordered;
+    }
+
+    @Override
+    public void setOrdered(boolean p_ordered) {
+        this._ordered = p_ordered;
+    }
+
+    @Override
+    public boolean indexed() {
+        return _indexed;
+    }
+
+    @Override
+    public void setIndexed(boolean p_indexed) {
+        this._indexed = p_indexed;
+    }
+
+    @Override
+    public boolean searchable() {
+        return _searchable;
+    }
+
+    @Override
+    public void setSearchable(boolean p_searchable) {
+        this._searchable = p_searchable;
+    }
+
+    @Override
+    public KMetaAttribute[] spatialIndex() {
+        return _spatialIndex;
+    }
+
+    @Override
+    public void setSpatialIndex(KMetaAttribute[] p_coordinates) {
+        this._spatialIndex = p_coordinates;
+    }
+
     public MetaAttribute(String p_name, int p_index, double p_precision, boolean p_key, int p_attributeTypeId, Extrapolation p_extrapolation) {
         this._name = p_name;
         this._index = p_index;
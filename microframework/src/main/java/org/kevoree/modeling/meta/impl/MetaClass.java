@@ -141,6 +141,18 @@ public class MetaClass implements KMetaClass {
         return tempAttribute;
     }
 
+    @Override
+    public void addSpatialIndex(KMetaAttribute latitude, KMetaAttribute longitude) {
+        if (latitude == null || longitude == null || latitude.attributeTypeId() != KPrimitiveTypes.DOUBLE_ID || longitude.attributeTypeId() != KPrimitiveTypes.DOUBLE_ID) {
+            throw new RuntimeException("Spatial index requires two DOUBLE attributes");
+        }
+        KMetaAttribute[] coordinates = new KMetaAttribute[2];
+        coordinates[0] = latitude;
+        coordinates[1] = longitude;
+        latitude.setSpatialIndex(coordinates);
+        longitude.setSpatialIndex(coordinates);
+    }
+
     @Override
     public KMetaRelation addRelation(String relationName, KMetaClass p_metaClass, String oppositeName) {
         return internal_addref(relationName, p_metaClass, oppositeName);
@@ -4,6 +4,9 @@ import org.kevoree.modeling.meta.KMetaInferInput;
 import org.kevoree.modeling.meta.MetaType;
 import org.kevoree.modeling.traversal.KTraversal;
 import org.kevoree.modeling.traversal.query.impl.QueryEngine;
+import org.kevoree.modeling.util.PrimitiveHelper;
+import org.kevoree.modeling.util.maths.expression.KMathCompiledExpression;
+import org.kevoree.modeling.util.maths.expression.impl.MathExpressionEngine;
 
 public class MetaInferInput implements KMetaInferInput {
 
@@ -40,6 +43,30 @@ public class MetaInferInput implements KMetaInferInput {
         return this._cachedTraversal;
     }
 
+    private KMathCompiledExpression _cachedExpression;
+
+    private boolean _expressionCompiled = false;
+
+    @Override
+    public KMathCompiledExpression compiledExtractor() {
+        if (_expressionCompiled) {
+            return this._cachedExpression;
+        } else {
+            return cacheExpression();
+        }
+    }
+
+    private synchronized KMathCompiledExpression cacheExpression() {
+        if (this._extractor != null) {
+            String query = this._extractor.trim();
+            if (PrimitiveHelper.startsWith(query, QueryEngine.VAL_SEP) && query.indexOf(QueryEngine.PIPE_SEP) == -1) {
+                this._cachedExpression = new MathExpressionEngine().parse(query.substring(1)).compile();
+            }
+        }
+        this._expressionCompiled = true;
+        return this._cachedExpression;
+    }
+
     @Override
     public int index() {
         return this._index;
@@ -19,6 +19,8 @@ public class MetaRelation implements KMetaRelation {
 
     private int _maxBound = -1;
 
+    private boolean _reverseIndexed = false;
+
     @Override
     public int referredMetaClassIndex() {
         return _referredMetaClassIndex;
@@ -62,6 +64,16 @@ public class MetaRelation implements KMetaRelation {
         this._maxBound = p_maxBound;
     }
 
+    @Override
+    public boolean reverseIndexed() {
+        return this._reverseIndexed;
+    }
+
+    @Override
+    public void setReverseIndexed(boolean p_reverseIndexed) {
+        this._reverseIndexed = p_reverseIndexed;
+    }
+
     public MetaRelation(String p_name, int p_index, boolean p_visible, int p_referredMetaClassIndex, String op_name, int p_originMetaClassIndex, int p_maxBound) {
         this._name = p_name;
         this._index = p_index;
@@ -26,6 +26,12 @@ public interface KTraversal {
 
     void map(KMetaAttribute attribute, KCallback<Object[]> cb);
 
+    void count(KCallback<Integer> cb);
+
+    void aggregate(KMetaAttribute attribute, KCallback<KTraversalAggregate> cb);
+
+    void groupBy(KMetaAttribute groupAttribute, KMetaAttribute attribute, KCallback<KTraversalGroups> cb);
+
     KTraversal collect(KMetaRelation metaReference, KTraversalFilter continueCondition);
 
     KTraversal traverseTime(long timeOffset, long steps, KTraversalFilter continueCondition);
@@ -34,6 +40,12 @@ public interface KTraversal {
 
     KTraversal traverseIndex(String indexName, String attributes);
 
+    KTraversal withinDistance(KMetaAttribute latitude, KMetaAttribute longitude, double lat, double lon, double meters);
+
+    KTraversal traverseChanges(long from, long to);
+
+    KTraversal traverseInbound(KMetaRelation metaRelation);
+
     void exec(KObject[] origins, KView view, KCallback<Object[]> callback);
 
 }
@@ -0,0 +1,22 @@
+package org.kevoree.modeling.traversal;
+
+public interface KTraversalAggregate {
+
+    int count();
+
+    double sum();
+
+    double min();
+
+    double max();
+
+    double mean();
+
+    double variance();
+
+    /**
+     * @param percent requested rank between 0 and 100 (50 is the median), linearly interpolated between values
+     */
+    double percentile(double percent);
+
+}
@@ -0,0 +1,11 @@
+package org.kevoree.modeling.traversal;
+
+public interface KTraversalGroups {
+
+    String[] groups();
+
+    KTraversalAggregate group(String groupName);
+
+    int size();
+
+}
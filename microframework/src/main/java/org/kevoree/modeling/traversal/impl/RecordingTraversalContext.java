@@ -0,0 +1,38 @@
+package org.kevoree.modeling.traversal.impl;
+
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.KView;
+import org.kevoree.modeling.memory.chunk.KLongSet;
+
+/**
+ * Traversal context that collects the uuids of every intermediate set of objects, which are the
+ * objects whose state the traversal depends on.
+ */
+public class RecordingTraversalContext extends TraversalContext {
+
+    private final KLongSet _touched;
+
+    public RecordingTraversalContext(KObject[] p_inputs, KView p_view, KCallback<Object[]> p_finalCallback, KLongSet p_touched) {
+        super(p_inputs, p_view, p_finalCallback);
+        this._touched = p_touched;
+        record(p_inputs);
+    }
+
+    @Override
+    public void setInputObjects(KObject[] p_newSet) {
+        record(p_newSet);
+        super.setInputObjects(p_newSet);
+    }
+
+    private void record(KObject[] p_objects) {
+        if (p_objects != null) {
+            for (int i = 0; i < p_objects.length; i++) {
+                if (p_objects[i] != null) {
+                    _touched.add(p_objects[i].uuid());
+                }
+            }
+        }
+    }
+
+}
@@ -7,7 +7,9 @@ import org.kevoree.modeling.meta.KMetaAttribute;
 import org.kevoree.modeling.meta.KMetaRelation;
 import org.kevoree.modeling.traversal.KTraversal;
 import org.kevoree.modeling.traversal.KTraversalAction;
+import org.kevoree.modeling.traversal.KTraversalAggregate;
 import org.kevoree.modeling.traversal.KTraversalFilter;
+import org.kevoree.modeling.traversal.KTraversalGroups;
 import org.kevoree.modeling.traversal.impl.actions.*;
 
 public class Traversal implements KTraversal {
@@ -84,6 +86,21 @@ public class Traversal implements KTraversal {
         return internal_chain_action(new TraverseIndexAction(p_indexName, p_attributes));
     }
 
+    @Override
+    public KTraversal withinDistance(KMetaAttribute p_latitude, KMetaAttribute p_longitude, double p_lat, double p_lon, double p_meters) {
+        return internal_chain_action(new FilterSpatialAction(p_latitude, p_longitude, p_lat, p_lon, p_meters));
+    }
+
+    @Override
+    public KTraversal traverseChanges(long p_from, long p_to) {
+        return internal_chain_action(new TraverseChangesAction(p_from, p_to));
+    }
+
+    @Override
+    public KTraversal traverseInbound(KMetaRelation p_metaRelation) {
+        return internal_chain_action(new TraverseInboundAction(p_metaRelation));
+    }
+
     @Override
     public KTraversal traverseTime(long timeOffset, long steps, KTraversalFilter continueCondition) {
         throw new RuntimeException("Not Implemented Yet!");
@@ -131,6 +148,46 @@ public class Traversal implements KTraversal {
         }
     }
 
+    @Override
+    public void count(KCallback<Integer> cb) {
+        internal_aggregate(new AggregateAction(null, null, false), new KCallback<Object[]>() {
+            @Override
+            public void on(Object[] result) {
+                cb.on(((KTraversalAggregate) result[0]).count());
+            }
+        });
+    }
+
+    @Override
+    public void aggregate(KMetaAttribute attribute, KCallback<KTraversalAggregate> cb) {
+        internal_aggregate(new AggregateAction(attribute, null, true), new KCallback<Object[]>() {
+            @Override
+            public void on(Object[] result) {
+                cb.on((KTraversalAggregate) result[0]);
+            }
+        });
+    }
+
+    @Override
+    public void groupBy(KMetaAttribute groupAttribute, KMetaAttribute attribute, KCallback<KTraversalGroups> cb) {
+        internal_aggregate(new AggregateAction(attribute, groupAttribute, true), new KCallback<Object[]>() {
+            @Override
+            public void on(Object[] result) {
+                cb.on((KTraversalGroups) result[0]);
+            }
+        });
+    }
+
+    private void internal_aggregate(AggregateAction p_action, KCallback<Object[]> p_callback) {
+        //setPrimitiveType the terminal leaf action
+        internal_chain_action(p_action);
+        _terminated = true;
+        //execute the first element of the chain of actions
+        if (_initObjs != null) {
+            _initAction.execute(new TraversalContext(_initObjs, _baseView, p_callback));
+        }
+    }
+
     @Override
     public void exec(KObject[] origins, KView review, KCallback<Object[]> callback) {
         if (this._initObjs == null) {
@@ -138,5 +195,11 @@ public class Traversal implements KTraversal {
         }
     }
 
+    public void execContext(TraversalContext p_context) {
+        if (this._initObjs == null) {
+            _initAction.execute(p_context);
+        }
+    }
+
 
 }
@@ -0,0 +1,162 @@
+package org.kevoree.modeling.traversal.impl.actions;
+
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.abs.AbstractKObject;
+import org.kevoree.modeling.meta.KLiteral;
+import org.kevoree.modeling.meta.KMetaAttribute;
+import org.kevoree.modeling.meta.KMetaEnum;
+import org.kevoree.modeling.meta.KPrimitiveTypes;
+import org.kevoree.modeling.scheduler.KTask;
+import org.kevoree.modeling.traversal.KTraversalAction;
+import org.kevoree.modeling.traversal.KTraversalActionContext;
+import org.kevoree.modeling.traversal.impl.aggregate.Aggregate;
+import org.kevoree.modeling.traversal.impl.aggregate.Groups;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Terminal action computing aggregates over unboxed attribute values.
+ * Inputs are split in slices, each slice is aggregated by a scheduler task and partial results are merged at the end.
+ * A null attribute means counting objects, a non null group attribute splits the aggregates by its values.
+ */
+public class AggregateAction implements KTraversalAction {
+
+    public static final int SLICE_SIZE = 4096;
+
+    private static final String NULL_GROUP = "null";
+
+    private final KMetaAttribute _attribute;
+
+    private final KMetaAttribute _groupAttribute;
+
+    private final boolean _keepValues;
+
+    public AggregateAction(KMetaAttribute p_attribute, KMetaAttribute p_groupAttribute, boolean p_keepValues) {
+        this._attribute = p_attribute;
+        this._groupAttribute = p_groupAttribute;
+        this._keepValues = p_keepValues;
+    }
+
+    @Override
+    public void chain(KTraversalAction next) {
+        //terminal leaf action
+    }
+
+    @Override
+    public void execute(final KTraversalActionContext context) {
+        final KObject[] inputs = context.inputObjects();
+        if (inputs == null || inputs.length == 0) {
+            finish(context, new Object[0]);
+            return;
+        }
+        AbstractKObject first = null;
+        for (int i = 0; i < inputs.length && first == null; i++) {
+            first = (AbstractKObject) inputs[i];
+        }
+        if (first == null) {
+            finish(context, new Object[0]);
+            return;
+        }
+        final int nbSlices = (inputs.length + SLICE_SIZE - 1) / SLICE_SIZE;
+        final Object[] partials = new Object[nbSlices];
+        if (nbSlices == 1) {
+            partials[0] = aggregateSlice(inputs, 0, inputs.length);
+            finish(context, partials);
+            return;
+        }
+        final AtomicInteger remaining = new AtomicInteger(nbSlices);
+        for (int i = 0; i < nbSlices; i++) {
+            final int sliceIndex = i;
+            first._manager.scheduler().dispatch(new KTask() {
+                @Override
+                public void run() {
+                    int from = sliceIndex * SLICE_SIZE;
+                    int to = from + SLICE_SIZE;
+                    if (to > inputs.length) {
+                        to = inputs.length;
+                    }
+                    partials[sliceIndex] = aggregateSlice(inputs, from, to);
+                    if (remaining.decrementAndGet() == 0) {
+                        finish(context, partials);
+                    }
+                }
+            });
+        }
+    }
+
+    private void finish(KTraversalActionContext context, Object[] partials) {
+        Object result;
+        if (_groupAttribute != null) {
+            Groups merged = new Groups(_keepValues);
+            for (int i = 0; i < partials.length; i++) {
+                merged.merge((Groups) partials[i]);
+            }
+            result = merged;
+        } else {
+            Aggregate merged = new Aggregate(_keepValues);
+            for (int i = 0; i < partials.length; i++) {
+                merged.merge((Aggregate) partials[i]);
+            }
+            result = merged;
+        }
+        if (context.finalCallback() != null) {
+            context.finalCallback().on(new Object[]{result});
+        }
+    }
+
+    private Object aggregateSlice(KObject[] inputs, int from, int to) {
+        Groups groups = null;
+        Aggregate aggregate = null;
+        if (_groupAttribute != null) {
+            groups = new Groups(_keepValues);
+        } else {
+            aggregate = new Aggregate(_keepValues);
+        }
+        for (int i = from; i < to; i++) {
+            AbstractKObject loopObj = (AbstractKObject) inputs[i];
+            if (loopObj != null) {
+                Aggregate target = aggregate;
+                if (groups != null) {
+                    target = groups.getOrCreate(groupName(loopObj));
+                }
+                if (_attribute == null) {
+                    target.add(1);
+                } else {
+                    KMetaAttribute transposed = loopObj.internal_transpose_att(_attribute);
+                    if (transposed != null) {
+                        target.add(loopObj.internal_get_double(transposed));
+                    }
+                }
+            }
+        }
+        if (groups != null) {
+            return groups;
+        }
+        return aggregate;
+    }
+
+    private String groupName(AbstractKObject loopObj) {
+        KMetaAttribute transposed = loopObj.internal_transpose_att(_groupAttribute);
+        if (transposed == null) {
+            return NULL_GROUP;
+        }
+        if (KPrimitiveTypes.isEnum(transposed.attributeTypeId())) {
+            double ordinal = loopObj.internal_get_double(transposed);
+            if (ordinal != ordinal) {
+                return NULL_GROUP;
+            }
+            KMetaEnum metaEnum = loopObj._manager.model().metaModel().metaTypes()[transposed.attributeTypeId()];
+            KLiteral literal = metaEnum.literal((int) ordinal);
+            if (literal == null) {
+                return NULL_GROUP;
+            }
+            return literal.metaName();
+        }
+        Object value = loopObj.get(transposed);
+        if (value == null) {
+            return NULL_GROUP;
+        }
+        return value.toString();
+    }
+
+}
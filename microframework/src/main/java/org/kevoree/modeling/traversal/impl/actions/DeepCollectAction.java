@@ -4,12 +4,8 @@ import org.kevoree.modeling.KCallback;
 import org.kevoree.modeling.KConfig;
 import org.kevoree.modeling.KObject;
 import org.kevoree.modeling.abs.AbstractKObject;
-import org.kevoree.modeling.memory.chunk.KLongLongMap;
+import org.kevoree.modeling.memory.chunk.KLongSet;
 import org.kevoree.modeling.memory.chunk.KObjectChunk;
-import org.kevoree.modeling.memory.chunk.impl.ArrayLongMap;
-import org.kevoree.modeling.memory.chunk.KLongMapCallBack;
-import org.kevoree.modeling.memory.chunk.impl.ArrayLongLongMap;
-import org.kevoree.modeling.memory.chunk.KLongLongMapCallBack;
 import org.kevoree.modeling.meta.KMeta;
 import org.kevoree.modeling.meta.KMetaRelation;
 import org.kevoree.modeling.meta.MetaType;
@@ -35,9 +31,11 @@ public class DeepCollectAction implements KTraversalAction {
         _next = p_next;
     }
 
-    private ArrayLongMap<KObject> _alreadyPassed = null;
+    private KLongSet _alreadyPassed = null;
 
-    private ArrayLongMap<KObject> _finalElements = null;
+    private KObject[] _finalElements = null;
+
+    private int _finalSize = 0;
 
     @Override
     public void execute(KTraversalActionContext context) {
@@ -48,13 +46,15 @@ public class DeepCollectAction implements KTraversalAction {
                 context.finalCallback().on(context.inputObjects());
             }
         } else {
-            _alreadyPassed = new ArrayLongMap<KObject>(KConfig.CACHE_INIT_SIZE, KConfig.CACHE_LOAD_FACTOR);
-            _finalElements = new ArrayLongMap<KObject>(KConfig.CACHE_INIT_SIZE, KConfig.CACHE_LOAD_FACTOR);
+            //the visited set grows with the whole traversal
+            _alreadyPassed = TraverseAction.uuidSet(TraverseAction.DENSE_SIZE);
+            _finalElements = new KObject[KConfig.CACHE_INIT_SIZE];
+            _finalSize = 0;
             KObject[] filtered_inputs = new KObject[context.inputObjects().length];
             for (int i = 0; i < context.inputObjects().length; i++) {
                 if (_continueCondition == null || _continueCondition.filter(context.inputObjects()[i])) {
                     filtered_inputs[i] = context.inputObjects()[i];
-                    _alreadyPassed.put(context.inputObjects()[i].uuid(), context.inputObjects()[i]);
+                    _alreadyPassed.add(context.inputObjects()[i].uuid());
                 }
             }
             final KCallback<KObject[]>[] iterationCallbacks = new KCallback[1];
@@ -64,25 +64,19 @@ public class DeepCollectAction implements KTraversalAction {
                     KObject[] filtered_inputs2 = new KObject[traversed.length];
                     int nbSize = 0;
                     for (int i = 0; i < traversed.length; i++) {
-                        if ((_continueCondition == null || _continueCondition.filter(traversed[i])) && !_alreadyPassed.contains(traversed[i].uuid())) {
+                        if (traversed[i] != null && (_continueCondition == null || _continueCondition.filter(traversed[i])) && _alreadyPassed.add(traversed[i].uuid())) {
                             filtered_inputs2[i] = traversed[i];
-                            _alreadyPassed.put(traversed[i].uuid(), traversed[i]);
-                            _finalElements.put(traversed[i].uuid(), traversed[i]);
+                            appendFinal(traversed[i]);
                             nbSize++;
                         }
                     }
                     if (nbSize > 0) {
                         executeStep(filtered_inputs2, iterationCallbacks[0]);
                     } else {
-                        KObject[] trimmed = new KObject[_finalElements.size()];
-                        final int[] nbInserted = {0};
-                        _finalElements.each(new KLongMapCallBack<KObject>() {
-                            @Override
-                            public void on(long key, KObject value) {
-                                trimmed[nbInserted[0]] = value;
-                                nbInserted[0]++;
-                            }
-                        });
+                        KObject[] trimmed = new KObject[_finalSize];
+                        System.arraycopy(_finalElements, 0, trimmed, 0, _finalSize);
+                        _finalElements = null;
+                        _alreadyPassed = null;
                         if (_next == null) {
                             context.finalCallback().on(trimmed);
                         } else {
@@ -96,9 +90,19 @@ public class DeepCollectAction implements KTraversalAction {
         }
     }
 
+    private void appendFinal(KObject p_element) {
+        if (_finalSize == _finalElements.length) {
+            KObject[] extended = new KObject[_finalElements.length * 2];
+            System.arraycopy(_finalElements, 0, extended, 0, _finalSize);
+            _finalElements = extended;
+        }
+        _finalElements[_finalSize] = p_element;
+        _finalSize++;
+    }
+
     private void executeStep(KObject[] p_inputStep, KCallback<KObject[]> private_callback) {
         AbstractKObject currentObject = null;
-        KLongLongMap nextIds = new ArrayLongLongMap(-1,-1,-1,null);
+        KLongSet nextIds = TraverseAction.uuidSet(p_inputStep.length);
         for (int i = 0; i < p_inputStep.length; i++) {
             if (p_inputStep[i] != null) {
                 try {
@@ -113,7 +117,9 @@ public class DeepCollectAction implements KTraversalAction {
                                     long[] resolved = raw.getLongArray(metaElements[j].index(), loopObj.metaClass());
                                     if (resolved != null) {
                                         for (int k = 0; k < resolved.length; k++) {
-                                            nextIds.put(resolved[k], resolved[k]);
+                                            if (!_alreadyPassed.contains(resolved[k])) {
+                                                nextIds.add(resolved[k]);
+                                            }
                                         }
                                     }
                                 }
@@ -124,7 +130,9 @@ public class DeepCollectAction implements KTraversalAction {
                                 long[] resolved = raw.getLongArray(translatedRef.index(), loopObj.metaClass());
                                 if (resolved != null) {
                                     for (int j = 0; j < resolved.length; j++) {
-                                        nextIds.put(resolved[j], resolved[j]);
+                                        if (!_alreadyPassed.contains(resolved[j])) {
+                                            nextIds.add(resolved[j]);
+                                        }
                                     }
                                 }
                             }
@@ -135,15 +143,7 @@ public class DeepCollectAction implements KTraversalAction {
                 }
             }
         }
-        final long[] trimmed = new long[nextIds.size()];
-        final int[] inserted = {0};
-        nextIds.each(new KLongLongMapCallBack() {
-            @Override
-            public void on(long key, long value) {
-                trimmed[inserted[0]] = key;
-                inserted[0]++;
-            }
-        });
+        final long[] trimmed = nextIds.toArray();
         //call
         currentObject._manager.lookupAllObjects(currentObject.universe(), currentObject.now(), trimmed, new KCallback<KObject[]>() {
             @Override
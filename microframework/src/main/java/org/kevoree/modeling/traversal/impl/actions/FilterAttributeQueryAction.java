@@ -1,12 +1,17 @@
 package org.kevoree.modeling.traversal.impl.actions;
 
+import org.kevoree.modeling.KCallback;
 import org.kevoree.modeling.KConfig;
 import org.kevoree.modeling.KObject;
 import org.kevoree.modeling.abs.AbstractKObject;
-import org.kevoree.modeling.memory.chunk.KStringMapCallBack;
-import org.kevoree.modeling.memory.chunk.impl.ArrayStringMap;
+import org.kevoree.modeling.index.impl.TextIndex;
+import org.kevoree.modeling.memory.chunk.KLongSet;
+import org.kevoree.modeling.memory.chunk.impl.ArrayLongSet;
+import org.kevoree.modeling.meta.KLiteral;
 import org.kevoree.modeling.meta.KMeta;
 import org.kevoree.modeling.meta.KMetaAttribute;
+import org.kevoree.modeling.meta.KMetaClass;
+import org.kevoree.modeling.meta.KMetaModel;
 import org.kevoree.modeling.meta.impl.MetaAttribute;
 import org.kevoree.modeling.traversal.KTraversalAction;
 import org.kevoree.modeling.traversal.KTraversalActionContext;
@@ -14,10 +19,15 @@ import org.kevoree.modeling.util.PrimitiveHelper;
 
 public class FilterAttributeQueryAction implements KTraversalAction {
 
+    /* minimal number of inputs before secondary indexes are preferred to reading every object */
+    public static final int INDEX_THRESHOLD = 64;
+
     private KTraversalAction _next;
 
     private String _attributeQuery;
 
+    private QueryParam[] _params = null;
+
     public FilterAttributeQueryAction(String p_attributeQuery) {
         this._attributeQuery = p_attributeQuery;
     }
@@ -36,144 +46,148 @@ public class FilterAttributeQueryAction implements KTraversalAction {
                 context.finalCallback().on(context.inputObjects());
             }
         } else {
-            boolean[] selectedIndexes = new boolean[context.inputObjects().length];
-            int nbSelected = 0;
-            for (int i = 0; i < context.inputObjects().length; i++) {
-                try {
-                    AbstractKObject loopObj = (AbstractKObject) context.inputObjects()[i];
-                    if (_attributeQuery == null) {
-                        selectedIndexes[i] = true;
-                        nbSelected++;
-                    } else {
-                        KMeta[] metaElements = loopObj.metaClass().metaElements();
-                        ArrayStringMap<QueryParam> params = buildParams(_attributeQuery);
-                        final boolean[] selectedForNext = {true};
-                        params.each(new KStringMapCallBack<QueryParam>() {
-                            @Override
-                            public void on(String key, QueryParam param) {
-                                for (int j = 0; j < metaElements.length; j++) {
-                                    if (metaElements[j] instanceof MetaAttribute) {
-                                        KMetaAttribute metaAttribute = (KMetaAttribute) metaElements[j];
-                                        if (PrimitiveHelper.matches(metaAttribute.metaName(), "^" + param.name() + "$")) {
-                                            Object o_raw = loopObj.get(metaAttribute);
-                                            if (o_raw != null) {
-                                                if (PrimitiveHelper.equals(param.value(), "null")) {
-                                                    if (!param.isNegative()) {
-                                                        selectedForNext[0] = false;
-                                                    }
-                                                } else if (PrimitiveHelper.matches(o_raw.toString(), "^" + param.value() + "$")) {
-                                                    if (param.isNegative()) {
-                                                        selectedForNext[0] = false;
-                                                    }
-                                                } else {
-                                                    if (!param.isNegative()) {
-                                                        selectedForNext[0] = false;
-                                                    }
-                                                }
-                                            } else {
-                                                if (PrimitiveHelper.equals(param.value(),"null") || PrimitiveHelper.equals(param.value(),"*")) {
-                                                    if (param.isNegative()) {
-                                                        selectedForNext[0] = false;
-                                                    }
-                                                }
-                                            }
-                                        }
-                                    }
-                                }
-                            }
-                        });
-                        if (selectedForNext[0]) {
-                            selectedIndexes[i] = true;
-                            nbSelected++;
+            params();
+            final boolean[] applied = indexedParams(context.inputObjects());
+            if (applied == null) {
+                filter(context, null, null);
+            } else {
+                final KObject first = context.inputObjects()[0];
+                QueryIndexResolver.resolve(((AbstractKObject) first)._manager.model(), first.metaClass(), first.universe(), first.now(), _params, applied, new KCallback<long[]>() {
+                    @Override
+                    public void on(long[] selected) {
+                        KLongSet allowed = new ArrayLongSet(KConfig.CACHE_INIT_SIZE, KConfig.CACHE_LOAD_FACTOR);
+                        for (int i = 0; i < selected.length; i++) {
+                            allowed.add(selected[i]);
                         }
+                        filter(context, applied, allowed);
                     }
-
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
-            }
-            KObject[] nextStepElement = new KObject[nbSelected];
-            int inserted = 0;
-            for (int i = 0; i < context.inputObjects().length; i++) {
-                if (selectedIndexes[i]) {
-                    nextStepElement[inserted] = context.inputObjects()[i];
-                    inserted++;
-                }
-            }
-            if (_next == null) {
-                context.finalCallback().on(nextStepElement);
-            } else {
-                context.setInputObjects(nextStepElement);
-                _next.execute(context);
+                });
             }
         }
     }
 
-    private ArrayStringMap<QueryParam> buildParams(String p_paramString) {
-        ArrayStringMap<QueryParam> params = new ArrayStringMap<QueryParam>(KConfig.CACHE_INIT_SIZE, KConfig.CACHE_LOAD_FACTOR);
-        int iParam = 0;
-        int lastStart = iParam;
-        while (iParam < p_paramString.length()) {
-            if (p_paramString.charAt(iParam) == ',') {
-                String p = p_paramString.substring(lastStart, iParam).trim();
-                if (!PrimitiveHelper.equals(p,"") && !PrimitiveHelper.equals(p,"*")) {
-                    if (PrimitiveHelper.endsWith(p, "=")) {
-                        p = p + "*";
-                    }
-                    String[] pArray = p.split("=");
-                    QueryParam pObject;
-                    if (pArray.length > 1) {
-                        String paramKey = pArray[0].trim();
-                        boolean negative = PrimitiveHelper.endsWith(paramKey, "!");
-                        pObject = new QueryParam(paramKey.replace("!", "").replace("*", ".*"), pArray[1].trim().replace("*", ".*"), negative);
-                        params.put(pObject.name(), pObject);
-                    }
-                }
-                lastStart = iParam + 1;
-            }
-            iParam = iParam + 1;
+    QueryParam[] params() {
+        if (_attributeQuery != null && _params == null) {
+            _params = QueryParam.build(_attributeQuery);
         }
-        String lastParam = p_paramString.substring(lastStart, iParam).trim();
-        if (!PrimitiveHelper.equals(lastParam,"") && !PrimitiveHelper.equals(lastParam,"*")) {
-            if (PrimitiveHelper.endsWith(lastParam, "=")) {
-                lastParam = lastParam + "*";
-            }
-            String[] pArray = lastParam.split("=");
-            QueryParam pObject;
-            if (pArray.length > 1) {
-                String paramKey = pArray[0].trim();
-                boolean negative = PrimitiveHelper.endsWith(paramKey, "!");
-                pObject = new QueryParam(paramKey.replace("!", "").replace("*", ".*"), pArray[1].trim().replace("*", ".*"), negative);
-                params.put(pObject.name(), pObject);
-            }
-        }
-        return params;
+        return _params;
     }
 
-    private class QueryParam {
-
-        private String _name;
-        private String _value;
-        private boolean _negative;
+    /**
+     * Filters inputs already selected through indexes, the p_applied constraints are not evaluated again.
+     */
+    void executeIndexed(KTraversalActionContext context, boolean[] p_applied) {
+        params();
+        filter(context, p_applied, null);
+    }
 
-        public QueryParam(String p_name, String p_value, boolean p_negative) {
-            this._name = p_name;
-            this._value = p_value;
-            this._negative = p_negative;
+    /**
+     * Flags the constraints answerable by secondary indexes, only when inputs are numerous and share the same class, universe and time.
+     */
+    private boolean[] indexedParams(KObject[] inputs) {
+        if (_params == null || inputs.length < INDEX_THRESHOLD || inputs[0] == null) {
+            return null;
         }
-
-        public String name() {
-            return _name;
+        KMetaClass metaClass = inputs[0].metaClass();
+        long universe = inputs[0].universe();
+        long time = inputs[0].now();
+        for (int i = 1; i < inputs.length; i++) {
+            if (inputs[i] == null || inputs[i].metaClass() != metaClass || inputs[i].universe() != universe || inputs[i].now() != time) {
+                return null;
+            }
         }
+        return QueryIndexResolver.applicable(metaClass, _params, ((AbstractKObject) inputs[0])._manager.model().metaModel());
+    }
 
-        public String value() {
-            return _value;
+    /**
+     * Text matched by equalities, the name of enum literals.
+     */
+    private static String text(Object raw) {
+        if (raw instanceof KLiteral) {
+            return ((KLiteral) raw).metaName();
         }
+        return raw.toString();
+    }
 
-        public boolean isNegative() {
-            return _negative;
+    private void filter(KTraversalActionContext context, boolean[] applied, KLongSet allowed) {
+        boolean[] selectedIndexes = new boolean[context.inputObjects().length];
+        int nbSelected = 0;
+        for (int i = 0; i < context.inputObjects().length; i++) {
+            try {
+                AbstractKObject loopObj = (AbstractKObject) context.inputObjects()[i];
+                if (_attributeQuery == null) {
+                    selectedIndexes[i] = true;
+                    nbSelected++;
+                } else if (allowed == null || allowed.contains(loopObj.uuid())) {
+                    KMeta[] metaElements = loopObj.metaClass().metaElements();
+                    KMetaModel metaModel = loopObj._manager.model().metaModel();
+                    boolean selectedForNext = true;
+                    for (int p = 0; p < _params.length && selectedForNext; p++) {
+                        QueryParam param = _params[p];
+                        if (applied != null && applied[p]) {
+                            continue;
+                        }
+                        for (int j = 0; j < metaElements.length; j++) {
+                            if (metaElements[j] instanceof MetaAttribute) {
+                                KMetaAttribute metaAttribute = (KMetaAttribute) metaElements[j];
+                                if (PrimitiveHelper.matches(metaAttribute.metaName(), "^" + param.name() + "$")) {
+                                    Object o_raw = loopObj.get(metaAttribute);
+                                    if (param.operator() == QueryParam.MATCHES) {
+                                        if (o_raw == null || !TextIndex.matches(param.value(), o_raw.toString())) {
+                                            selectedForNext = false;
+                                        }
+                                    } else if (param.operator() != QueryParam.EQUALS) {
+                                        if (o_raw == null || !param.compare(metaAttribute, o_raw, metaModel)) {
+                                            selectedForNext = false;
+                                        }
+                                    } else if (o_raw != null) {
+                                        if (PrimitiveHelper.equals(param.value(), "null")) {
+                                            if (!param.isNegative()) {
+                                                selectedForNext = false;
+                                            }
+                                        } else if (PrimitiveHelper.matches(text(o_raw), "^" + param.value() + "$")) {
+                                            if (param.isNegative()) {
+                                                selectedForNext = false;
+                                            }
+                                        } else {
+                                            if (!param.isNegative()) {
+                                                selectedForNext = false;
+                                            }
+                                        }
+                                    } else {
+                                        if (PrimitiveHelper.equals(param.value(), "null") || PrimitiveHelper.equals(param.value(), "*")) {
+                                            if (param.isNegative()) {
+                                                selectedForNext = false;
+                                            }
+                                        }
+                                    }
+                                }
+                            }
+                        }
+                    }
+                    if (selectedForNext) {
+                        selectedIndexes[i] = true;
+                        nbSelected++;
+                    }
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        KObject[] nextStepElement = new KObject[nbSelected];
+        int inserted = 0;
+        for (int i = 0; i < context.inputObjects().length; i++) {
+            if (selectedIndexes[i]) {
+                nextStepElement[inserted] = context.inputObjects()[i];
+                inserted++;
+            }
+        }
+        if (_next == null) {
+            context.finalCallback().on(nextStepElement);
+        } else {
+            context.setInputObjects(nextStepElement);
+            _next.execute(context);
         }
-
     }
 
 }
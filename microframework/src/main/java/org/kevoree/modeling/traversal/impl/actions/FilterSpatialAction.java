@@ -0,0 +1,137 @@
+package org.kevoree.modeling.traversal.impl.actions;
+
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KConfig;
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.abs.AbstractKObject;
+import org.kevoree.modeling.index.KSpatialIndex;
+import org.kevoree.modeling.index.impl.SpatialIndex;
+import org.kevoree.modeling.memory.chunk.KLongSet;
+import org.kevoree.modeling.memory.chunk.KObjectChunk;
+import org.kevoree.modeling.memory.chunk.impl.ArrayLongSet;
+import org.kevoree.modeling.meta.KMetaAttribute;
+import org.kevoree.modeling.meta.KMetaClass;
+import org.kevoree.modeling.traversal.KTraversalAction;
+import org.kevoree.modeling.traversal.KTraversalActionContext;
+
+/**
+ * Keeps the objects located at most a given distance away from a point.
+ * Numerous inputs of one class, universe and time whose coordinates are spatially indexed are answered by the spatial index,
+ * other inputs are filtered by reading their coordinates.
+ */
+public class FilterSpatialAction implements KTraversalAction {
+
+    private KTraversalAction _next;
+
+    private final KMetaAttribute _latitude;
+
+    private final KMetaAttribute _longitude;
+
+    private final double _lat;
+
+    private final double _lon;
+
+    private final double _meters;
+
+    public FilterSpatialAction(KMetaAttribute p_latitude, KMetaAttribute p_longitude, double p_lat, double p_lon, double p_meters) {
+        this._latitude = p_latitude;
+        this._longitude = p_longitude;
+        this._lat = p_lat;
+        this._lon = p_lon;
+        this._meters = p_meters;
+    }
+
+    @Override
+    public void chain(KTraversalAction p_next) {
+        _next = p_next;
+    }
+
+    @Override
+    public void execute(KTraversalActionContext context) {
+        if (context.inputObjects() == null || context.inputObjects().length == 0) {
+            if (_next != null) {
+                _next.execute(context);
+            } else {
+                context.finalCallback().on(context.inputObjects());
+            }
+        } else if (indexable(context.inputObjects())) {
+            final KObject first = context.inputObjects()[0];
+            ((AbstractKObject) first)._manager.model().spatialIndex(first.metaClass(), _latitude, first.universe(), first.now(), new KCallback<KSpatialIndex>() {
+                @Override
+                public void on(KSpatialIndex index) {
+                    long[] selected = index.radius(_lat, _lon, _meters);
+                    KLongSet allowed = new ArrayLongSet(KConfig.CACHE_INIT_SIZE, KConfig.CACHE_LOAD_FACTOR);
+                    for (int i = 0; i < selected.length; i++) {
+                        allowed.add(selected[i]);
+                    }
+                    filter(context, allowed);
+                }
+            });
+        } else {
+            filter(context, null);
+        }
+    }
+
+    private boolean indexable(KObject[] inputs) {
+        KMetaAttribute[] coordinates = _latitude.spatialIndex();
+        if (coordinates == null || coordinates[0] != _latitude || coordinates[1] != _longitude || inputs.length < FilterAttributeQueryAction.INDEX_THRESHOLD || inputs[0] == null) {
+            return false;
+        }
+        KMetaClass metaClass = inputs[0].metaClass();
+        if (metaClass.attribute(_latitude.metaName()) != _latitude) {
+            return false;
+        }
+        for (int i = 1; i < inputs.length; i++) {
+            if (inputs[i] == null || inputs[i].metaClass() != metaClass || inputs[i].universe() != inputs[0].universe() || inputs[i].now() != inputs[0].now()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void filter(KTraversalActionContext context, KLongSet allowed) {
+        boolean[] selectedIndexes = new boolean[context.inputObjects().length];
+        int nbSelected = 0;
+        for (int i = 0; i < context.inputObjects().length; i++) {
+            AbstractKObject loopObj = (AbstractKObject) context.inputObjects()[i];
+            if (loopObj == null) {
+                continue;
+            }
+            boolean selected;
+            if (allowed != null) {
+                selected = allowed.contains(loopObj.uuid());
+            } else {
+                selected = false;
+                KMetaAttribute latitude = loopObj.internal_transpose_att(_latitude);
+                KMetaAttribute longitude = loopObj.internal_transpose_att(_longitude);
+                if (latitude != null && longitude != null) {
+                    KObjectChunk raw = loopObj._manager.closestChunk(loopObj.universe(), loopObj.now(), loopObj.uuid(), loopObj.metaClass(), loopObj.previousResolved());
+                    if (raw != null) {
+                        Object lat = raw.getPrimitiveType(latitude.index(), loopObj.metaClass());
+                        Object lon = raw.getPrimitiveType(longitude.index(), loopObj.metaClass());
+                        selected = lat != null && lon != null && SpatialIndex.distance(_lat, _lon, (double) lat, (double) lon) <= _meters;
+                    }
+                }
+            }
+            if (selected) {
+                selectedIndexes[i] = true;
+                nbSelected++;
+            }
+        }
+        KObject[] nextStepElement = new KObject[nbSelected];
+        int inserted = 0;
+        for (int i = 0; i < context.inputObjects().length; i++) {
+            if (selectedIndexes[i]) {
+                nextStepElement[inserted] = context.inputObjects()[i];
+                inserted++;
+            }
+        }
+        if (_next == null) {
+            context.finalCallback().on(nextStepElement);
+        } else {
+            context.setInputObjects(nextStepElement);
+            _next.execute(context);
+        }
+    }
+
+}
@@ -2,19 +2,19 @@ package org.kevoree.modeling.traversal.impl.actions;
 
 import org.kevoree.modeling.traversal.KTraversalAction;
 import org.kevoree.modeling.traversal.KTraversalActionContext;
-import org.kevoree.modeling.util.maths.expression.KMathExpressionEngine;
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.util.maths.expression.KMathCompiledExpression;
 import org.kevoree.modeling.util.maths.expression.impl.MathExpressionEngine;
 
 public class MathExpressionAction implements KTraversalAction {
 
     private String _expression;
 
-    private KMathExpressionEngine _engine;
+    private KMathCompiledExpression _compiled;
 
     public MathExpressionAction(String p_expression) {
         this._expression = p_expression;
-        this._engine = new MathExpressionEngine();
-        this._engine.parse(p_expression);
+        this._compiled = new MathExpressionEngine().parse(p_expression).compile();
     }
 
     @Override
@@ -24,10 +24,13 @@ public class MathExpressionAction implements KTraversalAction {
 
     @Override
     public void execute(KTraversalActionContext context) {
-        Object[] selected = new Object[context.inputObjects().length];
-        for (int i = 0; i < context.inputObjects().length; i++) {
-            if (context.inputObjects()[i] != null) {
-                selected[i] = _engine.eval(context.inputObjects()[i]);
+        KObject[] inputs = context.inputObjects();
+        double[] values = new double[inputs.length];
+        _compiled.evalAll(inputs, values);
+        Object[] selected = new Object[inputs.length];
+        for (int i = 0; i < inputs.length; i++) {
+            if (inputs[i] != null) {
+                selected[i] = values[i];
             }
         }
         if (context.finalCallback() != null) {
@@ -0,0 +1,101 @@
+package org.kevoree.modeling.traversal.impl.actions;
+
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KModel;
+import org.kevoree.modeling.index.KOrderedIndex;
+import org.kevoree.modeling.index.impl.Postings;
+import org.kevoree.modeling.meta.KMetaAttribute;
+import org.kevoree.modeling.meta.KMetaClass;
+import org.kevoree.modeling.meta.KMetaModel;
+
+/**
+ * Answers the constraints of an attribute query that secondary indexes can evaluate: equalities on indexed
+ * attributes through their postings, equalities and comparisons on ordered attributes through range scans.
+ * The candidates of every such constraint are intersected, the remaining constraints are left to the filter.
+ */
+public class QueryIndexResolver {
+
+    /**
+     * Flags the constraints answerable by an index exactly as a scan would answer them, null when there is none.
+     */
+    public static boolean[] applicable(KMetaClass metaClass, QueryParam[] params, KMetaModel metaModel) {
+        if (metaClass == null || params == null) {
+            return null;
+        }
+        boolean[] applied = new boolean[params.length];
+        boolean found = false;
+        for (int i = 0; i < params.length; i++) {
+            if (params[i].isIndexable()) {
+                KMetaAttribute attribute = metaClass.attribute(params[i].name());
+                if (attribute != null && ((attribute.indexed() && params[i].operator() == QueryParam.EQUALS) || attribute.ordered()) && params[i].isExactValue(attribute, metaModel)) {
+                    applied[i] = true;
+                    found = true;
+                }
+            }
+        }
+        if (!found) {
+            return null;
+        }
+        return applied;
+    }
+
+    /**
+     * Sorted uuids satisfying all the applicable constraints.
+     */
+    public static void resolve(KModel model, KMetaClass metaClass, long universe, long time, QueryParam[] params, boolean[] applied, KCallback<long[]> callback) {
+        int nbLists = 0;
+        for (int i = 0; i < applied.length; i++) {
+            if (applied[i]) {
+                nbLists++;
+            }
+        }
+        resolveFrom(model, metaClass, universe, time, params, applied, 0, new long[nbLists][], 0, callback);
+    }
+
+    private static void resolveFrom(final KModel model, final KMetaClass metaClass, final long universe, final long time, final QueryParam[] params, final boolean[] applied, int p_position, final long[][] lists, final int p_listIndex, final KCallback<long[]> callback) {
+        int position = p_position;
+        while (position < params.length && !applied[position]) {
+            position++;
+        }
+        if (position == params.length) {
+            callback.on(Postings.intersect(lists));
+            return;
+        }
+        final int nextPosition = position + 1;
+        final QueryParam param = params[position];
+        KMetaAttribute attribute = metaClass.attribute(param.name());
+        if (attribute.indexed() && param.operator() == QueryParam.EQUALS) {
+            model.postings(metaClass, attribute, universe, time, param.value(), new KCallback<long[]>() {
+                @Override
+                public void on(long[] uuids) {
+                    lists[p_listIndex] = uuids;
+                    resolveFrom(model, metaClass, universe, time, params, applied, nextPosition, lists, p_listIndex + 1, callback);
+                }
+            });
+        } else {
+            model.orderedIndex(metaClass, attribute, universe, time, new KCallback<KOrderedIndex>() {
+                @Override
+                public void on(KOrderedIndex index) {
+                    lists[p_listIndex] = Postings.sort(rangeOf(index, param));
+                    resolveFrom(model, metaClass, universe, time, params, applied, nextPosition, lists, p_listIndex + 1, callback);
+                }
+            });
+        }
+    }
+
+    private static long[] rangeOf(KOrderedIndex index, QueryParam param) {
+        switch (param.operator()) {
+            case QueryParam.LOWER:
+                return index.range(null, true, param.value(), false);
+            case QueryParam.LOWER_OR_EQUALS:
+                return index.range(null, true, param.value(), true);
+            case QueryParam.GREATER:
+                return index.range(param.value(), false, null, true);
+            case QueryParam.GREATER_OR_EQUALS:
+                return index.range(param.value(), true, null, true);
+            default:
+                return index.range(param.value(), true, param.value(), true);
+        }
+    }
+
+}
@@ -0,0 +1,201 @@
+package org.kevoree.modeling.traversal.impl.actions;
+
+import org.kevoree.modeling.index.impl.IndexKeys;
+import org.kevoree.modeling.meta.KMetaAttribute;
+import org.kevoree.modeling.meta.KMetaModel;
+import org.kevoree.modeling.meta.KPrimitiveTypes;
+import org.kevoree.modeling.util.PrimitiveHelper;
+
+/**
+ * One constraint of an attribute query: name=value (regex, negated by name!=value) or a comparison
+ * name&lt;value, name&lt;=value, name&gt;value, name&gt;=value evaluated in the order of IndexKeys,
+ * or a fuzzy text match name~value tolerating misspelled and partial names as TextIndex does.
+ */
+public class QueryParam {
+
+    public static final int EQUALS = 0;
+    public static final int LOWER = 1;
+    public static final int LOWER_OR_EQUALS = 2;
+    public static final int GREATER = 3;
+    public static final int GREATER_OR_EQUALS = 4;
+    public static final int MATCHES = 5;
+
+    private static final String REGEX_SYNTAX = "\\^$.|?*+()[]{}";
+
+    private final String _name;
+
+    private final String _value;
+
+    private final boolean _negative;
+
+    private final int _operator;
+
+    /* encoded comparison bound, cached for the last attribute type */
+    private int _encodedType = 0;
+
+    private String _encodedValue = null;
+
+    public QueryParam(String p_name, String p_value, boolean p_negative, int p_operator) {
+        this._name = p_name;
+        this._value = p_value;
+        this._negative = p_negative;
+        this._operator = p_operator;
+    }
+
+    public String name() {
+        return _name;
+    }
+
+    public String value() {
+        return _value;
+    }
+
+    public boolean isNegative() {
+        return _negative;
+    }
+
+    public int operator() {
+        return _operator;
+    }
+
+    /**
+     * True when the name designates exactly one attribute, without wildcard.
+     */
+    public boolean isLiteralName() {
+        return _name.indexOf(".*") == -1;
+    }
+
+    /**
+     * True when the constraint selects a single value or an interval, so that an ordered index can answer it.
+     */
+    public boolean isIndexable() {
+        if (_negative || !isLiteralName() || _operator == MATCHES) {
+            return false;
+        }
+        if (_operator != EQUALS) {
+            return true;
+        }
+        return _value.indexOf(".*") == -1 && !PrimitiveHelper.equals(_value, "null");
+    }
+
+    /**
+     * True when the index lookup of an equality selects the objects a scan selects: the value holds no regular
+     * expression syntax and is the text of the value it converts to ("5.0" for a double, not "5"). The dot of a
+     * double is kept, every double text has a single dot so that no other one matches it as a wildcard.
+     */
+    public boolean isExactValue(KMetaAttribute attribute, KMetaModel metaModel) {
+        if (_operator != EQUALS) {
+            return true;
+        }
+        boolean isDouble = attribute.attributeTypeId() == KPrimitiveTypes.DOUBLE_ID || attribute.attributeTypeId() == KPrimitiveTypes.CONTINUOUS_ID;
+        for (int i = 0; i < _value.length(); i++) {
+            if (REGEX_SYNTAX.indexOf(_value.charAt(i)) != -1 && !(isDouble && _value.charAt(i) == '.')) {
+                return false;
+            }
+        }
+        Object primitive = IndexKeys.toPrimitive(attribute, _value, metaModel);
+        if (primitive == null) {
+            return false;
+        }
+        //enums are resolved by the exact name of their literal
+        return KPrimitiveTypes.isEnum(attribute.attributeTypeId()) || PrimitiveHelper.equals(primitive.toString(), _value);
+    }
+
+    /**
+     * Bound of a comparison encoded for the attribute, null if the value does not convert to its type.
+     */
+    public String encodedValue(KMetaAttribute attribute, KMetaModel metaModel) {
+        if (_encodedValue == null || _encodedType != attribute.attributeTypeId()) {
+            _encodedType = attribute.attributeTypeId();
+            _encodedValue = IndexKeys.encode(attribute.attributeTypeId(), IndexKeys.toPrimitive(attribute, _value, metaModel));
+        }
+        return _encodedValue;
+    }
+
+    /**
+     * Evaluates a comparison operator against a raw attribute value.
+     */
+    public boolean compare(KMetaAttribute attribute, Object raw, KMetaModel metaModel) {
+        String bound = encodedValue(attribute, metaModel);
+        String encoded = IndexKeys.encode(attribute.attributeTypeId(), IndexKeys.toPrimitive(attribute, raw, metaModel));
+        if (bound == null || encoded == null) {
+            return false;
+        }
+        int compared = PrimitiveHelper.compareStrings(encoded, bound);
+        switch (_operator) {
+            case LOWER:
+                return compared < 0;
+            case LOWER_OR_EQUALS:
+                return compared <= 0;
+            case GREATER:
+                return compared > 0;
+            case GREATER_OR_EQUALS:
+                return compared >= 0;
+            default:
+                return compared == 0;
+        }
+    }
+
+    public static QueryParam[] build(String p_paramString) {
+        QueryParam[] params = new QueryParam[0];
+        int iParam = 0;
+        int lastStart = iParam;
+        while (iParam <= p_paramString.length()) {
+            if (iParam == p_paramString.length() || p_paramString.charAt(iParam) == ',') {
+                QueryParam param = parse(p_paramString.substring(lastStart, iParam).trim());
+                if (param != null) {
+                    QueryParam[] extended = new QueryParam[params.length + 1];
+                    System.arraycopy(params, 0, extended, 0, params.length);
+                    extended[params.length] = param;
+                    params = extended;
+                }
+                lastStart = iParam + 1;
+            }
+            iParam = iParam + 1;
+        }
+        return params;
+    }
+
+    private static QueryParam parse(String p) {
+        if (PrimitiveHelper.equals(p, "") || PrimitiveHelper.equals(p, "*")) {
+            return null;
+        }
+        int opIndex = 0;
+        while (opIndex < p.length() && p.charAt(opIndex) != '=' && p.charAt(opIndex) != '<' && p.charAt(opIndex) != '>' && p.charAt(opIndex) != '~') {
+            opIndex++;
+        }
+        if (opIndex < p.length() && p.charAt(opIndex) == '~') {
+            String text = p.substring(opIndex + 1).trim();
+            if (text.length() == 0) {
+                return null;
+            }
+            return new QueryParam(p.substring(0, opIndex).trim().replace("*", ".*"), text, false, MATCHES);
+        }
+        if (opIndex < p.length() && p.charAt(opIndex) != '=') {
+            boolean lower = p.charAt(opIndex) == '<';
+            boolean orEquals = opIndex + 1 < p.length() && p.charAt(opIndex + 1) == '=';
+            int operator;
+            if (lower) {
+                operator = orEquals ? LOWER_OR_EQUALS : LOWER;
+            } else {
+                operator = orEquals ? GREATER_OR_EQUALS : GREATER;
+            }
+            String value = p.substring(opIndex + (orEquals ? 2 : 1)).trim();
+            if (value.length() == 0) {
+                return null;
+            }
+            return new QueryParam(p.substring(0, opIndex).trim().replace("*", ".*"), value, false, operator);
+        }
+        if (PrimitiveHelper.endsWith(p, "=")) {
+            p = p + "*";
+        }
+        String[] pArray = p.split("=");
+        if (pArray.length > 1) {
+            String paramKey = pArray[0].trim();
+            boolean negative = PrimitiveHelper.endsWith(paramKey, "!");
+            return new QueryParam(paramKey.replace("!", "").replace("*", ".*"), pArray[1].trim().replace("*", ".*"), negative, EQUALS);
+        }
+        return null;
+    }
+
+}
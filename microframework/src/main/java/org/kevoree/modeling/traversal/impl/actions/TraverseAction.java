@@ -1,12 +1,13 @@
 package org.kevoree.modeling.traversal.impl.actions;
 
+import org.kevoree.modeling.KConfig;
 import org.kevoree.modeling.KObject;
 import org.kevoree.modeling.KCallback;
 import org.kevoree.modeling.abs.AbstractKObject;
 import org.kevoree.modeling.memory.chunk.KObjectChunk;
-import org.kevoree.modeling.memory.chunk.KLongLongMap;
-import org.kevoree.modeling.memory.chunk.impl.ArrayLongLongMap;
-import org.kevoree.modeling.memory.chunk.KLongLongMapCallBack;
+import org.kevoree.modeling.memory.chunk.KLongSet;
+import org.kevoree.modeling.memory.chunk.impl.ArrayLongSet;
+import org.kevoree.modeling.memory.chunk.impl.BitmapLongSet;
 import org.kevoree.modeling.meta.KMeta;
 import org.kevoree.modeling.meta.KMetaRelation;
 import org.kevoree.modeling.meta.MetaType;
@@ -15,6 +16,9 @@ import org.kevoree.modeling.traversal.KTraversalActionContext;
 
 public class TraverseAction implements KTraversalAction {
 
+    /* number of objects from which a traversal step switches to a bitmap set of uuids */
+    static final int DENSE_SIZE = 1024;
+
     private KTraversalAction _next;
 
     private KMetaRelation _reference;
@@ -38,7 +42,7 @@ public class TraverseAction implements KTraversalAction {
             }
         } else {
             final AbstractKObject currentObject = (AbstractKObject) context.inputObjects()[0];
-            KLongLongMap nextIds = new ArrayLongLongMap(-1,-1,-1,null);
+            KLongSet nextIds = uuidSet(context.inputObjects().length);
             for (int i = 0; i < context.inputObjects().length; i++) {
                 try {
                     AbstractKObject loopObj = (AbstractKObject) context.inputObjects()[i];
@@ -52,7 +56,7 @@ public class TraverseAction implements KTraversalAction {
                                     long[] resolved = raw.getLongArray(ref.index(), currentObject.metaClass());
                                     if (resolved != null) {
                                         for (int k = 0; k < resolved.length; k++) {
-                                            nextIds.put(resolved[k], resolved[k]);
+                                            nextIds.add(resolved[k]);
                                         }
                                     }
                                 }
@@ -63,7 +67,7 @@ public class TraverseAction implements KTraversalAction {
                                 long[] resolved = raw.getLongArray(translatedRef.index(), currentObject.metaClass());
                                 if (resolved != null) {
                                     for (int j = 0; j < resolved.length; j++) {
-                                        nextIds.put(resolved[j], resolved[j]);
+                                        nextIds.add(resolved[j]);
                                     }
                                 }
                             }
@@ -73,15 +77,7 @@ public class TraverseAction implements KTraversalAction {
                     e.printStackTrace();
                 }
             }
-            final long[] trimmed = new long[nextIds.size()];
-            final int[] inserted = {0};
-            nextIds.each(new KLongLongMapCallBack() {
-                @Override
-                public void on(long key, long value) {
-                    trimmed[inserted[0]] = key;
-                    inserted[0]++;
-                }
-            });
+            final long[] trimmed = nextIds.toArray();
             //call
             currentObject._manager.lookupAllObjects(currentObject.universe(), currentObject.now(), trimmed, new KCallback<KObject[]>() {
                 @Override
@@ -97,4 +93,18 @@ public class TraverseAction implements KTraversalAction {
         }
     }
 
+    /**
+     * Set of the uuids reached from p_expectedSize objects. Large steps reach objects mostly created together, whose
+     * uuids share their high bits and are stored as bitmaps, smaller ones are hashed.
+     *
+     * @native ts
+     * return new org.kevoree.modeling.memory.chunk.impl.ArrayLongSet(org.kevoree.modeling.KConfig.CACHE_INIT_SIZE, org.kevoree.modeling.KConfig.CACHE_LOAD_FACTOR);
+     */
+    static KLongSet uuidSet(int p_expectedSize) {
+        if (p_expectedSize >= DENSE_SIZE) {
+            return new BitmapLongSet();
+        }
+        return new ArrayLongSet(KConfig.CACHE_INIT_SIZE, KConfig.CACHE_LOAD_FACTOR);
+    }
+
 }
@@ -0,0 +1,89 @@
+package org.kevoree.modeling.traversal.impl.actions;
+
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KModel;
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.KView;
+import org.kevoree.modeling.abs.AbstractKObject;
+import org.kevoree.modeling.traversal.KTraversalAction;
+import org.kevoree.modeling.traversal.KTraversalActionContext;
+
+/**
+ * Starts from the objects changed between two times, read from the change log of the universe of the traversal view,
+ * or of the first input object when the traversal has no view. Objects are resolved at the time of this view or object.
+ */
+public class TraverseChangesAction implements KTraversalAction {
+
+    private KTraversalAction _next;
+
+    private final long _from;
+
+    private final long _to;
+
+    public TraverseChangesAction(long p_from, long p_to) {
+        this._from = p_from;
+        this._to = p_to;
+    }
+
+    @Override
+    public void chain(KTraversalAction p_next) {
+        _next = p_next;
+    }
+
+    @Override
+    public void execute(final KTraversalActionContext context) {
+        final KModel model;
+        final long universe;
+        final long time;
+        KView originView = context.baseView();
+        if (originView != null) {
+            model = originView.model();
+            universe = originView.universe();
+            time = originView.now();
+        } else if (context.inputObjects() != null && context.inputObjects().length > 0 && context.inputObjects()[0] != null) {
+            KObject first = context.inputObjects()[0];
+            model = ((AbstractKObject) first)._manager.model();
+            universe = first.universe();
+            time = first.now();
+        } else {
+            next(context, new KObject[0]);
+            return;
+        }
+        model.changedBetween(universe, _from, _to, new KCallback<long[]>() {
+            @Override
+            public void on(long[] changed) {
+                model.lookupAllObjects(universe, time, changed, new KCallback<KObject[]>() {
+                    @Override
+                    public void on(KObject[] resolved) {
+                        //objects changed after the resolution time may not exist yet at this time
+                        int size = 0;
+                        for (int i = 0; i < resolved.length; i++) {
+                            if (resolved[i] != null) {
+                                size++;
+                            }
+                        }
+                        KObject[] selected = new KObject[size];
+                        size = 0;
+                        for (int i = 0; i < resolved.length; i++) {
+                            if (resolved[i] != null) {
+                                selected[size] = resolved[i];
+                                size++;
+                            }
+                        }
+                        next(context, selected);
+                    }
+                });
+            }
+        });
+    }
+
+    private void next(KTraversalActionContext context, KObject[] selected) {
+        if (_next == null) {
+            context.finalCallback().on(selected);
+        } else {
+            context.setInputObjects(selected);
+            _next.execute(context);
+        }
+    }
+
+}
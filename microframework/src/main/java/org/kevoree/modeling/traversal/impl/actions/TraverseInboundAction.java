@@ -0,0 +1,94 @@
+package org.kevoree.modeling.traversal.impl.actions;
+
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KConfig;
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.abs.AbstractKObject;
+import org.kevoree.modeling.index.impl.ReverseIndex;
+import org.kevoree.modeling.memory.chunk.KLongSet;
+import org.kevoree.modeling.memory.chunk.KObjectChunk;
+import org.kevoree.modeling.memory.chunk.impl.ArrayLongSet;
+import org.kevoree.modeling.meta.KMetaRelation;
+import org.kevoree.modeling.traversal.KTraversalAction;
+import org.kevoree.modeling.traversal.KTraversalActionContext;
+
+/**
+ * Follows a relation backward, from the referred objects to the objects referring to them, through the reverse index
+ * of the relation when it is reverse indexed and through its hidden opposite otherwise.
+ */
+public class TraverseInboundAction implements KTraversalAction {
+
+    private KTraversalAction _next;
+
+    private final KMetaRelation _reference;
+
+    public TraverseInboundAction(KMetaRelation p_reference) {
+        this._reference = p_reference;
+    }
+
+    @Override
+    public void chain(KTraversalAction p_next) {
+        _next = p_next;
+    }
+
+    @Override
+    public void execute(final KTraversalActionContext context) {
+        if (context.inputObjects() == null || context.inputObjects().length == 0) {
+            if (_next != null) {
+                _next.execute(context);
+            } else {
+                context.finalCallback().on(context.inputObjects());
+            }
+            return;
+        }
+        final AbstractKObject currentObject = (AbstractKObject) context.inputObjects()[0];
+        final KLongSet nextIds = new ArrayLongSet(KConfig.CACHE_INIT_SIZE, KConfig.CACHE_LOAD_FACTOR);
+        final KObject[] inputs = context.inputObjects();
+        final int[] remaining = {inputs.length + 1};
+        final KCallback<long[]> collect = new KCallback<long[]>() {
+            @Override
+            public void on(long[] referrers) {
+                boolean last;
+                synchronized (nextIds) {
+                    for (int i = 0; i < referrers.length; i++) {
+                        nextIds.add(referrers[i]);
+                    }
+                    remaining[0]--;
+                    last = remaining[0] == 0;
+                }
+                if (last) {
+                    currentObject._manager.lookupAllObjects(currentObject.universe(), currentObject.now(), nextIds.toArray(), new KCallback<KObject[]>() {
+                        @Override
+                        public void on(KObject[] kObjects) {
+                            if (_next == null) {
+                                context.finalCallback().on(kObjects);
+                            } else {
+                                context.setInputObjects(kObjects);
+                                _next.execute(context);
+                            }
+                        }
+                    });
+                }
+            }
+        };
+        boolean reverseIndexed = ReverseIndex.isReverseIndexed(_reference, currentObject._manager.model().metaModel());
+        for (int i = 0; i < inputs.length; i++) {
+            AbstractKObject loopObj = (AbstractKObject) inputs[i];
+            if (loopObj == null) {
+                collect.on(new long[0]);
+            } else if (reverseIndexed) {
+                ReverseIndex.referrers(loopObj._manager, loopObj.universe(), loopObj.now(), _reference, loopObj.uuid(), collect);
+            } else {
+                long[] resolved = null;
+                KMetaRelation opposite = loopObj.metaClass().reference(_reference.oppositeName());
+                KObjectChunk raw = loopObj._manager.closestChunk(loopObj.universe(), loopObj.now(), loopObj.uuid(), loopObj.metaClass(), loopObj.previousResolved());
+                if (raw != null && opposite != null) {
+                    resolved = raw.getLongArray(opposite.index(), loopObj.metaClass());
+                }
+                collect.on(resolved == null ? new long[0] : resolved);
+            }
+        }
+        collect.on(new long[0]);
+    }
+
+}
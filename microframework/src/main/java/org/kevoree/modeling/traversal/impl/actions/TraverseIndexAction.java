@@ -4,6 +4,10 @@ import org.kevoree.modeling.KCallback;
 import org.kevoree.modeling.KObject;
 import org.kevoree.modeling.KObjectIndex;
 import org.kevoree.modeling.KView;
+import org.kevoree.modeling.index.impl.TextIndex;
+import org.kevoree.modeling.meta.KMetaAttribute;
+import org.kevoree.modeling.meta.KMetaClass;
+import org.kevoree.modeling.meta.KMetaModel;
 import org.kevoree.modeling.traversal.KTraversalAction;
 import org.kevoree.modeling.traversal.KTraversalActionContext;
 
@@ -25,10 +29,52 @@ public class TraverseIndexAction implements KTraversalAction {
         _next = p_next;
     }
 
+    /**
+     * Constraints to resolve through secondary indexes, null when the query is a plain key lookup or constrains no indexed attribute.
+     */
+    private boolean[] indexedParams(KMetaClass metaClass, QueryParam[] params, KMetaModel metaModel) {
+        if (metaClass == null) {
+            return null;
+        }
+        boolean keyLookup = params.length > 0;
+        for (int i = 0; i < params.length; i++) {
+            KMetaAttribute attribute = params[i].isLiteralName() ? metaClass.attribute(params[i].name()) : null;
+            if (attribute == null || !attribute.key() || params[i].operator() != QueryParam.EQUALS || !params[i].isIndexable()) {
+                keyLookup = false;
+            }
+        }
+        if (keyLookup) {
+            return null;
+        }
+        return QueryIndexResolver.applicable(metaClass, params, metaModel);
+    }
+
+    /**
+     * Position of the first fuzzy text constraint answerable by a text index, -1 if none.
+     */
+    private int searchedParam(KMetaClass metaClass, QueryParam[] params) {
+        if (metaClass == null) {
+            return -1;
+        }
+        for (int i = 0; i < params.length; i++) {
+            if (params[i].operator() == QueryParam.MATCHES && params[i].isLiteralName()) {
+                KMetaAttribute attribute = metaClass.attribute(params[i].name());
+                if (attribute != null && attribute.searchable()) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
     @Override
     public void execute(KTraversalActionContext context) {
         KView originView = context.baseView();
         if (originView != null) {
+            final KMetaClass metaClass = originView.model().metaModel().metaClassByName(this._indexName);
+            final FilterAttributeQueryAction filter = new FilterAttributeQueryAction(this._attributes);
+            final int searched = this._attributes == null ? -1 : searchedParam(metaClass, filter.params());
+            final boolean[] applied = this._attributes == null || searched != -1 ? null : indexedParams(metaClass, filter.params(), originView.model().metaModel());
             if (this._attributes == null && this._indexName != null) {
                 originView.model().indexByName(originView.universe(), originView.now(), this._indexName, new KCallback<KObjectIndex>() {
                     @Override
@@ -55,6 +101,38 @@ public class TraverseIndexAction implements KTraversalAction {
                         }
                     }
                 });
+            } else if (searched != -1) {
+                //ranked text search first, the other constraints filter the ranked objects
+                final QueryParam param = filter.params()[searched];
+                final boolean[] searchedOnly = new boolean[filter.params().length];
+                searchedOnly[searched] = true;
+                filter.chain(_next);
+                originView.model().search(metaClass, metaClass.attribute(param.name()), originView.universe(), originView.now(), param.value(), TextIndex.DEFAULT_LIMIT, new KCallback<long[]>() {
+                    @Override
+                    public void on(long[] selected) {
+                        originView.model().lookupAllObjects(originView.universe(), originView.now(), selected, new KCallback<KObject[]>() {
+                            @Override
+                            public void on(KObject[] selectedElems) {
+                                context.setInputObjects(selectedElems);
+                                filter.executeIndexed(context, searchedOnly);
+                            }
+                        });
+                    }
+                });
+            } else if (applied != null) {
+                filter.chain(_next);
+                QueryIndexResolver.resolve(originView.model(), metaClass, originView.universe(), originView.now(), filter.params(), applied, new KCallback<long[]>() {
+                    @Override
+                    public void on(long[] selected) {
+                        originView.model().lookupAllObjects(originView.universe(), originView.now(), selected, new KCallback<KObject[]>() {
+                            @Override
+                            public void on(KObject[] selectedElems) {
+                                context.setInputObjects(selectedElems);
+                                filter.executeIndexed(context, applied);
+                            }
+                        });
+                    }
+                });
             } else {
                 originView.model().findByName(this._indexName, originView.universe(), originView.now(), this._attributes, new KCallback<KObject>() {
                     @Override
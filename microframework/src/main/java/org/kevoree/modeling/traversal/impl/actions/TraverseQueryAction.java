@@ -3,11 +3,13 @@ package org.kevoree.modeling.traversal.impl.actions;
 import org.kevoree.modeling.KObject;
 import org.kevoree.modeling.KCallback;
 import org.kevoree.modeling.abs.AbstractKObject;
+import org.kevoree.modeling.index.impl.ReverseIndex;
 import org.kevoree.modeling.memory.chunk.KLongLongMap;
 import org.kevoree.modeling.memory.chunk.KObjectChunk;
 import org.kevoree.modeling.memory.chunk.impl.ArrayLongLongMap;
 import org.kevoree.modeling.memory.chunk.KLongLongMapCallBack;
 import org.kevoree.modeling.meta.KMeta;
+import org.kevoree.modeling.meta.KMetaModel;
 import org.kevoree.modeling.meta.KMetaRelation;
 import org.kevoree.modeling.meta.MetaType;
 import org.kevoree.modeling.traversal.KTraversalAction;
@@ -32,7 +34,7 @@ public class TraverseQueryAction implements KTraversalAction {
     }
 
     @Override
-    public void execute(KTraversalActionContext context) {
+    public void execute(final KTraversalActionContext context) {
         if (context.inputObjects() == null || context.inputObjects().length == 0) {
             if (_next != null) {
                 _next.execute(context);
@@ -40,8 +42,12 @@ public class TraverseQueryAction implements KTraversalAction {
                 context.finalCallback().on(context.inputObjects());
             }
         } else {
-            AbstractKObject currentFirstObject = (AbstractKObject) context.inputObjects()[0];
-            KLongLongMap nextIds = new ArrayLongLongMap(-1, -1, -1, null);
+            final AbstractKObject currentFirstObject = (AbstractKObject) context.inputObjects()[0];
+            final KLongLongMap nextIds = new ArrayLongLongMap(-1, -1, -1, null);
+            final KMetaModel metaModel = currentFirstObject._manager.model().metaModel();
+            //incoming references kept by a reverse index, resolved once every hidden opposite is read
+            KObject[] reverseSources = new KObject[0];
+            KMetaRelation[] reverseRelations = new KMetaRelation[0];
             for (int i = 0; i < context.inputObjects().length; i++) {
                 try {
                     AbstractKObject loopObj = (AbstractKObject) context.inputObjects()[i];
@@ -69,10 +75,15 @@ public class TraverseQueryAction implements KTraversalAction {
                                 if (metaElements[h] != null && metaElements[h].metaType() == MetaType.RELATION) {
                                     KMetaRelation metaReference = (KMetaRelation) metaElements[h];
                                     boolean selected = false;
+                                    KMetaRelation inbound = null;
                                     for (int k = 0; k < queries.length; k++) {
                                         if (queries[k] != null && PrimitiveHelper.startsWith(queries[k].trim(), "<<")) {
                                             if (PrimitiveHelper.matches(metaReference.oppositeName(), queries[k].trim().substring(2))) {
                                                 selected = true;
+                                                KMetaRelation forward = metaModel.metaClass(metaReference.referredMetaClassIndex()).reference(metaReference.oppositeName());
+                                                if (forward != null && ReverseIndex.isReverseIndexed(forward, metaModel)) {
+                                                    inbound = forward;
+                                                }
                                                 break;
                                             }
                                         } else {
@@ -82,7 +93,10 @@ public class TraverseQueryAction implements KTraversalAction {
                                             }
                                         }
                                     }
-                                    if (selected) {
+                                    if (inbound != null) {
+                                        reverseSources = appendObject(reverseSources, loopObj);
+                                        reverseRelations = appendRelation(reverseRelations, inbound);
+                                    } else if (selected) {
                                         long[] resolved = raw.getLongArray(metaElements[h].index(), loopObj.metaClass());
                                         if (resolved != null) {
                                             for (int j = 0; j < resolved.length; j++) {
@@ -98,28 +112,67 @@ public class TraverseQueryAction implements KTraversalAction {
                     e.printStackTrace();
                 }
             }
-            final long[] trimmed = new long[nextIds.size()];
-            final int[] inserted = {0};
-            nextIds.each(new KLongLongMapCallBack() {
+            final int[] remaining = {reverseSources.length + 1};
+            final KCallback<long[]> collect = new KCallback<long[]>() {
                 @Override
-                public void on(long key, long value) {
-                    trimmed[inserted[0]] = key;
-                    inserted[0]++;
-                }
-            });
-            //call
-            currentFirstObject._manager.lookupAllObjects(currentFirstObject.universe(), currentFirstObject.now(), trimmed, new KCallback<KObject[]>() {
-                @Override
-                public void on(KObject[] nextStepElement) {
-                    if (_next == null) {
-                        context.finalCallback().on(nextStepElement);
-                    } else {
-                        context.setInputObjects(nextStepElement);
-                        _next.execute(context);
+                public void on(long[] referrers) {
+                    boolean last;
+                    synchronized (nextIds) {
+                        for (int i = 0; i < referrers.length; i++) {
+                            nextIds.put(referrers[i], referrers[i]);
+                        }
+                        remaining[0]--;
+                        last = remaining[0] == 0;
+                    }
+                    if (last) {
+                        lookupNext(context, currentFirstObject, nextIds);
                     }
                 }
-            });
+            };
+            for (int i = 0; i < reverseSources.length; i++) {
+                KObject target = reverseSources[i];
+                ReverseIndex.referrers(currentFirstObject._manager, target.universe(), target.now(), reverseRelations[i], target.uuid(), collect);
+            }
+            collect.on(new long[0]);
         }
     }
 
+    private void lookupNext(final KTraversalActionContext context, AbstractKObject currentFirstObject, KLongLongMap nextIds) {
+        final long[] trimmed = new long[nextIds.size()];
+        final int[] inserted = {0};
+        nextIds.each(new KLongLongMapCallBack() {
+            @Override
+            public void on(long key, long value) {
+                trimmed[inserted[0]] = key;
+                inserted[0]++;
+            }
+        });
+        //call
+        currentFirstObject._manager.lookupAllObjects(currentFirstObject.universe(), currentFirstObject.now(), trimmed, new KCallback<KObject[]>() {
+            @Override
+            public void on(KObject[] nextStepElement) {
+                if (_next == null) {
+                    context.finalCallback().on(nextStepElement);
+                } else {
+                    context.setInputObjects(nextStepElement);
+                    _next.execute(context);
+                }
+            }
+        });
+    }
+
+    private static KObject[] appendObject(KObject[] objects, KObject object) {
+        KObject[] result = new KObject[objects.length + 1];
+        System.arraycopy(objects, 0, result, 0, objects.length);
+        result[objects.length] = object;
+        return result;
+    }
+
+    private static KMetaRelation[] appendRelation(KMetaRelation[] relations, KMetaRelation relation) {
+        KMetaRelation[] result = new KMetaRelation[relations.length + 1];
+        System.arraycopy(relations, 0, result, 0, relations.length);
+        result[relations.length] = relation;
+        return result;
+    }
+
 }
@@ -0,0 +1,159 @@
+package org.kevoree.modeling.traversal.impl.aggregate;
+
+import org.kevoree.modeling.traversal.KTraversalAggregate;
+import org.kevoree.modeling.util.PrimitiveHelper;
+
+/**
+ * Partial aggregate over unboxed values, mergeable with other partial results (Chan et al. parallel variance).
+ */
+public class Aggregate implements KTraversalAggregate {
+
+    private int _count = 0;
+
+    private double _sum = 0;
+
+    private double _min = Double.NaN;
+
+    private double _max = Double.NaN;
+
+    private double _mean = 0;
+
+    private double _m2 = 0;
+
+    private double[] _values = null;
+
+    private boolean _sorted = false;
+
+    private final boolean _keepValues;
+
+    public Aggregate(boolean p_keepValues) {
+        this._keepValues = p_keepValues;
+    }
+
+    public final void add(double value) {
+        if (value != value) {
+            //NaN means unset value
+            return;
+        }
+        if (_count == 0) {
+            _min = value;
+            _max = value;
+        } else {
+            if (value < _min) {
+                _min = value;
+            }
+            if (value > _max) {
+                _max = value;
+            }
+        }
+        if (_keepValues) {
+            if (_values == null) {
+                _values = new double[16];
+            } else if (_count == _values.length) {
+                double[] extended = new double[_values.length * 2];
+                System.arraycopy(_values, 0, extended, 0, _count);
+                _values = extended;
+            }
+            _values[_count] = value;
+            _sorted = false;
+        }
+        _count++;
+        _sum += value;
+        double delta = value - _mean;
+        _mean += delta / _count;
+        _m2 += delta * (value - _mean);
+    }
+
+    public final void merge(Aggregate other) {
+        if (other == null || other._count == 0) {
+            return;
+        }
+        if (_count == 0) {
+            _min = other._min;
+            _max = other._max;
+        } else {
+            if (other._min < _min) {
+                _min = other._min;
+            }
+            if (other._max > _max) {
+                _max = other._max;
+            }
+        }
+        if (_keepValues && other._values != null) {
+            double[] merged = new double[_count + other._count];
+            if (_values != null) {
+                System.arraycopy(_values, 0, merged, 0, _count);
+            }
+            System.arraycopy(other._values, 0, merged, _count, other._count);
+            _values = merged;
+            _sorted = false;
+        }
+        int total = _count + other._count;
+        double delta = other._mean - _mean;
+        _m2 = _m2 + other._m2 + delta * delta * ((double) _count * other._count) / total;
+        _mean = _mean + delta * other._count / total;
+        _sum += other._sum;
+        _count = total;
+    }
+
+    @Override
+    public int count() {
+        return _count;
+    }
+
+    @Override
+    public double sum() {
+        return _sum;
+    }
+
+    @Override
+    public double min() {
+        return _min;
+    }
+
+    @Override
+    public double max() {
+        return _max;
+    }
+
+    @Override
+    public double mean() {
+        if (_count == 0) {
+            return Double.NaN;
+        }
+        return _mean;
+    }
+
+    @Override
+    public double variance() {
+        if (_count == 0) {
+            return Double.NaN;
+        }
+        return _m2 / _count;
+    }
+
+    @Override
+    public double percentile(double percent) {
+        if (_count == 0 || _values == null) {
+            return Double.NaN;
+        }
+        if (!_sorted) {
+            PrimitiveHelper.sortDoubles(_values, 0, _count);
+            _sorted = true;
+        }
+        if (percent <= 0) {
+            return _values[0];
+        }
+        if (percent >= 100) {
+            return _values[_count - 1];
+        }
+        double rank = percent / 100 * (_count - 1);
+        int lower = (int) rank;
+        double fraction = rank - lower;
+        if (lower + 1 >= _count) {
+            return _values[lower];
+        }
+        return _values[lower] + fraction * (_values[lower + 1] - _values[lower]);
+    }
+
+}
@@ -0,0 +1,65 @@
+package org.kevoree.modeling.traversal.impl.aggregate;
+
+import org.kevoree.modeling.KConfig;
+import org.kevoree.modeling.memory.chunk.KStringMapCallBack;
+import org.kevoree.modeling.memory.chunk.impl.ArrayStringMap;
+import org.kevoree.modeling.traversal.KTraversalAggregate;
+import org.kevoree.modeling.traversal.KTraversalGroups;
+
+public class Groups implements KTraversalGroups {
+
+    private final ArrayStringMap<Aggregate> _groups;
+
+    private final boolean _keepValues;
+
+    public Groups(boolean p_keepValues) {
+        this._keepValues = p_keepValues;
+        this._groups = new ArrayStringMap<Aggregate>(KConfig.CACHE_INIT_SIZE, KConfig.CACHE_LOAD_FACTOR);
+    }
+
+    public final Aggregate getOrCreate(String groupName) {
+        Aggregate found = _groups.get(groupName);
+        if (found == null) {
+            found = new Aggregate(_keepValues);
+            _groups.put(groupName, found);
+        }
+        return found;
+    }
+
+    public final void merge(Groups other) {
+        if (other == null) {
+            return;
+        }
+        other._groups.each(new KStringMapCallBack<Aggregate>() {
+            @Override
+            public void on(String key, Aggregate value) {
+                getOrCreate(key).merge(value);
+            }
+        });
+    }
+
+    @Override
+    public String[] groups() {
+        final String[] result = new String[_groups.size()];
+        final int[] inserted = {0};
+        _groups.each(new KStringMapCallBack<Aggregate>() {
+            @Override
+            public void on(String key, Aggregate value) {
+                result[inserted[0]] = key;
+                inserted[0]++;
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public KTraversalAggregate group(String groupName) {
+        return _groups.get(groupName);
+    }
+
+    @Override
+    public int size() {
+        return _groups.size();
+    }
+
+}
@@ -1,9 +1,15 @@
 package org.kevoree.modeling.traversal.query.impl;
 
 import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KConfig;
 import org.kevoree.modeling.KObject;
 import org.kevoree.modeling.KView;
+import org.kevoree.modeling.memory.chunk.KLongSet;
+import org.kevoree.modeling.memory.chunk.impl.ArrayLongSet;
+import org.kevoree.modeling.memory.manager.KSelectorCache;
+import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
 import org.kevoree.modeling.traversal.KTraversal;
+import org.kevoree.modeling.traversal.impl.RecordingTraversalContext;
 import org.kevoree.modeling.traversal.impl.Traversal;
 import org.kevoree.modeling.traversal.query.KQueryEngine;
 import org.kevoree.modeling.util.PrimitiveHelper;
@@ -29,8 +35,53 @@ public class QueryEngine implements KQueryEngine {
     @Override
     public void eval(String query, KObject[] origins, KView p_view, KCallback<Object[]> callback) {
         if (callback != null) {
-            buildTraversal(query).exec(origins, p_view, callback);
+            KSelectorCache cache = null;
+            if (p_view != null && p_view.model() != null) {
+                cache = ((KInternalDataManager) p_view.model().manager()).selectorCache();
+            }
+            if (cache == null) {
+                buildTraversal(query).exec(origins, p_view, callback);
+            } else {
+                cachedEval(cache, query, origins, p_view, callback);
+            }
+        }
+    }
+
+    private void cachedEval(final KSelectorCache cache, final String query, KObject[] origins, final KView p_view, final KCallback<Object[]> callback) {
+        final String key = cache.key(query, p_view.universe(), p_view.now(), origins);
+        long[] cached = cache.get(key);
+        if (cached != null) {
+            p_view.lookupAll(cached, new KCallback<KObject[]>() {
+                @Override
+                public void on(KObject[] kObjects) {
+                    callback.on(kObjects);
+                }
+            });
+            return;
         }
+        final long version = cache.version();
+        final KLongSet touched = new ArrayLongSet(KConfig.CACHE_INIT_SIZE, KConfig.CACHE_LOAD_FACTOR);
+        Traversal traversal = (Traversal) buildTraversal(query);
+        traversal.execContext(new RecordingTraversalContext(origins, p_view, new KCallback<Object[]>() {
+            @Override
+            public void on(Object[] result) {
+                //only object selections are cached, expression results are not identified by uuids
+                long[] uuids = new long[result.length];
+                boolean cacheable = true;
+                for (int i = 0; i < result.length && cacheable; i++) {
+                    if (result[i] instanceof KObject) {
+                        uuids[i] = ((KObject) result[i]).uuid();
+                        touched.add(uuids[i]);
+                    } else {
+                        cacheable = false;
+                    }
+                }
+                if (cacheable) {
+                    cache.put(key, version, uuids, touched.toArray(), query.indexOf('@') != -1);
+                }
+                callback.on(result);
+            }
+        }, touched));
     }
 
     @Override
@@ -0,0 +1,249 @@
+package org.kevoree.modeling.traversal.visitor.impl;
+
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KConfig;
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.abs.AbstractKObject;
+import org.kevoree.modeling.memory.chunk.KLongSet;
+import org.kevoree.modeling.memory.chunk.KObjectChunk;
+import org.kevoree.modeling.memory.chunk.impl.ArrayLongSet;
+import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
+import org.kevoree.modeling.meta.KMeta;
+import org.kevoree.modeling.meta.KMetaClass;
+import org.kevoree.modeling.meta.KMetaRelation;
+import org.kevoree.modeling.meta.MetaType;
+import org.kevoree.modeling.scheduler.KTask;
+import org.kevoree.modeling.traversal.visitor.KModelVisitor;
+import org.kevoree.modeling.traversal.visitor.KVisitResult;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Breadth first visit of the graph reachable from a root object.
+ * All the relations of a level are collected before resolving the whole next level with a single lookupAllObjects,
+ * visited uuids are kept in a primitive set so every object is visited once.
+ * In parallel mode the levels are split in slices processed by scheduler tasks, the visitor must then be thread safe.
+ * The root itself is not given to the visitor, as for KObject.visit.
+ */
+public class BatchedModelVisitor {
+
+    public static final int SLICE_SIZE = 1024;
+
+    private final KModelVisitor _visitor;
+
+    private final boolean _parallel;
+
+    private final KLongSet _visited;
+
+    private volatile boolean _stopped = false;
+
+    public BatchedModelVisitor(KModelVisitor p_visitor, boolean p_parallel) {
+        this._visitor = p_visitor;
+        this._parallel = p_parallel;
+        this._visited = new ArrayLongSet(KConfig.CACHE_INIT_SIZE, KConfig.CACHE_LOAD_FACTOR);
+    }
+
+    public void visit(KObject p_root, KCallback p_end) {
+        if (p_root == null) {
+            if (p_end != null) {
+                p_end.on(null);
+            }
+            return;
+        }
+        KInternalDataManager manager = ((AbstractKObject) p_root)._manager;
+        _visited.add(p_root.uuid());
+        KObject[] firstLevel = new KObject[1];
+        firstLevel[0] = p_root;
+        internal_level(firstLevel, manager, p_root.universe(), p_root.now(), p_end);
+    }
+
+    private void internal_level(final KObject[] p_level, final KInternalDataManager p_manager, final long p_universe, final long p_time, final KCallback p_end) {
+        collect(p_level, p_manager, new KCallback<long[]>() {
+            @Override
+            public void on(long[] nextIds) {
+                if (nextIds.length == 0 || _stopped) {
+                    if (p_end != null) {
+                        p_end.on(null);
+                    }
+                    return;
+                }
+                p_manager.lookupAllObjects(p_universe, p_time, nextIds, new KCallback<KObject[]>() {
+                    @Override
+                    public void on(KObject[] resolved) {
+                        visitLevel(resolved, p_manager, new KCallback<KObject[]>() {
+                            @Override
+                            public void on(KObject[] toExpand) {
+                                if (toExpand.length == 0 || _stopped) {
+                                    if (p_end != null) {
+                                        p_end.on(null);
+                                    }
+                                } else {
+                                    internal_level(toExpand, p_manager, p_universe, p_time, p_end);
+                                }
+                            }
+                        });
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Collects the not yet visited targets of all relations of a level, each uuid appears once.
+     */
+    private void collect(final KObject[] p_level, KInternalDataManager p_manager, final KCallback<long[]> p_callback) {
+        final int nbSlices = (p_level.length + SLICE_SIZE - 1) / SLICE_SIZE;
+        if (!_parallel || nbSlices <= 1) {
+            p_callback.on(dedup(relationIds(p_level, 0, p_level.length)));
+            return;
+        }
+        final long[][] partials = new long[nbSlices][];
+        final AtomicInteger remaining = new AtomicInteger(nbSlices);
+        for (int i = 0; i < nbSlices; i++) {
+            final int sliceIndex = i;
+            p_manager.scheduler().dispatch(new KTask() {
+                @Override
+                public void run() {
+                    int from = sliceIndex * SLICE_SIZE;
+                    int to = from + SLICE_SIZE;
+                    if (to > p_level.length) {
+                        to = p_level.length;
+                    }
+                    partials[sliceIndex] = relationIds(p_level, from, to);
+                    if (remaining.decrementAndGet() == 0) {
+                        int total = 0;
+                        for (int j = 0; j < partials.length; j++) {
+                            total = total + partials[j].length;
+                        }
+                        long[] merged = new long[total];
+                        int offset = 0;
+                        for (int j = 0; j < partials.length; j++) {
+                            System.arraycopy(partials[j], 0, merged, offset, partials[j].length);
+                            offset = offset + partials[j].length;
+                        }
+                        p_callback.on(dedup(merged));
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Reads the relation arrays of a slice of objects, without consulting the visited set.
+     */
+    private long[] relationIds(KObject[] p_level, int p_from, int p_to) {
+        long[] result = new long[16];
+        int size = 0;
+        for (int i = p_from; i < p_to; i++) {
+            AbstractKObject current = (AbstractKObject) p_level[i];
+            if (current == null) {
+                continue;
+            }
+            KMetaClass metaClass = current.metaClass();
+            KObjectChunk raw = current._manager.closestChunk(current.universe(), current.now(), current.uuid(), metaClass, current.previousResolved());
+            if (raw == null) {
+                continue;
+            }
+            KMeta[] metaElements = metaClass.metaElements();
+            for (int j = 0; j < metaElements.length; j++) {
+                if (metaElements[j] != null && metaElements[j].metaType() == MetaType.RELATION) {
+                    long[] idArr = raw.getLongArray(((KMetaRelation) metaElements[j]).index(), metaClass);
+                    if (idArr != null) {
+                        if (size + idArr.length > result.length) {
+                            int newLength = result.length * 2;
+                            while (newLength < size + idArr.length) {
+                                newLength = newLength * 2;
+                            }
+                            long[] extended = new long[newLength];
+                            System.arraycopy(result, 0, extended, 0, size);
+                            result = extended;
+                        }
+                        System.arraycopy(idArr, 0, result, size, idArr.length);
+                        size = size + idArr.length;
+                    }
+                }
+            }
+        }
+        long[] trimmed = new long[size];
+        System.arraycopy(result, 0, trimmed, 0, size);
+        return trimmed;
+    }
+
+    private long[] dedup(long[] p_ids) {
+        int size = 0;
+        long[] result = new long[p_ids.length];
+        for (int i = 0; i < p_ids.length; i++) {
+            if (_visited.add(p_ids[i])) {
+                result[size] = p_ids[i];
+                size++;
+            }
+        }
+        if (size == p_ids.length) {
+            return result;
+        }
+        long[] trimmed = new long[size];
+        System.arraycopy(result, 0, trimmed, 0, size);
+        return trimmed;
+    }
+
+    /**
+     * Gives the resolved objects of a level to the visitor, returns the ones to expand.
+     */
+    private void visitLevel(final KObject[] p_resolved, KInternalDataManager p_manager, final KCallback<KObject[]> p_callback) {
+        final int nbSlices = (p_resolved.length + SLICE_SIZE - 1) / SLICE_SIZE;
+        if (!_parallel || nbSlices <= 1) {
+            p_callback.on(visitSlice(p_resolved, 0, p_resolved.length));
+            return;
+        }
+        final KObject[][] partials = new KObject[nbSlices][];
+        final AtomicInteger remaining = new AtomicInteger(nbSlices);
+        for (int i = 0; i < nbSlices; i++) {
+            final int sliceIndex = i;
+            p_manager.scheduler().dispatch(new KTask() {
+                @Override
+                public void run() {
+                    int from = sliceIndex * SLICE_SIZE;
+                    int to = from + SLICE_SIZE;
+                    if (to > p_resolved.length) {
+                        to = p_resolved.length;
+                    }
+                    partials[sliceIndex] = visitSlice(p_resolved, from, to);
+                    if (remaining.decrementAndGet() == 0) {
+                        int total = 0;
+                        for (int j = 0; j < partials.length; j++) {
+                            total = total + partials[j].length;
+                        }
+                        KObject[] merged = new KObject[total];
+                        int offset = 0;
+                        for (int j = 0; j < partials.length; j++) {
+                            System.arraycopy(partials[j], 0, merged, offset, partials[j].length);
+                            offset = offset + partials[j].length;
+                        }
+                        p_callback.on(merged);
+                    }
+                }
+            });
+        }
+    }
+
+    private KObject[] visitSlice(KObject[] p_resolved, int p_from, int p_to) {
+        KObject[] toExpand = new KObject[p_to - p_from];
+        int size = 0;
+        for (int i = p_from; i < p_to && !_stopped; i++) {
+            KObject resolved = p_resolved[i];
+            if (resolved != null) {
+                KVisitResult result = _visitor.visit(resolved);
+                if (result != null && result.equals(KVisitResult.STOP)) {
+                    _stopped = true;
+                } else if (result != null && result.equals(KVisitResult.CONTINUE)) {
+                    toExpand[size] = resolved;
+                    size++;
+                }
+            }
+        }
+        KObject[] trimmed = new KObject[size];
+        System.arraycopy(toExpand, 0, trimmed, 0, size);
+        return trimmed;
+    }
+
+}
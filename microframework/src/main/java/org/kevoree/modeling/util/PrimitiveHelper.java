@@ -226,4 +226,39 @@ public class PrimitiveHelper {
         return target.hashCode();
     }
 
+    /**
+     * @native ts
+     * if (src == other) { return 0; } else if (src < other) { return -1; } else { return 1; }
+     */
+    public static int compareStrings(String src, String other) {
+        return src.compareTo(other);
+    }
+
+    /**
+     * @native ts
+     * target.sort();
+     */
+    public static void sortStrings(String[] target) {
+        java.util.Arrays.sort(target);
+    }
+
+    /**
+     * @native ts
+     * target.sort(function (a, b) { return a - b; });
+     */
+    public static void sortLongs(long[] target) {
+        java.util.Arrays.sort(target);
+    }
+
+    /**
+     * @native ts
+     * var sorted = [];
+     * for (var i = from; i < to; i++) { sorted.push(target[i]); }
+     * sorted.sort(function (a, b) { return a - b; });
+     * for (var j = from; j < to; j++) { target[j] = sorted[j - from]; }
+     */
+    public static void sortDoubles(double[] target, int from, int to) {
+        java.util.Arrays.sort(target, from, to);
+    }
+
 }
@@ -0,0 +1,15 @@
+package org.kevoree.modeling.util.maths.expression;
+
+import org.kevoree.modeling.KObject;
+
+public interface KMathCompiledExpression {
+
+    double eval(KObject context);
+
+    /**
+     * Evaluates the expression for every context, results[i] receives the value computed for contexts[i].
+     * Null contexts produce NaN.
+     */
+    void evalAll(KObject[] contexts, double[] results);
+
+}
@@ -10,4 +10,6 @@ public interface KMathExpressionEngine {
 
     double eval(KObject context);
 
+    KMathCompiledExpression compile();
+
 }
@@ -0,0 +1,27 @@
+package org.kevoree.modeling.util.maths.expression.impl;
+
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.util.maths.expression.KMathCompiledExpression;
+
+public class MathCompiledExpression implements KMathCompiledExpression {
+
+    private final MathNode _root;
+
+    public MathCompiledExpression(MathNode p_root) {
+        this._root = p_root;
+    }
+
+    @Override
+    public double eval(KObject context) {
+        return _root.eval(context);
+    }
+
+    @Override
+    public void evalAll(KObject[] contexts, double[] results) {
+        if (results.length < contexts.length) {
+            throw new RuntimeException("Results array too small, expected at least " + contexts.length);
+        }
+        _root.evalAll(contexts, results);
+    }
+
+}
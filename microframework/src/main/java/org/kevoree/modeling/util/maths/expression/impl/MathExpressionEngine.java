@@ -4,6 +4,7 @@ import org.kevoree.modeling.KObject;
 import org.kevoree.modeling.meta.KPrimitiveTypes;
 import org.kevoree.modeling.meta.impl.MetaLiteral;
 import org.kevoree.modeling.util.PrimitiveHelper;
+import org.kevoree.modeling.util.maths.expression.KMathCompiledExpression;
 import org.kevoree.modeling.util.maths.expression.KMathExpressionEngine;
 import org.kevoree.modeling.util.maths.expression.KMathVariableResolver;
 
@@ -262,6 +263,61 @@ public class MathExpressionEngine implements KMathExpressionEngine {
         return result;
     }
 
+    /**
+     * Folds the RPN token list into a tree of primitive nodes. Variables known by the resolver are
+     * resolved once here, remaining free tokens become TIME or attribute reads.
+     */
+    @Override
+    public KMathCompiledExpression compile() {
+        if (this._cacheAST == null) {
+            throw new RuntimeException("Call parse before");
+        }
+        MathNode[] stack = new MathNode[_cacheAST.length];
+        int head = 0;
+        for (int ii = 0; ii < _cacheAST.length; ii++) {
+            MathToken mathToken = _cacheAST[ii];
+            switch (mathToken.type()) {
+                case 0:
+                    if (head < 2) {
+                        throw new RuntimeException("Missing operand for operator");
+                    }
+                    MathNode right = stack[--head];
+                    MathNode left = stack[--head];
+                    stack[head++] = MathNode.operation((MathOperation) mathToken, left, right);
+                    break;
+                case 1:
+                    MathFunction castedFunction = (MathFunction) mathToken;
+                    if (head < castedFunction.getNumParams()) {
+                        throw new RuntimeException("Missing parameter for function " + castedFunction.getName());
+                    }
+                    MathNode[] params = new MathNode[castedFunction.getNumParams()];
+                    for (int i = castedFunction.getNumParams() - 1; i >= 0; i--) {
+                        params[i] = stack[--head];
+                    }
+                    stack[head++] = MathNode.function(castedFunction, params);
+                    break;
+                case 2:
+                    stack[head++] = MathNode.constant(((MathDoubleToken) mathToken).content());
+                    break;
+                case 3:
+                    String content = ((MathFreeToken) mathToken).content();
+                    Double resolved = varResolver.resolve(content);
+                    if (resolved != null) {
+                        stack[head++] = MathNode.constant(resolved);
+                    } else if (PrimitiveHelper.equals("TIME", content)) {
+                        stack[head++] = MathNode.time();
+                    } else {
+                        stack[head++] = MathNode.attribute(content);
+                    }
+                    break;
+            }
+        }
+        if (head == 0) {
+            return new MathCompiledExpression(MathNode.constant(0));
+        }
+        return new MathCompiledExpression(stack[head - 1]);
+    }
+
     @Override
     public KMathExpressionEngine parse(String p_expression) {
         List<String> rpn = shuntingYard(p_expression);
@@ -11,7 +11,33 @@ import java.util.*;
  */
 public class MathFunction implements MathToken {
 
-
+    public static final int NOT = 0;
+    public static final int IF = 1;
+    public static final int RAND = 2;
+    public static final int SIN = 3;
+    public static final int COS = 4;
+    public static final int TAN = 5;
+    public static final int ASIN = 6;
+    public static final int ACOS = 7;
+    public static final int ATAN = 8;
+    public static final int MAX = 9;
+    public static final int MIN = 10;
+    public static final int ABS = 11;
+    public static final int LOG = 12;
+    public static final int ROUND = 13;
+    public static final int FLOOR = 14;
+    public static final int CEILING = 15;
+    public static final int SQRT = 16;
+    public static final int SECONDS = 17;
+    public static final int MINUTES = 18;
+    public static final int HOURS = 19;
+    public static final int DAY = 20;
+    public static final int MONTH = 21;
+    public static final int YEAR = 22;
+    public static final int DAYOFWEEK = 23;
+    public static final int UNKNOWN = -1;
+
+    private static final String[] NAMES = {"NOT", "IF", "RAND", "SIN", "COS", "TAN", "ASIN", "ACOS", "ATAN", "MAX", "MIN", "ABS", "LOG", "ROUND", "FLOOR", "CEILING", "SQRT", "SECONDS", "MINUTES", "HOURS", "DAY", "MONTH", "YEAR", "DAYOFWEEK"};
 
     /**
      * Name of this function.
@@ -22,6 +48,11 @@ public class MathFunction implements MathToken {
      */
     private int numParams;
 
+    /**
+     * Resolved code of this function, avoids name comparisons at evaluation time.
+     */
+    private int code;
+
     /** @ignore ts */
     private TimeZone timeZone=TimeZone.getDefault();
 
@@ -37,6 +68,12 @@ public class MathFunction implements MathToken {
     public MathFunction(String name, int numParams) {
         this.name = name.toUpperCase();
         this.numParams = numParams;
+        this.code = UNKNOWN;
+        for (int i = 0; i < NAMES.length; i++) {
+            if (PrimitiveHelper.equals(this.name, NAMES[i])) {
+                this.code = i;
+            }
+        }
     }
 
     public String getName() {
@@ -47,63 +84,79 @@ public class MathFunction implements MathToken {
         return numParams;
     }
 
+    public int getCode() {
+        return code;
+    }
+
 
     public double eval(double[] p) {
-        if (PrimitiveHelper.equals(name,"NOT")) {
-            return (p[0] == 0) ? 1 : 0;
-        } else if (PrimitiveHelper.equals(name,"IF")) {
-            return !(p[0] == 0) ? p[1] : p[2];
-        } else if (PrimitiveHelper.equals(name,"RAND")) {
-            return Math.random();
-        } else if (PrimitiveHelper.equals(name,"SIN")) {
-            return Math.sin(p[0]);
-        } else if (PrimitiveHelper.equals(name,"COS")) {
-            return Math.cos(p[0]);
-        } else if (PrimitiveHelper.equals(name,"TAN")) {
-            return Math.tan(p[0]);
-        } else if (PrimitiveHelper.equals(name,"ASIN")) {
-            return Math.asin(p[0]);
-        } else if (PrimitiveHelper.equals(name,"ACOS")) {
-            return Math.acos(p[0]);
-        } else if (PrimitiveHelper.equals(name,"ATAN")) {
-            return Math.atan(p[0]);
-        } else if (PrimitiveHelper.equals(name,"MAX")) {
-            return p[0] > p[1] ? p[0] : p[1];
-        } else if (PrimitiveHelper.equals(name,"MIN")) {
-            return p[0] < p[1] ? p[0] : p[1];
-        } else if (PrimitiveHelper.equals(name,"ABS")) {
-            return Math.abs(p[0]);
-        } else if (PrimitiveHelper.equals(name,"LOG")) {
-            return Math.log(p[0]);
-        } else if (PrimitiveHelper.equals(name,"ROUND")) {
-            long factor = (long) Math.pow(10, p[1]);
-            double value = p[0] * factor;
-            long tmp = Math.round(value);
-            return (double) tmp / factor;
-        } else if (PrimitiveHelper.equals(name,"FLOOR")) {
-            return Math.floor(p[0]);
-        } else if (PrimitiveHelper.equals(name,"CEILING")) {
-            return Math.ceil(p[0]);
-        } else if (PrimitiveHelper.equals(name,"SQRT")) {
-            return Math.sqrt(p[0]);
-        } else if (PrimitiveHelper.equals(name,"SECONDS")) {
-            return date_to_seconds(p[0]);
-        } else if (PrimitiveHelper.equals(name,"MINUTES")) {
-            return date_to_minutes(p[0]);
-        } else if (PrimitiveHelper.equals(name,"HOURS")) {
-            return date_to_hours(p[0]);
-        } else if (PrimitiveHelper.equals(name,"DAY")) {
-            return date_to_days(p[0]);
-        } else if (PrimitiveHelper.equals(name,"MONTH")) {
-            return date_to_months(p[0]);
-        } else if (PrimitiveHelper.equals(name,"YEAR")) {
-            return date_to_year(p[0]);
-        } else if (PrimitiveHelper.equals(name,"DAYOFWEEK")) {
-            return date_to_dayofweek(p[0]);
-        }
-        return 0;
+        double p0 = numParams > 0 ? p[0] : 0;
+        double p1 = numParams > 1 ? p[1] : 0;
+        double p2 = numParams > 2 ? p[2] : 0;
+        return eval3(p0, p1, p2);
     }
 
+    /**
+     * Evaluates this function with unboxed parameters, unused trailing parameters are ignored.
+     * Every built-in function has at most three parameters.
+     */
+    public double eval3(double p0, double p1, double p2) {
+        switch (code) {
+            case NOT:
+                return (p0 == 0) ? 1 : 0;
+            case IF:
+                return !(p0 == 0) ? p1 : p2;
+            case RAND:
+                return Math.random();
+            case SIN:
+                return Math.sin(p0);
+            case COS:
+                return Math.cos(p0);
+            case TAN:
+                return Math.tan(p0);
+            case ASIN:
+                return Math.asin(p0);
+            case ACOS:
+                return Math.acos(p0);
+            case ATAN:
+                return Math.atan(p0);
+            case MAX:
+                return p0 > p1 ? p0 : p1;
+            case MIN:
+                return p0 < p1 ? p0 : p1;
+            case ABS:
+                return Math.abs(p0);
+            case LOG:
+                return Math.log(p0);
+            case ROUND:
+                long factor = (long) Math.pow(10, p1);
+                double value = p0 * factor;
+                long tmp = Math.round(value);
+                return (double) tmp / factor;
+            case FLOOR:
+                return Math.floor(p0);
+            case CEILING:
+                return Math.ceil(p0);
+            case SQRT:
+                return Math.sqrt(p0);
+            case SECONDS:
+                return date_to_seconds(p0);
+            case MINUTES:
+                return date_to_minutes(p0);
+            case HOURS:
+                return date_to_hours(p0);
+            case DAY:
+                return date_to_days(p0);
+            case MONTH:
+                return date_to_months(p0);
+            case YEAR:
+                return date_to_year(p0);
+            case DAYOFWEEK:
+                return date_to_dayofweek(p0);
+            default:
+                return 0;
+        }
+    }
 
     /**
      * @native ts
@@ -0,0 +1,197 @@
+package org.kevoree.modeling.util.maths.expression.impl;
+
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.abs.AbstractKObject;
+import org.kevoree.modeling.meta.KMetaAttribute;
+import org.kevoree.modeling.meta.KMetaClass;
+import org.kevoree.modeling.meta.KPrimitiveTypes;
+import org.kevoree.modeling.util.PrimitiveHelper;
+
+/**
+ * Node of a compiled expression tree. Operators and functions are resolved to integer codes and
+ * attributes are bound to the KMetaAttribute of each meta class once, so that evaluation works on
+ * primitive doubles only.
+ */
+public class MathNode {
+
+    public static final int CONSTANT = 0;
+    public static final int TIME = 1;
+    public static final int ATTRIBUTE = 2;
+    public static final int OPERATION = 3;
+    public static final int FUNCTION = 4;
+
+    private final int _kind;
+
+    private final double _value;
+
+    private final String _name;
+
+    private final MathOperation _operation;
+
+    private final MathFunction _function;
+
+    private final MathNode[] _children;
+
+    /* attributes bound by meta class index, filled lazily */
+    private KMetaAttribute[] _bindings = new KMetaAttribute[0];
+
+    private MathNode(int p_kind, double p_value, String p_name, MathOperation p_operation, MathFunction p_function, MathNode[] p_children) {
+        this._kind = p_kind;
+        this._value = p_value;
+        this._name = p_name;
+        this._operation = p_operation;
+        this._function = p_function;
+        this._children = p_children;
+    }
+
+    public static MathNode constant(double p_value) {
+        return new MathNode(CONSTANT, p_value, null, null, null, null);
+    }
+
+    public static MathNode time() {
+        return new MathNode(TIME, 0, null, null, null, null);
+    }
+
+    public static MathNode attribute(String p_name) {
+        return new MathNode(ATTRIBUTE, 0, p_name, null, null, null);
+    }
+
+    public static MathNode operation(MathOperation p_operation, MathNode p_left, MathNode p_right) {
+        return new MathNode(OPERATION, 0, null, p_operation, null, new MathNode[]{p_left, p_right});
+    }
+
+    public static MathNode function(MathFunction p_function, MathNode[] p_params) {
+        return new MathNode(FUNCTION, 0, null, null, p_function, p_params);
+    }
+
+    public int kind() {
+        return _kind;
+    }
+
+    public double eval(KObject context) {
+        switch (_kind) {
+            case CONSTANT:
+                return _value;
+            case TIME:
+                if (context == null) {
+                    throw new RuntimeException("Unknow variable for name TIME");
+                }
+                return (double) context.now();
+            case ATTRIBUTE:
+                if (context == null) {
+                    throw new RuntimeException("Unknow variable for name " + _name);
+                }
+                return readAttribute(context);
+            case OPERATION:
+                return _operation.eval(_children[0].eval(context), _children[1].eval(context));
+            case FUNCTION:
+                double p0 = _children.length > 0 ? _children[0].eval(context) : 0;
+                double p1 = _children.length > 1 ? _children[1].eval(context) : 0;
+                double p2 = _children.length > 2 ? _children[2].eval(context) : 0;
+                return _function.eval3(p0, p1, p2);
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Column wise evaluation: every node fills a whole result vector before its parent combines them.
+     */
+    public void evalAll(KObject[] contexts, double[] results) {
+        int size = contexts.length;
+        switch (_kind) {
+            case CONSTANT:
+                for (int i = 0; i < size; i++) {
+                    results[i] = _value;
+                }
+                break;
+            case TIME:
+                for (int i = 0; i < size; i++) {
+                    results[i] = contexts[i] != null ? (double) contexts[i].now() : Double.NaN;
+                }
+                break;
+            case ATTRIBUTE:
+                for (int i = 0; i < size; i++) {
+                    results[i] = contexts[i] != null ? readAttribute(contexts[i]) : Double.NaN;
+                }
+                break;
+            case OPERATION:
+                _children[0].evalAll(contexts, results);
+                double[] right = new double[size];
+                _children[1].evalAll(contexts, right);
+                int code = _operation.getCode();
+                for (int i = 0; i < size; i++) {
+                    results[i] = MathOperation.evalCode(code, results[i], right[i]);
+                }
+                break;
+            case FUNCTION:
+                double[] second = null;
+                double[] third = null;
+                if (_children.length > 0) {
+                    _children[0].evalAll(contexts, results);
+                }
+                if (_children.length > 1) {
+                    second = new double[size];
+                    _children[1].evalAll(contexts, second);
+                }
+                if (_children.length > 2) {
+                    third = new double[size];
+                    _children[2].evalAll(contexts, third);
+                }
+                for (int i = 0; i < size; i++) {
+                    double p0 = _children.length > 0 ? results[i] : 0;
+                    double p1 = second != null ? second[i] : 0;
+                    double p2 = third != null ? third[i] : 0;
+                    results[i] = _function.eval3(p0, p1, p2);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private double readAttribute(KObject context) {
+        KMetaAttribute attribute = bind(context.metaClass());
+        if (attribute == null) {
+            throw new RuntimeException("Unknow variable for name " + _name);
+        }
+        if (attribute.attributeTypeId() == KPrimitiveTypes.STRING_ID) {
+            Object resolved = context.get(attribute);
+            if (resolved == null) {
+                return Double.NaN;
+            }
+            String valueString = resolved.toString();
+            if (PrimitiveHelper.equals(valueString, "true")) {
+                return 1.0;
+            } else if (PrimitiveHelper.equals(valueString, "false")) {
+                return 0.0;
+            }
+            try {
+                return PrimitiveHelper.parseDouble(valueString);
+            } catch (Exception e) {
+                return Double.NaN;
+            }
+        }
+        return ((AbstractKObject) context).internal_get_double(attribute);
+    }
+
+    private KMetaAttribute bind(KMetaClass p_metaClass) {
+        int index = p_metaClass.index();
+        KMetaAttribute[] bindings = _bindings;
+        if (index < bindings.length && bindings[index] != null) {
+            return bindings[index];
+        }
+        KMetaAttribute resolved = p_metaClass.attribute(_name);
+        if (resolved != null) {
+            if (index >= bindings.length) {
+                KMetaAttribute[] extended = new KMetaAttribute[index + 1];
+                System.arraycopy(bindings, 0, extended, 0, bindings.length);
+                bindings = extended;
+            }
+            bindings[index] = resolved;
+            _bindings = bindings;
+        }
+        return resolved;
+    }
+
+}
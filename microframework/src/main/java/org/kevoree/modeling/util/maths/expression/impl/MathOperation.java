@@ -8,64 +8,121 @@ import org.kevoree.modeling.util.PrimitiveHelper;
  */
 public class MathOperation implements MathToken {
 
+    public static final int PLUS = 0;
+    public static final int MINUS = 1;
+    public static final int MULT = 2;
+    public static final int DIV = 3;
+    public static final int MODULO = 4;
+    public static final int POW = 5;
+    public static final int AND = 6;
+    public static final int OR = 7;
+    public static final int GT = 8;
+    public static final int GTE = 9;
+    public static final int LT = 10;
+    public static final int LTE = 11;
+    public static final int EQ = 12;
+    public static final int NEQ = 13;
+    public static final int UNKNOWN = -1;
+
     private String oper;
     private int precedence;
     private boolean leftAssoc;
+    private int code;
 
     public MathOperation(String oper, int precedence, boolean leftAssoc) {
         this.oper = oper;
         this.precedence = precedence;
         this.leftAssoc = leftAssoc;
+        this.code = toCode(oper);
     }
 
-    public String getOper() {
-        return oper;
-    }
-
-    public int getPrecedence() {
-        return precedence;
-    }
-
-    public boolean isLeftAssoc() {
-        return leftAssoc;
-    }
-
-
-    public double eval(double v1, double v2) {
+    private static int toCode(String oper) {
         if (PrimitiveHelper.equals(oper, "+")) {
-            return v1 + v2;
+            return PLUS;
         } else if (PrimitiveHelper.equals(oper, "-")) {
-            return v1 - v2;
+            return MINUS;
         } else if (PrimitiveHelper.equals(oper, "*")) {
-            return v1 * v2;
+            return MULT;
         } else if (PrimitiveHelper.equals(oper, "/")) {
-            return v1 / v2;
+            return DIV;
         } else if (PrimitiveHelper.equals(oper, "%")) {
-            return v1 % v2;
+            return MODULO;
         } else if (PrimitiveHelper.equals(oper, "^")) {
-            return Math.pow(v1, v2);
+            return POW;
         } else if (PrimitiveHelper.equals(oper, "&&")) {
-            boolean b1 = !(v1 == 0);
-            boolean b2 = !(v2 == 0);
-            return b1 && b2 ? 1 : 0;
+            return AND;
         } else if (PrimitiveHelper.equals(oper, "||")) {
-            boolean b1 = !(v1 == 0);
-            boolean b2 = !(v2 == 0);
-            return b1 || b2 ? 1 : 0;
+            return OR;
         } else if (PrimitiveHelper.equals(oper, ">")) {
-            return v1 > v2 ? 1 : 0;
+            return GT;
         } else if (PrimitiveHelper.equals(oper, ">=")) {
-            return v1 >= v2 ? 1 : 0;
+            return GTE;
         } else if (PrimitiveHelper.equals(oper, "<")) {
-            return v1 < v2 ? 1 : 0;
+            return LT;
         } else if (PrimitiveHelper.equals(oper, "<=")) {
-            return v1 <= v2 ? 1 : 0;
+            return LTE;
         } else if (PrimitiveHelper.equals(oper, "==")) {
-            return v1 == v2 ? 1 : 0;
+            return EQ;
         } else if (PrimitiveHelper.equals(oper, "!=")) {
-            return v1 != v2 ? 1 : 0;
+            return NEQ;
+        }
+        return UNKNOWN;
+    }
+
+    public String getOper() {
+        return oper;
+    }
+
+    public int getPrecedence() {
+        return precedence;
+    }
+
+    public boolean isLeftAssoc() {
+        return leftAssoc;
+    }
+
+
+    public int getCode() {
+        return code;
+    }
+
+    public double eval(double v1, double v2) {
+        return evalCode(code, v1, v2);
+    }
+
+    public static double evalCode(int p_code, double v1, double v2) {
+        switch (p_code) {
+            case PLUS:
+                return v1 + v2;
+            case MINUS:
+                return v1 - v2;
+            case MULT:
+                return v1 * v2;
+            case DIV:
+                return v1 / v2;
+            case MODULO:
+                return v1 % v2;
+            case POW:
+                return Math.pow(v1, v2);
+            case AND:
+                return (v1 != 0) && (v2 != 0) ? 1 : 0;
+            case OR:
+                return (v1 != 0) || (v2 != 0) ? 1 : 0;
+            case GT:
+                return v1 > v2 ? 1 : 0;
+            case GTE:
+                return v1 >= v2 ? 1 : 0;
+            case LT:
+                return v1 < v2 ? 1 : 0;
+            case LTE:
+                return v1 <= v2 ? 1 : 0;
+            case EQ:
+                return v1 == v2 ? 1 : 0;
+            case NEQ:
+                return v1 != v2 ? 1 : 0;
+            default:
+                return 0;
         }
-        return 0;
     }
 
     @Override
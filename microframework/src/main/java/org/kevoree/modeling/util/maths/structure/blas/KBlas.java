@@ -2,6 +2,56 @@ package org.kevoree.modeling.util.maths.structure.blas;
 
 public interface KBlas {
 
+    /**
+     * Dot product of two vectors
+     *
+     * @param n:       number of elements
+     * @param x:       first vector
+     * @param offsetX: offset of the first element of x
+     * @param incX:    step between two elements of x
+     * @param y:       second vector
+     * @param offsetY: offset of the first element of y
+     * @param incY:    step between two elements of y
+     * @return sum of x[i]*y[i]
+     */
+    double ddot(int n, double[] x, int offsetX, int incX, double[] y, int offsetY, int incY);
+
+    /**
+     * Vector update
+     * y = alpha*x + y
+     *
+     * @param n:       number of elements
+     * @param alpha:   multiplicative parameter for x
+     * @param x:       vector added
+     * @param offsetX: offset of the first element of x
+     * @param incX:    step between two elements of x
+     * @param y:       vector updated
+     * @param offsetY: offset of the first element of y
+     * @param incY:    step between two elements of y
+     */
+    void daxpy(int n, double alpha, double[] x, int offsetX, int incX, double[] y, int offsetY, int incY);
+
+    /**
+     * Matrix vector multiplication
+     * y = alpha*matA*x + beta*y
+     *
+     * @param transA:  if we need to transpose matrix A
+     * @param m:       rows of matA
+     * @param n:       columns of matA
+     * @param alpha:   multiplicative parameter for matA*x
+     * @param matA:    matrix
+     * @param offsetA: offset in the array of matA, usually 0
+     * @param ldA:     number of rows in matA to jump to reach the second column
+     * @param x:       vector multiplied, of n elements or m when transposed
+     * @param offsetX: offset of the first element of x
+     * @param incX:    step between two elements of x
+     * @param beta:    scaling parameter for y
+     * @param y:       vector which contains the result, of m elements or n when transposed
+     * @param offsetY: offset of the first element of y
+     * @param incY:    step between two elements of y
+     */
+    void dgemv(KBlasTransposeType transA, int m, int n, double alpha, double[] matA, int offsetA, int ldA, double[] x, int offsetX, int incX, double beta, double[] y, int offsetY, int incY);
+
     /**
      * Matrix multiplications
      * matC = alpha*matA*matB + beta*matC
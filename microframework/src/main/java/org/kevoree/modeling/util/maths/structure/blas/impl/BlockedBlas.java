@@ -0,0 +1,639 @@
+package org.kevoree.modeling.util.maths.structure.blas.impl;
+
+import org.kevoree.modeling.util.maths.structure.blas.KBlas;
+import org.kevoree.modeling.util.maths.structure.blas.KBlasTransposeType;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * KBlas whose dgemm, dgetrf and dgetrs are written for the JVM rather than translated from the reference Fortran.
+ * dgemm packs MC x KC blocks of A and KC x NC blocks of B into contiguous panels that stay in cache and computes C by
+ * MR x NR tiles held in registers, large products being split by column blocks of C over a fork-join pool.
+ * dgetrf is a right-looking LU factorizing NB wide panels, its trailing update going through that dgemm, and dgetrs
+ * solves every right hand side by 0-based loops over contiguous columns. Other routines are delegated to JavaBlas.
+ * Plugged in through DataManagerBuilder.withBlas. JVM only, the TypeScript build keeps JavaBlas.
+ *
+ * @ignore ts
+ */
+public class BlockedBlas implements KBlas {
+
+    /* register tile of C */
+    private static final int MR = 4;
+
+    private static final int NR = 4;
+
+    /* cache blocks, MC and NC being multiples of MR and NR */
+    private static final int MC = 128;
+
+    private static final int KC = 256;
+
+    private static final int NC = 512;
+
+    /* width of the LU panels */
+    private static final int NB = 64;
+
+    /* under this number of multiply-adds an operation stays on the calling thread */
+    private static final long PARALLEL_THRESHOLD = 128L * 128 * 128;
+
+    private final int _parallelism;
+
+    private final JavaBlas _reference = new JavaBlas();
+
+    private ForkJoinPool _pool = null;
+
+    public BlockedBlas() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public BlockedBlas(int p_parallelism) {
+        if (p_parallelism < 1) {
+            throw new RuntimeException("Parallelism must be at least 1, " + p_parallelism);
+        }
+        this._parallelism = p_parallelism;
+    }
+
+    /**
+     * Work on the columns [from, to) of an operation, columns being independent from each other.
+     */
+    protected interface ColumnRange {
+        void columns(int from, int to);
+    }
+
+    private static final class ColumnBlocks extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ColumnRange _range;
+
+        private final int _from;
+
+        private final int _to;
+
+        private final int _grain;
+
+        private final int _align;
+
+        ColumnBlocks(ColumnRange p_range, int p_from, int p_to, int p_grain, int p_align) {
+            this._range = p_range;
+            this._from = p_from;
+            this._to = p_to;
+            this._grain = p_grain;
+            this._align = p_align;
+        }
+
+        @Override
+        protected void compute() {
+            if (_to - _from <= _grain) {
+                _range.columns(_from, _to);
+                return;
+            }
+            int middle = _from + ((_to - _from) / 2 + _align - 1) / _align * _align;
+            invokeAll(new ColumnBlocks(_range, _from, middle, _grain, _align), new ColumnBlocks(_range, middle, _to, _grain, _align));
+        }
+    }
+
+    private synchronized ForkJoinPool pool() {
+        if (_pool == null) {
+            _pool = new ForkJoinPool(_parallelism);
+        }
+        return _pool;
+    }
+
+    /**
+     * Runs p_range over nbColumns columns, split in blocks of a multiple of align columns over the pool when the
+     * operation counts at least PARALLEL_THRESHOLD multiply-adds.
+     */
+    protected void forColumns(ColumnRange range, int nbColumns, int align, long work) {
+        int nbTasks = 1;
+        if (_parallelism > 1 && work >= PARALLEL_THRESHOLD) {
+            nbTasks = Math.min(_parallelism, (nbColumns + align - 1) / align);
+        }
+        if (nbTasks <= 1) {
+            range.columns(0, nbColumns);
+            return;
+        }
+        int grain = ((nbColumns + nbTasks - 1) / nbTasks + align - 1) / align * align;
+        pool().invoke(new ColumnBlocks(range, 0, nbColumns, grain, align));
+    }
+
+    @Override
+    public double ddot(int n, double[] x, int offsetX, int incX, double[] y, int offsetY, int incY) {
+        double result = 0.0;
+        if (n <= 0) {
+            return result;
+        }
+        if (incX == 1 && incY == 1) {
+            for (int i = 0; i < n; i++) {
+                result += x[offsetX + i] * y[offsetY + i];
+            }
+            return result;
+        }
+        int ix = incX < 0 ? offsetX + (1 - n) * incX : offsetX;
+        int iy = incY < 0 ? offsetY + (1 - n) * incY : offsetY;
+        for (int i = 0; i < n; i++) {
+            result += x[ix] * y[iy];
+            ix += incX;
+            iy += incY;
+        }
+        return result;
+    }
+
+    @Override
+    public void daxpy(int n, double alpha, double[] x, int offsetX, int incX, double[] y, int offsetY, int incY) {
+        if (n <= 0 || alpha == 0.0) {
+            return;
+        }
+        if (incX == 1 && incY == 1) {
+            for (int i = 0; i < n; i++) {
+                y[offsetY + i] += alpha * x[offsetX + i];
+            }
+            return;
+        }
+        int ix = incX < 0 ? offsetX + (1 - n) * incX : offsetX;
+        int iy = incY < 0 ? offsetY + (1 - n) * incY : offsetY;
+        for (int i = 0; i < n; i++) {
+            y[iy] += alpha * x[ix];
+            ix += incX;
+            iy += incY;
+        }
+    }
+
+    /**
+     * Column oriented, as daxpy over the columns of A when it is not transposed and as ddot over them otherwise.
+     */
+    @Override
+    public void dgemv(KBlasTransposeType transA, int m, int n, double alpha, double[] matA, int offsetA, int ldA, double[] x, int offsetX, int incX, double beta, double[] y, int offsetY, int incY) {
+        if (m <= 0 || n <= 0) {
+            return;
+        }
+        boolean notTransposed = transA.equals(KBlasTransposeType.NOTRANSPOSE);
+        int lengthX = notTransposed ? n : m;
+        int lengthY = notTransposed ? m : n;
+        int kx = incX < 0 ? offsetX + (1 - lengthX) * incX : offsetX;
+        int ky = incY < 0 ? offsetY + (1 - lengthY) * incY : offsetY;
+        if (beta != 1.0) {
+            int iy = ky;
+            for (int i = 0; i < lengthY; i++) {
+                if (beta == 0.0) {
+                    y[iy] = 0.0;
+                } else {
+                    y[iy] = beta * y[iy];
+                }
+                iy += incY;
+            }
+        }
+        if (alpha == 0.0) {
+            return;
+        }
+        if (notTransposed) {
+            int jx = kx;
+            for (int j = 0; j < n; j++) {
+                daxpy(m, alpha * x[jx], matA, offsetA + j * ldA, 1, y, offsetY, incY);
+                jx += incX;
+            }
+        } else {
+            int jy = ky;
+            for (int j = 0; j < n; j++) {
+                y[jy] += alpha * ddot(m, matA, offsetA + j * ldA, 1, x, offsetX, incX);
+                jy += incY;
+            }
+        }
+    }
+
+    @Override
+    public void dgemm(KBlasTransposeType transA, KBlasTransposeType transB, int m, int n, int k, double alpha, double[] matA, int offsetA, int ldA, double[] matB, int offsetB, int ldB, double beta, double[] matC, int offsetC, int ldC) {
+        if (m == 0 || n == 0) {
+            return;
+        }
+        if (beta != 1.0) {
+            for (int j = 0; j < n; j++) {
+                int column = offsetC + j * ldC;
+                for (int i = 0; i < m; i++) {
+                    if (beta == 0.0) {
+                        matC[column + i] = 0.0;
+                    } else {
+                        matC[column + i] = beta * matC[column + i];
+                    }
+                }
+            }
+        }
+        if (alpha == 0.0 || k == 0) {
+            return;
+        }
+        Gemm gemm = new Gemm(!transA.equals(KBlasTransposeType.NOTRANSPOSE), !transB.equals(KBlasTransposeType.NOTRANSPOSE), m, k, alpha, matA, offsetA, ldA, matB, offsetB, ldB, matC, offsetC, ldC);
+        forColumns(gemm, n, NR, (long) m * n * k);
+    }
+
+    /**
+     * C += alpha * op(A) * op(B) on a range of columns of C, every range packing its own panels.
+     */
+    private static final class Gemm implements ColumnRange {
+
+        private final boolean _transA;
+
+        private final boolean _transB;
+
+        private final int _m;
+
+        private final int _k;
+
+        private final double _alpha;
+
+        private final double[] _a;
+
+        private final int _offsetA;
+
+        private final int _ldA;
+
+        private final double[] _b;
+
+        private final int _offsetB;
+
+        private final int _ldB;
+
+        private final double[] _c;
+
+        private final int _offsetC;
+
+        private final int _ldC;
+
+        Gemm(boolean p_transA, boolean p_transB, int p_m, int p_k, double p_alpha, double[] p_a, int p_offsetA, int p_ldA, double[] p_b, int p_offsetB, int p_ldB, double[] p_c, int p_offsetC, int p_ldC) {
+            this._transA = p_transA;
+            this._transB = p_transB;
+            this._m = p_m;
+            this._k = p_k;
+            this._alpha = p_alpha;
+            this._a = p_a;
+            this._offsetA = p_offsetA;
+            this._ldA = p_ldA;
+            this._b = p_b;
+            this._offsetB = p_offsetB;
+            this._ldB = p_ldB;
+            this._c = p_c;
+            this._offsetC = p_offsetC;
+            this._ldC = p_ldC;
+        }
+
+        @Override
+        public void columns(int from, int to) {
+            int kcMax = Math.min(KC, _k);
+            double[] packedA = new double[Math.min(MC, (_m + MR - 1) / MR * MR) * kcMax];
+            double[] packedB = new double[Math.min(NC, (to - from + NR - 1) / NR * NR) * kcMax];
+            for (int jc = from; jc < to; jc += NC) {
+                int nc = Math.min(NC, to - jc);
+                for (int pc = 0; pc < _k; pc += KC) {
+                    int kc = Math.min(KC, _k - pc);
+                    packB(pc, kc, jc, nc, packedB);
+                    for (int ic = 0; ic < _m; ic += MC) {
+                        int mc = Math.min(MC, _m - ic);
+                        packA(ic, mc, pc, kc, packedA);
+                        for (int jr = 0; jr < nc; jr += NR) {
+                            int nr = Math.min(NR, nc - jr);
+                            for (int ir = 0; ir < mc; ir += MR) {
+                                kernel(kc, packedA, ir * kc, packedB, jr * kc, ic + ir, jc + jr, Math.min(MR, mc - ir), nr);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Packs op(A)[ic..ic+mc, pc..pc+kc] as MR rows panels, p major inside a panel, padding the last one with zeros.
+         */
+        private void packA(int ic, int mc, int pc, int kc, double[] packed) {
+            for (int ir = 0; ir < mc; ir += MR) {
+                int base = ir * kc;
+                int rows = Math.min(MR, mc - ir);
+                for (int p = 0; p < kc; p++) {
+                    int target = base + p * MR;
+                    for (int r = 0; r < MR; r++) {
+                        if (r < rows) {
+                            int row = ic + ir + r;
+                            if (_transA) {
+                                packed[target + r] = _a[_offsetA + pc + p + row * _ldA];
+                            } else {
+                                packed[target + r] = _a[_offsetA + row + (pc + p) * _ldA];
+                            }
+                        } else {
+                            packed[target + r] = 0.0;
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Packs op(B)[pc..pc+kc, jc..jc+nc] as NR columns panels, p major inside a panel, padding the last one with zeros.
+         */
+        private void packB(int pc, int kc, int jc, int nc, double[] packed) {
+            for (int jr = 0; jr < nc; jr += NR) {
+                int base = jr * kc;
+                int cols = Math.min(NR, nc - jr);
+                for (int c = 0; c < NR; c++) {
+                    int column = jc + jr + c;
+                    for (int p = 0; p < kc; p++) {
+                        if (c < cols) {
+                            if (_transB) {
+                                packed[base + p * NR + c] = _b[_offsetB + column + (pc + p) * _ldB];
+                            } else {
+                                packed[base + p * NR + c] = _b[_offsetB + pc + p + column * _ldB];
+                            }
+                        } else {
+                            packed[base + p * NR + c] = 0.0;
+                        }
+                    }
+                }
+            }
+        }
+
+        private void kernel(int kc, double[] pa, int aOffset, double[] pb, int bOffset, int row, int column, int mr, int nr) {
+            double c00 = 0, c10 = 0, c20 = 0, c30 = 0;
+            double c01 = 0, c11 = 0, c21 = 0, c31 = 0;
+            double c02 = 0, c12 = 0, c22 = 0, c32 = 0;
+            double c03 = 0, c13 = 0, c23 = 0, c33 = 0;
+            int a = aOffset;
+            int b = bOffset;
+            for (int p = 0; p < kc; p++) {
+                double a0 = pa[a];
+                double a1 = pa[a + 1];
+                double a2 = pa[a + 2];
+                double a3 = pa[a + 3];
+                double b0 = pb[b];
+                double b1 = pb[b + 1];
+                double b2 = pb[b + 2];
+                double b3 = pb[b + 3];
+                c00 += a0 * b0;
+                c10 += a1 * b0;
+                c20 += a2 * b0;
+                c30 += a3 * b0;
+                c01 += a0 * b1;
+                c11 += a1 * b1;
+                c21 += a2 * b1;
+                c31 += a3 * b1;
+                c02 += a0 * b2;
+                c12 += a1 * b2;
+                c22 += a2 * b2;
+                c32 += a3 * b2;
+                c03 += a0 * b3;
+                c13 += a1 * b3;
+                c23 += a2 * b3;
+                c33 += a3 * b3;
+                a += MR;
+                b += NR;
+            }
+            double alpha = _alpha;
+            double[] c = _c;
+            int c0 = _offsetC + row + column * _ldC;
+            if (mr == MR && nr == NR) {
+                int c1 = c0 + _ldC;
+                int c2 = c1 + _ldC;
+                int c3 = c2 + _ldC;
+                c[c0] += alpha * c00;
+                c[c0 + 1] += alpha * c10;
+                c[c0 + 2] += alpha * c20;
+                c[c0 + 3] += alpha * c30;
+                c[c1] += alpha * c01;
+                c[c1 + 1] += alpha * c11;
+                c[c1 + 2] += alpha * c21;
+                c[c1 + 3] += alpha * c31;
+                c[c2] += alpha * c02;
+                c[c2 + 1] += alpha * c12;
+                c[c2 + 2] += alpha * c22;
+                c[c2 + 3] += alpha * c32;
+                c[c3] += alpha * c03;
+                c[c3 + 1] += alpha * c13;
+                c[c3 + 2] += alpha * c23;
+                c[c3 + 3] += alpha * c33;
+                return;
+            }
+            //edge tile, column-major as C
+            double[] tile = new double[]{c00, c10, c20, c30, c01, c11, c21, c31, c02, c12, c22, c32, c03, c13, c23, c33};
+            for (int j = 0; j < nr; j++) {
+                for (int i = 0; i < mr; i++) {
+                    c[c0 + i + j * _ldC] += alpha * tile[i + j * MR];
+                }
+            }
+        }
+    }
+
+    @Override
+    public void dgetrf(int rows, int columns, double[] matA, int offsetA, int ldA, int[] ipiv, int offsetIpiv, int[] info) {
+        info[0] = 0;
+        if (rows < 0) {
+            info[0] = -1;
+        } else if (columns < 0) {
+            info[0] = -2;
+        } else if (ldA < Math.max(1, rows)) {
+            info[0] = -4;
+        }
+        if (info[0] != 0 || rows == 0 || columns == 0) {
+            return;
+        }
+        int mn = Math.min(rows, columns);
+        for (int j0 = 0; j0 < mn; j0 += NB) {
+            int jb = Math.min(NB, mn - j0);
+            //unblocked factorization of the panel A[j0..rows, j0..j0+jb]
+            for (int c = j0; c < j0 + jb; c++) {
+                int column = offsetA + c * ldA;
+                int pivot = c;
+                double max = Math.abs(matA[column + c]);
+                for (int r = c + 1; r < rows; r++) {
+                    double candidate = Math.abs(matA[column + r]);
+                    if (candidate > max) {
+                        max = candidate;
+                        pivot = r;
+                    }
+                }
+                ipiv[offsetIpiv + c] = pivot + 1;
+                if (matA[column + pivot] != 0.0) {
+                    if (pivot != c) {
+                        swapRows(matA, offsetA, ldA, c, pivot, j0, j0 + jb);
+                    }
+                    double diagonal = matA[column + c];
+                    if (Math.abs(diagonal) >= Double.MIN_NORMAL) {
+                        double inverse = 1.0 / diagonal;
+                        for (int r = c + 1; r < rows; r++) {
+                            matA[column + r] *= inverse;
+                        }
+                    } else {
+                        for (int r = c + 1; r < rows; r++) {
+                            matA[column + r] /= diagonal;
+                        }
+                    }
+                } else if (info[0] == 0) {
+                    info[0] = c + 1;
+                }
+                for (int cc = c + 1; cc < j0 + jb; cc++) {
+                    int updated = offsetA + cc * ldA;
+                    double x = matA[updated + c];
+                    if (x != 0.0) {
+                        for (int r = c + 1; r < rows; r++) {
+                            matA[updated + r] -= matA[column + r] * x;
+                        }
+                    }
+                }
+            }
+            //the panel interchanges applied to the columns on both sides
+            for (int c = j0; c < j0 + jb; c++) {
+                int pivot = ipiv[offsetIpiv + c] - 1;
+                if (pivot != c) {
+                    swapRows(matA, offsetA, ldA, c, pivot, 0, j0);
+                    swapRows(matA, offsetA, ldA, c, pivot, j0 + jb, columns);
+                }
+            }
+            if (j0 + jb < columns) {
+                //U12 = inverse(L11) * A12, L11 being unit lower triangular
+                for (int col = j0 + jb; col < columns; col++) {
+                    int target = offsetA + col * ldA;
+                    for (int c = j0; c < j0 + jb; c++) {
+                        double x = matA[target + c];
+                        if (x != 0.0) {
+                            int lower = offsetA + c * ldA;
+                            for (int r = c + 1; r < j0 + jb; r++) {
+                                matA[target + r] -= matA[lower + r] * x;
+                            }
+                        }
+                    }
+                }
+                //A22 = A22 - L21 * U12
+                if (j0 + jb < rows) {
+                    dgemm(KBlasTransposeType.NOTRANSPOSE, KBlasTransposeType.NOTRANSPOSE, rows - j0 - jb, columns - j0 - jb, jb, -1.0, matA, offsetA + j0 + jb + j0 * ldA, ldA, matA, offsetA + j0 + (j0 + jb) * ldA, ldA, 1.0, matA, offsetA + j0 + jb + (j0 + jb) * ldA, ldA);
+                }
+            }
+        }
+    }
+
+    private static void swapRows(double[] matA, int offsetA, int ldA, int row1, int row2, int fromColumn, int toColumn) {
+        for (int col = fromColumn; col < toColumn; col++) {
+            int column = offsetA + col * ldA;
+            double tmp = matA[column + row1];
+            matA[column + row1] = matA[column + row2];
+            matA[column + row2] = tmp;
+        }
+    }
+
+    @Override
+    public void dgetrs(KBlasTransposeType transA, final int dim, int nrhs, final double[] matA, final int offsetA, final int ldA, final int[] ipiv, final int offsetIpiv, final double[] matB, final int offsetB, final int ldB, int[] info) {
+        info[0] = 0;
+        if (dim < 0) {
+            info[0] = -2;
+        } else if (nrhs < 0) {
+            info[0] = -3;
+        } else if (ldA < Math.max(1, dim)) {
+            info[0] = -5;
+        } else if (ldB < Math.max(1, dim)) {
+            info[0] = -8;
+        }
+        if (info[0] != 0 || dim == 0 || nrhs == 0) {
+            return;
+        }
+        final boolean notTransposed = transA.equals(KBlasTransposeType.NOTRANSPOSE);
+        forColumns(new ColumnRange() {
+            @Override
+            public void columns(int from, int to) {
+                for (int col = from; col < to; col++) {
+                    int b = offsetB + col * ldB;
+                    if (notTransposed) {
+                        solve(dim, matA, offsetA, ldA, ipiv, offsetIpiv, matB, b);
+                    } else {
+                        solveTransposed(dim, matA, offsetA, ldA, ipiv, offsetIpiv, matB, b);
+                    }
+                }
+            }
+        }, nrhs, 1, (long) dim * dim * nrhs);
+    }
+
+    /**
+     * Solves L * U * x = P * b in place for the column of B starting at b.
+     */
+    private static void solve(int dim, double[] matA, int offsetA, int ldA, int[] ipiv, int offsetIpiv, double[] matB, int b) {
+        for (int i = 0; i < dim; i++) {
+            int pivot = ipiv[offsetIpiv + i] - 1;
+            if (pivot != i) {
+                double tmp = matB[b + i];
+                matB[b + i] = matB[b + pivot];
+                matB[b + pivot] = tmp;
+            }
+        }
+        for (int c = 0; c < dim; c++) {
+            double x = matB[b + c];
+            if (x != 0.0) {
+                int lower = offsetA + c * ldA;
+                for (int r = c + 1; r < dim; r++) {
+                    matB[b + r] -= matA[lower + r] * x;
+                }
+            }
+        }
+        for (int c = dim - 1; c >= 0; c--) {
+            int upper = offsetA + c * ldA;
+            matB[b + c] /= matA[upper + c];
+            double x = matB[b + c];
+            if (x != 0.0) {
+                for (int r = 0; r < c; r++) {
+                    matB[b + r] -= matA[upper + r] * x;
+                }
+            }
+        }
+    }
+
+    /**
+     * Solves transpose(L * U) * x = P * b in place for the column of B starting at b, as dot products over the columns of A.
+     */
+    private static void solveTransposed(int dim, double[] matA, int offsetA, int ldA, int[] ipiv, int offsetIpiv, double[] matB, int b) {
+        for (int i = 0; i < dim; i++) {
+            int upper = offsetA + i * ldA;
+            double sum = matB[b + i];
+            for (int r = 0; r < i; r++) {
+                sum -= matA[upper + r] * matB[b + r];
+            }
+            matB[b + i] = sum / matA[upper + i];
+        }
+        for (int i = dim - 1; i >= 0; i--) {
+            int lower = offsetA + i * ldA;
+            double sum = matB[b + i];
+            for (int r = i + 1; r < dim; r++) {
+                sum -= matA[lower + r] * matB[b + r];
+            }
+            matB[b + i] = sum;
+        }
+        for (int i = dim - 1; i >= 0; i--) {
+            int pivot = ipiv[offsetIpiv + i] - 1;
+            if (pivot != i) {
+                double tmp = matB[b + i];
+                matB[b + i] = matB[b + pivot];
+                matB[b + pivot] = tmp;
+            }
+        }
+    }
+
+    @Override
+    public void dgetri(int dim, double[] matA, int offsetA, int ldA, int[] ipiv, int offsetIpiv, double[] work, int offsetWork, int ldWork, int[] info) {
+        _reference.dgetri(dim, matA, offsetA, ldA, ipiv, offsetIpiv, work, offsetWork, ldWork, info);
+    }
+
+    @Override
+    public void dorgqr(int m, int n, int k, double[] matA, int offsetA, int ldA, double[] taw, int offsetTaw, double[] work, int offsetWork, int lWork, int[] info) {
+        _reference.dorgqr(m, n, k, matA, offsetA, ldA, taw, offsetTaw, work, offsetWork, lWork, info);
+    }
+
+    @Override
+    public void dgeqrf(int m, int n, double[] matA, int offsetA, int ldA, double[] taw, int offsetTaw, double[] work, int offsetwork, int lWork, int[] info) {
+        _reference.dgeqrf(m, n, matA, offsetA, ldA, taw, offsetTaw, work, offsetwork, lWork, info);
+    }
+
+    @Override
+    public void connect() {
+        pool();
+    }
+
+    @Override
+    public synchronized void disconnect() {
+        if (_pool != null) {
+            _pool.shutdown();
+            _pool = null;
+        }
+    }
+
+}
@@ -1591,6 +1591,7 @@ public class JavaBlas implements KBlas {
     }
 
 
+    @Override
     public void dgemv(KBlasTransposeType paramString, int paramInt1, int paramInt2, double paramDouble1, double[] paramArrayOfDouble1, int paramInt3, int paramInt4, double[] paramArrayOfDouble2, int paramInt5, int paramInt6, double paramDouble2, double[] paramArrayOfDouble3, int paramInt7, int paramInt8) {
         double d = 0.0D;
         int i = 0;
@@ -1908,6 +1909,71 @@ public class JavaBlas implements KBlas {
         }
     }
 
+    @Override
+    public double ddot(int n, double[] dx, int dxIdx, int incx, double[] dy, int dyIdx, int incy) {
+        double dtemp = 0.0D;
+        if (n <= 0) {
+            return dtemp;
+        }
+        if (incx == 1 && incy == 1) {
+            int m = n % 5;
+            for (int i = 0; i < m; i++) {
+                dtemp += dx[i + dxIdx] * dy[i + dyIdx];
+            }
+            for (int i = m; i < n; i += 5) {
+                dtemp += dx[i + dxIdx] * dy[i + dyIdx] + dx[i + 1 + dxIdx] * dy[i + 1 + dyIdx] + dx[i + 2 + dxIdx] * dy[i + 2 + dyIdx] + dx[i + 3 + dxIdx] * dy[i + 3 + dyIdx] + dx[i + 4 + dxIdx] * dy[i + 4 + dyIdx];
+            }
+            return dtemp;
+        }
+        int ix = 0;
+        int iy = 0;
+        if (incx < 0) {
+            ix = (-n + 1) * incx;
+        }
+        if (incy < 0) {
+            iy = (-n + 1) * incy;
+        }
+        for (int i = 0; i < n; i++) {
+            dtemp += dx[ix + dxIdx] * dy[iy + dyIdx];
+            ix += incx;
+            iy += incy;
+        }
+        return dtemp;
+    }
+
+    @Override
+    public void daxpy(int n, double da, double[] dx, int dxIdx, int incx, double[] dy, int dyIdx, int incy) {
+        if (n <= 0 || da == 0.0D) {
+            return;
+        }
+        if (incx == 1 && incy == 1) {
+            int m = n % 4;
+            for (int i = 0; i < m; i++) {
+                dy[i + dyIdx] += da * dx[i + dxIdx];
+            }
+            for (int i = m; i < n; i += 4) {
+                dy[i + dyIdx] += da * dx[i + dxIdx];
+                dy[i + 1 + dyIdx] += da * dx[i + 1 + dxIdx];
+                dy[i + 2 + dyIdx] += da * dx[i + 2 + dxIdx];
+                dy[i + 3 + dyIdx] += da * dx[i + 3 + dxIdx];
+            }
+            return;
+        }
+        int ix = 0;
+        int iy = 0;
+        if (incx < 0) {
+            ix = (-n + 1) * incx;
+        }
+        if (incy < 0) {
+            iy = (-n + 1) * incy;
+        }
+        for (int i = 0; i < n; i++) {
+            dy[iy + dyIdx] += da * dx[ix + dxIdx];
+            ix += incx;
+            iy += incy;
+        }
+    }
+
     public void dscal(int paramInt1, double paramDouble, double[] paramArrayOfDouble, int paramInt2, int paramInt3) {
         int i = 0;
         int j = 0;
@@ -0,0 +1,79 @@
+package org.kevoree.modeling.util.maths.structure.impl;
+
+import org.kevoree.modeling.util.maths.structure.KArray1D;
+
+public class NativeArray1D implements KArray1D {
+
+    private int _size;
+
+    private double[] _back;
+
+    public NativeArray1D(int p_size) {
+        this._size = p_size;
+        this._back = new double[p_size];
+    }
+
+    @Override
+    public int size() {
+        return this._size;
+    }
+
+    @Override
+    public double get(int p_index) {
+        return this._back[p_index];
+    }
+
+    @Override
+    public double set(int p_index, double p_value) {
+        this._back[p_index] = p_value;
+        return p_value;
+    }
+
+    @Override
+    public double add(int index, double value) {
+        this._back[index] += value;
+        return this._back[index];
+    }
+
+    @Override
+    public void addAll(double value) {
+        for (int i = 0; i < _size; i++) {
+            this._back[i] += value;
+        }
+    }
+
+    @Override
+    public void setAll(double value) {
+        for (int i = 0; i < _size; i++) {
+            this._back[i] = value;
+        }
+    }
+
+    @Override
+    public void addElement(int index, int numElem) {
+        double[] newBack = new double[_size + numElem];
+        System.arraycopy(_back, 0, newBack, 0, index);
+        System.arraycopy(_back, index, newBack, index + numElem, _size - index);
+        this._back = newBack;
+        this._size = _size + numElem;
+    }
+
+    @Override
+    public KArray1D clone() {
+        NativeArray1D newArr = new NativeArray1D(this._size);
+        System.arraycopy(_back, 0, newArr._back, 0, _size);
+        return newArr;
+    }
+
+    @Override
+    public double[] data() {
+        return this._back;
+    }
+
+    @Override
+    public void setData(double[] data) {
+        this._back = data;
+        this._size = data.length;
+    }
+
+}
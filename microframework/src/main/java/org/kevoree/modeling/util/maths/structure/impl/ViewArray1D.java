@@ -0,0 +1,112 @@
+package org.kevoree.modeling.util.maths.structure.impl;
+
+import org.kevoree.modeling.memory.chunk.KObjectChunk;
+import org.kevoree.modeling.meta.KMetaClass;
+import org.kevoree.modeling.util.maths.structure.KArray1D;
+
+/**
+ * Array1D working on the view of a chunk double array, element accesses being plain array accesses. Changes are
+ * written to the chunk, which is then marked dirty, by commit.
+ */
+public class ViewArray1D implements KArray1D {
+
+    private int _size;
+
+    private int _offset;
+
+    private int _segmentIndex;
+
+    private KObjectChunk _segment;
+
+    private KMetaClass _metaClass;
+
+    private double[] _back;
+
+    public ViewArray1D(int p_size, int p_offset, int p_segmentIndex, KObjectChunk p_segment, KMetaClass p_metaClass) {
+        this._size = p_size;
+        this._offset = p_offset;
+        this._segmentIndex = p_segmentIndex;
+        this._segment = p_segment;
+        this._metaClass = p_metaClass;
+        this._back = p_segment.viewDoubleArray(p_segmentIndex, p_metaClass);
+    }
+
+    @Override
+    public int size() {
+        return this._size;
+    }
+
+    /**
+     * Position of the first element of this array in data().
+     */
+    public int offset() {
+        return this._offset;
+    }
+
+    @Override
+    public double get(int p_index) {
+        return this._back[this._offset + p_index];
+    }
+
+    @Override
+    public double set(int p_index, double p_value) {
+        this._back[this._offset + p_index] = p_value;
+        return p_value;
+    }
+
+    @Override
+    public double add(int index, double value) {
+        this._back[this._offset + index] += value;
+        return this._back[this._offset + index];
+    }
+
+    @Override
+    public void addAll(double value) {
+        for (int i = 0; i < _size; i++) {
+            this._back[this._offset + i] += value;
+        }
+    }
+
+    @Override
+    public void setAll(double value) {
+        for (int i = 0; i < _size; i++) {
+            this._back[this._offset + i] = value;
+        }
+    }
+
+    /**
+     * The view has the size of the chunk array region it was created on, grow a clone() instead.
+     */
+    @Override
+    public void addElement(int index, int numElem) {
+        throw new RuntimeException("Bad KMF usage, a view of a chunk array cannot grow, add elements to a clone");
+    }
+
+    /**
+     * Copy of the viewed elements in a NativeArray1D, detached from the chunk.
+     */
+    @Override
+    public KArray1D clone() {
+        NativeArray1D cloned = new NativeArray1D(_size);
+        System.arraycopy(this._back, this._offset, cloned.data(), 0, _size);
+        return cloned;
+    }
+
+    /**
+     * The whole viewed double array, this array starting at offset().
+     */
+    @Override
+    public double[] data() {
+        return this._back;
+    }
+
+    @Override
+    public void setData(double[] data) {
+        System.arraycopy(data, 0, this._back, this._offset, this._size);
+    }
+
+    public void commit() {
+        this._segment.commitDoubleArray(this._segmentIndex, this._back, this._metaClass);
+    }
+
+}
@@ -0,0 +1,133 @@
+package org.kevoree.modeling.util.maths.structure.impl;
+
+import org.kevoree.modeling.memory.chunk.KObjectChunk;
+import org.kevoree.modeling.meta.KMetaClass;
+import org.kevoree.modeling.util.maths.structure.KArray2D;
+
+/**
+ * Column-major Array2D working on the view of a chunk double array, so that data() can be given to the blas with
+ * offset() and a leading dimension of rows(). Changes are written to the chunk, which is then marked dirty, by commit.
+ */
+public class ViewArray2D implements KArray2D {
+
+    private int _nbRows;
+
+    private int _nbColumns;
+
+    private int _offset;
+
+    private int _segmentIndex;
+
+    private KObjectChunk _segment;
+
+    private KMetaClass _metaClass;
+
+    private double[] _back;
+
+    public ViewArray2D(int p_nbRows, int p_nbColumns, int p_offset, int p_segmentIndex, KObjectChunk p_segment, KMetaClass p_metaClass) {
+        this._nbRows = p_nbRows;
+        this._nbColumns = p_nbColumns;
+        this._offset = p_offset;
+        this._segmentIndex = p_segmentIndex;
+        this._segment = p_segment;
+        this._metaClass = p_metaClass;
+        this._back = p_segment.viewDoubleArray(p_segmentIndex, p_metaClass);
+    }
+
+    private int getIndex(int p_rowIndex, int p_columnIndex) {
+        return this._offset + p_rowIndex + (this._nbRows * p_columnIndex);
+    }
+
+    @Override
+    public int rows() {
+        return this._nbRows;
+    }
+
+    @Override
+    public int columns() {
+        return this._nbColumns;
+    }
+
+    /**
+     * Position of the element (0, 0) in data().
+     */
+    public int offset() {
+        return this._offset;
+    }
+
+    @Override
+    public double get(int p_rowIndex, int p_columnIndex) {
+        return this._back[getIndex(p_rowIndex, p_columnIndex)];
+    }
+
+    @Override
+    public double set(int p_rowIndex, int p_columnIndex, double value) {
+        this._back[getIndex(p_rowIndex, p_columnIndex)] = value;
+        return value;
+    }
+
+    @Override
+    public double add(int rowIndex, int columnIndex, double value) {
+        this._back[getIndex(rowIndex, columnIndex)] += value;
+        return this._back[getIndex(rowIndex, columnIndex)];
+    }
+
+    @Override
+    public void setAll(double value) {
+        for (int i = 0; i < _nbColumns * _nbRows; i++) {
+            this._back[this._offset + i] = value;
+        }
+    }
+
+    @Override
+    public void addRow(int rowindex, int numRow) {
+//toDo
+    }
+
+    @Override
+    public void addCol(int colIndex, int numCol) {
+//toDo
+    }
+
+    @Override
+    public KArray2D clone() {
+        NativeArray2D cloned = new NativeArray2D(_nbRows, _nbColumns);
+        System.arraycopy(this._back, this._offset, cloned.data(), 0, _nbColumns * _nbRows);
+        return cloned;
+    }
+
+    /**
+     * The whole viewed double array, this matrix starting at offset().
+     */
+    @Override
+    public double[] data() {
+        return this._back;
+    }
+
+    @Override
+    public void setData(double[] p_data) {
+        System.arraycopy(p_data, 0, this._back, this._offset, _nbColumns * _nbRows);
+    }
+
+    @Override
+    public double getAtIndex(int index) {
+        return this._back[this._offset + index];
+    }
+
+    @Override
+    public double setAtIndex(int index, double value) {
+        this._back[this._offset + index] = value;
+        return value;
+    }
+
+    @Override
+    public double addAtIndex(int index, double value) {
+        this._back[this._offset + index] += value;
+        return this._back[this._offset + index];
+    }
+
+    public void commit() {
+        this._segment.commitDoubleArray(this._segmentIndex, this._back, this._metaClass);
+    }
+
+}
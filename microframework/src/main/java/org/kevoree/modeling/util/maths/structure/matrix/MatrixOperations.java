@@ -4,6 +4,7 @@ import org.kevoree.modeling.util.maths.structure.KArray2D;
 import org.kevoree.modeling.util.maths.structure.blas.KBlas;
 import org.kevoree.modeling.util.maths.structure.blas.KBlasTransposeType;
 import org.kevoree.modeling.util.maths.structure.impl.NativeArray2D;
+import org.kevoree.modeling.util.maths.structure.impl.ViewArray2D;
 import org.kevoree.modeling.util.maths.structure.matrix.solver.LU;
 
 import java.util.Random;
@@ -16,6 +17,27 @@ public class MatrixOperations {
         return Math.max(matA.columns(),matA.rows());
     }
 
+    /**
+     * Column-major values of matA, as a contiguous array with a leading dimension of matA.rows() to be given to the blas.
+     * The backing array of a NativeArray2D, or of a ViewArray2D starting its view, is returned as is, other matrices are
+     * copied.
+     */
+    public static double[] columnMajor(KArray2D matA) {
+        if (matA instanceof NativeArray2D) {
+            return matA.data();
+        }
+        if (matA instanceof ViewArray2D && ((ViewArray2D) matA).offset() == 0) {
+            return matA.data();
+        }
+        double[] result = new double[matA.rows() * matA.columns()];
+        for (int j = 0; j < matA.columns(); j++) {
+            for (int i = 0; i < matA.rows(); i++) {
+                result[i + matA.rows() * j] = matA.get(i, j);
+            }
+        }
+        return result;
+    }
+
 
     public static KArray2D multiply(KArray2D matA, KArray2D matB, KBlas blas) {
         NativeArray2D matC = new NativeArray2D(matA.rows(), matB.columns());
@@ -2,10 +2,18 @@ package org.kevoree.modeling;
 
 import org.junit.Assert;
 import org.junit.Test;
+import org.kevoree.modeling.abs.AbstractKObjectIndex;
+import org.kevoree.modeling.cdn.KContentDeliveryDriver;
 import org.kevoree.modeling.cloudmodel.CloudModel;
 import org.kevoree.modeling.cloudmodel.Node;
 import org.kevoree.modeling.cloudmodel.meta.MetaNode;
 import org.kevoree.modeling.memory.manager.DataManagerBuilder;
+import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
+import org.kevoree.modeling.meta.KMetaAttribute;
+import org.kevoree.modeling.meta.KMetaClass;
+import org.kevoree.modeling.meta.KPrimitiveTypes;
+import org.kevoree.modeling.meta.impl.GenericObjectIndex;
+import org.kevoree.modeling.meta.impl.MetaModel;
 import org.kevoree.modeling.scheduler.impl.DirectScheduler;
 
 public class IndexTest {
@@ -179,4 +187,272 @@ public class IndexTest {
         });
     }
 
+    @Test
+    public void testPagedIndex() {
+        final CloudModel model = new CloudModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        model.connect(new KCallback<Throwable>() {
+            @Override
+            public void on(Throwable throwable) {
+                if (throwable != null) {
+                    throwable.printStackTrace();
+                } else {
+                    model.indexByName(0, 0, "paged", new KCallback<KObjectIndex>() {
+                        @Override
+                        public void on(KObjectIndex index) {
+                            for (int i = 0; i < 1000; i++) {
+                                index.setIndex("key" + i, i);
+                            }
+                            Assert.assertEquals(index.values().length, 1000);
+                            Assert.assertEquals(index.getIndex("key500"), 500);
+                        }
+                    });
+                    model.indexByName(0, 10, "paged", new KCallback<KObjectIndex>() {
+                        @Override
+                        public void on(KObjectIndex index) {
+                            index.setIndex("key500", 42);
+                            index.setIndex("key501", KConfig.NULL_LONG);
+                            Assert.assertEquals(index.getIndex("key500"), 42);
+                            Assert.assertEquals(index.getIndex("key501"), KConfig.NULL_LONG);
+                            Assert.assertEquals(index.values().length, 999);
+                        }
+                    });
+                    //the past of the index is untouched
+                    model.indexByName(0, 5, "paged", new KCallback<KObjectIndex>() {
+                        @Override
+                        public void on(KObjectIndex index) {
+                            Assert.assertEquals(index.getIndex("key500"), 500);
+                            Assert.assertEquals(index.getIndex("key501"), 501);
+                            Assert.assertEquals(index.values().length, 1000);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testConcurrentPageCreation() {
+        final CloudModel model = new CloudModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        final int[] checks = {0};
+        model.connect(new KCallback<Throwable>() {
+            @Override
+            public void on(Throwable throwable) {
+                final KObjectIndex[] proxies = new KObjectIndex[2];
+                for (int i = 0; i < proxies.length; i++) {
+                    final int finalI = i;
+                    model.indexByName(0, 0, "idx", new KCallback<KObjectIndex>() {
+                        @Override
+                        public void on(KObjectIndex index) {
+                            proxies[finalI] = index;
+                        }
+                    });
+                }
+                Assert.assertEquals(AbstractKObjectIndex.pageOf("a"), AbstractKObjectIndex.pageOf("k161"));
+                //pages are created with the index, both proxies hold every one of them
+                long[] pageKeys = ((AbstractKObjectIndex) proxies[0]).internal_pageKeys();
+                for (int i = 0; i < pageKeys.length; i++) {
+                    Assert.assertNotEquals(KConfig.NULL_LONG, pageKeys[i]);
+                }
+                proxies[0].setIndex("a", 1);
+                proxies[1].setIndex("k161", 2);
+                Assert.assertEquals(1, proxies[1].getIndex("a"));
+                model.indexByName(0, 0, "idx", new KCallback<KObjectIndex>() {
+                    @Override
+                    public void on(KObjectIndex index) {
+                        Assert.assertEquals(1, index.getIndex("a"));
+                        Assert.assertEquals(2, index.getIndex("k161"));
+                        Assert.assertEquals(2, index.values().length);
+                        checks[0]++;
+                    }
+                });
+            }
+        });
+        Assert.assertEquals(1, checks[0]);
+    }
+
+    @Test
+    public void testRangePageSplitByAnotherProxy() {
+        final CloudModel model = new CloudModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        final int[] checks = {0};
+        model.connect(new KCallback<Throwable>() {
+            @Override
+            public void on(Throwable throwable) {
+                final KInternalDataManager manager = (KInternalDataManager) model.manager();
+                final KObjectIndex[] proxies = new KObjectIndex[2];
+                for (int i = 0; i < proxies.length; i++) {
+                    final int finalI = i;
+                    manager.rangeIndex(0, 0, "ranged", true, new KCallback<KObjectIndex>() {
+                        @Override
+                        public void on(KObjectIndex index) {
+                            proxies[finalI] = index;
+                        }
+                    });
+                }
+                //the second proxy is resolved before the first one splits its page
+                for (int i = 0; i <= AbstractKObjectIndex.PAGE_CAPACITY; i++) {
+                    proxies[0].setIndex("k" + (1000 + i), i);
+                }
+                Assert.assertEquals(2, ((AbstractKObjectIndex) proxies[1]).internal_pageKeys().length);
+                Assert.assertEquals(AbstractKObjectIndex.PAGE_CAPACITY, proxies[1].getIndex("k" + (1000 + AbstractKObjectIndex.PAGE_CAPACITY)));
+                proxies[1].setIndex("k9999", 1);
+                Assert.assertEquals(AbstractKObjectIndex.PAGE_CAPACITY + 2, proxies[0].values().length);
+                checks[0]++;
+            }
+        });
+        Assert.assertEquals(1, checks[0]);
+    }
+
+    @Test
+    public void testFlatNamedIndex() {
+        final CloudModel model = new CloudModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        final int[] checks = {0};
+        model.connect(new KCallback<Throwable>() {
+            @Override
+            public void on(Throwable throwable) {
+                final KInternalDataManager manager = (KInternalDataManager) model.manager();
+                model.indexByName(0, 0, "paged", null);
+                //a named index created with an object key, the way they were before paging
+                final long legacyUuid = manager.nextObjectKey();
+                GenericObjectIndex legacy = new GenericObjectIndex(0, 0, legacyUuid, manager, 0, 0, KConfig.NULL_LONG, KConfig.NULL_LONG);
+                manager.initKObject(legacy);
+                legacy.setIndex("0", 42);
+                legacy.setIndex("name", 43);
+                model.lookup(0, 0, KConfig.END_OF_TIME, new KCallback<KObject>() {
+                    @Override
+                    public void on(KObject global) {
+                        ((KObjectIndex) global).setIndex("legacy", legacyUuid);
+                    }
+                });
+                model.indexByName(0, 0, "legacy", new KCallback<KObjectIndex>() {
+                    @Override
+                    public void on(KObjectIndex index) {
+                        Assert.assertEquals(42, index.getIndex("0"));
+                        Assert.assertEquals(43, index.getIndex("name"));
+                        index.setIndex("other", 44);
+                        Assert.assertEquals(3, index.values().length);
+                        checks[0]++;
+                    }
+                });
+            }
+        });
+        Assert.assertEquals(1, checks[0]);
+    }
+
+    @Test
+    public void testIndexCreatedInThePast() {
+        final CloudModel model = new CloudModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        final int[] checks = {0};
+        model.connect(new KCallback<Throwable>() {
+            @Override
+            public void on(Throwable throwable) {
+                model.indexByName(0, 10, "late", new KCallback<KObjectIndex>() {
+                    @Override
+                    public void on(KObjectIndex index) {
+                        index.setIndex("a", 1);
+                    }
+                });
+                model.save(new KCallback() {
+                    @Override
+                    public void on(Object o) {
+                        final KContentDeliveryDriver cdn = ((KInternalDataManager) model.manager()).cdn();
+                        //the global index has no version at time 5, giving it one must keep the one at time 10
+                        final CloudModel model2 = new CloudModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).withContentDeliveryDriver(cdn).build());
+                        model2.connect(new KCallback() {
+                            @Override
+                            public void on(Object o) {
+                                model2.indexByName(0, 5, "early", new KCallback<KObjectIndex>() {
+                                    @Override
+                                    public void on(KObjectIndex index) {
+                                        index.setIndex("b", 2);
+                                    }
+                                });
+                                model2.save(new KCallback() {
+                                    @Override
+                                    public void on(Object o) {
+                                        final CloudModel model3 = new CloudModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).withContentDeliveryDriver(cdn).build());
+                                        model3.connect(new KCallback() {
+                                            @Override
+                                            public void on(Object o) {
+                                                model3.indexByName(0, 10, "late", new KCallback<KObjectIndex>() {
+                                                    @Override
+                                                    public void on(KObjectIndex index) {
+                                                        Assert.assertNotNull(index);
+                                                        Assert.assertEquals(1, index.getIndex("a"));
+                                                        checks[0]++;
+                                                    }
+                                                });
+                                                model3.indexByName(0, 5, "early", new KCallback<KObjectIndex>() {
+                                                    @Override
+                                                    public void on(KObjectIndex index) {
+                                                        Assert.assertNotNull(index);
+                                                        Assert.assertEquals(2, index.getIndex("b"));
+                                                        checks[0]++;
+                                                    }
+                                                });
+                                            }
+                                        });
+                                    }
+                                });
+                            }
+                        });
+                    }
+                });
+            }
+        });
+        Assert.assertEquals(2, checks[0]);
+    }
+
+    @Test
+    public void testCompositeKey() {
+        final MetaModel metaModel = new MetaModel("KeyMetaModel");
+        final KMetaClass itemClass = metaModel.addMetaClass("Item");
+        final KMetaAttribute id = itemClass.addAttribute("id", KPrimitiveTypes.INT);
+        final KMetaAttribute code = itemClass.addAttribute("code", KPrimitiveTypes.STRING);
+        id.setKey(true);
+        code.setKey(true);
+        final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        final int[] checks = {0};
+        model.connect(new KCallback() {
+            @Override
+            public void on(Object o) {
+                final KObject first = model.create(itemClass, 0, 0);
+                first.set(id, 1);
+                first.set(code, "23");
+                final KObject second = model.create(itemClass, 0, 0);
+                second.set(id, 12);
+                second.set(code, "3");
+                //the concatenation of both keys is "123", typed keys keep them apart
+                model.findByKey(itemClass, 0, 0, new Object[]{1, "23"}, new KCallback<KObject>() {
+                    @Override
+                    public void on(KObject resolved) {
+                        Assert.assertEquals(first.uuid(), resolved.uuid());
+                        checks[0]++;
+                    }
+                });
+                model.findByKey(itemClass, 0, 0, new Object[]{12, "3"}, new KCallback<KObject>() {
+                    @Override
+                    public void on(KObject resolved) {
+                        Assert.assertEquals(second.uuid(), resolved.uuid());
+                        checks[0]++;
+                    }
+                });
+                model.find(itemClass, 0, 0, "code=3,id=12", new KCallback<KObject>() {
+                    @Override
+                    public void on(KObject resolved) {
+                        Assert.assertEquals(second.uuid(), resolved.uuid());
+                        checks[0]++;
+                    }
+                });
+                model.findByKey(itemClass, 0, 0, new Object[]{12, "23"}, new KCallback<KObject>() {
+                    @Override
+                    public void on(KObject resolved) {
+                        Assert.assertNull(resolved);
+                        checks[0]++;
+                    }
+                });
+            }
+        });
+        Assert.assertEquals(4, checks[0]);
+    }
+
 }
@@ -0,0 +1,86 @@
+package org.kevoree.modeling.extrapolation;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KModel;
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.extrapolation.impl.PolynomialExtrapolation;
+import org.kevoree.modeling.memory.manager.DataManagerBuilder;
+import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
+import org.kevoree.modeling.meta.KMetaAttribute;
+import org.kevoree.modeling.meta.KMetaClass;
+import org.kevoree.modeling.meta.KPrimitiveTypes;
+import org.kevoree.modeling.meta.impl.MetaModel;
+import org.kevoree.modeling.scheduler.impl.DirectScheduler;
+
+public class PolynomialInsertAllTest {
+
+    private static final int NB_SAMPLES = 3600;
+
+    //a smooth signal with a step in the middle
+    private static double signal(long time) {
+        double value = 50 * Math.sin(time / 300.0) + time / 100.0;
+        if (time >= NB_SAMPLES / 2) {
+            value += 20;
+        }
+        return value;
+    }
+
+    @Test
+    public void test() {
+        final MetaModel metaModel = new MetaModel("InsertAllMetaModel");
+        final KMetaClass sensorClass = metaModel.addMetaClass("Sensor");
+        final KMetaAttribute value = sensorClass.addAttribute("value", KPrimitiveTypes.CONTINUOUS);
+        sensorClass.addAttribute("other", KPrimitiveTypes.CONTINUOUS);
+        final int[] checks = {0};
+        final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        model.connect(new KCallback() {
+            @Override
+            public void on(Object o) {
+                final KObject sensor = model.create(sensorClass, 0, 0);
+                sensor.setByName("other", 5.0);
+                final long[] times = new long[NB_SAMPLES];
+                double[] values = new double[NB_SAMPLES];
+                for (int i = 0; i < NB_SAMPLES; i++) {
+                    times[i] = i;
+                    values[i] = signal(i);
+                }
+                final int nbSegments = ((PolynomialExtrapolation) value.strategy()).insertAll(sensor, value, times, values, (KInternalDataManager) model.manager());
+                Assert.assertTrue(nbSegments > 1);
+                Assert.assertTrue(nbSegments < NB_SAMPLES / 20);
+                sensor.allTimes(new KCallback<long[]>() {
+                    @Override
+                    public void on(long[] segmentTimes) {
+                        //the first segment is the chunk the sensor was created in
+                        Assert.assertEquals(nbSegments, segmentTimes.length);
+                        checks[0]++;
+                    }
+                });
+                model.lookupAllTimes(0, times, sensor.uuid(), new KCallback<KObject[]>() {
+                    @Override
+                    public void on(KObject[] sensors) {
+                        for (int i = 0; i < NB_SAMPLES; i++) {
+                            Assert.assertEquals(signal(i), (double) sensors[i].getByName("value"), value.precision());
+                            //other attributes are carried over to the new segments
+                            Assert.assertEquals(5.0, (double) sensors[i].getByName("other"), value.precision());
+                        }
+                        checks[0]++;
+                    }
+                });
+            }
+        });
+        Assert.assertEquals(2, checks[0]);
+    }
+
+    @Test
+    public void unsortedTest() {
+        try {
+            new PolynomialExtrapolation().insertAll(null, null, new long[]{2, 1}, new double[]{0, 0}, null);
+            Assert.fail();
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage().startsWith("Times must be strictly increasing"));
+        }
+    }
+
+}
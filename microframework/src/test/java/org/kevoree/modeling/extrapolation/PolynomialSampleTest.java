@@ -0,0 +1,177 @@
+package org.kevoree.modeling.extrapolation;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KModel;
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.extrapolation.impl.PolynomialExtrapolation;
+import org.kevoree.modeling.memory.manager.DataManagerBuilder;
+import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
+import org.kevoree.modeling.meta.KMetaAttribute;
+import org.kevoree.modeling.meta.KMetaClass;
+import org.kevoree.modeling.meta.KPrimitiveTypes;
+import org.kevoree.modeling.meta.impl.MetaModel;
+import org.kevoree.modeling.scheduler.impl.DirectScheduler;
+
+public class PolynomialSampleTest {
+
+    private static final int NB_SAMPLES = 3600;
+
+    private static double signal(long time) {
+        double value = 50 * Math.sin(time / 300.0) + time / 100.0;
+        if (time >= NB_SAMPLES / 2) {
+            value += 20;
+        }
+        return value;
+    }
+
+    @Test
+    public void test() {
+        final MetaModel metaModel = new MetaModel("SampleMetaModel");
+        final KMetaClass sensorClass = metaModel.addMetaClass("Sensor");
+        final KMetaAttribute value = sensorClass.addAttribute("value", KPrimitiveTypes.CONTINUOUS);
+        final KMetaAttribute count = sensorClass.addAttribute("count", KPrimitiveTypes.INT);
+        final int[] checks = {0};
+        final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        model.connect(new KCallback() {
+            @Override
+            public void on(Object o) {
+                final KObject sensor = model.create(sensorClass, 0, 0);
+                sensor.set(count, 7);
+                long[] times = new long[NB_SAMPLES];
+                double[] values = new double[NB_SAMPLES];
+                for (int i = 0; i < NB_SAMPLES; i++) {
+                    times[i] = i;
+                    values[i] = signal(i);
+                }
+                ((PolynomialExtrapolation) value.strategy()).insertAll(sensor, value, times, values, (KInternalDataManager) model.manager());
+                final int nbPoints = 1000;
+                final long[] sampleTimes = new long[nbPoints];
+                for (int i = 0; i < nbPoints; i++) {
+                    sampleTimes[i] = PolynomialExtrapolation.sampleTime(10, NB_SAMPLES - 1, nbPoints, i);
+                }
+                Assert.assertEquals(10, sampleTimes[0]);
+                Assert.assertEquals(NB_SAMPLES - 1, sampleTimes[nbPoints - 1]);
+                sensor.sample(value, 10, NB_SAMPLES - 1, nbPoints, new KCallback<double[]>() {
+                    @Override
+                    public void on(final double[] sampled) {
+                        Assert.assertEquals(nbPoints, sampled.length);
+                        model.lookupAllTimes(0, sampleTimes, sensor.uuid(), new KCallback<KObject[]>() {
+                            @Override
+                            public void on(KObject[] sensors) {
+                                for (int i = 0; i < nbPoints; i++) {
+                                    Assert.assertEquals((double) sensors[i].get(value), sampled[i], 1e-6);
+                                    Assert.assertEquals(signal(sampleTimes[i]), sampled[i], value.precision());
+                                }
+                                checks[0]++;
+                            }
+                        });
+                    }
+                });
+                //the sampling object stays at its own time
+                Assert.assertEquals(signal(0), (double) sensor.get(value), value.precision());
+                //discrete attributes are sampled through objects
+                sensor.sample(count, 0, 100, 3, new KCallback<double[]>() {
+                    @Override
+                    public void on(double[] sampled) {
+                        Assert.assertArrayEquals(new double[]{7, 7, 7}, sampled, 0);
+                        checks[0]++;
+                    }
+                });
+                sensor.sample(value, 5, 5, 1, new KCallback<double[]>() {
+                    @Override
+                    public void on(double[] sampled) {
+                        Assert.assertEquals(signal(5), sampled[0], value.precision());
+                        checks[0]++;
+                    }
+                });
+            }
+        });
+        Assert.assertEquals(3, checks[0]);
+    }
+
+    @Test
+    public void beforeCreationTest() {
+        final MetaModel metaModel = new MetaModel("SampleMetaModel");
+        final KMetaClass sensorClass = metaModel.addMetaClass("Sensor");
+        final KMetaAttribute value = sensorClass.addAttribute("value", KPrimitiveTypes.CONTINUOUS);
+        final int[] checks = {0};
+        final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        model.connect(new KCallback() {
+            @Override
+            public void on(Object o) {
+                final KObject sensor = model.create(sensorClass, 0, 100);
+                sensor.set(value, 3.0);
+                sensor.sample(value, 0, 200, 3, new KCallback<double[]>() {
+                    @Override
+                    public void on(double[] sampled) {
+                        Assert.assertTrue(Double.isNaN(sampled[0]));
+                        Assert.assertEquals(3.0, sampled[1], value.precision());
+                        Assert.assertEquals(3.0, sampled[2], value.precision());
+                        checks[0]++;
+                    }
+                });
+                try {
+                    sensor.sample(value, 200, 0, 3, null);
+                    Assert.fail();
+                } catch (RuntimeException e) {
+                    checks[0]++;
+                }
+            }
+        });
+        Assert.assertEquals(2, checks[0]);
+    }
+
+    @Test
+    public void reloadTest() {
+        final MetaModel metaModel = new MetaModel("SampleMetaModel");
+        final KMetaClass sensorClass = metaModel.addMetaClass("Sensor");
+        final KMetaAttribute value = sensorClass.addAttribute("value", KPrimitiveTypes.CONTINUOUS);
+        final int[] checks = {0};
+        final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        model.connect(new KCallback() {
+            @Override
+            public void on(Object o) {
+                final KObject sensor = model.create(sensorClass, 0, 0);
+                final int nbValues = 2000;
+                long[] times = new long[nbValues];
+                double[] values = new double[nbValues];
+                for (int i = 0; i < nbValues; i++) {
+                    times[i] = i;
+                    values[i] = signal(i);
+                }
+                ((PolynomialExtrapolation) value.strategy()).insertAll(sensor, value, times, values, (KInternalDataManager) model.manager());
+                model.save(new KCallback() {
+                    @Override
+                    public void on(Object o) {
+                        final KModel reloaded = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).withContentDeliveryDriver(((KInternalDataManager) model.manager()).cdn()).build());
+                        reloaded.connect(new KCallback() {
+                            @Override
+                            public void on(Object o) {
+                                reloaded.lookup(0, 0, sensor.uuid(), new KCallback<KObject>() {
+                                    @Override
+                                    public void on(KObject reloadedSensor) {
+                                        //only the segment of time 0 is cached, the next ones are loaded by the sampling
+                                        reloadedSensor.sample(value, 0, nbValues - 1, 5, new KCallback<double[]>() {
+                                            @Override
+                                            public void on(double[] sampled) {
+                                                for (int i = 0; i < sampled.length; i++) {
+                                                    long sampleTime = PolynomialExtrapolation.sampleTime(0, nbValues - 1, sampled.length, i);
+                                                    Assert.assertEquals(signal(sampleTime), sampled[i], value.precision());
+                                                }
+                                                checks[0]++;
+                                            }
+                                        });
+                                    }
+                                });
+                            }
+                        });
+                    }
+                });
+            }
+        });
+        Assert.assertEquals(1, checks[0]);
+    }
+
+}
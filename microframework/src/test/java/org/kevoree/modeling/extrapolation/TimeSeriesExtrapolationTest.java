@@ -0,0 +1,318 @@
+package org.kevoree.modeling.extrapolation;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KModel;
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.KView;
+import org.kevoree.modeling.extrapolation.impl.TimeSeriesExtrapolation;
+import org.kevoree.modeling.memory.manager.DataManagerBuilder;
+import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
+import org.kevoree.modeling.meta.KMetaAttribute;
+import org.kevoree.modeling.meta.KMetaClass;
+import org.kevoree.modeling.meta.KPrimitiveTypes;
+import org.kevoree.modeling.meta.impl.MetaModel;
+import org.kevoree.modeling.scheduler.impl.DirectScheduler;
+
+import java.util.Random;
+
+/**
+ * @ignore ts
+ */
+public class TimeSeriesExtrapolationTest {
+
+    private static final int NB_SAMPLES = 3000;
+
+    private MetaModel metaModel;
+
+    private KMetaClass sensorClass;
+
+    private KMetaAttribute value;
+
+    private KMetaAttribute counter;
+
+    private KMetaAttribute name;
+
+    private void createMetaModel() {
+        metaModel = new MetaModel("TimeSeriesMetaModel");
+        sensorClass = metaModel.addMetaClass("Sensor");
+        value = sensorClass.addAttribute("value", KPrimitiveTypes.DOUBLE);
+        value.setExtrapolation(TimeSeriesExtrapolation.instance());
+        counter = sensorClass.addAttribute("counter", KPrimitiveTypes.LONG);
+        counter.setExtrapolation(TimeSeriesExtrapolation.instance());
+        name = sensorClass.addAttribute("name", KPrimitiveTypes.STRING);
+    }
+
+    @Test
+    public void test() {
+        createMetaModel();
+        final long[] times = new long[NB_SAMPLES];
+        final double[] values = new double[NB_SAMPLES];
+        final long[] counters = new long[NB_SAMPLES];
+        Random random = new Random(7);
+        long time = 100;
+        double current = 20;
+        for (int i = 0; i < NB_SAMPLES; i++) {
+            //a second with some jitter, values often repeated
+            time += 1000 + random.nextInt(5) - 2;
+            if (random.nextInt(3) == 0) {
+                current += Math.round(random.nextGaussian() * 10) / 10.0;
+            }
+            times[i] = time;
+            values[i] = current;
+            counters[i] = Long.MAX_VALUE - 1000L * i;
+        }
+        final int[] checks = {0};
+        final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        model.connect(new KCallback() {
+            @Override
+            public void on(Object o) {
+                final KObject sensor = model.create(sensorClass, 0, 0);
+                sensor.set(name, "s0");
+                for (int i = 0; i < NB_SAMPLES; i++) {
+                    final int finalI = i;
+                    model.lookup(0, times[i], sensor.uuid(), new KCallback<KObject>() {
+                        @Override
+                        public void on(KObject proxy) {
+                            proxy.set(value, values[finalI]);
+                            proxy.set(counter, counters[finalI]);
+                        }
+                    });
+                }
+                sensor.allTimes(new KCallback<long[]>() {
+                    @Override
+                    public void on(long[] chunkTimes) {
+                        //the first block goes to the chunk of the creation, a new chunk every full block
+                        Assert.assertEquals(3, chunkTimes.length);
+                        checks[0]++;
+                    }
+                });
+                final long[] between = new long[NB_SAMPLES];
+                for (int i = 0; i < NB_SAMPLES; i++) {
+                    between[i] = times[i] + 1;
+                }
+                model.lookupAllTimes(0, times, sensor.uuid(), new KCallback<KObject[]>() {
+                    @Override
+                    public void on(KObject[] sensors) {
+                        for (int i = 0; i < NB_SAMPLES; i++) {
+                            Assert.assertEquals(values[i], (double) sensors[i].get(value), 0);
+                            Assert.assertEquals(counters[i], (long) sensors[i].get(counter));
+                            Assert.assertEquals("s0", sensors[i].get(name));
+                        }
+                        checks[0]++;
+                    }
+                });
+                model.lookupAllTimes(0, between, sensor.uuid(), new KCallback<KObject[]>() {
+                    @Override
+                    public void on(KObject[] sensors) {
+                        for (int i = 0; i < NB_SAMPLES; i++) {
+                            Assert.assertEquals(values[i], (double) sensors[i].get(value), 0);
+                        }
+                        checks[0]++;
+                    }
+                });
+                model.lookup(0, 50, sensor.uuid(), new KCallback<KObject>() {
+                    @Override
+                    public void on(KObject before) {
+                        Assert.assertNull(before.get(value));
+                        checks[0]++;
+                    }
+                });
+                final long start = times[0] - 500;
+                final long end = times[NB_SAMPLES - 1];
+                sensor.sample(value, start, end, 700, new KCallback<double[]>() {
+                    @Override
+                    public void on(double[] sampled) {
+                        Assert.assertTrue(Double.isNaN(sampled[0]));
+                        int j = 0;
+                        for (int i = 1; i < sampled.length; i++) {
+                            long sampleTime = start + (long) ((double) (end - start) * i / (sampled.length - 1));
+                            while (j + 1 < NB_SAMPLES && times[j + 1] <= sampleTime) {
+                                j++;
+                            }
+                            Assert.assertEquals(values[j], sampled[i], 0);
+                        }
+                        checks[0]++;
+                    }
+                });
+            }
+        });
+        Assert.assertEquals(5, checks[0]);
+    }
+
+    @Test
+    public void outOfOrderTest() {
+        createMetaModel();
+        final int[] checks = {0};
+        final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        model.connect(new KCallback() {
+            @Override
+            public void on(Object o) {
+                final KObject sensor = model.create(sensorClass, 0, 0);
+                final long[] times = {0, 10, 20, 15, 10, 5};
+                final double[] values = {1, 2, 3, 4, 5, 6};
+                for (int i = 0; i < times.length; i++) {
+                    final int finalI = i;
+                    model.lookup(0, times[i], sensor.uuid(), new KCallback<KObject>() {
+                        @Override
+                        public void on(KObject proxy) {
+                            proxy.set(value, values[finalI]);
+                        }
+                    });
+                }
+                model.lookupAllTimes(0, new long[]{0, 5, 7, 10, 15, 19, 20, 100}, sensor.uuid(), new KCallback<KObject[]>() {
+                    @Override
+                    public void on(KObject[] sensors) {
+                        double[] expected = {1, 6, 6, 5, 4, 4, 3, 3};
+                        for (int i = 0; i < expected.length; i++) {
+                            Assert.assertEquals(expected[i], (double) sensors[i].get(value), 0);
+                        }
+                        checks[0]++;
+                    }
+                });
+                try {
+                    sensor.set(name, "s0");
+                    name.setExtrapolation(TimeSeriesExtrapolation.instance());
+                    sensor.set(name, "s1");
+                    Assert.fail();
+                } catch (RuntimeException e) {
+                    checks[0]++;
+                }
+            }
+        });
+        Assert.assertEquals(2, checks[0]);
+    }
+
+    @Test
+    public void saveTest() {
+        createMetaModel();
+        final int[] checks = {0};
+        final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        model.connect(new KCallback() {
+            @Override
+            public void on(Object o) {
+                final KObject sensor = model.create(sensorClass, 0, 0);
+                final long[] times = new long[NB_SAMPLES];
+                for (int i = 0; i < NB_SAMPLES; i++) {
+                    times[i] = i * 10;
+                    final int finalI = i;
+                    model.lookup(0, times[i], sensor.uuid(), new KCallback<KObject>() {
+                        @Override
+                        public void on(KObject proxy) {
+                            proxy.set(value, Math.sin(finalI / 50.0));
+                        }
+                    });
+                }
+                model.save(new KCallback() {
+                    @Override
+                    public void on(Object o) {
+                        final KModel reloaded = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).withContentDeliveryDriver(((KInternalDataManager) model.manager()).cdn()).build());
+                        reloaded.connect(new KCallback() {
+                            @Override
+                            public void on(Object o) {
+                                //blocks which are not cached yet are loaded by the sampling
+                                reloaded.lookup(0, 0, sensor.uuid(), new KCallback<KObject>() {
+                                    @Override
+                                    public void on(KObject reloadedSensor) {
+                                        final long end = times[NB_SAMPLES - 1];
+                                        reloadedSensor.sample(value, 0, end, 500, new KCallback<double[]>() {
+                                            @Override
+                                            public void on(double[] sampled) {
+                                                for (int i = 0; i < sampled.length; i++) {
+                                                    long sampleTime = (long) ((double) end * i / (sampled.length - 1));
+                                                    Assert.assertEquals(Math.sin((sampleTime / 10) / 50.0), sampled[i], 0);
+                                                }
+                                                checks[0]++;
+                                            }
+                                        });
+                                    }
+                                });
+                                reloaded.lookupAllTimes(0, times, sensor.uuid(), new KCallback<KObject[]>() {
+                                    @Override
+                                    public void on(KObject[] sensors) {
+                                        for (int i = 0; i < NB_SAMPLES; i++) {
+                                            Assert.assertEquals(Math.sin(i / 50.0), (double) sensors[i].get(value), 0);
+                                            Assert.assertNull(sensors[i].get(counter));
+                                        }
+                                        checks[0]++;
+                                    }
+                                });
+                            }
+                        });
+                    }
+                });
+            }
+        });
+        Assert.assertEquals(2, checks[0]);
+    }
+
+    @Test
+    public void jsonTest() {
+        createMetaModel();
+        name.setSearchable(true);
+        final int[] checks = {0};
+        final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        model.connect(new KCallback() {
+            @Override
+            public void on(Object o) {
+                final KObject sensor = model.create(sensorClass, 0, 0);
+                sensor.set(name, "s0");
+                final long[] times = new long[100];
+                for (int i = 0; i < times.length; i++) {
+                    times[i] = i * 10;
+                    final int finalI = i;
+                    model.lookup(0, times[i], sensor.uuid(), new KCallback<KObject>() {
+                        @Override
+                        public void on(KObject proxy) {
+                            proxy.set(value, Math.sin(finalI / 50.0));
+                            proxy.set(counter, (long) finalI);
+                        }
+                    });
+                }
+                final KView imported = model.universe(model.newUniverse().key()).time(0);
+                model.universe(0).time(0).json().save(sensor, new KCallback<String>() {
+                    @Override
+                    public void on(String saved) {
+                        imported.json().load(saved, new KCallback<Throwable>() {
+                            @Override
+                            public void on(Throwable error) {
+                                Assert.assertNull(error);
+                                checks[0]++;
+                            }
+                        });
+                    }
+                });
+                //the imported sensor has a new uuid, found through the text index of its name
+                model.search(sensorClass, name, imported.universe(), 0, "s0", 1, new KCallback<long[]>() {
+                    @Override
+                    public void on(long[] sensors) {
+                        Assert.assertEquals(1, sensors.length);
+                        Assert.assertNotEquals(sensor.uuid(), sensors[0]);
+                        model.lookupAllTimes(imported.universe(), times, sensors[0], new KCallback<KObject[]>() {
+                            @Override
+                            public void on(KObject[] versions) {
+                                for (int i = 0; i < times.length; i++) {
+                                    Assert.assertEquals(Math.sin(i / 50.0), (double) versions[i].get(value), 0);
+                                    Assert.assertEquals((long) i, (long) versions[i].get(counter));
+                                }
+                                checks[0]++;
+                                versions[0].sample(counter, 0, times[times.length - 1], times.length, new KCallback<double[]>() {
+                                    @Override
+                                    public void on(double[] sampled) {
+                                        for (int i = 0; i < sampled.length; i++) {
+                                            Assert.assertEquals(i, sampled[i], 0);
+                                        }
+                                        checks[0]++;
+                                    }
+                                });
+                            }
+                        });
+                    }
+                });
+            }
+        });
+        Assert.assertEquals(3, checks[0]);
+    }
+
+}
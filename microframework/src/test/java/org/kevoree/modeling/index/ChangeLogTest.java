@@ -0,0 +1,149 @@
+package org.kevoree.modeling.index;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KModel;
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.memory.manager.DataManagerBuilder;
+import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
+import org.kevoree.modeling.meta.KMetaAttribute;
+import org.kevoree.modeling.meta.KMetaClass;
+import org.kevoree.modeling.meta.KPrimitiveTypes;
+import org.kevoree.modeling.meta.impl.MetaModel;
+import org.kevoree.modeling.scheduler.impl.DirectScheduler;
+
+public class ChangeLogTest {
+
+    private static final int SIZE = 30;
+
+    @Test
+    public void test() {
+        final MetaModel metaModel = new MetaModel("ChangeLogMetaModel");
+        final KMetaClass sensorClass = metaModel.addMetaClass("Sensor");
+        final KMetaAttribute value = sensorClass.addAttribute("value", KPrimitiveTypes.DOUBLE);
+        sensorClass.addRelation("sensors", sensorClass, null);
+
+        final int[] checks = {0};
+        final int[] reloadedChecks = {0};
+        final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).withChangeLog(10).build());
+        model.connect(new KCallback() {
+            @Override
+            public void on(Object o) {
+                final KObject root = model.create(sensorClass, 0, 0);
+                final long[] uuids = new long[SIZE];
+                for (int i = 0; i < SIZE; i++) {
+                    KObject sensor = model.create(sensorClass, 0, 0);
+                    sensor.set(value, (double) i);
+                    root.addByName("sensors", sensor);
+                    uuids[i] = sensor.uuid();
+                }
+                //five sensors change at time 5, five others twice at time 15
+                for (int i = 0; i < 10; i++) {
+                    final long time = i < 5 ? 5 : 15;
+                    model.lookup(0, time, uuids[i], new KCallback<KObject>() {
+                        @Override
+                        public void on(KObject sensor) {
+                            sensor.set(value, -1.0);
+                            sensor.set(value, -2.0);
+                        }
+                    });
+                }
+                //a version before the creation of the log bucket of time 0
+                KObject early = model.create(sensorClass, 0, -5);
+                final long earlyUuid = early.uuid();
+                model.changedBetween(0, 0, 0, new KCallback<long[]>() {
+                    @Override
+                    public void on(long[] changed) {
+                        Assert.assertEquals(SIZE + 1, changed.length);
+                        Assert.assertEquals(root.uuid(), changed[0]);
+                        checks[0]++;
+                    }
+                });
+                model.changedBetween(0, 1, 20, new KCallback<long[]>() {
+                    @Override
+                    public void on(long[] changed) {
+                        Assert.assertEquals(10, changed.length);
+                        for (int i = 0; i < 10; i++) {
+                            Assert.assertEquals(uuids[i], changed[i]);
+                        }
+                        checks[0]++;
+                    }
+                });
+                model.changedBetween(0, 6, 14, new KCallback<long[]>() {
+                    @Override
+                    public void on(long[] changed) {
+                        Assert.assertEquals(0, changed.length);
+                        checks[0]++;
+                    }
+                });
+                model.changedBetween(0, 15, 15, new KCallback<long[]>() {
+                    @Override
+                    public void on(long[] changed) {
+                        Assert.assertEquals(5, changed.length);
+                        Assert.assertEquals(uuids[5], changed[0]);
+                        checks[0]++;
+                    }
+                });
+                model.changedBetween(0, -10, -1, new KCallback<long[]>() {
+                    @Override
+                    public void on(long[] changed) {
+                        Assert.assertEquals(1, changed.length);
+                        Assert.assertEquals(earlyUuid, changed[0]);
+                        checks[0]++;
+                    }
+                });
+                model.changedBetween(0, -100, 100, new KCallback<long[]>() {
+                    @Override
+                    public void on(long[] changed) {
+                        Assert.assertEquals(SIZE + 2, changed.length);
+                        checks[0]++;
+                    }
+                });
+                model.traversal(0, 20).traverseChanges(1, 20).withAttribute(value, -2.0).then(new KCallback<KObject[]>() {
+                    @Override
+                    public void on(KObject[] changed) {
+                        Assert.assertEquals(10, changed.length);
+                        checks[0]++;
+                    }
+                });
+                model.traversal(0, 10).traverseChanges(1, 20).then(new KCallback<KObject[]>() {
+                    @Override
+                    public void on(KObject[] changed) {
+                        //resolved at time 10, the sensors changed at time 15 hold their previous value
+                        int changedValues = 0;
+                        for (int i = 0; i < changed.length; i++) {
+                            if (((Double) changed[i].get(value)) == -2.0) {
+                                changedValues++;
+                            }
+                        }
+                        Assert.assertEquals(10, changed.length);
+                        Assert.assertEquals(5, changedValues);
+                        checks[0]++;
+                    }
+                });
+                model.save(new KCallback() {
+                    @Override
+                    public void on(Object o) {
+                        final KModel reloaded = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).withChangeLog(10).withContentDeliveryDriver(((KInternalDataManager) model.manager()).cdn()).build());
+                        reloaded.connect(new KCallback() {
+                            @Override
+                            public void on(Object o) {
+                                reloaded.changedBetween(0, 1, 20, new KCallback<long[]>() {
+                                    @Override
+                                    public void on(long[] changed) {
+                                        Assert.assertEquals(10, changed.length);
+                                        reloadedChecks[0]++;
+                                    }
+                                });
+                            }
+                        });
+                    }
+                });
+            }
+        });
+        Assert.assertEquals(8, checks[0]);
+        Assert.assertEquals(1, reloadedChecks[0]);
+    }
+
+}
@@ -0,0 +1,211 @@
+package org.kevoree.modeling.index;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KModel;
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.index.impl.IndexBuild;
+import org.kevoree.modeling.memory.manager.DataManagerBuilder;
+import org.kevoree.modeling.meta.KMetaAttribute;
+import org.kevoree.modeling.meta.KMetaClass;
+import org.kevoree.modeling.meta.KPrimitiveTypes;
+import org.kevoree.modeling.meta.impl.MetaModel;
+import org.kevoree.modeling.scheduler.impl.DirectScheduler;
+
+public class IndexBuildTest {
+
+    private static final int SIZE = 1000;
+
+    @Test
+    public void test() {
+        final MetaModel metaModel = new MetaModel("IndexBuildMetaModel");
+        final KMetaClass siteClass = metaModel.addMetaClass("Site");
+        final KMetaClass sensorClass = metaModel.addMetaClass("Sensor");
+        final KMetaAttribute name = sensorClass.addAttribute("name", KPrimitiveTypes.STRING);
+        final KMetaAttribute value = sensorClass.addAttribute("value", KPrimitiveTypes.DOUBLE);
+        final KMetaAttribute zone = sensorClass.addAttribute("zone", KPrimitiveTypes.STRING);
+        final KMetaAttribute lat = sensorClass.addAttribute("lat", KPrimitiveTypes.DOUBLE);
+        final KMetaAttribute lon = sensorClass.addAttribute("lon", KPrimitiveTypes.DOUBLE);
+        siteClass.addRelation("sensors", sensorClass, null);
+
+        final int[] checks = {0};
+        final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).withChangeLog(100).build());
+        model.connect(new KCallback() {
+            @Override
+            public void on(Object o) {
+                //objects imported before any index is declared
+                final KObject site = model.create(siteClass, 0, 0);
+                final long[] uuids = new long[SIZE];
+                for (int i = 0; i < SIZE; i++) {
+                    KObject sensor = model.create(sensorClass, 0, 0);
+                    sensor.set(name, "sensor " + i);
+                    sensor.set(value, (double) i);
+                    sensor.set(zone, "zone" + (i % 10));
+                    sensor.set(lat, 49.0 + (i / 40) * 0.01);
+                    sensor.set(lon, 5.0 + (i % 40) * 0.01);
+                    site.addByName("sensors", sensor);
+                    uuids[i] = sensor.uuid();
+                }
+                name.setKey(true);
+                name.setSearchable(true);
+                value.setOrdered(true);
+                zone.setIndexed(true);
+                sensorClass.addSpatialIndex(lat, lon);
+
+                final KIndexBuild build = model.buildIndexes(sensorClass, 0, 0, null);
+                final int[] progress = {0};
+                build.onProgress(new KCallback<KIndexBuild>() {
+                    @Override
+                    public void on(KIndexBuild current) {
+                        progress[0]++;
+                        if (progress[0] == 1) {
+                            current.pause();
+                        }
+                    }
+                });
+                final Throwable[] result = {null};
+                final int[] completions = {0};
+                KCallback<Throwable> done = new KCallback<Throwable>() {
+                    @Override
+                    public void on(Throwable error) {
+                        result[0] = error;
+                        completions[0]++;
+                    }
+                };
+                build.start(done);
+                //paused after the first batch, the change log also lists the site
+                Assert.assertEquals(SIZE + 1, build.total());
+                Assert.assertEquals(IndexBuild.BATCH_SIZE, build.scanned());
+                Assert.assertFalse(build.isDone());
+                Assert.assertEquals(0, completions[0]);
+                build.start(done);
+                Assert.assertTrue(build.isDone());
+                Assert.assertEquals(SIZE + 1, build.scanned());
+                Assert.assertEquals(1, completions[0]);
+                Assert.assertNull(result[0]);
+                Assert.assertEquals((SIZE + IndexBuild.BATCH_SIZE) / IndexBuild.BATCH_SIZE + 1, progress[0]);
+
+                model.findByKey(sensorClass, 0, 0, new Object[]{"sensor 42"}, new KCallback<KObject>() {
+                    @Override
+                    public void on(KObject found) {
+                        Assert.assertEquals(uuids[42], found.uuid());
+                        checks[0]++;
+                    }
+                });
+                model.findAll(sensorClass, 0, 0, new KCallback<KObject[]>() {
+                    @Override
+                    public void on(KObject[] all) {
+                        Assert.assertEquals(SIZE, all.length);
+                        checks[0]++;
+                    }
+                });
+                model.findRange(sensorClass, value, 0, 0, 100.0, 199.0, new KCallback<KObject[]>() {
+                    @Override
+                    public void on(KObject[] range) {
+                        Assert.assertEquals(100, range.length);
+                        checks[0]++;
+                    }
+                });
+                model.postings(sensorClass, zone, 0, 0, "zone3", new KCallback<long[]>() {
+                    @Override
+                    public void on(long[] postings) {
+                        Assert.assertEquals(SIZE / 10, postings.length);
+                        Assert.assertEquals(uuids[3], postings[0]);
+                        checks[0]++;
+                    }
+                });
+                model.search(sensorClass, name, 0, 0, "sensor 7", 1, new KCallback<long[]>() {
+                    @Override
+                    public void on(long[] found) {
+                        Assert.assertEquals(1, found.length);
+                        Assert.assertEquals(uuids[7], found[0]);
+                        checks[0]++;
+                    }
+                });
+                model.spatialIndex(sensorClass, lat, 0, 0, new KCallback<KSpatialIndex>() {
+                    @Override
+                    public void on(KSpatialIndex index) {
+                        Assert.assertEquals(SIZE, index.size());
+                        Assert.assertEquals(uuids[0], index.nearest(48.999, 4.999, 1)[0]);
+                        checks[0]++;
+                    }
+                });
+                //the built indexes keep being maintained by later sets
+                model.lookup(0, 0, uuids[3], new KCallback<KObject>() {
+                    @Override
+                    public void on(KObject sensor) {
+                        sensor.set(zone, "zone4");
+                        model.postings(sensorClass, zone, 0, 0, "zone3", new KCallback<long[]>() {
+                            @Override
+                            public void on(long[] postings) {
+                                Assert.assertEquals(SIZE / 10 - 1, postings.length);
+                                checks[0]++;
+                            }
+                        });
+                    }
+                });
+                //an explicit object list rebuilds from these objects only
+                long[] firstHundred = new long[100];
+                System.arraycopy(uuids, 0, firstHundred, 0, 100);
+                model.buildIndexes(sensorClass, 0, 0, firstHundred).start(new KCallback<Throwable>() {
+                    @Override
+                    public void on(Throwable error) {
+                        Assert.assertNull(error);
+                        model.findAll(sensorClass, 0, 0, new KCallback<KObject[]>() {
+                            @Override
+                            public void on(KObject[] all) {
+                                Assert.assertEquals(100, all.length);
+                                checks[0]++;
+                            }
+                        });
+                    }
+                });
+            }
+        });
+        Assert.assertEquals(8, checks[0]);
+    }
+
+    @Test
+    public void noObjectSourceTest() {
+        final MetaModel metaModel = new MetaModel("IndexBuildMetaModel");
+        final KMetaClass sensorClass = metaModel.addMetaClass("Sensor");
+        final KMetaAttribute name = sensorClass.addAttribute("name", KPrimitiveTypes.STRING);
+        final int[] checks = {0};
+        final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        model.connect(new KCallback() {
+            @Override
+            public void on(Object o) {
+                final KObject sensor = model.create(sensorClass, 0, 0);
+                sensor.set(name, "sensor 0");
+                final KObject duplicate = model.create(sensorClass, 0, 0);
+                duplicate.set(name, "sensor 0");
+                //the key index is empty until the build, it cannot list the objects to index
+                name.setKey(true);
+                model.buildIndexes(sensorClass, 0, 0, null).start(new KCallback<Throwable>() {
+                    @Override
+                    public void on(Throwable error) {
+                        Assert.assertNotNull(error);
+                        checks[0]++;
+                    }
+                });
+                //a key shared by several objects goes to the highest uuid, whatever their order
+                model.buildIndexes(sensorClass, 0, 0, new long[]{duplicate.uuid(), sensor.uuid()}).start(new KCallback<Throwable>() {
+                    @Override
+                    public void on(Throwable error) {
+                        Assert.assertNull(error);
+                        model.findByKey(sensorClass, 0, 0, new Object[]{"sensor 0"}, new KCallback<KObject>() {
+                            @Override
+                            public void on(KObject found) {
+                                Assert.assertEquals(Math.max(sensor.uuid(), duplicate.uuid()), found.uuid());
+                                checks[0]++;
+                            }
+                        });
+                    }
+                });
+            }
+        });
+        Assert.assertEquals(2, checks[0]);
+    }
+
+}
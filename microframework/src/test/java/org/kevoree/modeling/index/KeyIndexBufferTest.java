@@ -0,0 +1,258 @@
+package org.kevoree.modeling.index;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KModel;
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.index.impl.KeyIndexBuffer;
+import org.kevoree.modeling.memory.manager.DataManagerBuilder;
+import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
+import org.kevoree.modeling.meta.KMetaAttribute;
+import org.kevoree.modeling.meta.KMetaClass;
+import org.kevoree.modeling.meta.KPrimitiveTypes;
+import org.kevoree.modeling.meta.impl.MetaModel;
+import org.kevoree.modeling.scheduler.KScheduler;
+import org.kevoree.modeling.scheduler.KTask;
+import org.kevoree.modeling.scheduler.impl.DirectScheduler;
+
+import java.util.ArrayList;
+
+public class KeyIndexBufferTest {
+
+    //more sets than a batch holds, so that a full batch is written before any read
+    private static final int SIZE = KeyIndexBuffer.MAX_BATCH_SIZE + 100;
+
+    @Test
+    public void test() {
+        final MetaModel metaModel = new MetaModel("KeyIndexBufferMetaModel");
+        final KMetaClass sensorClass = metaModel.addMetaClass("Sensor");
+        final KMetaAttribute name = sensorClass.addAttribute("name", KPrimitiveTypes.STRING);
+        name.setKey(true);
+
+        final int[] checks = {0};
+        final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        model.connect(new KCallback() {
+            @Override
+            public void on(Object o) {
+                final long[] uuids = new long[SIZE];
+                for (int i = 0; i < SIZE; i++) {
+                    KObject sensor = model.create(sensorClass, 0, 0);
+                    sensor.set(name, "sensor " + i);
+                    uuids[i] = sensor.uuid();
+                }
+                //a read drains the pending updates of the index first
+                model.findByKey(sensorClass, 0, 0, new Object[]{"sensor " + (SIZE - 1)}, new KCallback<KObject>() {
+                    @Override
+                    public void on(KObject found) {
+                        Assert.assertEquals(uuids[SIZE - 1], found.uuid());
+                        checks[0]++;
+                    }
+                });
+                model.findAll(sensorClass, 0, 0, new KCallback<KObject[]>() {
+                    @Override
+                    public void on(KObject[] all) {
+                        Assert.assertEquals(SIZE, all.length);
+                        checks[0]++;
+                    }
+                });
+                //renaming twice before a read, the last key wins and the former ones are removed
+                model.lookup(0, 0, uuids[0], new KCallback<KObject>() {
+                    @Override
+                    public void on(KObject sensor) {
+                        sensor.set(name, "renamed");
+                        sensor.set(name, "renamed twice");
+                    }
+                });
+                model.findByKey(sensorClass, 0, 0, new Object[]{"sensor 0"}, new KCallback<KObject>() {
+                    @Override
+                    public void on(KObject found) {
+                        Assert.assertNull(found);
+                        checks[0]++;
+                    }
+                });
+                model.findByKey(sensorClass, 0, 0, new Object[]{"renamed"}, new KCallback<KObject>() {
+                    @Override
+                    public void on(KObject found) {
+                        Assert.assertNull(found);
+                        checks[0]++;
+                    }
+                });
+                model.findByKey(sensorClass, 0, 0, new Object[]{"renamed twice"}, new KCallback<KObject>() {
+                    @Override
+                    public void on(KObject found) {
+                        Assert.assertEquals(uuids[0], found.uuid());
+                        checks[0]++;
+                    }
+                });
+                //updates still pending at save time are saved with the objects
+                model.lookup(0, 0, uuids[1], new KCallback<KObject>() {
+                    @Override
+                    public void on(KObject sensor) {
+                        sensor.set(name, "saved");
+                    }
+                });
+                model.save(new KCallback() {
+                    @Override
+                    public void on(Object o) {
+                        final KModel reloaded = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).withContentDeliveryDriver(((KInternalDataManager) model.manager()).cdn()).build());
+                        reloaded.connect(new KCallback() {
+                            @Override
+                            public void on(Object o) {
+                                reloaded.findByKey(sensorClass, 0, 0, new Object[]{"saved"}, new KCallback<KObject>() {
+                                    @Override
+                                    public void on(KObject found) {
+                                        Assert.assertEquals(uuids[1], found.uuid());
+                                        checks[0]++;
+                                    }
+                                });
+                                reloaded.findByKey(sensorClass, 0, 0, new Object[]{"sensor 1"}, new KCallback<KObject>() {
+                                    @Override
+                                    public void on(KObject found) {
+                                        Assert.assertNull(found);
+                                        checks[0]++;
+                                    }
+                                });
+                            }
+                        });
+                    }
+                });
+            }
+        });
+        Assert.assertEquals(7, checks[0]);
+    }
+
+    /**
+     * Runs the dispatched tasks on demand, the most recent first, so that a read dispatched after a full batch would
+     * be answered before the batch is written if it did not wait for it.
+     */
+    private static class LastInFirstOutScheduler implements KScheduler {
+
+        private final ArrayList<KTask> _tasks = new ArrayList<KTask>();
+
+        @Override
+        public void dispatch(KTask task) {
+            _tasks.add(task);
+        }
+
+        void runAll() {
+            while (!_tasks.isEmpty()) {
+                _tasks.remove(_tasks.size() - 1).run();
+            }
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public void detach() {
+        }
+
+    }
+
+    @Test
+    public void inFlightTest() {
+        final MetaModel metaModel = new MetaModel("KeyIndexBufferMetaModel");
+        final KMetaClass sensorClass = metaModel.addMetaClass("Sensor");
+        final KMetaAttribute name = sensorClass.addAttribute("name", KPrimitiveTypes.STRING);
+        name.setKey(true);
+
+        final int[] checks = {0};
+        final LastInFirstOutScheduler scheduler = new LastInFirstOutScheduler();
+        final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(scheduler).build());
+        model.connect(null);
+        scheduler.runAll();
+        final long[] uuids = new long[KeyIndexBuffer.MAX_BATCH_SIZE];
+        final KObject[] sensors = new KObject[uuids.length];
+        for (int i = 0; i < uuids.length; i++) {
+            sensors[i] = model.create(sensorClass, 0, 0);
+            sensors[i].set(name, "sensor " + i);
+            uuids[i] = sensors[i].uuid();
+        }
+        //a rename is a removal and an insertion, the second batch is full after half of the objects
+        for (int i = 0; i < uuids.length / 2; i++) {
+            sensors[i].set(name, "renamed " + i);
+        }
+        //both batches are in flight, nothing is pending anymore, and the second one has to be written last
+        model.findByKey(sensorClass, 0, 0, new Object[]{"sensor 0"}, new KCallback<KObject>() {
+            @Override
+            public void on(KObject found) {
+                Assert.assertNull(found);
+                checks[0]++;
+            }
+        });
+        model.findByKey(sensorClass, 0, 0, new Object[]{"renamed 0"}, new KCallback<KObject>() {
+            @Override
+            public void on(KObject found) {
+                Assert.assertEquals(uuids[0], found.uuid());
+                checks[0]++;
+            }
+        });
+        model.findAll(sensorClass, 0, 0, new KCallback<KObject[]>() {
+            @Override
+            public void on(KObject[] all) {
+                Assert.assertEquals(uuids.length, all.length);
+                checks[0]++;
+            }
+        });
+        scheduler.runAll();
+        Assert.assertEquals(3, checks[0]);
+    }
+
+    @Test
+    public void multiTimeTest() {
+        final MetaModel metaModel = new MetaModel("KeyIndexBufferMetaModel");
+        final KMetaClass sensorClass = metaModel.addMetaClass("Sensor");
+        final KMetaAttribute name = sensorClass.addAttribute("name", KPrimitiveTypes.STRING);
+        name.setKey(true);
+
+        final long[] times = {0, 1, 10, 100, 1000, 5000, 10000, 123456};
+        final int[] checks = {0};
+        for (int i = 0; i < times.length - 1; i++) {
+            for (int j = i + 1; j < times.length; j++) {
+                final long t1 = times[i];
+                final long t2 = times[j];
+                final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+                model.connect(new KCallback() {
+                    @Override
+                    public void on(Object o) {
+                        final KObject first = model.create(sensorClass, 0, t1);
+                        first.set(name, "a");
+                        KObject second = model.create(sensorClass, 0, t2);
+                        second.set(name, "b");
+                        //the batch of t2 is written after the one of t1, whatever the order of their keys
+                        model.find(sensorClass, 0, t2, "name=a", new KCallback<KObject>() {
+                            @Override
+                            public void on(KObject found) {
+                                Assert.assertNotNull(found);
+                                Assert.assertEquals(first.uuid(), found.uuid());
+                                checks[0]++;
+                            }
+                        });
+                        model.find(sensorClass, 0, t2, "name=b", new KCallback<KObject>() {
+                            @Override
+                            public void on(KObject found) {
+                                Assert.assertNotNull(found);
+                                checks[0]++;
+                            }
+                        });
+                        model.find(sensorClass, 0, t1, "name=b", new KCallback<KObject>() {
+                            @Override
+                            public void on(KObject found) {
+                                Assert.assertNull(found);
+                                checks[0]++;
+                            }
+                        });
+                    }
+                });
+            }
+        }
+        Assert.assertEquals(3 * times.length * (times.length - 1) / 2, checks[0]);
+    }
+
+}
@@ -0,0 +1,330 @@
+package org.kevoree.modeling.index;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KModel;
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.KObjectIndex;
+import org.kevoree.modeling.KView;
+import org.kevoree.modeling.abs.AbstractKObjectIndex;
+import org.kevoree.modeling.index.impl.IndexKeys;
+import org.kevoree.modeling.memory.manager.DataManagerBuilder;
+import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
+import org.kevoree.modeling.meta.KMetaAttribute;
+import org.kevoree.modeling.meta.KMetaClass;
+import org.kevoree.modeling.meta.KMetaRelation;
+import org.kevoree.modeling.meta.KPrimitiveTypes;
+import org.kevoree.modeling.meta.impl.MetaModel;
+import org.kevoree.modeling.scheduler.impl.DirectScheduler;
+import org.kevoree.modeling.traversal.impl.actions.FilterAttributeQueryAction;
+import org.kevoree.modeling.util.PrimitiveHelper;
+
+public class OrderedIndexTest {
+
+    private static final int SIZE = 200;
+
+    @Test
+    public void rangeTopPrefixTest() {
+        final MetaModel metaModel = new MetaModel("OrderedMetaModel");
+        final KMetaClass sensorClass = metaModel.addMetaClass("Sensor");
+        final KMetaAttribute value = sensorClass.addAttribute("value", KPrimitiveTypes.DOUBLE);
+        final KMetaAttribute label = sensorClass.addAttribute("label", KPrimitiveTypes.STRING);
+        final KMetaAttribute count = sensorClass.addAttribute("count", KPrimitiveTypes.INT);
+        final KMetaRelation sensors = sensorClass.addRelation("sensors", sensorClass, null);
+        value.setOrdered(true);
+        label.setOrdered(true);
+
+        final int[] reloadedChecks = {0};
+        final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        model.connect(new KCallback() {
+            @Override
+            public void on(Object o) {
+                final KObject root = model.create(sensorClass, 0, 0);
+                final long[] uuids = new long[SIZE];
+                for (int i = 0; i < SIZE; i++) {
+                    KObject sensor = model.create(sensorClass, 0, 0);
+                    sensor.set(value, i * 0.5 - 20);
+                    sensor.set(label, "s" + i);
+                    sensor.set(count, i);
+                    root.addByName("sensors", sensor);
+                    uuids[i] = sensor.uuid();
+                }
+                model.orderedIndex(sensorClass, value, 0, 0, new KCallback<KOrderedIndex>() {
+                    @Override
+                    public void on(KOrderedIndex index) {
+                        //the root has no value and is not indexed
+                        Assert.assertEquals(SIZE, index.size());
+                        long[] range = index.range(-5.0, true, "5", true);
+                        Assert.assertEquals(21, range.length);
+                        for (int i = 0; i < range.length; i++) {
+                            Assert.assertEquals(uuids[30 + i], range[i]);
+                        }
+                        Assert.assertEquals(19, index.range(-5.0, false, 5.0, false).length);
+                        long[] top = index.top(3, true);
+                        Assert.assertEquals(3, top.length);
+                        Assert.assertEquals(uuids[SIZE - 1], top[0]);
+                        Assert.assertEquals(uuids[SIZE - 3], top[2]);
+                        long[] lowest = index.top(2, false);
+                        Assert.assertEquals(uuids[0], lowest[0]);
+                        Assert.assertEquals(uuids[1], lowest[1]);
+                        Assert.assertEquals(40, index.range(null, true, 0.0, false).length);
+                    }
+                });
+                model.orderedIndex(sensorClass, label, 0, 0, new KCallback<KOrderedIndex>() {
+                    @Override
+                    public void on(KOrderedIndex index) {
+                        //s1, s10 to s19 and s100 to s199
+                        Assert.assertEquals(111, index.prefix("s1").length);
+                        Assert.assertEquals(uuids[1], index.prefix("s1")[0]);
+                        Assert.assertEquals(0, index.prefix("x").length);
+                    }
+                });
+                model.findRange(sensorClass, value, 0, 0, 0.0, 1.0, new KCallback<KObject[]>() {
+                    @Override
+                    public void on(KObject[] objects) {
+                        Assert.assertEquals(3, objects.length);
+                        Assert.assertEquals(uuids[40], objects[0].uuid());
+                    }
+                });
+
+                //an update at a later time only changes the index from this time
+                model.lookup(0, 10, uuids[0], new KCallback<KObject>() {
+                    @Override
+                    public void on(KObject sensor) {
+                        sensor.set(value, 1000.0);
+                    }
+                });
+                model.orderedIndex(sensorClass, value, 0, 10, new KCallback<KOrderedIndex>() {
+                    @Override
+                    public void on(KOrderedIndex index) {
+                        Assert.assertEquals(SIZE, index.size());
+                        Assert.assertEquals(uuids[0], index.top(1, true)[0]);
+                    }
+                });
+                model.orderedIndex(sensorClass, value, 0, 5, new KCallback<KOrderedIndex>() {
+                    @Override
+                    public void on(KOrderedIndex index) {
+                        Assert.assertEquals(uuids[0], index.top(1, false)[0]);
+                    }
+                });
+
+                //selectors use the index for comparisons on ordered attributes
+                model.universe(0).time(0).select("@Sensor[value>=0,value<10,label=s4*]", new KCallback<Object[]>() {
+                    @Override
+                    public void on(Object[] selected) {
+                        Assert.assertEquals(10, selected.length);
+                        Assert.assertEquals(uuids[40], ((KObject) selected[0]).uuid());
+                    }
+                });
+                root.select("sensors[value<0]", new KCallback<Object[]>() {
+                    @Override
+                    public void on(Object[] selected) {
+                        Assert.assertEquals(40, selected.length);
+                    }
+                });
+                root.select("sensors[count>=190]", new KCallback<Object[]>() {
+                    @Override
+                    public void on(Object[] selected) {
+                        Assert.assertEquals(10, selected.length);
+                    }
+                });
+
+                //the index is persisted with the model
+                model.save(new KCallback() {
+                    @Override
+                    public void on(Object o) {
+                        final KModel reloaded = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).withContentDeliveryDriver(((KInternalDataManager) model.manager()).cdn()).build());
+                        reloaded.connect(new KCallback() {
+                            @Override
+                            public void on(Object o) {
+                                reloaded.orderedIndex(sensorClass, value, 0, 0, new KCallback<KOrderedIndex>() {
+                                    @Override
+                                    public void on(KOrderedIndex index) {
+                                        Assert.assertEquals(SIZE, index.size());
+                                        Assert.assertEquals(21, index.range(-5.0, true, 5.0, true).length);
+                                        reloadedChecks[0]++;
+                                    }
+                                });
+                            }
+                        });
+                    }
+                });
+            }
+        });
+        Assert.assertEquals(1, reloadedChecks[0]);
+    }
+
+    @Test
+    public void scanAndIndexAgreeTest() {
+        final MetaModel metaModel = new MetaModel("OrderedMetaModel");
+        final KMetaClass sensorClass = metaModel.addMetaClass("Sensor");
+        final KMetaAttribute value = sensorClass.addAttribute("value", KPrimitiveTypes.DOUBLE);
+        sensorClass.addRelation("sensors", sensorClass, null);
+        value.setOrdered(true);
+        final int[] checks = {0};
+        final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        model.connect(new KCallback() {
+            @Override
+            public void on(Object o) {
+                //below and above the number of inputs from which the filter uses the index
+                final int[] sizes = {FilterAttributeQueryAction.INDEX_THRESHOLD - 1, FilterAttributeQueryAction.INDEX_THRESHOLD};
+                for (int s = 0; s < sizes.length; s++) {
+                    final int size = sizes[s];
+                    KObject root = model.create(sensorClass, s, 0);
+                    for (int i = 0; i < size; i++) {
+                        KObject sensor = model.create(sensorClass, s, 0);
+                        sensor.set(value, 5.0);
+                        root.addByName("sensors", sensor);
+                    }
+                    root.select("sensors[value=5]", new KCallback<Object[]>() {
+                        @Override
+                        public void on(Object[] selected) {
+                            Assert.assertEquals(0, selected.length);
+                            checks[0]++;
+                        }
+                    });
+                    root.select("sensors[value=5.0]", new KCallback<Object[]>() {
+                        @Override
+                        public void on(Object[] selected) {
+                            Assert.assertEquals(size, selected.length);
+                            checks[0]++;
+                        }
+                    });
+                    root.select("sensors[value=5.*]", new KCallback<Object[]>() {
+                        @Override
+                        public void on(Object[] selected) {
+                            Assert.assertEquals(size, selected.length);
+                            checks[0]++;
+                        }
+                    });
+                }
+                //objects imported from JSON are indexed as well
+                StringBuilder payload = new StringBuilder("[");
+                for (int i = 0; i < FilterAttributeQueryAction.INDEX_THRESHOLD; i++) {
+                    if (i > 0) {
+                        payload.append(",");
+                    }
+                    payload.append("{\"@class\":\"Sensor\",\"@uuid\":").append(i + 1).append(",\"value\":\"2.5\"}");
+                }
+                payload.append("]");
+                final KView view = model.newUniverse().time(0);
+                view.json().load(payload.toString(), new KCallback<Throwable>() {
+                    @Override
+                    public void on(Throwable throwable) {
+                        view.select("@Sensor[value=2.5]", new KCallback<Object[]>() {
+                            @Override
+                            public void on(Object[] selected) {
+                                Assert.assertEquals(FilterAttributeQueryAction.INDEX_THRESHOLD, selected.length);
+                                checks[0]++;
+                            }
+                        });
+                    }
+                });
+            }
+        });
+        Assert.assertEquals(7, checks[0]);
+    }
+
+
+    @Test
+    public void rangePagesTest() {
+        final MetaModel metaModel = new MetaModel("OrderedMetaModel");
+        final KMetaClass sensorClass = metaModel.addMetaClass("Sensor");
+        final KMetaAttribute value = sensorClass.addAttribute("value", KPrimitiveTypes.INT);
+        value.setOrdered(true);
+        final int size = 4 * AbstractKObjectIndex.PAGE_CAPACITY;
+        final int[] checks = {0};
+        final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        model.connect(new KCallback() {
+            @Override
+            public void on(Object o) {
+                //values inserted out of order, uuids[v] holds the sensor of value v
+                final long[] uuids = new long[size];
+                for (int i = 0; i < size; i++) {
+                    int v = (i * 7919) % size;
+                    KObject sensor = model.create(sensorClass, 0, 0);
+                    sensor.set(value, v);
+                    uuids[v] = sensor.uuid();
+                }
+                ((KInternalDataManager) model.manager()).index(0, 0, IndexKeys.orderedIndexName(sensorClass, value), false, new KCallback<KObjectIndex>() {
+                    @Override
+                    public void on(KObjectIndex index) {
+                        AbstractKObjectIndex casted = (AbstractKObjectIndex) index;
+                        Assert.assertTrue(casted.internal_ranged());
+                        String[][] runs = casted.internal_sortedKeys();
+                        Assert.assertTrue(runs.length > 2);
+                        String previous = null;
+                        int total = 0;
+                        for (int i = 0; i < runs.length; i++) {
+                            Assert.assertTrue(runs[i].length <= AbstractKObjectIndex.PAGE_CAPACITY);
+                            for (int j = 0; j < runs[i].length; j++) {
+                                if (previous != null) {
+                                    Assert.assertTrue(PrimitiveHelper.compareStrings(previous, runs[i][j]) < 0);
+                                }
+                                previous = runs[i][j];
+                                total++;
+                            }
+                        }
+                        Assert.assertEquals(size, total);
+                        Assert.assertEquals(size, index.values().length);
+                        checks[0]++;
+                    }
+                });
+                model.orderedIndex(sensorClass, value, 0, 0, new KCallback<KOrderedIndex>() {
+                    @Override
+                    public void on(KOrderedIndex index) {
+                        Assert.assertEquals(size, index.size());
+                        long[] range = index.range(100, false, 1500, true);
+                        Assert.assertEquals(1400, range.length);
+                        for (int i = 0; i < range.length; i++) {
+                            Assert.assertEquals(uuids[101 + i], range[i]);
+                        }
+                        long[] top = index.top(600, true);
+                        Assert.assertEquals(600, top.length);
+                        for (int i = 0; i < top.length; i++) {
+                            Assert.assertEquals(uuids[size - 1 - i], top[i]);
+                        }
+                        long[] lowest = index.top(600, false);
+                        for (int i = 0; i < lowest.length; i++) {
+                            Assert.assertEquals(uuids[i], lowest[i]);
+                        }
+                        checks[0]++;
+                    }
+                });
+                //moves at a later time keep the pages ordered
+                for (int v = 0; v < size; v = v + 3) {
+                    final int moved = v;
+                    model.lookup(0, 10, uuids[v], new KCallback<KObject>() {
+                        @Override
+                        public void on(KObject sensor) {
+                            sensor.set(value, moved + size);
+                        }
+                    });
+                }
+                model.orderedIndex(sensorClass, value, 0, 10, new KCallback<KOrderedIndex>() {
+                    @Override
+                    public void on(KOrderedIndex index) {
+                        Assert.assertEquals(size, index.size());
+                        long[] below = index.range(null, true, size, false);
+                        Assert.assertEquals(size - (size + 2) / 3, below.length);
+                        Assert.assertEquals(uuids[1], below[0]);
+                        Assert.assertEquals(uuids[2], below[1]);
+                        Assert.assertEquals(uuids[4], below[2]);
+                        Assert.assertEquals(uuids[0], index.range(size, true, null, true)[0]);
+                        checks[0]++;
+                    }
+                });
+                model.orderedIndex(sensorClass, value, 0, 0, new KCallback<KOrderedIndex>() {
+                    @Override
+                    public void on(KOrderedIndex index) {
+                        Assert.assertEquals(0, index.range(size, true, null, true).length);
+                        checks[0]++;
+                    }
+                });
+            }
+        });
+        Assert.assertEquals(4, checks[0]);
+    }
+
+}
@@ -0,0 +1,230 @@
+package org.kevoree.modeling.index;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KModel;
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.KObjectIndex;
+import org.kevoree.modeling.abs.AbstractKObjectIndex;
+import org.kevoree.modeling.index.impl.IndexKeys;
+import org.kevoree.modeling.index.impl.PostingIndex;
+import org.kevoree.modeling.index.impl.Postings;
+import org.kevoree.modeling.memory.manager.DataManagerBuilder;
+import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
+import org.kevoree.modeling.meta.KMetaAttribute;
+import org.kevoree.modeling.meta.KMetaClass;
+import org.kevoree.modeling.meta.KMetaEnum;
+import org.kevoree.modeling.meta.KPrimitiveTypes;
+import org.kevoree.modeling.meta.impl.MetaModel;
+import org.kevoree.modeling.scheduler.impl.DirectScheduler;
+
+public class PostingIndexTest {
+
+    private static final int SIZE = 1000;
+
+    @Test
+    public void setOperationsTest() {
+        long[] a = new long[]{-5, 1, 3, 5, 7, 9, 100, 200};
+        long[] b = new long[]{1, 2, 3, 100, 150};
+        long[] c = new long[]{-5, 3, 100, 201};
+        Assert.assertArrayEquals(new long[]{3, 100}, Postings.intersect(new long[][]{a, b, c}));
+        Assert.assertArrayEquals(new long[]{-5, 1, 2, 3, 5, 7, 9, 100, 150, 200}, Postings.union(new long[][]{a, b}));
+        Assert.assertEquals(0, Postings.intersect(new long[][]{a, new long[0]}).length);
+        long[] large = new long[10000];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = i * 3;
+        }
+        Assert.assertArrayEquals(new long[]{0, 9999}, Postings.intersect(new long[][]{large, new long[]{0, 1, 9999, 30000}}));
+    }
+
+    @Test
+    public void postingsTest() {
+        final MetaModel metaModel = new MetaModel("PostingMetaModel");
+        final KMetaEnum statusEnum = metaModel.addMetaEnum("Status");
+        statusEnum.addLiteral("OK");
+        statusEnum.addLiteral("FAILED");
+        final KMetaClass nodeClass = metaModel.addMetaClass("Node");
+        final KMetaAttribute status = nodeClass.addAttribute("status", statusEnum);
+        final KMetaAttribute zone = nodeClass.addAttribute("zone", KPrimitiveTypes.INT);
+        nodeClass.addRelation("children", nodeClass, null);
+        status.setIndexed(true);
+        zone.setIndexed(true);
+
+        final int[] checks = {0};
+        final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        model.connect(new KCallback() {
+            @Override
+            public void on(Object o) {
+                final KObject root = model.create(nodeClass, 0, 0);
+                final long[] uuids = new long[SIZE];
+                int expectedBoth = 0;
+                int expectedAny = 0;
+                for (int i = 0; i < SIZE; i++) {
+                    KObject node = model.create(nodeClass, 0, 0);
+                    node.set(status, i % 10 == 0 ? "FAILED" : "OK");
+                    node.set(zone, i % 7);
+                    root.addByName("children", node);
+                    uuids[i] = node.uuid();
+                    if (i % 10 == 0 && i % 7 == 3) {
+                        expectedBoth++;
+                    }
+                    if (i % 10 == 0 || i % 7 == 3) {
+                        expectedAny++;
+                    }
+                }
+                model.postings(nodeClass, status, 0, 0, "FAILED", new KCallback<long[]>() {
+                    @Override
+                    public void on(long[] failed) {
+                        Assert.assertEquals(SIZE / 10, failed.length);
+                        for (int i = 1; i < failed.length; i++) {
+                            Assert.assertTrue(failed[i - 1] < failed[i]);
+                        }
+                        checks[0]++;
+                    }
+                });
+                final int finalExpectedBoth = expectedBoth;
+                model.findAllMatching(nodeClass, 0, 0, new KMetaAttribute[]{status, zone}, new Object[]{"FAILED", 3}, true, new KCallback<KObject[]>() {
+                    @Override
+                    public void on(KObject[] nodes) {
+                        Assert.assertEquals(finalExpectedBoth, nodes.length);
+                        checks[0]++;
+                    }
+                });
+                final int finalExpectedAny = expectedAny;
+                model.findAllMatching(nodeClass, 0, 0, new KMetaAttribute[]{status, zone}, new Object[]{"FAILED", "3"}, false, new KCallback<KObject[]>() {
+                    @Override
+                    public void on(KObject[] nodes) {
+                        Assert.assertEquals(finalExpectedAny, nodes.length);
+                        checks[0]++;
+                    }
+                });
+                model.universe(0).time(0).select("@Node[status=FAILED,zone=3]", new KCallback<Object[]>() {
+                    @Override
+                    public void on(Object[] nodes) {
+                        Assert.assertEquals(finalExpectedBoth, nodes.length);
+                        checks[0]++;
+                    }
+                });
+                root.select("children[zone=3,status=OK]", new KCallback<Object[]>() {
+                    @Override
+                    public void on(Object[] nodes) {
+                        Assert.assertEquals(SIZE / 7 + 1 - finalExpectedBoth, nodes.length);
+                        checks[0]++;
+                    }
+                });
+
+                //changes are versioned, the past postings are kept
+                model.lookup(0, 10, uuids[0], new KCallback<KObject>() {
+                    @Override
+                    public void on(KObject node) {
+                        node.set(status, "OK");
+                    }
+                });
+                model.postings(nodeClass, status, 0, 10, "FAILED", new KCallback<long[]>() {
+                    @Override
+                    public void on(long[] failed) {
+                        Assert.assertEquals(SIZE / 10 - 1, failed.length);
+                        checks[0]++;
+                    }
+                });
+                model.postings(nodeClass, status, 0, 5, "FAILED", new KCallback<long[]>() {
+                    @Override
+                    public void on(long[] failed) {
+                        Assert.assertEquals(SIZE / 10, failed.length);
+                        Assert.assertEquals(uuids[0], failed[0]);
+                        checks[0]++;
+                    }
+                });
+            }
+        });
+        Assert.assertEquals(7, checks[0]);
+    }
+
+    @Test
+    public void concurrentCreationTest() {
+        final MetaModel metaModel = new MetaModel("PostingMetaModel");
+        final KMetaClass nodeClass = metaModel.addMetaClass("Node");
+        final KMetaAttribute zone = nodeClass.addAttribute("zone", KPrimitiveTypes.INT);
+        zone.setIndexed(true);
+        final int[] checks = {0};
+        final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        model.connect(new KCallback() {
+            @Override
+            public void on(Object o) {
+                final KInternalDataManager manager = (KInternalDataManager) model.manager();
+                final KObjectIndex[] directories = new KObjectIndex[2];
+                for (int i = 0; i < directories.length; i++) {
+                    final int finalI = i;
+                    manager.index(0, 0, PostingIndex.postingIndexName(nodeClass, zone), true, new KCallback<KObjectIndex>() {
+                        @Override
+                        public void on(KObjectIndex directory) {
+                            directories[finalI] = directory;
+                        }
+                    });
+                }
+                //both directories were resolved before the value had a posting, they share the first one created
+                String encodedValue = IndexKeys.encode(zone.attributeTypeId(), 3);
+                long first = ((AbstractKObjectIndex) directories[0]).internal_getOrCreate(encodedValue);
+                long second = ((AbstractKObjectIndex) directories[1]).internal_getOrCreate(encodedValue);
+                Assert.assertEquals(first, second);
+                Assert.assertEquals(first, directories[1].getIndex(encodedValue));
+                checks[0]++;
+            }
+        });
+        Assert.assertEquals(1, checks[0]);
+    }
+
+    @Test
+    public void emptyPostingTest() {
+        final MetaModel metaModel = new MetaModel("PostingMetaModel");
+        final KMetaClass nodeClass = metaModel.addMetaClass("Node");
+        final KMetaAttribute zone = nodeClass.addAttribute("zone", KPrimitiveTypes.INT);
+        zone.setIndexed(true);
+        final int[] checks = {0};
+        final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        model.connect(new KCallback() {
+            @Override
+            public void on(Object o) {
+                final KInternalDataManager manager = (KInternalDataManager) model.manager();
+                final String encodedValue = IndexKeys.encode(zone.attributeTypeId(), 3);
+                final KObject node = model.create(nodeClass, 0, 0);
+                node.set(zone, 3);
+                final long[] postingUuid = new long[1];
+                manager.index(0, 0, PostingIndex.postingIndexName(nodeClass, zone), false, new KCallback<KObjectIndex>() {
+                    @Override
+                    public void on(KObjectIndex directory) {
+                        postingUuid[0] = directory.getIndex(encodedValue);
+                    }
+                });
+                node.set(zone, 4);
+                //the emptied posting is kept, a later add of the value writes to the same one
+                manager.index(0, 0, PostingIndex.postingIndexName(nodeClass, zone), false, new KCallback<KObjectIndex>() {
+                    @Override
+                    public void on(KObjectIndex directory) {
+                        Assert.assertEquals(postingUuid[0], directory.getIndex(encodedValue));
+                        checks[0]++;
+                    }
+                });
+                model.postings(nodeClass, zone, 0, 0, 3, new KCallback<long[]>() {
+                    @Override
+                    public void on(long[] nodes) {
+                        Assert.assertEquals(0, nodes.length);
+                        checks[0]++;
+                    }
+                });
+                node.set(zone, 3);
+                model.postings(nodeClass, zone, 0, 0, 3, new KCallback<long[]>() {
+                    @Override
+                    public void on(long[] nodes) {
+                        Assert.assertEquals(1, nodes.length);
+                        Assert.assertEquals(node.uuid(), nodes[0]);
+                        checks[0]++;
+                    }
+                });
+            }
+        });
+        Assert.assertEquals(3, checks[0]);
+    }
+
+}
@@ -0,0 +1,151 @@
+package org.kevoree.modeling.index;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KModel;
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.memory.manager.DataManagerBuilder;
+import org.kevoree.modeling.meta.KMetaClass;
+import org.kevoree.modeling.meta.KMetaRelation;
+import org.kevoree.modeling.meta.KPrimitiveTypes;
+import org.kevoree.modeling.meta.impl.MetaModel;
+import org.kevoree.modeling.scheduler.impl.DirectScheduler;
+
+public class ReverseIndexTest {
+
+    private static final int SIZE = 50;
+
+    @Test
+    public void test() {
+        final MetaModel metaModel = new MetaModel("ReverseMetaModel");
+        final KMetaClass sensorClass = metaModel.addMetaClass("Sensor");
+        final KMetaClass hubClass = metaModel.addMetaClass("Hub");
+        hubClass.addAttribute("name", KPrimitiveTypes.STRING);
+        final KMetaRelation hub = sensorClass.addRelation("hub", hubClass, null);
+        final KMetaRelation backup = sensorClass.addRelation("backup", hubClass, null);
+        hub.setReverseIndexed(true);
+
+        final int[] checks = {0};
+        final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        model.connect(new KCallback() {
+            @Override
+            public void on(Object o) {
+                final KObject mainHub = model.create(hubClass, 0, 0);
+                final long[] sensors = new long[SIZE];
+                for (int i = 0; i < SIZE; i++) {
+                    KObject sensor = model.create(sensorClass, 0, 0);
+                    sensor.add(hub, mainHub);
+                    sensor.add(backup, mainHub);
+                    sensors[i] = sensor.uuid();
+                }
+                mainHub.referrers(hub, new KCallback<KObject[]>() {
+                    @Override
+                    public void on(KObject[] referrers) {
+                        Assert.assertEquals(SIZE, referrers.length);
+                        Assert.assertEquals(sensors[0], referrers[0].uuid());
+                        checks[0]++;
+                    }
+                });
+                //the hidden opposite keeps the not reverse indexed relation only
+                Assert.assertEquals(0, mainHub.getRelationValuesByName("op_hub").length);
+                Assert.assertEquals(SIZE, mainHub.getRelationValuesByName("op_backup").length);
+                mainHub.referrers(backup, new KCallback<KObject[]>() {
+                    @Override
+                    public void on(KObject[] referrers) {
+                        Assert.assertEquals(SIZE, referrers.length);
+                        checks[0]++;
+                    }
+                });
+                //selectors follow incoming references through the reverse index as well as through the hidden opposite
+                mainHub.select("<<hub", new KCallback<Object[]>() {
+                    @Override
+                    public void on(Object[] referrers) {
+                        Assert.assertEquals(SIZE, referrers.length);
+                        checks[0]++;
+                    }
+                });
+                mainHub.select("<<backup", new KCallback<Object[]>() {
+                    @Override
+                    public void on(Object[] referrers) {
+                        Assert.assertEquals(SIZE, referrers.length);
+                        checks[0]++;
+                    }
+                });
+                //an incoming reference at a later time gives the hub no new time point
+                model.lookup(0, 10, sensors[0], new KCallback<KObject>() {
+                    @Override
+                    public void on(KObject sensor) {
+                        sensor.remove(hub, mainHub);
+                    }
+                });
+                mainHub.allTimes(new KCallback<long[]>() {
+                    @Override
+                    public void on(long[] times) {
+                        Assert.assertEquals(1, times.length);
+                        checks[0]++;
+                    }
+                });
+                model.lookup(0, 10, mainHub.uuid(), new KCallback<KObject>() {
+                    @Override
+                    public void on(KObject hubAtTen) {
+                        model.createTraversal(new KObject[]{hubAtTen}).traverseInbound(hub).then(new KCallback<KObject[]>() {
+                            @Override
+                            public void on(KObject[] referrers) {
+                                Assert.assertEquals(SIZE - 1, referrers.length);
+                                checks[0]++;
+                            }
+                        });
+                    }
+                });
+                model.lookup(0, 5, mainHub.uuid(), new KCallback<KObject>() {
+                    @Override
+                    public void on(KObject hubAtFive) {
+                        hubAtFive.referrers(hub, new KCallback<KObject[]>() {
+                            @Override
+                            public void on(KObject[] referrers) {
+                                Assert.assertEquals(SIZE, referrers.length);
+                                checks[0]++;
+                            }
+                        });
+                    }
+                });
+                //detaching the hub removes the incoming references found in the reverse index
+                model.lookup(0, 20, mainHub.uuid(), new KCallback<KObject>() {
+                    @Override
+                    public void on(KObject hubAtTwenty) {
+                        hubAtTwenty.detach(new KCallback() {
+                            @Override
+                            public void on(Object o) {
+                                model.lookup(0, 20, sensors[1], new KCallback<KObject>() {
+                                    @Override
+                                    public void on(KObject sensor) {
+                                        Assert.assertEquals(0, sensor.getRelationValues(hub).length);
+                                        Assert.assertEquals(0, sensor.getRelationValues(backup).length);
+                                        checks[0]++;
+                                    }
+                                });
+                                hubAtTwenty.referrers(hub, new KCallback<KObject[]>() {
+                                    @Override
+                                    public void on(KObject[] referrers) {
+                                        Assert.assertEquals(0, referrers.length);
+                                        checks[0]++;
+                                    }
+                                });
+                            }
+                        });
+                    }
+                });
+                model.lookup(0, 15, sensors[1], new KCallback<KObject>() {
+                    @Override
+                    public void on(KObject sensor) {
+                        Assert.assertEquals(1, sensor.getRelationValues(hub).length);
+                        checks[0]++;
+                    }
+                });
+            }
+        });
+        Assert.assertEquals(10, checks[0]);
+    }
+
+}
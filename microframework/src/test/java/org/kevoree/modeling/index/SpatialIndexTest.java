@@ -0,0 +1,136 @@
+package org.kevoree.modeling.index;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KModel;
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.index.impl.SpatialIndex;
+import org.kevoree.modeling.memory.manager.DataManagerBuilder;
+import org.kevoree.modeling.meta.KMetaAttribute;
+import org.kevoree.modeling.meta.KMetaClass;
+import org.kevoree.modeling.meta.KPrimitiveTypes;
+import org.kevoree.modeling.meta.impl.MetaModel;
+import org.kevoree.modeling.scheduler.impl.DirectScheduler;
+
+public class SpatialIndexTest {
+
+    private static final int GRID = 20;
+
+    @Test
+    public void radiusBoxNearestTest() {
+        final MetaModel metaModel = new MetaModel("SpatialMetaModel");
+        final KMetaClass sensorClass = metaModel.addMetaClass("Sensor");
+        final KMetaAttribute lat = sensorClass.addAttribute("lat", KPrimitiveTypes.DOUBLE);
+        final KMetaAttribute lon = sensorClass.addAttribute("lon", KPrimitiveTypes.DOUBLE);
+        sensorClass.addRelation("sensors", sensorClass, null);
+        sensorClass.addSpatialIndex(lat, lon);
+
+        final int[] checks = {0};
+        final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        model.connect(new KCallback() {
+            @Override
+            public void on(Object o) {
+                final KObject root = model.create(sensorClass, 0, 0);
+                final KObject rowRoot = model.create(sensorClass, 0, 0);
+                final double[][] positions = new double[GRID * GRID + 2][];
+                final long[] uuids = new long[positions.length];
+                for (int i = 0; i < GRID * GRID; i++) {
+                    positions[i] = new double[]{49.0 + (i / GRID) * 0.05, 5.0 + (i % GRID) * 0.05};
+                }
+                positions[GRID * GRID] = new double[]{10.0, 179.95};
+                positions[GRID * GRID + 1] = new double[]{10.0, -179.95};
+                for (int i = 0; i < positions.length; i++) {
+                    KObject sensor = model.create(sensorClass, 0, 0);
+                    sensor.set(lat, positions[i][0]);
+                    sensor.set(lon, positions[i][1]);
+                    root.addByName("sensors", sensor);
+                    if (i < GRID) {
+                        rowRoot.addByName("sensors", sensor);
+                    }
+                    uuids[i] = sensor.uuid();
+                }
+                model.spatialIndex(sensorClass, lat, 0, 0, new KCallback<KSpatialIndex>() {
+                    @Override
+                    public void on(KSpatialIndex index) {
+                        Assert.assertEquals(positions.length, index.size());
+                        //radius, compared to a full scan
+                        long[] within = index.radius(49.5, 5.5, 10000);
+                        Assert.assertTrue(expected(positions, 49.5, 5.5, 10000) > 10);
+                        Assert.assertEquals(expected(positions, 49.5, 5.5, 10000), within.length);
+                        Assert.assertEquals(uuids[10 * GRID + 10], within[0]);
+                        //box
+                        Assert.assertEquals(3 * 4, index.boundingBox(49.09, 5.14, 49.21, 5.31).length);
+                        //box crossing the antimeridian
+                        long[] wrapped = index.boundingBox(9, 179.9, 11, -179.9);
+                        Assert.assertEquals(2, wrapped.length);
+                        Assert.assertEquals(2, index.radius(10.0, 180.0, 20000).length);
+                        //nearest
+                        long[] nearest = index.nearest(49.001, 5.001, 3);
+                        Assert.assertEquals(3, nearest.length);
+                        Assert.assertEquals(uuids[0], nearest[0]);
+                        Assert.assertEquals(uuids[GRID * GRID], index.nearest(10.0, 170.0, 1)[0]);
+                        Assert.assertEquals(positions.length, index.nearest(0, 0, positions.length + 10).length);
+                        checks[0]++;
+                    }
+                });
+                //moving a sensor at time 1 leaves time 0 untouched
+                model.lookup(0, 1, uuids[0], new KCallback<KObject>() {
+                    @Override
+                    public void on(KObject sensor) {
+                        sensor.set(lat, -33.9);
+                        sensor.set(lon, 18.4);
+                        model.findNearest(sensorClass, lat, 0, 1, -34.0, 18.5, 1, new KCallback<KObject[]>() {
+                            @Override
+                            public void on(KObject[] objects) {
+                                Assert.assertEquals(uuids[0], objects[0].uuid());
+                                checks[0]++;
+                            }
+                        });
+                        model.findWithin(sensorClass, lat, 0, 0, -34.0, 18.5, 100000, new KCallback<KObject[]>() {
+                            @Override
+                            public void on(KObject[] objects) {
+                                Assert.assertEquals(0, objects.length);
+                                checks[0]++;
+                            }
+                        });
+                        model.findInBox(sensorClass, lat, 0, 1, 48, 4, 51, 7, new KCallback<KObject[]>() {
+                            @Override
+                            public void on(KObject[] objects) {
+                                Assert.assertEquals(GRID * GRID - 1, objects.length);
+                                checks[0]++;
+                            }
+                        });
+                    }
+                });
+                //traversal step, through the index for numerous inputs and by reading coordinates otherwise
+                root.traversal().traverse(sensorClass.reference("sensors")).withinDistance(lat, lon, 49.5, 5.5, 10000).then(new KCallback<KObject[]>() {
+                    @Override
+                    public void on(KObject[] indexed) {
+                        Assert.assertEquals(expected(positions, 49.5, 5.5, 10000), indexed.length);
+                        checks[0]++;
+                    }
+                });
+                rowRoot.traversal().traverse(sensorClass.reference("sensors")).withinDistance(lat, lon, 49.0, 5.0, 8000).then(new KCallback<KObject[]>() {
+                    @Override
+                    public void on(KObject[] scanned) {
+                        Assert.assertEquals(3, scanned.length);
+                        checks[0]++;
+                    }
+                });
+            }
+        });
+        Assert.assertEquals(6, checks[0]);
+    }
+
+    private static int expected(double[][] positions, double lat, double lon, double meters) {
+        int expected = 0;
+        for (int i = 0; i < positions.length; i++) {
+            if (SpatialIndex.distance(lat, lon, positions[i][0], positions[i][1]) <= meters) {
+                expected++;
+            }
+        }
+        return expected;
+    }
+
+}
@@ -0,0 +1,142 @@
+package org.kevoree.modeling.index;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KModel;
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.index.impl.TextIndex;
+import org.kevoree.modeling.memory.manager.DataManagerBuilder;
+import org.kevoree.modeling.meta.KMetaAttribute;
+import org.kevoree.modeling.meta.KMetaClass;
+import org.kevoree.modeling.meta.KPrimitiveTypes;
+import org.kevoree.modeling.meta.impl.MetaModel;
+import org.kevoree.modeling.scheduler.impl.DirectScheduler;
+
+public class TextIndexTest {
+
+    @Test
+    public void scoreTest() {
+        Assert.assertEquals(0, TextIndex.score("pump", "Main pump station"));
+        Assert.assertEquals(2, TextIndex.score("pomp", "Main pump station"));
+        Assert.assertEquals(1, TextIndex.score("compres", "Compressor A"));
+        Assert.assertTrue(TextIndex.matches("towr", "Water tower"));
+        Assert.assertFalse(TextIndex.matches("towr", "Valve north"));
+        Assert.assertEquals(4, TextIndex.grams("Pump").length);
+    }
+
+    @Test
+    public void searchTest() {
+        final MetaModel metaModel = new MetaModel("TextMetaModel");
+        final KMetaClass assetClass = metaModel.addMetaClass("Asset");
+        final KMetaAttribute name = assetClass.addAttribute("name", KPrimitiveTypes.STRING);
+        assetClass.addRelation("assets", assetClass, null);
+        name.setSearchable(true);
+
+        final int[] checks = {0};
+        final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        model.connect(new KCallback() {
+            @Override
+            public void on(Object o) {
+                final KObject root = model.create(assetClass, 0, 0);
+                String[] names = {"Main pump station", "Pump house 2", "Pumping unit", "Water tower", "Valve north", "Compressor A"};
+                final long[] uuids = new long[names.length];
+                for (int i = 0; i < names.length; i++) {
+                    KObject asset = model.create(assetClass, 0, 0);
+                    asset.set(name, names[i]);
+                    root.addByName("assets", asset);
+                    uuids[i] = asset.uuid();
+                }
+                for (int i = 0; i < 200; i++) {
+                    KObject filler = model.create(assetClass, 0, 0);
+                    filler.set(name, "Sensor " + i);
+                    root.addByName("assets", filler);
+                }
+                model.search(assetClass, name, 0, 0, "pump", 5, new KCallback<long[]>() {
+                    @Override
+                    public void on(long[] found) {
+                        //complete tokens first, then the token prefix
+                        Assert.assertEquals(3, found.length);
+                        Assert.assertEquals(uuids[0], found[0]);
+                        Assert.assertEquals(uuids[1], found[1]);
+                        Assert.assertEquals(uuids[2], found[2]);
+                        checks[0]++;
+                    }
+                });
+                model.search(assetClass, name, 0, 0, "pomp", 5, new KCallback<long[]>() {
+                    @Override
+                    public void on(long[] found) {
+                        //one edit away from pump, and from the comp prefix of compressor
+                        Assert.assertEquals(3, found.length);
+                        Assert.assertEquals(uuids[0], found[0]);
+                        Assert.assertEquals(uuids[1], found[1]);
+                        Assert.assertEquals(uuids[5], found[2]);
+                        checks[0]++;
+                    }
+                });
+                model.search(assetClass, name, 0, 0, "pomp", 1, new KCallback<long[]>() {
+                    @Override
+                    public void on(long[] found) {
+                        Assert.assertEquals(1, found.length);
+                        checks[0]++;
+                    }
+                });
+                model.search(assetClass, name, 0, 0, "compres", 5, new KCallback<long[]>() {
+                    @Override
+                    public void on(long[] found) {
+                        Assert.assertEquals(1, found.length);
+                        Assert.assertEquals(uuids[5], found[0]);
+                        checks[0]++;
+                    }
+                });
+                //renaming at time 1 updates the index from this time only
+                model.lookup(0, 1, uuids[3], new KCallback<KObject>() {
+                    @Override
+                    public void on(KObject tower) {
+                        tower.set(name, "Water reservoir");
+                        model.search(assetClass, name, 0, 1, "towr", 5, new KCallback<long[]>() {
+                            @Override
+                            public void on(long[] found) {
+                                Assert.assertEquals(0, found.length);
+                                checks[0]++;
+                            }
+                        });
+                        model.search(assetClass, name, 0, 1, "resevoir", 5, new KCallback<long[]>() {
+                            @Override
+                            public void on(long[] found) {
+                                Assert.assertEquals(1, found.length);
+                                checks[0]++;
+                            }
+                        });
+                        model.search(assetClass, name, 0, 0, "towr", 5, new KCallback<long[]>() {
+                            @Override
+                            public void on(long[] found) {
+                                Assert.assertEquals(1, found.length);
+                                Assert.assertEquals(uuids[3], found[0]);
+                                checks[0]++;
+                            }
+                        });
+                    }
+                });
+                //selector form through the index, then as a filter of a relation
+                model.universe(0).time(0).select("@Asset[name~pomp]", new KCallback<Object[]>() {
+                    @Override
+                    public void on(Object[] selected) {
+                        Assert.assertEquals(3, selected.length);
+                        Assert.assertEquals(uuids[0], ((KObject) selected[0]).uuid());
+                        checks[0]++;
+                    }
+                });
+                root.select("assets[name~compres]", new KCallback<Object[]>() {
+                    @Override
+                    public void on(Object[] selected) {
+                        Assert.assertEquals(1, selected.length);
+                        checks[0]++;
+                    }
+                });
+            }
+        });
+        Assert.assertEquals(9, checks[0]);
+    }
+
+}
@@ -0,0 +1,101 @@
+package org.kevoree.modeling.infer;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KModel;
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.KObjectInfer;
+import org.kevoree.modeling.infer.impl.LinearRegressionAlg;
+import org.kevoree.modeling.memory.manager.DataManagerBuilder;
+import org.kevoree.modeling.meta.KMetaClass;
+import org.kevoree.modeling.meta.KMetaInferInput;
+import org.kevoree.modeling.meta.KPrimitiveTypes;
+import org.kevoree.modeling.meta.impl.MetaModel;
+import org.kevoree.modeling.scheduler.impl.DirectScheduler;
+
+import java.util.Random;
+
+public class BatchExtractionInferTest {
+
+    private static final int TRAINING_SIZE = 2000;
+
+    private static final int TEST_SIZE = 10;
+
+    private static double price(double length, double width, double rooms) {
+        return 13 * length + 21 * width + 15 * rooms - 20;
+    }
+
+    @Test
+    public void test() {
+        final MetaModel metaModel = new MetaModel("BatchExtractionMetaModel");
+        final KMetaClass houseClass = metaModel.addMetaClass("House");
+        houseClass.addAttribute("length", KPrimitiveTypes.DOUBLE);
+        houseClass.addAttribute("width", KPrimitiveTypes.DOUBLE);
+        final KMetaClass floorClass = metaModel.addMetaClass("Floor");
+        floorClass.addAttribute("rooms", KPrimitiveTypes.DOUBLE);
+        houseClass.addRelation("floor", floorClass, null);
+
+        KMetaClass profileClass = metaModel.addInferMetaClass("PriceProfile", new LinearRegressionAlg());
+        profileClass.addDependency("House", houseClass.index());
+        final KMetaInferInput length = profileClass.addInput("House", "=length");
+        final KMetaInferInput width = profileClass.addInput("House", "=width");
+        //a traversal, extracted sample per sample
+        final KMetaInferInput rooms = profileClass.addInput("House", "floor | =rooms");
+        profileClass.addOutput("price", KPrimitiveTypes.DOUBLE);
+
+        Assert.assertNotNull(length.compiledExtractor());
+        Assert.assertNotNull(width.compiledExtractor());
+        Assert.assertNull(rooms.compiledExtractor());
+
+        final int[] checks = {0};
+        final Random random = new Random(42);
+        final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        model.connect(new KCallback() {
+            @Override
+            public void on(Object o) {
+                final KObject[][] houses = new KObject[TRAINING_SIZE + TEST_SIZE][];
+                final Object[][] prices = new Object[TRAINING_SIZE + TEST_SIZE][];
+                for (int i = 0; i < houses.length; i++) {
+                    KObject house = model.create(houseClass, 0, 0);
+                    KObject floor = model.create(floorClass, 0, 0);
+                    double houseLength = random.nextDouble();
+                    double houseWidth = random.nextDouble();
+                    double houseRooms = random.nextDouble();
+                    house.setByName("length", houseLength);
+                    house.setByName("width", houseWidth);
+                    floor.setByName("rooms", houseRooms);
+                    house.addByName("floor", floor);
+                    houses[i] = new KObject[]{house};
+                    prices[i] = new Object[]{price(houseLength, houseWidth, houseRooms)};
+                }
+                final KObjectInfer profile = (KObjectInfer) model.createByName("PriceProfile", 0, 0);
+                KObject[][] trainingSet = new KObject[TRAINING_SIZE][];
+                Object[][] trainingPrices = new Object[TRAINING_SIZE][];
+                System.arraycopy(houses, 0, trainingSet, 0, TRAINING_SIZE);
+                System.arraycopy(prices, 0, trainingPrices, 0, TRAINING_SIZE);
+                //a single batch with expected outputs for every sample
+                profile.genericTrainAll(trainingSet, trainingPrices, new KCallback() {
+                    @Override
+                    public void on(Object o) {
+                        checks[0]++;
+                    }
+                });
+                KObject[][] testSet = new KObject[TEST_SIZE][];
+                System.arraycopy(houses, TRAINING_SIZE, testSet, 0, TEST_SIZE);
+                profile.genericInferAll(testSet, new KCallback<Object[][]>() {
+                    @Override
+                    public void on(Object[][] inferred) {
+                        Assert.assertEquals(TEST_SIZE, inferred.length);
+                        for (int i = 0; i < TEST_SIZE; i++) {
+                            Assert.assertEquals((double) prices[TRAINING_SIZE + i][0], (double) inferred[i][0], 10);
+                        }
+                        checks[0]++;
+                    }
+                });
+            }
+        });
+        Assert.assertEquals(2, checks[0]);
+    }
+
+}
@@ -0,0 +1,131 @@
+package org.kevoree.modeling.infer;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KModel;
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.KObjectInfer;
+import org.kevoree.modeling.infer.impl.LinearRegressionAlg;
+import org.kevoree.modeling.infer.impl.StatInferAlg;
+import org.kevoree.modeling.memory.manager.DataManagerBuilder;
+import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
+import org.kevoree.modeling.meta.KMetaClass;
+import org.kevoree.modeling.meta.KPrimitiveTypes;
+import org.kevoree.modeling.meta.impl.MetaModel;
+import org.kevoree.modeling.scheduler.impl.DirectScheduler;
+import org.kevoree.modeling.util.maths.structure.KArray2D;
+import org.kevoree.modeling.util.maths.structure.impl.NativeArray2D;
+
+import java.util.Random;
+
+public class InferAllTest {
+
+    private static final int NB_PROFILES = 40;
+
+    private static final int NB_SAMPLES = 7;
+
+    private void check(final KInferAlg alg) {
+        final MetaModel metaModel = new MetaModel("InferAllMetaModel");
+        final KMetaClass deviceClass = metaModel.addMetaClass("Device");
+        deviceClass.addAttribute("load", KPrimitiveTypes.DOUBLE);
+        deviceClass.addAttribute("temperature", KPrimitiveTypes.DOUBLE);
+        KMetaClass profileClass = metaModel.addInferMetaClass("DeviceProfile", alg);
+        profileClass.addDependency("device", deviceClass.index());
+        profileClass.addInput("device", "=load");
+        profileClass.addInput("device", "=temperature");
+        profileClass.addOutput("consumption", KPrimitiveTypes.DOUBLE);
+        final Random random = new Random(4);
+        final int[] checks = {0};
+        final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        model.connect(new KCallback() {
+            @Override
+            public void on(Object o) {
+                final KObjectInfer[] profiles = new KObjectInfer[NB_PROFILES + 1];
+                final KObject[][][] samples = new KObject[profiles.length][][];
+                for (int k = 0; k < profiles.length; k++) {
+                    profiles[k] = (KObjectInfer) model.createByName("DeviceProfile", 0, 0);
+                    KObject[][] devices = new KObject[NB_SAMPLES][];
+                    Object[][] consumptions = new Object[NB_SAMPLES][];
+                    for (int i = 0; i < NB_SAMPLES; i++) {
+                        KObject device = model.create(deviceClass, 0, 0);
+                        double load = random.nextDouble();
+                        double temperature = random.nextDouble();
+                        device.setByName("load", load);
+                        device.setByName("temperature", temperature);
+                        devices[i] = new KObject[]{device};
+                        consumptions[i] = new Object[]{k * load + 3 * temperature};
+                    }
+                    samples[k] = devices;
+                    //the last profile never learns
+                    if (k < NB_PROFILES) {
+                        profiles[k].genericTrainAll(devices, consumptions, null);
+                    }
+                }
+                //samples of every profile
+                model.inferAll(profiles, samples, new KCallback<Object[][][]>() {
+                    @Override
+                    public void on(Object[][][] results) {
+                        Assert.assertEquals(profiles.length, results.length);
+                        for (int k = 0; k < NB_PROFILES; k++) {
+                            assertSame(profiles[k], samples[k], results[k]);
+                        }
+                        if (alg instanceof KBatchInferAlg) {
+                            Assert.assertTrue(Double.isNaN((double) results[NB_PROFILES][0][0]));
+                        }
+                        checks[0]++;
+                    }
+                });
+                //the same samples scored by every profile
+                model.inferAll(profiles, new KObject[][][]{samples[0]}, new KCallback<Object[][][]>() {
+                    @Override
+                    public void on(Object[][][] results) {
+                        Assert.assertEquals(profiles.length, results.length);
+                        for (int k = 0; k < NB_PROFILES; k++) {
+                            assertSame(profiles[k], samples[0], results[k]);
+                        }
+                        checks[0]++;
+                    }
+                });
+            }
+        });
+        Assert.assertEquals(2, checks[0]);
+    }
+
+    private static void assertSame(KObjectInfer profile, KObject[][] samples, final Object[][] result) {
+        final int[] checks = {0};
+        profile.genericInferAll(samples, new KCallback<Object[][]>() {
+            @Override
+            public void on(Object[][] expected) {
+                Assert.assertEquals(expected.length, result.length);
+                for (int i = 0; i < expected.length; i++) {
+                    Assert.assertEquals((double) expected[i][0], (double) result[i][0], 1e-9);
+                }
+                checks[0]++;
+            }
+        });
+        Assert.assertEquals(1, checks[0]);
+    }
+
+    @Test
+    public void batchTest() {
+        check(new LinearRegressionAlg());
+    }
+
+    @Test
+    public void fallbackTest() {
+        check(new StatInferAlg() {
+            @Override
+            public KArray2D infer(KArray2D features, KObject origin, KInternalDataManager manager) {
+                //a single output, the average of the first input
+                KArray2D averages = super.infer(features, origin, manager);
+                NativeArray2D result = new NativeArray2D(features.rows(), 1);
+                for (int i = 0; i < features.rows(); i++) {
+                    result.set(i, 0, averages.get(0, 0) + features.get(i, 1));
+                }
+                return result;
+            }
+        });
+    }
+
+}
@@ -0,0 +1,124 @@
+package org.kevoree.modeling.infer;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KModel;
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.KObjectInfer;
+import org.kevoree.modeling.infer.impl.MiniBatchKMeansAlg;
+import org.kevoree.modeling.memory.manager.DataManagerBuilder;
+import org.kevoree.modeling.meta.KMetaClass;
+import org.kevoree.modeling.meta.KPrimitiveTypes;
+import org.kevoree.modeling.meta.impl.MetaModel;
+import org.kevoree.modeling.scheduler.impl.DirectScheduler;
+
+import java.util.Random;
+
+public class MiniBatchKMeansTest {
+
+    private static final double[][] CENTERS = {{0, 0}, {10, 0}, {0, 10}, {10, 10}};
+
+    private static final int NB_POINTS = 5000;
+
+    /**
+     * Trains a profile of the given parameters on points around 4 centers, then checks points of a same center share
+     * their cluster and points of different centers do not.
+     */
+    private void check(final int batchSize, final int parallelism, final int checkpointPeriod) {
+        final MetaModel metaModel = new MetaModel("KMeansMetaModel");
+        final KMetaClass pointClass = metaModel.addMetaClass("Point");
+        pointClass.addAttribute("x", KPrimitiveTypes.DOUBLE);
+        pointClass.addAttribute("y", KPrimitiveTypes.DOUBLE);
+        KMetaClass clusteringClass = metaModel.addInferMetaClass("Clustering", new MiniBatchKMeansAlg());
+        clusteringClass.addAttribute("k", KPrimitiveTypes.INT);
+        clusteringClass.addAttribute("iterations", KPrimitiveTypes.INT);
+        clusteringClass.addAttribute("batchSize", KPrimitiveTypes.INT);
+        clusteringClass.addAttribute("parallelism", KPrimitiveTypes.INT);
+        clusteringClass.addAttribute("seed", KPrimitiveTypes.INT);
+        clusteringClass.addDependency("point", pointClass.index());
+        clusteringClass.addInput("point", "=x");
+        clusteringClass.addInput("point", "=y");
+        clusteringClass.addOutput("cluster", KPrimitiveTypes.INT);
+        final Random random = new Random(6);
+        final int[] checks = {0};
+        final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        model.connect(new KCallback() {
+            @Override
+            public void on(Object o) {
+                final KObject[][] points = new KObject[NB_POINTS][];
+                for (int i = 0; i < NB_POINTS; i++) {
+                    KObject point = model.create(pointClass, 0, 0);
+                    double[] center = CENTERS[i % CENTERS.length];
+                    point.setByName("x", center[0] + random.nextGaussian());
+                    point.setByName("y", center[1] + random.nextGaussian());
+                    points[i] = new KObject[]{point};
+                }
+                KObjectInfer clustering = (KObjectInfer) model.createByName("Clustering", 0, 0);
+                clustering.setByName("k", 4);
+                clustering.setByName("iterations", 30);
+                clustering.setByName("batchSize", batchSize);
+                clustering.setByName("parallelism", parallelism);
+                //a fixed seed, k-means++ may still seed two centroids in one cluster with a small probability
+                clustering.setByName("seed", 6);
+                if (checkpointPeriod > 0) {
+                    KInferLearner learner = clustering.learner(checkpointPeriod);
+                    //rows streamed by chunks
+                    for (int from = 0; from < NB_POINTS; from += 1000) {
+                        KObject[][] chunk = new KObject[1000][];
+                        System.arraycopy(points, from, chunk, 0, 1000);
+                        learner.updateAll(chunk, null, null);
+                    }
+                    learner.checkpoint();
+                } else {
+                    clustering.genericTrainAll(points, null, null);
+                }
+                clustering.genericInferAll(points, new KCallback<Object[][]>() {
+                    @Override
+                    public void on(Object[][] clusters) {
+                        int[] clusterOfCenter = new int[CENTERS.length];
+                        int misplaced = 0;
+                        for (int i = 0; i < NB_POINTS; i++) {
+                            int cluster = (int) clusters[i][0];
+                            if (i < CENTERS.length) {
+                                clusterOfCenter[i] = cluster;
+                            } else if (cluster != clusterOfCenter[i % CENTERS.length]) {
+                                misplaced++;
+                            }
+                        }
+                        for (int i = 0; i < CENTERS.length; i++) {
+                            for (int j = i + 1; j < CENTERS.length; j++) {
+                                Assert.assertNotEquals(clusterOfCenter[i], clusterOfCenter[j]);
+                            }
+                        }
+                        //a few points cross the middle line between two centers
+                        Assert.assertTrue(misplaced < NB_POINTS / 100);
+                        checks[0]++;
+                    }
+                });
+            }
+        });
+        Assert.assertEquals(1, checks[0]);
+    }
+
+    @Test
+    public void fullBatchTest() {
+        check(0, 1, 0);
+    }
+
+    @Test
+    public void parallelMiniBatchTest() {
+        check(1000, 4, 0);
+    }
+
+    @Test
+    public void parallelFullBatchTest() {
+        check(0, 4, 0);
+    }
+
+    @Test
+    public void streamingTest() {
+        check(0, 1, 2000);
+    }
+
+}
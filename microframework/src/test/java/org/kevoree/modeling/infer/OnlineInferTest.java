@@ -0,0 +1,183 @@
+package org.kevoree.modeling.infer;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KModel;
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.KObjectInfer;
+import org.kevoree.modeling.abs.AbstractKObject;
+import org.kevoree.modeling.infer.impl.GaussianProfiler;
+import org.kevoree.modeling.infer.impl.LinearRegressionAlg;
+import org.kevoree.modeling.infer.impl.StatInferAlg;
+import org.kevoree.modeling.memory.chunk.KObjectChunk;
+import org.kevoree.modeling.memory.manager.DataManagerBuilder;
+import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
+import org.kevoree.modeling.meta.KMetaClass;
+import org.kevoree.modeling.meta.KPrimitiveTypes;
+import org.kevoree.modeling.meta.impl.MetaModel;
+import org.kevoree.modeling.scheduler.impl.DirectScheduler;
+
+import java.util.Random;
+
+public class OnlineInferTest {
+
+    private static KObjectChunk chunk(KObject profile) {
+        KInternalDataManager manager = (KInternalDataManager) profile.manager();
+        return manager.closestChunk(profile.universe(), profile.now(), profile.uuid(), profile.metaClass(), ((AbstractKObject) profile).previousResolved());
+    }
+
+    private static double[] learnedState(KObject profile) {
+        return chunk(profile).viewDoubleArray(profile.metaClass().dependencies().index(), profile.metaClass());
+    }
+
+    @Test
+    public void statTest() {
+        final MetaModel metaModel = new MetaModel("OnlineStatMetaModel");
+        final KMetaClass sensorClass = metaModel.addMetaClass("Sensor");
+        sensorClass.addAttribute("value", KPrimitiveTypes.DOUBLE);
+        sensorClass.addAttribute("load", KPrimitiveTypes.DOUBLE);
+        KMetaClass profileClass = metaModel.addInferMetaClass("SensorProfile", new StatInferAlg());
+        profileClass.addDependency("sensor", sensorClass.index());
+        profileClass.addInput("sensor", "=value");
+        profileClass.addInput("sensor", "=load");
+        profileClass.addOutput("avgValue", KPrimitiveTypes.DOUBLE);
+        profileClass.addOutput("avgLoad", KPrimitiveTypes.DOUBLE);
+        final Random random = new Random(1);
+        final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        model.connect(new KCallback() {
+            @Override
+            public void on(Object o) {
+                final KObject[][] sensors = new KObject[250][];
+                double firstSum = 0;
+                for (int i = 0; i < sensors.length; i++) {
+                    KObject sensor = model.create(sensorClass, 0, 0);
+                    double value = 1000 + random.nextDouble();
+                    sensor.setByName("value", value);
+                    sensor.setByName("load", random.nextDouble() * 10);
+                    sensors[i] = new KObject[]{sensor};
+                    if (i < 200) {
+                        firstSum += value;
+                    }
+                }
+                final KObjectInfer batch = (KObjectInfer) model.createByName("SensorProfile", 0, 0);
+                batch.genericTrainAll(sensors, null, null);
+                final KObjectInfer online = (KObjectInfer) model.createByName("SensorProfile", 0, 0);
+                KInferLearner learner = online.learner(100);
+                for (int i = 0; i < sensors.length; i++) {
+                    learner.update(sensors[i], null, null);
+                }
+                //two checkpoints happened, the last 50 samples are only in memory
+                Assert.assertEquals(50, learner.pending());
+                final double firstAvg = firstSum / 200;
+                online.genericInfer(sensors[0], new KCallback<Object[]>() {
+                    @Override
+                    public void on(Object[] objects) {
+                        Assert.assertEquals(firstAvg, (double) objects[0], 1e-9);
+                    }
+                });
+                learner.checkpoint();
+                Assert.assertEquals(0, learner.pending());
+                assertSameState(batch, online);
+            }
+        });
+    }
+
+    private static void assertSameState(KObject expectedProfile, KObject profile) {
+        double[] expected = learnedState(expectedProfile);
+        double[] result = learnedState(profile);
+        Assert.assertEquals(expected.length, result.length);
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertEquals(expected[i], result[i], 1e-9 * Math.max(1, Math.abs(expected[i])));
+        }
+    }
+
+    @Test
+    public void profilerTest() {
+        final MetaModel metaModel = new MetaModel("OnlineProfilerMetaModel");
+        final KMetaClass meterClass = metaModel.addMetaClass("Meter");
+        meterClass.addAttribute("hour", KPrimitiveTypes.DOUBLE);
+        meterClass.addAttribute("consumption", KPrimitiveTypes.DOUBLE);
+        KMetaClass profileClass = metaModel.addInferMetaClass("ConsumptionProfile", new GaussianProfiler());
+        profileClass.addDependency("meter", meterClass.index());
+        profileClass.addInput("meter", "=hour");
+        profileClass.addInput("meter", "=consumption");
+        profileClass.addOutput("probability", KPrimitiveTypes.DOUBLE);
+        final Random random = new Random(3);
+        final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        model.connect(new KCallback() {
+            @Override
+            public void on(Object o) {
+                final KObject[][] meters = new KObject[300][];
+                for (int i = 0; i < meters.length; i++) {
+                    KObject meter = model.create(meterClass, 0, 0);
+                    meter.setByName("hour", (double) random.nextInt(24));
+                    meter.setByName("consumption", 50 + random.nextGaussian() * 5);
+                    meters[i] = new KObject[]{meter};
+                }
+                final KObjectInfer batch = (KObjectInfer) model.createByName("ConsumptionProfile", 0, 0);
+                batch.genericTrainAll(meters, null, null);
+                final KObjectInfer online = (KObjectInfer) model.createByName("ConsumptionProfile", 0, 0);
+                KInferLearner learner = online.learner(0);
+                for (int i = 0; i < meters.length; i++) {
+                    learner.update(meters[i], null, null);
+                }
+                //without period, only explicit checkpoints write the state
+                Assert.assertEquals(meters.length, learner.pending());
+                Assert.assertEquals(0, chunk(online).getDoubleArraySize(online.metaClass().dependencies().index(), online.metaClass()));
+                learner.checkpoint();
+                assertSameState(batch, online);
+            }
+        });
+    }
+
+    @Test
+    public void linearRegressionTest() {
+        final MetaModel metaModel = new MetaModel("OnlineRegressionMetaModel");
+        final KMetaClass houseClass = metaModel.addMetaClass("House");
+        houseClass.addAttribute("length", KPrimitiveTypes.DOUBLE);
+        houseClass.addAttribute("width", KPrimitiveTypes.DOUBLE);
+        KMetaClass profileClass = metaModel.addInferMetaClass("PriceProfile", new LinearRegressionAlg());
+        profileClass.addDependency("House", houseClass.index());
+        profileClass.addInput("House", "=length");
+        profileClass.addInput("House", "=width");
+        profileClass.addOutput("price", KPrimitiveTypes.DOUBLE);
+        final Random random = new Random(2);
+        final int[] checks = {0};
+        final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        model.connect(new KCallback() {
+            @Override
+            public void on(Object o) {
+                final KObject[][] houses = new KObject[500][];
+                final Object[][] prices = new Object[houses.length][];
+                for (int i = 0; i < houses.length; i++) {
+                    KObject house = model.create(houseClass, 0, 0);
+                    double length = random.nextDouble();
+                    double width = random.nextDouble();
+                    house.setByName("length", length);
+                    house.setByName("width", width);
+                    houses[i] = new KObject[]{house};
+                    prices[i] = new Object[]{13 * length + 21 * width - 20};
+                }
+                final KObjectInfer profile = (KObjectInfer) model.createByName("PriceProfile", 0, 0);
+                KInferLearner learner = profile.learner(1000);
+                //mini-batches of the whole stream, replayed until the stochastic gradient converges
+                for (int epoch = 0; epoch < 60; epoch++) {
+                    learner.updateAll(houses, prices, null);
+                }
+                learner.checkpoint();
+                profile.genericInferAll(houses, new KCallback<Object[][]>() {
+                    @Override
+                    public void on(Object[][] result) {
+                        for (int i = 0; i < houses.length; i++) {
+                            Assert.assertEquals((double) prices[i][0], (double) result[i][0], 0.5);
+                        }
+                        checks[0]++;
+                    }
+                });
+            }
+        });
+        Assert.assertEquals(1, checks[0]);
+    }
+
+}
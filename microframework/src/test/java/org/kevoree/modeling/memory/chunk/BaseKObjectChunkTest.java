@@ -5,9 +5,12 @@ import org.junit.Test;
 import org.kevoree.modeling.KCallback;
 import org.kevoree.modeling.KModel;
 import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.extrapolation.impl.TimeSeriesExtrapolation;
+import org.kevoree.modeling.infer.impl.LinearRegressionAlg;
 import org.kevoree.modeling.memory.KChunkFlags;
 import org.kevoree.modeling.memory.manager.DataManagerBuilder;
 import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
+import org.kevoree.modeling.meta.KMetaAttribute;
 import org.kevoree.modeling.meta.KMetaClass;
 import org.kevoree.modeling.meta.KMetaModel;
 import org.kevoree.modeling.meta.KPrimitiveTypes;
@@ -100,6 +103,90 @@ public abstract class BaseKObjectChunkTest {
         });
     }
 
+    @Test
+    public void doubleArrayViewTest() {
+        final KMetaModel dynamicMetaModel = new MetaModel("MyMetaModel");
+        final KMetaClass sensorMetaClass = dynamicMetaModel.addMetaClass("Sensor");
+        sensorMetaClass.addAttribute("value", KPrimitiveTypes.DOUBLE);
+        KMetaClass profileMetaClass = dynamicMetaModel.addInferMetaClass("Profile", new LinearRegressionAlg());
+        profileMetaClass.addDependency("sensor", sensorMetaClass.index());
+        profileMetaClass.addInput("value", "=value");
+        profileMetaClass.addOutput("output", KPrimitiveTypes.DOUBLE);
+        int stateIndex = profileMetaClass.dependencies().index();
+
+        KObjectChunk objectChunk = createKObjectChunk();
+        objectChunk.init("", dynamicMetaModel, profileMetaClass.index());
+        objectChunk.extendDoubleArray(stateIndex, 4, profileMetaClass);
+        objectChunk.setFlags(0, KChunkFlags.DIRTY_BIT);
+
+        double[] view = objectChunk.viewDoubleArray(stateIndex, profileMetaClass);
+        Assert.assertEquals(4, view.length);
+        for (int i = 0; i < view.length; i++) {
+            view[i] = i + 1;
+        }
+        objectChunk.commitDoubleArray(stateIndex, view, profileMetaClass);
+        Assert.assertTrue((objectChunk.getFlags() & KChunkFlags.DIRTY_BIT) == KChunkFlags.DIRTY_BIT);
+        for (int i = 0; i < view.length; i++) {
+            Assert.assertEquals(i + 1, objectChunk.getDoubleArrayElem(stateIndex, i, profileMetaClass), 0);
+        }
+
+        //a clone gets its own state
+        KObjectChunk clonedChunk = objectChunk.clone(-1, -1, -1, dynamicMetaModel);
+        double[] secondView = objectChunk.viewDoubleArray(stateIndex, profileMetaClass);
+        secondView[0] = 42;
+        objectChunk.commitDoubleArray(stateIndex, secondView, profileMetaClass);
+        Assert.assertEquals(42, objectChunk.getDoubleArrayElem(stateIndex, 0, profileMetaClass), 0);
+        Assert.assertEquals(1, clonedChunk.getDoubleArrayElem(stateIndex, 0, profileMetaClass), 0);
+
+        //a view is bound to the size of the array it has been taken from
+        try {
+            objectChunk.commitDoubleArray(stateIndex, new double[2], profileMetaClass);
+            Assert.fail();
+        } catch (RuntimeException e) {
+            Assert.assertEquals(42, objectChunk.getDoubleArrayElem(stateIndex, 0, profileMetaClass), 0);
+        }
+
+        objectChunk.free(dynamicMetaModel);
+        clonedChunk.free(dynamicMetaModel);
+    }
+
+    @Test
+    public void timeSeriesTest() {
+        final KMetaModel dynamicMetaModel = new MetaModel("MyMetaModel");
+        final KMetaClass sensorMetaClass = dynamicMetaModel.addMetaClass("Sensor");
+        KMetaAttribute series = sensorMetaClass.addAttribute("series", KPrimitiveTypes.LONG);
+        series.setExtrapolation(TimeSeriesExtrapolation.instance());
+        KMetaAttribute value = sensorMetaClass.addAttribute("value", KPrimitiveTypes.DOUBLE);
+
+        KObjectChunk objectChunk = createKObjectChunk();
+        objectChunk.init("", dynamicMetaModel, sensorMetaClass.index());
+        //encoded attributes are stored as double arrays whatever their type
+        objectChunk.extendDoubleArray(series.index(), 3, sensorMetaClass);
+        double[] view = objectChunk.viewDoubleArray(series.index(), sensorMetaClass);
+        view[0] = 1;
+        view[1] = 281474976710655.0;
+        view[2] = 3;
+        objectChunk.commitDoubleArray(series.index(), view, sensorMetaClass);
+        objectChunk.setPrimitiveType(value.index(), 4.5, sensorMetaClass);
+        Assert.assertTrue(Double.isNaN(objectChunk.getPrimitiveAsDouble(series.index(), sensorMetaClass)));
+
+        KObjectChunk loadedChunk = createKObjectChunk();
+        loadedChunk.init(objectChunk.serialize(dynamicMetaModel), dynamicMetaModel, sensorMetaClass.index());
+        Assert.assertArrayEquals(view, loadedChunk.viewDoubleArray(series.index(), sensorMetaClass), 0);
+        Assert.assertEquals(4.5, loadedChunk.getPrimitiveType(value.index(), sensorMetaClass));
+
+        //a clone gets its own block
+        KObjectChunk clonedChunk = objectChunk.clone(-1, -1, -1, dynamicMetaModel);
+        double[] secondView = objectChunk.viewDoubleArray(series.index(), sensorMetaClass);
+        secondView[0] = 42;
+        objectChunk.commitDoubleArray(series.index(), secondView, sensorMetaClass);
+        Assert.assertEquals(1, clonedChunk.getDoubleArrayElem(series.index(), 0, sensorMetaClass), 0);
+
+        objectChunk.free(dynamicMetaModel);
+        loadedChunk.free(dynamicMetaModel);
+        clonedChunk.free(dynamicMetaModel);
+    }
+
     //@Test
     public void referenceTest() {
         final KMetaModel dynamicMetaModel = new MetaModel("MyMetaModel");
@@ -0,0 +1,56 @@
+package org.kevoree.modeling.memory.map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kevoree.modeling.KConfig;
+import org.kevoree.modeling.memory.chunk.KLongSet;
+
+public abstract class BaseKLongSetTest {
+
+    private static final int SIZE = 10000;
+
+    public abstract KLongSet createKLongSet();
+
+    @Test
+    public void test() {
+        KLongSet set = createKLongSet();
+        for (long i = 0; i < SIZE; i++) {
+            Assert.assertTrue(set.add(i * 3));
+        }
+        for (long i = 0; i < SIZE; i++) {
+            Assert.assertFalse(set.add(i * 3));
+        }
+        Assert.assertEquals(set.size(), SIZE);
+        for (long i = 0; i < SIZE * 3; i++) {
+            Assert.assertEquals(set.contains(i), i % 3 == 0);
+        }
+        long[] values = set.toArray();
+        Assert.assertEquals(values.length, SIZE);
+        long sum = 0;
+        for (int i = 0; i < values.length; i++) {
+            Assert.assertTrue(values[i] % 3 == 0);
+            sum += values[i];
+        }
+        Assert.assertEquals(sum, 3L * SIZE * (SIZE - 1) / 2);
+        set.clear();
+        Assert.assertEquals(set.size(), 0);
+        Assert.assertFalse(set.contains(3));
+        Assert.assertEquals(set.toArray().length, 0);
+    }
+
+    @Test
+    public void sparseTest() {
+        KLongSet set = createKLongSet();
+        long prefixed = ((long) 3 << 37) + 42;
+        Assert.assertTrue(set.add(prefixed));
+        Assert.assertTrue(set.add(KConfig.NULL_LONG));
+        Assert.assertTrue(set.add(0));
+        Assert.assertFalse(set.add(KConfig.NULL_LONG));
+        Assert.assertTrue(set.contains(prefixed));
+        Assert.assertTrue(set.contains(KConfig.NULL_LONG));
+        Assert.assertFalse(set.contains(prefixed + 1));
+        Assert.assertEquals(set.size(), 3);
+        Assert.assertEquals(set.toArray().length, 3);
+    }
+
+}
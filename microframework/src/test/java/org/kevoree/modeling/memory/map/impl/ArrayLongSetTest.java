@@ -0,0 +1,14 @@
+package org.kevoree.modeling.memory.map.impl;
+
+import org.kevoree.modeling.KConfig;
+import org.kevoree.modeling.memory.chunk.KLongSet;
+import org.kevoree.modeling.memory.chunk.impl.ArrayLongSet;
+import org.kevoree.modeling.memory.map.BaseKLongSetTest;
+
+public class ArrayLongSetTest extends BaseKLongSetTest {
+
+    @Override
+    public KLongSet createKLongSet() {
+        return new ArrayLongSet(KConfig.CACHE_INIT_SIZE, KConfig.CACHE_LOAD_FACTOR);
+    }
+}
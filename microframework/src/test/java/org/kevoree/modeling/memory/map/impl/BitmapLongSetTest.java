@@ -0,0 +1,16 @@
+package org.kevoree.modeling.memory.map.impl;
+
+import org.kevoree.modeling.memory.chunk.KLongSet;
+import org.kevoree.modeling.memory.chunk.impl.BitmapLongSet;
+import org.kevoree.modeling.memory.map.BaseKLongSetTest;
+
+/**
+ * @ignore ts
+ */
+public class BitmapLongSetTest extends BaseKLongSetTest {
+
+    @Override
+    public KLongSet createKLongSet() {
+        return new BitmapLongSet();
+    }
+}
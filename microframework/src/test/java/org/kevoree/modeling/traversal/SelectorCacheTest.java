@@ -0,0 +1,101 @@
+package org.kevoree.modeling.traversal;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.cloudmodel.CloudModel;
+import org.kevoree.modeling.cloudmodel.CloudUniverse;
+import org.kevoree.modeling.cloudmodel.CloudView;
+import org.kevoree.modeling.cloudmodel.Node;
+import org.kevoree.modeling.memory.manager.DataManagerBuilder;
+import org.kevoree.modeling.memory.manager.KSelectorCache;
+import org.kevoree.modeling.memory.manager.internal.KInternalDataManager;
+import org.kevoree.modeling.scheduler.impl.DirectScheduler;
+
+public class SelectorCacheTest {
+
+    @Test
+    public void invalidationTest() {
+        final KInternalDataManager manager = DataManagerBuilder.create().withScheduler(new DirectScheduler()).withSelectorCache(2).build();
+        final CloudModel model = new CloudModel(manager);
+        model.connect(new KCallback() {
+            @Override
+            public void on(Object o) {
+                CloudUniverse universe = model.newUniverse();
+                CloudView t0 = universe.time(0l);
+                final Node root = t0.createNode();
+                root.setName("root");
+                final Node child1 = t0.createNode();
+                child1.setName("n1");
+                root.addChildren(child1);
+                final Node child2 = t0.createNode();
+                child2.setName("m2");
+                root.addChildren(child2);
+                final Node grandChild = t0.createNode();
+                grandChild.setName("n3");
+                child2.addChildren(grandChild);
+
+                KSelectorCache cache = manager.selectorCache();
+                final int[] counter = {0};
+                root.select("children[name=n*]", new KCallback<Object[]>() {
+                    @Override
+                    public void on(Object[] selecteds) {
+                        Assert.assertEquals(1, selecteds.length);
+                        Assert.assertEquals(child1, selecteds[0]);
+                        counter[0]++;
+                    }
+                });
+                Assert.assertEquals(1, cache.size());
+                //served from the cache
+                root.select("children[name=n*]", new KCallback<Object[]>() {
+                    @Override
+                    public void on(Object[] selecteds) {
+                        Assert.assertEquals(1, selecteds.length);
+                        Assert.assertEquals(child1.uuid(), ((Node) selecteds[0]).uuid());
+                        counter[0]++;
+                    }
+                });
+                Assert.assertEquals(1, cache.size());
+                //unrelated object, entry is kept
+                grandChild.setName("n4");
+                Assert.assertEquals(1, cache.size());
+                //visited object, entry is dropped
+                child2.setName("n2");
+                Assert.assertEquals(0, cache.size());
+                root.select("children[name=n*]", new KCallback<Object[]>() {
+                    @Override
+                    public void on(Object[] selecteds) {
+                        Assert.assertEquals(2, selecteds.length);
+                        counter[0]++;
+                    }
+                });
+                //expressions are not cached
+                root.select("=3*2", new KCallback<Object[]>() {
+                    @Override
+                    public void on(Object[] selecteds) {
+                        Assert.assertEquals(6.0, selecteds[0]);
+                        counter[0]++;
+                    }
+                });
+                Assert.assertEquals(1, cache.size());
+                //bounded size
+                child1.select("children", new KCallback<Object[]>() {
+                    @Override
+                    public void on(Object[] selecteds) {
+                        counter[0]++;
+                    }
+                });
+                child2.select("children", new KCallback<Object[]>() {
+                    @Override
+                    public void on(Object[] selecteds) {
+                        Assert.assertEquals(1, selecteds.length);
+                        counter[0]++;
+                    }
+                });
+                Assert.assertEquals(2, cache.size());
+                Assert.assertEquals(6, counter[0]);
+            }
+        });
+    }
+
+}
@@ -0,0 +1,84 @@
+package org.kevoree.modeling.traversal;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KModel;
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.memory.manager.DataManagerBuilder;
+import org.kevoree.modeling.meta.KMetaClass;
+import org.kevoree.modeling.meta.KMetaEnum;
+import org.kevoree.modeling.meta.KPrimitiveTypes;
+import org.kevoree.modeling.meta.impl.MetaModel;
+import org.kevoree.modeling.scheduler.impl.DirectScheduler;
+
+public class TraversalAggregateTest {
+
+    @Test
+    public void test() {
+        MetaModel metaModel = new MetaModel("MyMetaModel");
+        KMetaEnum metaEnumState = metaModel.addMetaEnum("State");
+        metaEnumState.addLiteral("OK");
+        metaEnumState.addLiteral("NOK");
+        final KMetaClass sensorMetaClass = metaModel.addMetaClass("Sensor");
+        sensorMetaClass.addAttribute("value", KPrimitiveTypes.DOUBLE);
+        sensorMetaClass.addAttribute("state", metaEnumState);
+        final KMetaClass rootMetaClass = metaModel.addMetaClass("Root");
+        rootMetaClass.addRelation("sensors", sensorMetaClass, null);
+
+        final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        model.connect(new KCallback<Throwable>() {
+            @Override
+            public void on(Throwable throwable) {
+                final KObject root = model.universe(0).time(0).create(rootMetaClass);
+                //more than one slice to check the merge of partial aggregates
+                final int size = 10000;
+                for (int i = 0; i < size; i++) {
+                    KObject sensor = model.universe(0).time(0).create(sensorMetaClass);
+                    sensor.setByName("value", (double) i);
+                    if (i % 4 == 0) {
+                        sensor.setByName("state", "NOK");
+                    } else {
+                        sensor.setByName("state", "OK");
+                    }
+                    root.addByName("sensors", sensor);
+                }
+                final int[] calls = {0};
+                root.traversal().traverse(rootMetaClass.reference("sensors")).count(new KCallback<Integer>() {
+                    @Override
+                    public void on(Integer count) {
+                        Assert.assertEquals(size, (int) count);
+                        calls[0]++;
+                    }
+                });
+                root.traversal().traverse(rootMetaClass.reference("sensors")).aggregate(sensorMetaClass.attribute("value"), new KCallback<KTraversalAggregate>() {
+                    @Override
+                    public void on(KTraversalAggregate aggregate) {
+                        Assert.assertEquals(size, aggregate.count());
+                        Assert.assertEquals(0, aggregate.min(), 0);
+                        Assert.assertEquals(size - 1, aggregate.max(), 0);
+                        Assert.assertEquals((double) size * (size - 1) / 2, aggregate.sum(), 0);
+                        Assert.assertEquals((size - 1) / 2.0, aggregate.mean(), 1e-9);
+                        Assert.assertEquals(((double) size * size - 1) / 12, aggregate.variance(), 1e-6);
+                        Assert.assertEquals((size - 1) / 2.0, aggregate.percentile(50), 1e-9);
+                        Assert.assertEquals(size - 1, aggregate.percentile(100), 0);
+                        calls[0]++;
+                    }
+                });
+                root.traversal().traverse(rootMetaClass.reference("sensors")).groupBy(sensorMetaClass.attribute("state"), sensorMetaClass.attribute("value"), new KCallback<KTraversalGroups>() {
+                    @Override
+                    public void on(KTraversalGroups groups) {
+                        Assert.assertEquals(2, groups.size());
+                        Assert.assertEquals(size / 4, groups.group("NOK").count());
+                        Assert.assertEquals(size - size / 4, groups.group("OK").count());
+                        Assert.assertEquals(0, groups.group("NOK").min(), 0);
+                        Assert.assertEquals(1, groups.group("OK").min(), 0);
+                        calls[0]++;
+                    }
+                });
+                Assert.assertEquals(3, calls[0]);
+            }
+        });
+    }
+
+}
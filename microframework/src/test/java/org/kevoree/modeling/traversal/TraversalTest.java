@@ -552,4 +552,39 @@ public class TraversalTest {
         });
     }
 
+    @Test
+    public void denseTraversalTest() {
+        final CloudModel universe = new CloudModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        final int[] checks = {0};
+        universe.connect(new KCallback() {
+            @Override
+            public void on(Object o) {
+                final CloudView t0 = universe.newUniverse().time(0l);
+                final Node root = t0.createNode();
+                //enough children for the steps from them to use bitmap sets of uuids
+                final int size = 2000;
+                for (int i = 0; i < size; i++) {
+                    Node child = t0.createNode();
+                    child.addElement(t0.createElement());
+                    root.addChildren(child);
+                }
+                root.traversal().traverse(MetaNode.REF_CHILDREN).traverse(MetaNode.REF_ELEMENT).then(new KCallback<KObject[]>() {
+                    @Override
+                    public void on(KObject[] elements) {
+                        Assert.assertEquals(size, elements.length);
+                        checks[0]++;
+                    }
+                });
+                root.traversal().collect(null, null).then(new KCallback<KObject[]>() {
+                    @Override
+                    public void on(KObject[] collected) {
+                        Assert.assertEquals(2 * size, collected.length);
+                        checks[0]++;
+                    }
+                });
+            }
+        });
+        Assert.assertEquals(2, checks[0]);
+    }
+
 }
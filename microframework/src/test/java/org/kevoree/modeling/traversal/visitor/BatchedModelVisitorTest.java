@@ -0,0 +1,89 @@
+package org.kevoree.modeling.traversal.visitor;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.cloudmodel.CloudModel;
+import org.kevoree.modeling.cloudmodel.CloudView;
+import org.kevoree.modeling.cloudmodel.Node;
+import org.kevoree.modeling.memory.manager.DataManagerBuilder;
+import org.kevoree.modeling.scheduler.impl.DirectScheduler;
+import org.kevoree.modeling.traversal.visitor.impl.BatchedModelVisitor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BatchedModelVisitorTest {
+
+    private static final int FAN_OUT = 1500;
+
+    @Test
+    public void sequentialTest() {
+        visitTest(false);
+    }
+
+    @Test
+    public void parallelTest() {
+        visitTest(true);
+    }
+
+    private void visitTest(final boolean parallel) {
+        final CloudModel model = new CloudModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        model.connect(new KCallback() {
+            @Override
+            public void on(Object o) {
+                CloudView t0 = model.newUniverse().time(0l);
+                final Node root = t0.createNode();
+                root.setName("root");
+                Node previous = null;
+                for (int i = 0; i < FAN_OUT; i++) {
+                    Node child = t0.createNode();
+                    child.setName("child" + i);
+                    root.addChildren(child);
+                    Node leaf = t0.createNode();
+                    leaf.setName("leaf" + i);
+                    child.addChildren(leaf);
+                    //shared and cyclic references, each object must be visited once
+                    if (previous != null) {
+                        child.addChildren(previous);
+                    }
+                    leaf.addChildren(root);
+                    previous = child;
+                }
+                final AtomicInteger visited = new AtomicInteger(0);
+                final AtomicInteger leaves = new AtomicInteger(0);
+                final int[] ended = {0};
+                new BatchedModelVisitor(new KModelVisitor() {
+                    @Override
+                    public KVisitResult visit(KObject elem) {
+                        visited.incrementAndGet();
+                        if (((Node) elem).getName().startsWith("leaf")) {
+                            leaves.incrementAndGet();
+                        }
+                        return KVisitResult.CONTINUE;
+                    }
+                }, parallel).visit(root, new KCallback() {
+                    @Override
+                    public void on(Object o) {
+                        ended[0]++;
+                    }
+                });
+                Assert.assertEquals(1, ended[0]);
+                Assert.assertEquals(2 * FAN_OUT, visited.get());
+                Assert.assertEquals(FAN_OUT, leaves.get());
+
+                final AtomicInteger skipped = new AtomicInteger(0);
+                new BatchedModelVisitor(new KModelVisitor() {
+                    @Override
+                    public KVisitResult visit(KObject elem) {
+                        skipped.incrementAndGet();
+                        return KVisitResult.SKIP;
+                    }
+                }, parallel).visit(root, null);
+                //first level only: the children and, through op_children, the leaves
+                Assert.assertEquals(2 * FAN_OUT, skipped.get());
+            }
+        });
+    }
+
+}
@@ -31,4 +31,14 @@ public abstract class BaseKMathExpressionEngineTest {
         Assert.assertTrue(ex.parse("(3.5+price*8-14/7)%4").eval(null) == 1.5);
     }
 
+    @Test
+    public void compileTest() {
+        KMathExpressionEngine ex = createEngine();
+        String[] expressions = {"(3.5+2*8-14/7)%4", "2^10", "MAX(3,7)-MIN(3,7)", "IF(3>2,5,6)", "ROUND(3.14159,2)", "NOT(1==1)||(2!=3)", "SQRT(16)*PI"};
+        for (int i = 0; i < expressions.length; i++) {
+            double interpreted = ex.parse(expressions[i]).eval(null);
+            Assert.assertEquals(interpreted, ex.compile().eval(null), 0);
+        }
+    }
+
 }
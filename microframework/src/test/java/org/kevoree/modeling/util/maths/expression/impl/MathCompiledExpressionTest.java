@@ -0,0 +1,66 @@
+package org.kevoree.modeling.util.maths.expression.impl;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kevoree.modeling.KCallback;
+import org.kevoree.modeling.KModel;
+import org.kevoree.modeling.KObject;
+import org.kevoree.modeling.memory.manager.DataManagerBuilder;
+import org.kevoree.modeling.meta.KMetaClass;
+import org.kevoree.modeling.meta.KMetaEnum;
+import org.kevoree.modeling.meta.KPrimitiveTypes;
+import org.kevoree.modeling.meta.impl.MetaModel;
+import org.kevoree.modeling.scheduler.impl.DirectScheduler;
+import org.kevoree.modeling.util.maths.expression.KMathCompiledExpression;
+
+public class MathCompiledExpressionTest {
+
+    @Test
+    public void evalAllTest() {
+        MetaModel metaModel = new MetaModel("MyMetaModel");
+        final KMetaEnum stateEnum = metaModel.addMetaEnum("State");
+        stateEnum.addLiteral("OK");
+        stateEnum.addLiteral("NOK");
+        final KMetaClass sensorMetaClass = metaModel.addMetaClass("Sensor");
+        sensorMetaClass.addAttribute("value", KPrimitiveTypes.DOUBLE);
+        sensorMetaClass.addAttribute("count", KPrimitiveTypes.INT);
+        sensorMetaClass.addAttribute("active", KPrimitiveTypes.BOOL);
+        sensorMetaClass.addAttribute("label", KPrimitiveTypes.STRING);
+        sensorMetaClass.addAttribute("state", stateEnum);
+
+        final KModel model = metaModel.createModel(DataManagerBuilder.create().withScheduler(new DirectScheduler()).build());
+        model.connect(new KCallback<Throwable>() {
+            @Override
+            public void on(Throwable throwable) {
+                KObject[] sensors = new KObject[100];
+                for (int i = 0; i < sensors.length; i++) {
+                    if (i % 10 == 9) {
+                        continue;
+                    }
+                    sensors[i] = model.universe(0).time(i).create(sensorMetaClass);
+                    sensors[i].setByName("value", i * 1.5);
+                    sensors[i].setByName("count", i);
+                    sensors[i].setByName("active", i % 2 == 0);
+                    sensors[i].setByName("label", "" + (i * 2));
+                    sensors[i].setByName("state", i % 3 == 0 ? "OK" : "NOK");
+                }
+                String expression = "IF(active,value*2,count)+state-label/2+SQRT(count)+TIME";
+                MathExpressionEngine engine = new MathExpressionEngine();
+                engine.parse(expression);
+                KMathCompiledExpression compiled = engine.compile();
+                double[] results = new double[sensors.length];
+                compiled.evalAll(sensors, results);
+                for (int i = 0; i < sensors.length; i++) {
+                    if (sensors[i] == null) {
+                        Assert.assertTrue(Double.isNaN(results[i]));
+                    } else {
+                        double interpreted = engine.eval(sensors[i]);
+                        Assert.assertEquals(interpreted, compiled.eval(sensors[i]), 0);
+                        Assert.assertEquals(interpreted, results[i], 0);
+                    }
+                }
+            }
+        });
+    }
+
+}
@@ -0,0 +1,88 @@
+package org.kevoree.modeling.util.maths.newMatrix;
+
+import org.kevoree.modeling.util.maths.structure.blas.KBlas;
+import org.kevoree.modeling.util.maths.structure.blas.KBlasTransposeType;
+import org.kevoree.modeling.util.maths.structure.blas.impl.BlockedBlas;
+import org.kevoree.modeling.util.maths.structure.blas.impl.JavaBlas;
+
+import java.util.Random;
+
+/**
+ * Compares dgemm and dgetrf of JavaBlas and BlockedBlas on square matrices, run by hand through its main method:
+ * java BlasBenchmark [sizes...]
+ *
+ * @ignore ts
+ */
+public class BlasBenchmark {
+
+    private static final int WARMUP = 3;
+
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) {
+        int[] sizes = {64, 128, 256, 512, 1024};
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+        KBlas reference = new JavaBlas();
+        KBlas blocked = new BlockedBlas();
+        KBlas blockedSingle = new BlockedBlas(1);
+        System.out.println("size\toperation\tJavaBlas(ms)\tBlockedBlas 1 thread(ms)\tBlockedBlas(ms)");
+        for (int s = 0; s < sizes.length; s++) {
+            int n = sizes[s];
+            System.out.println(n + "\tdgemm\t" + dgemm(reference, n) + "\t" + dgemm(blockedSingle, n) + "\t" + dgemm(blocked, n));
+            System.out.println(n + "\tdgetrf\t" + dgetrf(reference, n) + "\t" + dgetrf(blockedSingle, n) + "\t" + dgetrf(blocked, n));
+        }
+        blocked.disconnect();
+        blockedSingle.disconnect();
+    }
+
+    private static double[] random(int size) {
+        Random random = new Random(size);
+        double[] result = new double[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = random.nextDouble() * 100 - 50;
+        }
+        return result;
+    }
+
+    /**
+     * Best time in milliseconds of RUNS products of n x n matrices, after WARMUP untimed ones.
+     */
+    private static double dgemm(KBlas blas, int n) {
+        double[] matA = random(n * n);
+        double[] matB = random(n * n);
+        double[] matC = new double[n * n];
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < WARMUP + RUNS; i++) {
+            long before = System.nanoTime();
+            blas.dgemm(KBlasTransposeType.NOTRANSPOSE, KBlasTransposeType.NOTRANSPOSE, n, n, n, 1.0, matA, 0, n, matB, 0, n, 0.0, matC, 0, n);
+            long after = System.nanoTime();
+            if (i >= WARMUP) {
+                best = Math.min(best, (after - before) / 1e6);
+            }
+        }
+        return best;
+    }
+
+    private static double dgetrf(KBlas blas, int n) {
+        double[] source = random(n * n);
+        int[] pivots = new int[n];
+        int[] info = new int[1];
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < WARMUP + RUNS; i++) {
+            double[] matA = source.clone();
+            long before = System.nanoTime();
+            blas.dgetrf(n, n, matA, 0, n, pivots, 0, info);
+            long after = System.nanoTime();
+            if (i >= WARMUP) {
+                best = Math.min(best, (after - before) / 1e6);
+            }
+        }
+        return best;
+    }
+
+}
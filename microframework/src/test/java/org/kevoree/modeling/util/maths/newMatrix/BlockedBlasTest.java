@@ -0,0 +1,149 @@
+package org.kevoree.modeling.util.maths.newMatrix;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kevoree.modeling.util.maths.structure.blas.KBlas;
+import org.kevoree.modeling.util.maths.structure.blas.KBlasTransposeType;
+import org.kevoree.modeling.util.maths.structure.blas.impl.BlockedBlas;
+import org.kevoree.modeling.util.maths.structure.blas.impl.JavaBlas;
+
+import java.util.Random;
+
+/**
+ * @ignore ts
+ */
+public class BlockedBlasTest {
+
+    private static final double EPS = 1e-7;
+
+    private static double[] random(int size, Random random) {
+        double[] result = new double[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = random.nextDouble() * 100 - 50;
+        }
+        return result;
+    }
+
+    @Test
+    public void dgemmTest() {
+        KBlas reference = new JavaBlas();
+        KBlas blocked = new BlockedBlas(4);
+        Random random = new Random(7);
+        KBlasTransposeType[] types = {KBlasTransposeType.NOTRANSPOSE, KBlasTransposeType.TRANSPOSE};
+        //edge tiles, several cache blocks and a product large enough to be split over the pool
+        int[][] sizes = {{1, 1, 1}, {5, 3, 7}, {37, 29, 301}, {150, 130, 270}};
+        for (int s = 0; s < sizes.length; s++) {
+            int m = sizes[s][0];
+            int n = sizes[s][1];
+            int k = sizes[s][2];
+            for (int ta = 0; ta < types.length; ta++) {
+                for (int tb = 0; tb < types.length; tb++) {
+                    int ldA = ta == 0 ? m + 1 : k + 1;
+                    int ldB = tb == 0 ? k + 2 : n + 2;
+                    int ldC = m + 3;
+                    double[] matA = random(ldA * (ta == 0 ? k : m) + 1, random);
+                    double[] matB = random(ldB * (tb == 0 ? n : k) + 2, random);
+                    double[] expected = random(ldC * n + 3, random);
+                    double[] result = expected.clone();
+                    reference.dgemm(types[ta], types[tb], m, n, k, 0.8, matA, 1, ldA, matB, 2, ldB, 0.2, expected, 3, ldC);
+                    blocked.dgemm(types[ta], types[tb], m, n, k, 0.8, matA, 1, ldA, matB, 2, ldB, 0.2, result, 3, ldC);
+                    for (int i = 0; i < expected.length; i++) {
+                        Assert.assertEquals(expected[i], result[i], EPS * Math.max(1, Math.abs(expected[i])));
+                    }
+                }
+            }
+        }
+        blocked.disconnect();
+    }
+
+    @Test
+    public void level1And2Test() {
+        KBlas reference = new JavaBlas();
+        KBlas blocked = new BlockedBlas(1);
+        Random random = new Random(5);
+        //unit and negative strides, with offsets
+        int[][] increments = {{1, 1}, {2, 3}, {-2, 1}, {1, -3}};
+        for (int s = 0; s < increments.length; s++) {
+            int n = 37;
+            int incX = increments[s][0];
+            int incY = increments[s][1];
+            double[] x = random(2 + n * Math.abs(incX), random);
+            double[] y = random(3 + n * Math.abs(incY), random);
+            Assert.assertEquals(reference.ddot(n, x, 2, incX, y, 3, incY), blocked.ddot(n, x, 2, incX, y, 3, incY), 1e-9);
+            double[] expected = y.clone();
+            double[] result = y.clone();
+            reference.daxpy(n, 0.7, x, 2, incX, expected, 3, incY);
+            blocked.daxpy(n, 0.7, x, 2, incX, result, 3, incY);
+            Assert.assertArrayEquals(expected, result, 1e-9);
+        }
+        KBlasTransposeType[] types = {KBlasTransposeType.NOTRANSPOSE, KBlasTransposeType.TRANSPOSE};
+        int m = 23;
+        int n = 17;
+        int ldA = m + 2;
+        double[] matA = random(1 + ldA * n, random);
+        for (int t = 0; t < types.length; t++) {
+            for (int s = 0; s < increments.length; s++) {
+                int incX = increments[s][0];
+                int incY = increments[s][1];
+                int lengthX = t == 0 ? n : m;
+                int lengthY = t == 0 ? m : n;
+                double[] x = random(1 + lengthX * Math.abs(incX), random);
+                double[] expected = random(2 + lengthY * Math.abs(incY), random);
+                double[] result = expected.clone();
+                reference.dgemv(types[t], m, n, 1.3, matA, 1, ldA, x, 1, incX, 0.4, expected, 2, incY);
+                blocked.dgemv(types[t], m, n, 1.3, matA, 1, ldA, x, 1, incX, 0.4, result, 2, incY);
+                for (int i = 0; i < expected.length; i++) {
+                    Assert.assertEquals(expected[i], result[i], EPS * Math.max(1, Math.abs(expected[i])));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void luTest() {
+        KBlas reference = new JavaBlas();
+        KBlas blocked = new BlockedBlas(4);
+        Random random = new Random(11);
+        //panels of width 64 with a remainder, and a non square matrix
+        int[][] sizes = {{3, 3}, {150, 150}, {200, 130}};
+        for (int s = 0; s < sizes.length; s++) {
+            int rows = sizes[s][0];
+            int columns = sizes[s][1];
+            double[] expected = random(rows * columns, random);
+            double[] result = expected.clone();
+            int mn = Math.min(rows, columns);
+            int[] expectedPivots = new int[mn];
+            int[] resultPivots = new int[mn];
+            int[] info = new int[1];
+            reference.dgetrf(rows, columns, expected, 0, rows, expectedPivots, 0, info);
+            Assert.assertEquals(0, info[0]);
+            blocked.dgetrf(rows, columns, result, 0, rows, resultPivots, 0, info);
+            Assert.assertEquals(0, info[0]);
+            Assert.assertArrayEquals(expectedPivots, resultPivots);
+            for (int i = 0; i < expected.length; i++) {
+                Assert.assertEquals(expected[i], result[i], EPS * Math.max(1, Math.abs(expected[i])));
+            }
+            if (rows == columns) {
+                KBlasTransposeType[] types = {KBlasTransposeType.NOTRANSPOSE, KBlasTransposeType.TRANSPOSE};
+                for (int t = 0; t < types.length; t++) {
+                    int nrhs = 5;
+                    double[] expectedSolution = random(rows * nrhs, random);
+                    double[] solution = expectedSolution.clone();
+                    reference.dgetrs(types[t], rows, nrhs, expected, 0, rows, expectedPivots, 0, expectedSolution, 0, rows, info);
+                    blocked.dgetrs(types[t], rows, nrhs, result, 0, rows, resultPivots, 0, solution, 0, rows, info);
+                    Assert.assertEquals(0, info[0]);
+                    for (int i = 0; i < solution.length; i++) {
+                        Assert.assertEquals(expectedSolution[i], solution[i], 1e-6 * Math.max(1, Math.abs(expectedSolution[i])));
+                    }
+                }
+            }
+        }
+        //a singular matrix reports its first zero pivot
+        double[] singular = {1, 2, 2, 4};
+        int[] info = new int[1];
+        blocked.dgetrf(2, 2, singular, 0, 2, new int[2], 0, info);
+        Assert.assertEquals(2, info[0]);
+        blocked.disconnect();
+    }
+
+}
@@ -59,4 +59,44 @@ public class Array1DTest {
         }
     }
 
+    @Test
+    public void viewTest() {
+        KMetaModel mm = new MetaModel("test");
+        KMetaClass mc = mm.addInferMetaClass("infer_class", new KInferAlg() {
+            @Override
+            public void train(KArray2D trainingSet, KArray2D expectedResultSet, KObject currentInferObject, KInternalDataManager manager) {
+
+            }
+
+            @Override
+            public KArray2D infer(KArray2D features, KObject currentInferObject, KInternalDataManager manager) {
+                return new NativeArray2D(1, 1);
+            }
+        });
+        KObjectChunk segment = new HeapObjectChunk(-1, -1, -1, null);
+        segment.init(null, mm, mc.index());
+        segment.extendDoubleArray(mc.dependencies().index(), 5, mc);
+        //a view of the last 3 elements
+        ViewArray1D view = new ViewArray1D(3, 2, mc.dependencies().index(), segment, mc);
+        for (int i = 0; i < view.size(); i++) {
+            view.set(i, i + 1);
+        }
+        KArray1D cloned = view.clone();
+        Assert.assertEquals(3, cloned.size());
+        for (int i = 0; i < cloned.size(); i++) {
+            Assert.assertTrue(cloned.get(i) == i + 1);
+        }
+        //the clone is detached from the view
+        cloned.set(0, 42);
+        Assert.assertTrue(view.get(0) == 1);
+        cloned.addElement(3, 2);
+        Assert.assertEquals(5, cloned.size());
+        try {
+            view.addElement(3, 2);
+            Assert.fail("a view cannot grow");
+        } catch (RuntimeException e) {
+            Assert.assertEquals(3, view.size());
+        }
+    }
+
 }